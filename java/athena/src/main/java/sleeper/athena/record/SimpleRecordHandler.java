@@ -20,6 +20,7 @@ import com.amazonaws.services.athena.AmazonAthena;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.secretsmanager.AWSSecretsManager;
 import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.parquet.filter2.compat.FilterCompat;
 import org.apache.parquet.filter2.predicate.FilterPredicate;
@@ -30,6 +31,8 @@ import sleeper.configuration.properties.table.TableProperties;
 import sleeper.core.iterator.CloseableIterator;
 import sleeper.core.record.Record;
 import sleeper.core.schema.Schema;
+import sleeper.io.parquet.cache.LocalBlockCache;
+import sleeper.io.parquet.cache.ParquetFooterCache;
 import sleeper.io.parquet.record.ParquetReaderIterator;
 import sleeper.io.parquet.record.ParquetRecordReader;
 
@@ -99,8 +102,10 @@ public class SimpleRecordHandler extends SleeperRecordHandler {
         FilterTranslator filterTranslator = new FilterTranslator(schema);
         FilterPredicate filterPredicate = filterTranslator.toPredicate(recordsRequest.getConstraints().getSummary());
 
-        ParquetReader.Builder<Record> recordReaderBuilder = new ParquetRecordReader.Builder(new Path(fileName), schema)
-                .withConf(getConfigurationForTable(tableProperties));
+        Configuration conf = getConfigurationForTable(tableProperties);
+        ParquetReader.Builder<Record> recordReaderBuilder = new ParquetRecordReader.Builder(
+                ParquetFooterCache.forProcess().getInputFile(new Path(fileName), conf, LocalBlockCache.forTable(tableProperties)), schema)
+                .withConf(conf);
 
         if (filterPredicate != null) {
             recordReaderBuilder.withFilter(FilterCompat.get(filterPredicate));
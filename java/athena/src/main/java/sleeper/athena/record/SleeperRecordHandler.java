@@ -47,6 +47,8 @@ import sleeper.core.schema.type.LongType;
 import sleeper.core.schema.type.MapType;
 import sleeper.core.schema.type.StringType;
 import sleeper.core.schema.type.Type;
+import sleeper.io.parquet.cache.LocalBlockCache;
+import sleeper.io.parquet.cache.ParquetFooterCache;
 import sleeper.utils.HadoopConfigurationProvider;
 
 import java.io.IOException;
@@ -74,6 +76,8 @@ public abstract class SleeperRecordHandler extends RecordHandler {
         this.instanceProperties = new InstanceProperties();
         instanceProperties.loadFromS3(s3Client, configBucket);
         this.tablePropertiesProvider = new TablePropertiesProvider(s3Client, instanceProperties);
+        ParquetFooterCache.configureForProcess(instanceProperties);
+        LocalBlockCache.configureForProcess(instanceProperties);
     }
 
     public SleeperRecordHandler(AmazonS3 s3Client, String configBucket, AWSSecretsManager secretsManager, AmazonAthena athena) throws IOException {
@@ -81,6 +85,8 @@ public abstract class SleeperRecordHandler extends RecordHandler {
         this.instanceProperties = new InstanceProperties();
         instanceProperties.loadFromS3(s3Client, configBucket);
         this.tablePropertiesProvider = new TablePropertiesProvider(s3Client, instanceProperties);
+        ParquetFooterCache.configureForProcess(instanceProperties);
+        LocalBlockCache.configureForProcess(instanceProperties);
     }
 
     /**
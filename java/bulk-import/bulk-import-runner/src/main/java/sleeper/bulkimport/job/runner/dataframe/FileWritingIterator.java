@@ -29,6 +29,7 @@ import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.TableProperties;
 import sleeper.configuration.properties.table.TableProperty;
 import sleeper.core.record.Record;
+import sleeper.core.record.RecordLayout;
 import sleeper.core.schema.Field;
 import sleeper.core.schema.Schema;
 import sleeper.core.schema.type.ByteArrayType;
@@ -56,6 +57,7 @@ public class FileWritingIterator implements Iterator<Row> {
     private final Iterator<Row> input;
     private final Schema schema;
     private final List<Field> allSchemaFields;
+    private final RecordLayout recordLayout;
     private final Configuration conf;
     private final InstanceProperties instanceProperties;
     private final TableProperties tableProperties;
@@ -73,6 +75,7 @@ public class FileWritingIterator implements Iterator<Row> {
         this.tableProperties = tableProperties;
         this.schema = tableProperties.getSchema();
         this.allSchemaFields = schema.getAllFields();
+        this.recordLayout = RecordLayout.forSchema(schema);
         this.conf = conf;
         LOGGER.info("Initialised FileWritingIterator");
         LOGGER.info("Schema is {}", schema);
@@ -157,15 +160,15 @@ public class FileWritingIterator implements Iterator<Row> {
     }
 
     private Record getRecord(Row row) {
-        Record record = new Record();
+        Record record = new Record(recordLayout);
         int i = 0;
         for (Field field : allSchemaFields) {
             if (field.getType() instanceof ListType) {
-                record.put(field.getName(), row.getList(i));
+                record.put(i, row.getList(i));
             } else if (field.getType() instanceof MapType) {
-                record.put(field.getName(), row.getJavaMap(i));
+                record.put(i, row.getJavaMap(i));
             } else {
-                record.put(field.getName(), row.get(i));
+                record.put(i, row.get(i));
             }
             i++;
         }
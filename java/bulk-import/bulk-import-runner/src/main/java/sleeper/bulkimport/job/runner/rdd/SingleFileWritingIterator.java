@@ -32,6 +32,7 @@ import sleeper.core.key.Key;
 import sleeper.core.partition.Partition;
 import sleeper.core.partition.PartitionTree;
 import sleeper.core.record.Record;
+import sleeper.core.record.RecordLayout;
 import sleeper.core.schema.Field;
 import sleeper.core.schema.Schema;
 import sleeper.core.schema.type.ByteArrayType;
@@ -61,6 +62,7 @@ public class SingleFileWritingIterator implements Iterator<Row> {
     private final TableProperties tableProperties;
     private final Schema schema;
     private final List<Field> allSchemaFields;
+    private final RecordLayout recordLayout;
     private final Configuration conf;
     private final PartitionTree partitionTree;
     private ParquetWriter<Record> parquetWriter;
@@ -89,6 +91,7 @@ public class SingleFileWritingIterator implements Iterator<Row> {
         this.tableProperties = tableProperties;
         this.schema = tableProperties.getSchema();
         this.allSchemaFields = schema.getAllFields();
+        this.recordLayout = RecordLayout.forSchema(schema);
         this.conf = conf;
         this.partitionTree = partitionTree;
         this.outputFilename = outputFilename;
@@ -156,15 +159,15 @@ public class SingleFileWritingIterator implements Iterator<Row> {
     }
 
     private Record getRecord(Row row) {
-        Record record = new Record();
+        Record record = new Record(recordLayout);
         int i = 0;
         for (Field field : allSchemaFields) {
             if (field.getType() instanceof ListType) {
-                record.put(field.getName(), row.getList(i));
+                record.put(i, row.getList(i));
             } else if (field.getType() instanceof MapType) {
-                record.put(field.getName(), row.getJavaMap(i));
+                record.put(i, row.getJavaMap(i));
             } else {
-                record.put(field.getName(), row.get(i));
+                record.put(i, row.get(i));
             }
             i++;
         }
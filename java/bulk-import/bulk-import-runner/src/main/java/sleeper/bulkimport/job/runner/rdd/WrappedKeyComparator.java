@@ -16,7 +16,7 @@
 package sleeper.bulkimport.job.runner.rdd;
 
 import sleeper.core.key.Key;
-import sleeper.core.record.KeyComparator;
+import sleeper.core.record.CompiledKeyComparator;
 import sleeper.core.schema.Schema;
 import sleeper.core.schema.SchemaSerDe;
 import sleeper.core.schema.type.PrimitiveType;
@@ -35,7 +35,7 @@ import java.util.List;
 public class WrappedKeyComparator implements Comparator<Key>, Serializable {
     private static final long serialVersionUID = 7448396149070034670L;
     private final String schemaAsString;
-    private transient KeyComparator keyComparator;
+    private transient CompiledKeyComparator keyComparator;
 
     public WrappedKeyComparator(String schemaAsString) {
         this.schemaAsString = schemaAsString;
@@ -48,7 +48,7 @@ public class WrappedKeyComparator implements Comparator<Key>, Serializable {
             List<PrimitiveType> rowAndSortKeyTypes = new ArrayList<>();
             rowAndSortKeyTypes.addAll(schema.getRowKeyTypes());
             rowAndSortKeyTypes.addAll(schema.getSortKeyTypes());
-            keyComparator = new KeyComparator(rowAndSortKeyTypes);
+            keyComparator = new CompiledKeyComparator(rowAndSortKeyTypes);
         }
         return keyComparator.compare(key1, key2);
     }
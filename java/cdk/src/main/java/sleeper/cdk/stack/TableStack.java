@@ -43,6 +43,7 @@ import sleeper.cdk.jars.LambdaCode;
 import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.TableProperties;
 import sleeper.statestore.dynamodb.DynamoDBStateStore;
+import sleeper.statestore.s3.S3DeltaLogStateStore;
 import sleeper.statestore.s3.S3StateStore;
 
 import java.io.File;
@@ -151,7 +152,8 @@ public class TableStack extends NestedStack {
         String stateStoreClassName = tableProperties.get(STATESTORE_CLASSNAME);
         if (stateStoreClassName.equals(DynamoDBStateStore.class.getName())) {
             stateStoreStack = createDynamoDBStateStore(instanceProperties, tableProperties, sleeperTablesProvider);
-        } else if (stateStoreClassName.equals(S3StateStore.class.getName())) {
+        } else if (stateStoreClassName.equals(S3StateStore.class.getName())
+                || stateStoreClassName.equals(S3DeltaLogStateStore.class.getName())) {
             stateStoreStack = createS3StateStore(instanceProperties, tableProperties, databucket, sleeperTablesProvider);
         } else {
             throw new RuntimeException("Unknown statestore class name");
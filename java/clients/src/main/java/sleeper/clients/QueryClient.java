@@ -35,6 +35,7 @@ import sleeper.core.schema.Schema;
 import sleeper.query.QueryException;
 import sleeper.query.executor.QueryExecutor;
 import sleeper.query.model.Query;
+import sleeper.statestore.FileInfo;
 import sleeper.statestore.StateStore;
 import sleeper.statestore.StateStoreException;
 import sleeper.statestore.StateStoreProvider;
@@ -74,13 +75,13 @@ public class QueryClient extends QueryCommandLineClient {
 
         StateStore stateStore = stateStoreProvider.getStateStore(tableProperties);
         List<Partition> partitions = stateStore.getAllPartitions();
-        Map<String, List<String>> partitionToFileMapping = stateStore.getPartitionToActiveFilesMap();
+        List<FileInfo> activeFiles = stateStore.getActiveFiles();
         System.out.println("Retrieved " + partitions.size() + " partitions from StateStore");
 
         if (!cachedQueryExecutors.containsKey(tableName)) {
             QueryExecutor queryExecutor = new QueryExecutor(objectFactory, tableProperties, stateStoreProvider.getStateStore(tableProperties),
                     conf, executorService);
-            queryExecutor.init(partitions, partitionToFileMapping);
+            queryExecutor.init(partitions, activeFiles);
             cachedQueryExecutors.put(tableName, queryExecutor);
         }
     }
@@ -123,6 +123,10 @@ public class QueryLambdaClient extends QueryCommandLineClient {
             } else {
                 resultsPublisherConfig.put(ResultsOutputConstants.DESTINATION, SQSResultsOutput.SQS);
                 System.out.println("Results will be published to SQS queue " + getInstanceProperties().get(QUERY_RESULTS_QUEUE_URL));
+                System.out.println("Send results as JSON (j) or compressed Arrow record batches (a)? Defaults to JSON");
+                if ("a".equalsIgnoreCase(scanner.nextLine())) {
+                    resultsPublisherConfig.put(ResultsOutputConstants.RESULTS_FORMAT, ResultsOutputConstants.ARROW_FORMAT);
+                }
             }
             break;
         }
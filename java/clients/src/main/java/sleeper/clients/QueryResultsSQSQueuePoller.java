@@ -20,6 +20,7 @@ import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.AmazonSQSClientBuilder;
 import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
 import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
 import com.amazonaws.services.sqs.model.ReceiveMessageResult;
 import org.slf4j.Logger;
@@ -30,7 +31,10 @@ import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.core.record.Record;
 import sleeper.core.record.ResultsBatch;
 import sleeper.core.record.serialiser.JSONResultsBatchSerialiser;
+import sleeper.core.record.serialiser.ResultsBatchSerialiser;
 import sleeper.core.schema.Schema;
+import sleeper.query.model.output.ArrowResultsBatchSerialiser;
+import sleeper.query.model.output.ResultsOutputConstants;
 
 import java.io.IOException;
 import java.util.List;
@@ -43,6 +47,8 @@ import static sleeper.configuration.properties.instance.SystemDefinedInstancePro
 public class QueryResultsSQSQueuePoller {
     private final AmazonSQS sqsClient;
     private final String resultsSQSQueueUrl;
+    private final JSONResultsBatchSerialiser jsonSerialiser = new JSONResultsBatchSerialiser();
+    private final ArrowResultsBatchSerialiser arrowSerialiser = new ArrowResultsBatchSerialiser();
 
     private static final Logger LOGGER = LoggerFactory.getLogger(QueryResultsSQSQueuePoller.class);
 
@@ -57,7 +63,8 @@ public class QueryResultsSQSQueuePoller {
             ReceiveMessageRequest receiveMessageRequest = new ReceiveMessageRequest()
                     .withQueueUrl(resultsSQSQueueUrl)
                     .withMaxNumberOfMessages(10)
-                    .withWaitTimeSeconds(20);
+                    .withWaitTimeSeconds(20)
+                    .withMessageAttributeNames(ResultsOutputConstants.RESULTS_FORMAT);
             ReceiveMessageResult receiveMessageResult = sqsClient.receiveMessage(receiveMessageRequest);
             if (receiveMessageResult.getMessages().isEmpty()) {
                 numConsecutiveNoMessages++;
@@ -68,8 +75,7 @@ public class QueryResultsSQSQueuePoller {
             for (Message message : receiveMessageResult.getMessages()) {
                 String messageHandle = message.getReceiptHandle();
                 String serialisedResults = message.getBody();
-                JSONResultsBatchSerialiser serialiser = new JSONResultsBatchSerialiser();
-                ResultsBatch resultsBatch = serialiser.deserialise(serialisedResults);
+                ResultsBatch resultsBatch = getSerialiser(message).deserialise(serialisedResults);
                 String queryId = resultsBatch.getQueryId();
                 Schema schema = resultsBatch.getSchema();
                 List<Record> records = resultsBatch.getRecords();
@@ -80,6 +86,15 @@ public class QueryResultsSQSQueuePoller {
         }
     }
 
+    private ResultsBatchSerialiser getSerialiser(Message message) {
+        MessageAttributeValue format = message.getMessageAttributes().get(ResultsOutputConstants.RESULTS_FORMAT);
+        if (null != format && ResultsOutputConstants.ARROW_FORMAT.equals(format.getStringValue())) {
+            return arrowSerialiser;
+        } else {
+            return jsonSerialiser;
+        }
+    }
+
     public static void main(String[] args) throws IOException {
         if (1 != args.length) {
             throw new IllegalArgumentException("Usage: <instance id>");
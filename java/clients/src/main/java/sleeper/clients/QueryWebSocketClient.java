@@ -35,15 +35,20 @@ import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.instance.SystemDefinedInstanceProperty;
 import sleeper.configuration.properties.table.TableProperties;
 import sleeper.configuration.properties.table.TablePropertiesProvider;
+import sleeper.core.record.ResultsBatch;
 import sleeper.query.model.Query;
 import sleeper.query.model.QuerySerDe;
+import sleeper.query.model.output.ArrowResultsBatchSerialiser;
+import sleeper.query.model.output.ResultsOutputConstants;
 import sleeper.statestore.StateStoreException;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -71,6 +76,10 @@ public class QueryWebSocketClient extends QueryCommandLineClient {
         Client client = null;
         try {
             long startTime = System.currentTimeMillis();
+            // Request results as compressed Arrow record batches, which are smaller than JSON
+            Map<String, String> resultsPublisherConfig = new HashMap<>();
+            resultsPublisherConfig.put(ResultsOutputConstants.RESULTS_FORMAT, ResultsOutputConstants.ARROW_FORMAT);
+            query.setResultsPublisherConfig(resultsPublisherConfig);
             client = new Client(URI.create(apiUrl), query, querySerDe);
             while (!client.isQueryComplete()) {
                 Thread.sleep(500);
@@ -92,7 +101,8 @@ public class QueryWebSocketClient extends QueryCommandLineClient {
     private static class Client extends WebSocketClient {
         private final Gson serde = new GsonBuilder().create();
         private final Set<String> outstandingQueries = new HashSet<>();
-        private final Map<String, JsonArray> records = new HashMap<>();
+        private final ArrowResultsBatchSerialiser arrowSerialiser = new ArrowResultsBatchSerialiser();
+        private final Map<String, List<String>> records = new HashMap<>();
         private QuerySerDe querySerDe;
         private Query query;
         private boolean queryComplete = false;
@@ -174,11 +184,17 @@ public class QueryWebSocketClient extends QueryCommandLineClient {
                 outstandingQueries.remove(queryId);
 
             } else if (messageType.equals("records")) {
-                JsonArray recordBatch = message.getAsJsonArray("records");
-                if (!records.containsKey(queryId)) {
-                    records.put(queryId, recordBatch);
+                List<String> queryRecords = records.computeIfAbsent(queryId, id -> new ArrayList<>());
+                JsonElement format = message.get("format");
+                if (null != format && format.getAsString().equals(ResultsOutputConstants.ARROW_FORMAT)) {
+                    try {
+                        ResultsBatch resultsBatch = arrowSerialiser.deserialise(message.get("records").getAsString());
+                        resultsBatch.getRecords().forEach(record -> queryRecords.add(record.toString(resultsBatch.getSchema())));
+                    } catch (IOException e) {
+                        System.err.println("ERROR: Failed to read records for query " + queryId + ": " + e);
+                    }
                 } else {
-                    records.get(queryId).addAll(recordBatch);
+                    message.getAsJsonArray("records").forEach(record -> queryRecords.add(record.toString()));
                 }
 
             } else if (messageType.equals("completed")) {
@@ -204,8 +220,8 @@ public class QueryWebSocketClient extends QueryCommandLineClient {
                 queryComplete = true;
                 if (records.size() > 0) {
                     System.out.println("Query results:");
-                    for (Entry<String, JsonArray> subQueryRecords : records.entrySet()) {
-                        for (JsonElement record : subQueryRecords.getValue()) {
+                    for (Entry<String, List<String>> subQueryRecords : records.entrySet()) {
+                        for (String record : subQueryRecords.getValue()) {
                             System.out.println(record);
                         }
                     }
@@ -39,6 +39,7 @@ import sleeper.statestore.InitialiseStateStore;
 import sleeper.statestore.StateStore;
 import sleeper.statestore.StateStoreException;
 import sleeper.statestore.StateStoreFactory;
+import sleeper.statestore.s3.S3DeltaLogStateStore;
 import sleeper.statestore.s3.S3StateStore;
 
 import java.io.IOException;
@@ -103,15 +104,35 @@ public class ReinitialiseTable {
         String instanceTableName = instanceProperties.get(ID) + "-table-" + tableName;
         String s3TableBucketName = "sleeper-" + instanceTableName;
 
+        String stateStoreClassName = tableProperties.get(STATESTORE_CLASSNAME);
         boolean isS3StateStore = false;
-        if (tableProperties.get(STATESTORE_CLASSNAME).equals("sleeper.statestore.s3.S3StateStore")) {
+        boolean isS3DeltaLogStateStore = false;
+        if (stateStoreClassName.equals(S3StateStore.class.getName())) {
             LOGGER.info("S3 State Store detected");
             isS3StateStore = true;
+        } else if (stateStoreClassName.equals(S3DeltaLogStateStore.class.getName())) {
+            LOGGER.info("S3 Delta Log State Store detected");
+            isS3DeltaLogStateStore = true;
         } else {
             LOGGER.info("Dynamo DB State Store detected");
         }
 
-        if (deletePartitions) {
+        if (isS3DeltaLogStateStore) {
+            // The deltas and checkpoints are deleted by the state store itself unless all its state is deleted
+            if (deletePartitions) {
+                deleteRelevantS3StateStoreRevisionInfo(tableProperties.get(REVISION_TABLENAME));
+            }
+            deleteObjectsInTableBucket(s3TableBucketName, true);
+            S3DeltaLogStateStore stateStore = new S3DeltaLogStateStore(instanceProperties, tableProperties,
+                    dynamoDBClient, conf);
+            if (deletePartitions) {
+                LOGGER.info("Fully reinitialising table");
+                initialiseStateStore(tableProperties, stateStore);
+            } else {
+                LOGGER.info("Deleting file information and initialising it to be empty");
+                stateStore.clearFileInfo();
+            }
+        } else if (deletePartitions) {
             deleteContentsOfDynamoDbTables(tableProperties, isS3StateStore);
             deleteObjectsInTableBucket(s3TableBucketName, isS3StateStore);
 
@@ -59,6 +59,7 @@ import sleeper.statestore.StateStore;
 import sleeper.statestore.StateStoreException;
 import sleeper.statestore.dynamodb.DynamoDBStateStore;
 import sleeper.statestore.dynamodb.DynamoDBStateStoreCreator;
+import sleeper.statestore.s3.S3DeltaLogStateStore;
 import sleeper.statestore.s3.S3StateStore;
 
 import java.io.BufferedWriter;
@@ -107,6 +108,7 @@ public class ReinitialiseTableIT {
     private static final String CONFIG_BUCKET_NAME = "sleeper-" + INSTANCE_NAME + "-config";
     private static final String DYNAMO_STATE_STORE_CLASS = "sleeper.statestore.dynamodb.DynamoDBStateStore";
     private static final String S3_STATE_STORE_CLASS = "sleeper.statestore.s3.S3StateStore";
+    private static final String S3_DELTA_LOG_STATE_STORE_CLASS = "sleeper.statestore.s3.S3DeltaLogStateStore";
     private static final String FILE_SHOULD_NOT_BE_DELETED_1 = "file0.parquet";
     private static final String FILE_SHOULD_NOT_BE_DELETED_2 = "for_ingest/file0.parquet";
     private static final String FILE_SHOULD_NOT_BE_DELETED_3 = "partition.parquet";
@@ -290,6 +292,70 @@ public class ReinitialiseTableIT {
         assertObjectsWithinPartitionsAndStateStoreAreaInTheTableBucketHaveBeenDeleted(tableBucketName);
     }
 
+    @Test
+    public void shouldDeleteFilesInfoAndObjectsInPartitionsByDefaultForS3DeltaLogStateStore() throws Exception {
+        // Given
+        String tableName = UUID.randomUUID().toString();
+        String tableBucketName = "sleeper" + "-" + INSTANCE_NAME + "-table-" + tableName;
+        setupS3buckets(tableBucketName, true);
+
+        InstanceProperties validInstanceProperties =
+                createValidInstanceProperties(tableName, true);
+        validInstanceProperties.saveToS3(s3Client);
+
+        TableProperties validTableProperties =
+                createValidTableProperties(validInstanceProperties, tableName, true);
+        validTableProperties.set(TableProperty.STATESTORE_CLASSNAME, S3_DELTA_LOG_STATE_STORE_CLASS);
+        validTableProperties.saveToS3(s3Client);
+
+        setupS3DeltaLogStateStore(validInstanceProperties, validTableProperties);
+
+        // When
+        ReinitialiseTable reinitialiseTable = new ReinitialiseTable(s3Client,
+                dynamoDBClient, INSTANCE_NAME, tableName, false);
+        reinitialiseTable.run();
+
+        // Then
+        S3DeltaLogStateStore stateStore = new S3DeltaLogStateStore(validInstanceProperties, validTableProperties,
+                dynamoDBClient, new Configuration());
+        assertThat(stateStore.getActiveFiles()).isEmpty();
+        assertThat(stateStore.getAllPartitions()).hasSize(3);
+        assertThat(stateStore.getLeafPartitions()).hasSize(2);
+        assertOnlyObjectsWithinPartitionsAndStateStoreFilesAreasInTheTableBucketHaveBeenDeleted(tableBucketName);
+    }
+
+    @Test
+    public void shouldDeletePartitionsWhenOptionSelectedForS3DeltaLogStateStore() throws Exception {
+        // Given
+        String tableName = UUID.randomUUID().toString();
+        String tableBucketName = "sleeper" + "-" + INSTANCE_NAME + "-table-" + tableName;
+        setupS3buckets(tableBucketName, true);
+
+        InstanceProperties validInstanceProperties =
+                createValidInstanceProperties(tableName, true);
+        validInstanceProperties.saveToS3(s3Client);
+
+        TableProperties validTableProperties =
+                createValidTableProperties(validInstanceProperties, tableName, true);
+        validTableProperties.set(TableProperty.STATESTORE_CLASSNAME, S3_DELTA_LOG_STATE_STORE_CLASS);
+        validTableProperties.saveToS3(s3Client);
+
+        setupS3DeltaLogStateStore(validInstanceProperties, validTableProperties);
+
+        // When
+        ReinitialiseTable reinitialiseTable = new ReinitialiseTable(s3Client,
+                dynamoDBClient, INSTANCE_NAME, tableName, true);
+        reinitialiseTable.run();
+
+        // Then
+        S3DeltaLogStateStore stateStore = new S3DeltaLogStateStore(validInstanceProperties, validTableProperties,
+                dynamoDBClient, new Configuration());
+        assertThat(stateStore.getActiveFiles()).isEmpty();
+        assertThat(stateStore.getAllPartitions()).hasSize(1);
+        assertThat(stateStore.getLeafPartitions()).hasSize(1);
+        assertObjectsWithinPartitionsAndStateStoreAreaInTheTableBucketHaveBeenDeleted(tableBucketName);
+    }
+
     @Test
     public void shouldSetUpSplitPointsFromFileWhenOptionSelectedForDynamoStateStore() throws Exception {
         // Given
@@ -666,6 +732,19 @@ public class ReinitialiseTableIT {
         return s3StateStore;
     }
 
+    private void setupS3DeltaLogStateStore(InstanceProperties instanceProperties, TableProperties tableProperties)
+            throws IOException, StateStoreException {
+        createRevisionDynamoTable(tableProperties.get(REVISION_TABLENAME));
+        S3DeltaLogStateStore stateStore = new S3DeltaLogStateStore(instanceProperties, tableProperties,
+                dynamoDBClient, new Configuration());
+        stateStore.initialise();
+
+        setupPartitionsAndAddFileInfo(stateStore);
+
+        assertThat(stateStore.getActiveFiles()).hasSize(2);
+        assertThat(stateStore.getAllPartitions()).hasSize(3);
+    }
+
     private void setupPartitionsAndAddFileInfo(StateStore stateStore) throws IOException, StateStoreException {
         //  - Get root partition
         Partition rootPartition = stateStore.getAllPartitions().get(0);
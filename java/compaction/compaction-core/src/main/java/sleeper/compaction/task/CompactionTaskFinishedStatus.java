@@ -22,6 +22,9 @@ import sleeper.core.record.process.RecordsProcessedSummary;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 import java.util.stream.Stream;
 
@@ -128,6 +131,7 @@ public class CompactionTaskFinishedStatus {
         private double recordsReadPerSecond;
         private double recordsWrittenPerSecond;
         private final AverageRecordRate.Builder rateBuilder = AverageRecordRate.builder();
+        private final List<RecordsProcessedSummary> jobSummaries = new ArrayList<>();
 
         private Builder() {
         }
@@ -169,11 +173,12 @@ public class CompactionTaskFinishedStatus {
 
         public Builder addJobSummary(RecordsProcessedSummary jobSummary) {
             rateBuilder.summary(jobSummary);
+            jobSummaries.add(jobSummary);
             return this;
         }
 
         public Builder jobSummaries(Stream<RecordsProcessedSummary> jobSummaries) {
-            rateBuilder.summaries(jobSummaries);
+            jobSummaries.forEach(this::addJobSummary);
             return this;
         }
 
@@ -182,13 +187,52 @@ public class CompactionTaskFinishedStatus {
             totalJobRuns = rate.getRunCount();
             totalRecordsRead = rate.getRecordsRead();
             totalRecordsWritten = rate.getRecordsWritten();
-            timeSpentOnJobs = rate.getTotalDuration();
-            recordsReadPerSecond = rate.getRecordsReadPerSecond();
-            recordsWrittenPerSecond = rate.getRecordsWrittenPerSecond();
+            timeSpentOnJobs = timeWithAnyJobRunning(jobSummaries);
+            double secondsSpentOnJobs = timeSpentOnJobs.toMillis() / 1000.0;
+            // Avoid reporting NaN or infinite rates when no jobs ran, or they finished too quickly to time
+            if (secondsSpentOnJobs > 0) {
+                recordsReadPerSecond = totalRecordsRead / secondsSpentOnJobs;
+                recordsWrittenPerSecond = totalRecordsWritten / secondsSpentOnJobs;
+            } else {
+                recordsReadPerSecond = 0;
+                recordsWrittenPerSecond = 0;
+            }
             this.finishTime = finishTime;
             return this;
         }
 
+        /**
+         * Computes the time when at least one job was running. A task may run jobs concurrently, so this counts
+         * overlapping time once. When no jobs overlap, this is the total time spent in each job.
+         *
+         * @param summaries the summaries of each job run in the task
+         * @return the time when at least one job was running
+         */
+        private static Duration timeWithAnyJobRunning(List<RecordsProcessedSummary> summaries) {
+            List<RecordsProcessedSummary> byStartTime = new ArrayList<>(summaries);
+            byStartTime.sort(Comparator.comparing(RecordsProcessedSummary::getStartTime));
+            Duration total = Duration.ZERO;
+            Instant periodStart = null;
+            Instant periodEnd = null;
+            for (RecordsProcessedSummary summary : byStartTime) {
+                Instant start = summary.getStartTime();
+                Instant end = start.plus(summary.getTimeInProcess());
+                if (periodEnd == null || start.isAfter(periodEnd)) {
+                    if (periodEnd != null) {
+                        total = total.plus(Duration.between(periodStart, periodEnd));
+                    }
+                    periodStart = start;
+                    periodEnd = end;
+                } else if (end.isAfter(periodEnd)) {
+                    periodEnd = end;
+                }
+            }
+            if (periodEnd != null) {
+                total = total.plus(Duration.between(periodStart, periodEnd));
+            }
+            return total;
+        }
+
         public CompactionTaskFinishedStatus build() {
             return new CompactionTaskFinishedStatus(this);
         }
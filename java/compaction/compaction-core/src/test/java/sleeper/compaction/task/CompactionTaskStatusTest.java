@@ -73,4 +73,67 @@ public class CompactionTaskStatusTest {
                         taskStartedTime, taskFinishedTime, Duration.ofSeconds(50),
                         3000L, 1500L, 100.0, 50.0);
     }
+
+    @Test
+    public void shouldCountTimeOnceWhenJobsOverlap() {
+        // Given
+        Instant taskStartedTime = Instant.parse("2022-09-22T12:00:00Z");
+        Instant jobStartedTime1 = Instant.parse("2022-09-22T12:00:05Z");
+        Instant jobStartedTime2 = Instant.parse("2022-09-22T12:00:10Z");
+        Instant jobStartedTime3 = Instant.parse("2022-09-22T12:00:35Z");
+        Instant taskFinishedTime = Instant.parse("2022-09-22T12:00:50Z");
+
+        RecordsProcessedSummary summary1 = summary(jobStartedTime1, Duration.ofSeconds(10), 1000L, 500L);
+        RecordsProcessedSummary summary2 = summary(jobStartedTime2, Duration.ofSeconds(10), 1000L, 500L);
+        RecordsProcessedSummary summary3 = summary(jobStartedTime3, Duration.ofSeconds(10), 1000L, 500L);
+
+        // When
+        CompactionTaskStatus status = startedStatusBuilder(taskStartedTime)
+                .finished(taskFinishedTime, finishedStatusBuilder(summary3, summary2, summary1))
+                .build();
+
+        // Then
+        assertThat(status).extracting("finishedStatus.totalJobRuns", "finishedStatus.timeSpentOnJobs")
+                .containsExactly(3, Duration.ofSeconds(25));
+        assertThat(status.asProcessRun()).extracting(
+                        "finishedSummary.recordsRead", "finishedSummary.recordsWritten",
+                        "finishedSummary.recordsReadPerSecond", "finishedSummary.recordsWrittenPerSecond")
+                .containsExactly(3000L, 1500L, 120.0, 60.0);
+    }
+
+    @Test
+    public void shouldReportZeroRatesWhenNoJobsRan() {
+        // Given
+        Instant taskStartedTime = Instant.parse("2022-09-22T12:00:00Z");
+        Instant taskFinishedTime = Instant.parse("2022-09-22T12:00:50Z");
+
+        // When
+        CompactionTaskStatus status = startedStatusBuilder(taskStartedTime)
+                .finished(taskFinishedTime, finishedStatusBuilder())
+                .build();
+
+        // Then
+        assertThat(status).extracting("finishedStatus.totalJobRuns", "finishedStatus.timeSpentOnJobs",
+                        "finishedStatus.recordsReadPerSecond", "finishedStatus.recordsWrittenPerSecond")
+                .containsExactly(0, Duration.ZERO, 0.0, 0.0);
+    }
+
+    @Test
+    public void shouldReportZeroRatesWhenJobsTookNoTime() {
+        // Given
+        Instant taskStartedTime = Instant.parse("2022-09-22T12:00:00Z");
+        Instant jobStartedTime = Instant.parse("2022-09-22T12:00:05Z");
+        Instant taskFinishedTime = Instant.parse("2022-09-22T12:00:50Z");
+        RecordsProcessedSummary summary = summary(jobStartedTime, Duration.ZERO, 0L, 0L);
+
+        // When
+        CompactionTaskStatus status = startedStatusBuilder(taskStartedTime)
+                .finished(taskFinishedTime, finishedStatusBuilder(summary))
+                .build();
+
+        // Then
+        assertThat(status).extracting("finishedStatus.totalJobRuns",
+                        "finishedStatus.recordsReadPerSecond", "finishedStatus.recordsWrittenPerSecond")
+                .containsExactly(1, 0.0, 0.0);
+    }
 }
@@ -36,7 +36,10 @@ import sleeper.table.job.TableLister;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static sleeper.configuration.properties.table.TableProperty.COMPACTION_STRATEGY_CLASS;
@@ -49,10 +52,11 @@ import static sleeper.configuration.properties.table.TableProperty.COMPACTION_ST
  * - Groups these by partition.
  * - For each partition, uses the configurable {@link CompactionStrategy} to
  * decide what compaction jobs to create.
- * - These compaction jobs are then sent to SQS.
+ * - These compaction jobs are then sent to SQS in batches.
  */
 public class CreateJobs {
     private static final Logger LOGGER = LoggerFactory.getLogger(CreateJobs.class);
+    private static final int SEND_BATCH_SIZE = 10;
 
     private final ObjectFactory objectFactory;
     private final InstanceProperties instanceProperties;
@@ -122,31 +126,54 @@ public class CreateJobs {
         List<CompactionJob> compactionJobs = compactionStrategy.createCompactionJobs(activeFileInfosWithJobId, activeFileInfosWithNoJobId, allPartitions);
         LOGGER.info("Used {} to create {} compaction jobs", compactionStrategy.getClass().getSimpleName(), compactionJobs.size());
 
-        for (CompactionJob compactionJob : compactionJobs) {
-            // Send compaction job to SQS (NB Send compaction job to SQS before updating the job field of the files in the
-            // StateStore so that if the send to SQS fails then the StateStore will not be updated and later another
-            // job can be created for these files.)
-            jobSender.send(compactionJob);
-
-            // Update the statuses of these files to record that a compaction job is in progress
-            LOGGER.debug("Updating status of files in StateStore");
+        // Send each batch of compaction jobs to SQS, then update the job field of their input files in the
+        // StateStore (NB Send compaction jobs to SQS before updating the job field of the files in the StateStore so
+        // that if the send to SQS fails then the StateStore will not be updated and later another job can be created
+        // for these files.) Later batches are not created if one fails.
+        Map<String, FileInfo> filenameToActiveFile = new HashMap<>();
+        for (FileInfo fileInfo : activeFiles) {
+            filenameToActiveFile.putIfAbsent(fileInfo.getFilename(), fileInfo);
+        }
+        for (int i = 0; i < compactionJobs.size(); i += SEND_BATCH_SIZE) {
+            List<CompactionJob> batch = compactionJobs.subList(i, Math.min(i + SEND_BATCH_SIZE, compactionJobs.size()));
+            Map<String, List<FileInfo>> jobIdToFiles = getInputFilesByJobId(batch, filenameToActiveFile);
+            jobSender.send(batch);
+            updateJobStatusOfFiles(batch, jobIdToFiles, stateStore);
+        }
+    }
 
-            List<FileInfo> fileInfos1 = new ArrayList<>();
+    private static Map<String, List<FileInfo>> getInputFilesByJobId(List<CompactionJob> compactionJobs, Map<String, FileInfo> filenameToActiveFile) {
+        Map<String, List<FileInfo>> jobIdToFiles = new LinkedHashMap<>();
+        for (CompactionJob compactionJob : compactionJobs) {
+            List<FileInfo> jobFiles = new ArrayList<>();
             for (String filename : compactionJob.getInputFiles()) {
-                for (FileInfo fileInfo : activeFiles) {
-                    if (fileInfo.getFilename().equals(filename)) {
-                        fileInfos1.add(fileInfo);
-                        break;
-                    }
+                FileInfo fileInfo = filenameToActiveFile.get(filename);
+                if (null == fileInfo) {
+                    throw new IllegalStateException("Compaction job " + compactionJob.getId()
+                            + " has input file " + filename + " which is not an active file");
                 }
+                jobFiles.add(fileInfo);
             }
-            stateStore.atomicallyUpdateJobStatusOfFiles(compactionJob.getId(), fileInfos1);
+            jobIdToFiles.put(compactionJob.getId(), jobFiles);
+        }
+        return jobIdToFiles;
+    }
+
+    private void updateJobStatusOfFiles(List<CompactionJob> compactionJobs, Map<String, List<FileInfo>> jobIdToFiles, StateStore stateStore) throws StateStoreException {
+        // Update the statuses of these files to record that a compaction job is in progress
+        LOGGER.debug("Updating status of files in StateStore for {} jobs", compactionJobs.size());
+        stateStore.atomicallyUpdateJobStatusOfFiles(jobIdToFiles);
+        for (CompactionJob compactionJob : compactionJobs) {
             jobStatusStore.jobCreated(compactionJob);
         }
     }
 
+    /**
+     * Sends a batch of compaction jobs to be run. Jobs are sent in batches of up to 10, the most that SQS accepts in
+     * one request.
+     */
     @FunctionalInterface
     public interface JobSender {
-        void send(CompactionJob compactionJob) throws IOException;
+        void send(List<CompactionJob> compactionJobs) throws IOException;
     }
 }
@@ -16,6 +16,10 @@
 package sleeper.compaction.job.creation;
 
 import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
 import com.amazonaws.services.sqs.model.SendMessageRequest;
 import com.amazonaws.services.sqs.model.SendMessageResult;
 import org.slf4j.Logger;
@@ -27,12 +31,19 @@ import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.TablePropertiesProvider;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static sleeper.configuration.properties.instance.SystemDefinedInstanceProperty.COMPACTION_JOB_QUEUE_URL;
 import static sleeper.configuration.properties.instance.SystemDefinedInstanceProperty.SPLITTING_COMPACTION_JOB_QUEUE_URL;
 
 public class SendCompactionJobToSqs {
     private static final Logger LOGGER = LoggerFactory.getLogger(SendCompactionJobToSqs.class);
+    private static final int MAX_BATCH_SIZE = 10;
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+    private static final long FIRST_RETRY_WAIT_MILLIS = 200L;
 
     private final InstanceProperties instanceProperties;
     private final AmazonSQS sqsClient;
@@ -48,10 +59,73 @@ public class SendCompactionJobToSqs {
     }
 
     public void send(CompactionJob compactionJob) throws IOException {
+        sendToQueue(compactionJob, getQueueUrl(compactionJob));
+    }
+
+    /**
+     * Sends compaction jobs to their queues in batch requests. SQS accepts up to 10 messages in each request.
+     *
+     * @param compactionJobs the jobs to send
+     * @throws IOException if any job could not be serialised or sent
+     */
+    public void send(List<CompactionJob> compactionJobs) throws IOException {
+        Map<String, List<CompactionJob>> jobsByQueueUrl = new LinkedHashMap<>();
+        for (CompactionJob compactionJob : compactionJobs) {
+            jobsByQueueUrl.computeIfAbsent(getQueueUrl(compactionJob), url -> new ArrayList<>()).add(compactionJob);
+        }
+        for (Map.Entry<String, List<CompactionJob>> entry : jobsByQueueUrl.entrySet()) {
+            List<CompactionJob> jobs = entry.getValue();
+            for (int i = 0; i < jobs.size(); i += MAX_BATCH_SIZE) {
+                sendBatchToQueue(jobs.subList(i, Math.min(i + MAX_BATCH_SIZE, jobs.size())), entry.getKey());
+            }
+        }
+    }
+
+    private String getQueueUrl(CompactionJob compactionJob) {
         if (compactionJob.isSplittingJob()) {
-            sendToQueue(compactionJob, instanceProperties.get(SPLITTING_COMPACTION_JOB_QUEUE_URL));
+            return instanceProperties.get(SPLITTING_COMPACTION_JOB_QUEUE_URL);
         } else {
-            sendToQueue(compactionJob, instanceProperties.get(COMPACTION_JOB_QUEUE_URL));
+            return instanceProperties.get(COMPACTION_JOB_QUEUE_URL);
+        }
+    }
+
+    private void sendBatchToQueue(List<CompactionJob> compactionJobs, String queueUrl) throws IOException {
+        Map<String, SendMessageBatchRequestEntry> entriesById = new LinkedHashMap<>();
+        for (int i = 0; i < compactionJobs.size(); i++) {
+            String entryId = String.valueOf(i);
+            entriesById.put(entryId, new SendMessageBatchRequestEntry()
+                    .withId(entryId)
+                    .withMessageBody(compactionJobSerDe.serialiseToString(compactionJobs.get(i))));
+        }
+        LOGGER.debug("Sending batch of {} compaction jobs to SQS", compactionJobs.size());
+        for (int attempt = 1; attempt <= MAX_BATCH_ATTEMPTS && !entriesById.isEmpty(); attempt++) {
+            if (attempt > 1) {
+                // Failed entries are often throttled, so back off exponentially before retrying them
+                waitBeforeRetry(FIRST_RETRY_WAIT_MILLIS << (attempt - 2));
+            }
+            SendMessageBatchResult result = sqsClient.sendMessageBatch(new SendMessageBatchRequest()
+                    .withQueueUrl(queueUrl)
+                    .withEntries(new ArrayList<>(entriesById.values())));
+            LOGGER.debug("Result of sending message batch: {}", result);
+            for (SendMessageBatchResultEntry successful : result.getSuccessful()) {
+                entriesById.remove(successful.getId());
+            }
+        }
+        if (!entriesById.isEmpty()) {
+            List<String> failedJobIds = new ArrayList<>();
+            for (String entryId : entriesById.keySet()) {
+                failedJobIds.add(compactionJobs.get(Integer.parseInt(entryId)).getId());
+            }
+            throw new IOException("Failed to send compaction jobs to SQS after " + MAX_BATCH_ATTEMPTS + " attempts: " + failedJobIds);
+        }
+    }
+
+    private static void waitBeforeRetry(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting to retry sending compaction jobs", e);
         }
     }
 
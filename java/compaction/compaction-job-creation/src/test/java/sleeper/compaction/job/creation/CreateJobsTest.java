@@ -19,6 +19,7 @@ import org.junit.jupiter.api.Test;
 
 import sleeper.compaction.job.CompactionJob;
 import sleeper.compaction.job.CompactionJobStatusStore;
+import sleeper.compaction.strategy.CompactionStrategy;
 import sleeper.configuration.jars.ObjectFactory;
 import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.FixedTablePropertiesProvider;
@@ -34,24 +35,34 @@ import sleeper.statestore.FileInfo;
 import sleeper.statestore.FileInfoFactory;
 import sleeper.statestore.FixedStateStoreProvider;
 import sleeper.statestore.StateStore;
+import sleeper.statestore.StateStoreException;
 import sleeper.statestore.StateStoreProvider;
 import sleeper.table.job.TableLister;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.argThat;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static sleeper.compaction.job.creation.CreateJobsTestUtils.createInstanceProperties;
 import static sleeper.compaction.job.creation.CreateJobsTestUtils.createTableProperties;
+import static sleeper.configuration.properties.table.TableProperty.COMPACTION_STRATEGY_CLASS;
 import static sleeper.configuration.properties.table.TableProperty.TABLE_NAME;
 
 public class CreateJobsTest {
@@ -59,6 +70,7 @@ public class CreateJobsTest {
     private final StateStore stateStore = mock(StateStore.class);
     private final CompactionJobStatusStore jobStatusStore = mock(CompactionJobStatusStore.class);
     private final Schema schema = Schema.builder().rowKeyFields(new Field("key", new StringType())).build();
+    private final List<List<CompactionJob>> sentBatches = new ArrayList<>();
 
     @Test
     public void shouldCompactAllFilesInSinglePartition() throws Exception {
@@ -125,12 +137,91 @@ public class CreateJobsTest {
         verifyNoMoreJobCreationReports();
     }
 
+    @Test
+    public void shouldAssignFilesAndSendJobsInBatches() throws Exception {
+        // Given
+        setActiveFiles(setFilesForJobsInSinglePartition(60));
+
+        // When
+        List<CompactionJob> jobs = createJobs();
+
+        // Then
+        assertThat(jobs).hasSize(12);
+        assertThat(sentBatches).extracting(List::size).containsExactly(10, 2);
+        for (List<CompactionJob> batch : sentBatches) {
+            verifySetJobsForFilesInStateStore(batch);
+        }
+        jobs.forEach(this::verifyJobCreationReported);
+        verifyOtherStateStoreCalls();
+        verifyNoMoreJobCreationReports();
+    }
+
+    @Test
+    public void shouldStopCreatingJobsWhenFilesCouldNotBeAssigned() throws Exception {
+        // Given
+        setActiveFiles(setFilesForJobsInSinglePartition(110));
+        doNothing().doThrow(new StateStoreException("Files already assigned"))
+                .when(stateStore).atomicallyUpdateJobStatusOfFiles(anyMap());
+
+        // When / Then
+        assertThatThrownBy(this::createJobs)
+                .isInstanceOf(StateStoreException.class);
+        assertThat(sentBatches).hasSize(2);
+        sentBatches.get(0).forEach(this::verifyJobCreationReported);
+        verifyNoMoreJobCreationReports();
+    }
+
+    @Test
+    public void shouldNotAssignFilesWhenSendFails() throws Exception {
+        // Given
+        setActiveFiles(setFilesForJobsInSinglePartition(60));
+        List<List<CompactionJob>> attemptedBatches = new ArrayList<>();
+
+        // When / Then
+        assertThatThrownBy(() -> createJobs(batch -> {
+            attemptedBatches.add(batch);
+            if (attemptedBatches.size() > 1) {
+                throw new IOException("Send failed");
+            }
+            sentBatches.add(batch);
+        })).isInstanceOf(IOException.class);
+        assertThat(attemptedBatches).hasSize(2);
+        verifySetJobsForFilesInStateStore(sentBatches.get(0));
+        verifyOtherStateStoreCalls();
+        sentBatches.get(0).forEach(this::verifyJobCreationReported);
+        verifyNoMoreJobCreationReports();
+    }
+
+    @Test
+    public void shouldFailWithoutSendingJobWhenInputFileIsNotActive() throws Exception {
+        // Given
+        setSinglePartition();
+        setActiveFiles(List.of());
+
+        // When / Then
+        assertThatThrownBy(() -> createJobs(sentBatches::add, JobWithMissingFileStrategy.class))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("missing-file");
+        assertThat(sentBatches).isEmpty();
+        verifyOtherStateStoreCalls();
+        verifyNoMoreJobCreationReports();
+    }
+
     private Partition setSinglePartition() throws Exception {
         List<Partition> partitions = new PartitionsFromSplitPoints(schema, Collections.emptyList()).construct();
         setPartitions(partitions);
         return partitions.get(0);
     }
 
+    private List<FileInfo> setFilesForJobsInSinglePartition(int numFiles) throws Exception {
+        // The compaction strategy creates a job for every 5 files
+        Partition partition = setSinglePartition();
+        FileInfoFactory fileInfoFactory = new FileInfoFactory(schema, Collections.singletonList(partition), Instant.now());
+        return IntStream.range(0, numFiles)
+                .mapToObj(i -> fileInfoFactory.leafFile("file" + i, 200L, "a", "b"))
+                .collect(Collectors.toList());
+    }
+
     private void setPartitions(List<Partition> partitions) throws Exception {
         when(stateStore.getAllPartitions()).thenReturn(partitions);
     }
@@ -141,10 +232,15 @@ public class CreateJobsTest {
 
     private void verifySetJobForFilesInStateStore(String jobId, List<FileInfo> files) throws Exception {
         verify(stateStore).atomicallyUpdateJobStatusOfFiles(
-                eq(jobId), argThat(actualFiles -> {
-                    assertThat(actualFiles).containsExactlyInAnyOrderElementsOf(files);
-                    return true;
-                }));
+                argThat((Map<String, List<FileInfo>> jobIdToFiles) -> jobIdToFiles.containsKey(jobId)
+                        && jobIdToFiles.get(jobId).containsAll(files)
+                        && files.containsAll(jobIdToFiles.get(jobId))));
+    }
+
+    private void verifySetJobsForFilesInStateStore(List<CompactionJob> jobs) throws Exception {
+        Set<String> jobIds = jobs.stream().map(CompactionJob::getId).collect(Collectors.toSet());
+        verify(stateStore).atomicallyUpdateJobStatusOfFiles(
+                argThat((Map<String, List<FileInfo>> jobIdToFiles) -> jobIdToFiles.keySet().equals(jobIds)));
     }
 
     private void verifyOtherStateStoreCalls() throws Exception {
@@ -162,9 +258,23 @@ public class CreateJobsTest {
     }
 
     private List<CompactionJob> createJobs() throws Exception {
+        return createJobs(sentBatches::add);
+    }
+
+    private List<CompactionJob> createJobs(CreateJobs.JobSender jobSender) throws Exception {
+        return createJobs(jobSender, tableProperties -> {
+        });
+    }
+
+    private List<CompactionJob> createJobs(CreateJobs.JobSender jobSender, Class<? extends CompactionStrategy> strategyClass) throws Exception {
+        return createJobs(jobSender, tableProperties -> tableProperties.set(COMPACTION_STRATEGY_CLASS, strategyClass.getName()));
+    }
+
+    private List<CompactionJob> createJobs(CreateJobs.JobSender jobSender, Consumer<TableProperties> tablePropertiesConfig) throws Exception {
 
         InstanceProperties instanceProperties = createInstanceProperties();
         TableProperties tableProperties = createTableProperties(schema, instanceProperties);
+        tablePropertiesConfig.accept(tableProperties);
 
         TablePropertiesProvider tablePropertiesProvider = new FixedTablePropertiesProvider(tableProperties);
         StateStoreProvider stateStoreProvider = new FixedStateStoreProvider(tableProperties, stateStore);
@@ -172,11 +282,33 @@ public class CreateJobsTest {
         TableLister tableLister = mock(TableLister.class);
         when(tableLister.listTables()).thenReturn(Collections.singletonList(tableProperties.get(TABLE_NAME)));
 
-        List<CompactionJob> compactionJobs = new ArrayList<>();
         CreateJobs createJobs = new CreateJobs(ObjectFactory.noUserJars(),
-                instanceProperties, tablePropertiesProvider, stateStoreProvider, compactionJobs::add,
+                instanceProperties, tablePropertiesProvider, stateStoreProvider, jobSender,
                 tableLister, jobStatusStore);
         createJobs.createJobs();
-        return compactionJobs;
+        return sentBatches.stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    /**
+     * Creates a job for a file which is not in the state store.
+     */
+    public static class JobWithMissingFileStrategy implements CompactionStrategy {
+        private String tableName;
+
+        @Override
+        public void init(InstanceProperties instanceProperties, TableProperties tableProperties) {
+            tableName = tableProperties.get(TABLE_NAME);
+        }
+
+        @Override
+        public List<CompactionJob> createCompactionJobs(List<FileInfo> activeFilesWithJobId, List<FileInfo> activeFilesWithNoJobId, List<Partition> allPartitions) {
+            return List.of(CompactionJob.builder()
+                    .tableName(tableName).jobId("job1")
+                    .inputFiles(List.of("missing-file"))
+                    .outputFile("output-file")
+                    .partitionId(allPartitions.get(0).getId())
+                    .isSplittingJob(false)
+                    .build());
+        }
     }
 }
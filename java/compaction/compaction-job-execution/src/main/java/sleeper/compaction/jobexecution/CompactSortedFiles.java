@@ -35,7 +35,8 @@ import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.TableProperties;
 import sleeper.core.iterator.CloseableIterator;
 import sleeper.core.iterator.IteratorException;
-import sleeper.core.iterator.MergingIterator;
+import sleeper.core.iterator.MergeAlgorithm;
+import sleeper.core.iterator.PrefetchingIterator;
 import sleeper.core.iterator.SortedRecordIterator;
 import sleeper.core.key.Key;
 import sleeper.core.record.Record;
@@ -64,7 +65,15 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_PIPELINED_WRITE;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_PIPELINED_WRITE_BATCH_SIZE;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_PIPELINED_WRITE_BUFFER_BATCHES;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_READ_AHEAD_RECORDS;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_READ_AHEAD_THREADS;
+import static sleeper.configuration.properties.table.TableProperty.MERGE_ALGORITHM;
 import static sleeper.core.metrics.MetricsLogger.METRICS_LOGGER;
 
 /**
@@ -83,6 +92,8 @@ public class CompactSortedFiles {
     private final StateStore stateStore;
     private final CompactionJobStatusStore jobStatusStore;
     private final String taskId;
+    private final ExecutorService sharedReadAheadExecutor;
+    private final int readAheadRecords;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CompactSortedFiles.class);
 
@@ -93,6 +104,28 @@ public class CompactSortedFiles {
                               StateStore stateStore,
                               CompactionJobStatusStore jobStatusStore,
                               String taskId) {
+        this(instanceProperties, tableProperties, objectFactory, compactionJob, stateStore, jobStatusStore, taskId,
+                null, instanceProperties.getInt(COMPACTION_TASK_READ_AHEAD_RECORDS));
+    }
+
+    /**
+     * Creates a compaction which reads ahead from its input files on a thread pool shared with other jobs in the same
+     * task. The pool is not shut down by the compaction.
+     *
+     * @param readAheadExecutor the thread pool to read ahead on, or null to create a pool for this job if read ahead
+     *                          is enabled
+     * @param readAheadRecords  the maximum number of records this job holds in memory from reading ahead
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    public CompactSortedFiles(InstanceProperties instanceProperties,
+                              TableProperties tableProperties,
+                              ObjectFactory objectFactory,
+                              CompactionJob compactionJob,
+                              StateStore stateStore,
+                              CompactionJobStatusStore jobStatusStore,
+                              String taskId,
+                              ExecutorService readAheadExecutor,
+                              int readAheadRecords) {
         this.instanceProperties = instanceProperties;
         this.tableProperties = tableProperties;
         this.schema = this.tableProperties.getSchema();
@@ -102,6 +135,8 @@ public class CompactSortedFiles {
         this.stateStore = stateStore;
         this.jobStatusStore = jobStatusStore;
         this.taskId = taskId;
+        this.sharedReadAheadExecutor = readAheadExecutor;
+        this.readAheadRecords = readAheadRecords;
     }
 
     public RecordsProcessedSummary compact() throws IOException, IteratorException {
@@ -111,10 +146,22 @@ public class CompactSortedFiles {
         jobStatusStore.jobStarted(compactionJob, startTime, taskId);
 
         RecordsProcessed recordsProcessed;
-        if (!compactionJob.isSplittingJob()) {
-            recordsProcessed = compactNoSplitting();
-        } else {
-            recordsProcessed = compactSplitting();
+        ExecutorService jobReadAheadExecutor = null == sharedReadAheadExecutor ? createReadAheadExecutor() : null;
+        ExecutorService readAheadExecutor = null == sharedReadAheadExecutor ? jobReadAheadExecutor : sharedReadAheadExecutor;
+        ExecutorService pipelineExecutor = createPipelineExecutor();
+        try {
+            if (!compactionJob.isSplittingJob()) {
+                recordsProcessed = compactNoSplitting(readAheadExecutor, pipelineExecutor);
+            } else {
+                recordsProcessed = compactSplitting(readAheadExecutor, pipelineExecutor);
+            }
+        } finally {
+            if (null != jobReadAheadExecutor) {
+                jobReadAheadExecutor.shutdownNow();
+            }
+            if (null != pipelineExecutor) {
+                pipelineExecutor.shutdownNow();
+            }
         }
 
         Instant finishTime = Instant.now();
@@ -129,14 +176,15 @@ public class CompactSortedFiles {
         return summary;
     }
 
-    private RecordsProcessed compactNoSplitting() throws IOException, IteratorException {
+    private RecordsProcessed compactNoSplitting(ExecutorService readAheadExecutor, ExecutorService pipelineExecutor) throws IOException, IteratorException {
         Configuration conf = getConfiguration();
 
         // Create a reader for each file
         List<CloseableIterator<Record>> inputIterators = createInputIterators(conf);
+        List<CloseableIterator<Record>> mergeInputs = readAhead(inputIterators, readAheadExecutor);
 
         // Merge these iterator into one sorted iterator
-        CloseableIterator<Record> mergingIterator = getMergingIterator(inputIterators);
+        CloseableIterator<Record> mergingIterator = getMergingIterator(mergeInputs);
 
         // Create writer
         LOGGER.debug("Creating writer for file {}", compactionJob.getOutputFile());
@@ -145,6 +193,7 @@ public class CompactSortedFiles {
 
         LOGGER.info("Compaction job {}: Created writer for file {}", compactionJob.getId(), compactionJob.getOutputFile());
         Map<String, ItemsSketch> keyFieldToSketch = getSketches();
+        PipelinedRecordWriter pipelinedWriter = createPipelinedWriter("output", writer, keyFieldToSketch, pipelineExecutor);
 
         long recordsWritten = 0L;
         // Record min and max of the first dimension of the row key (the min is from the first record, the max is from
@@ -152,21 +201,37 @@ public class CompactSortedFiles {
         Object minKey = null;
         Object maxKey = null;
 
-        while (mergingIterator.hasNext()) {
-            Record record = mergingIterator.next();
-            if (null == minKey) {
-                minKey = record.get(rowKeyName0);
+        long mergeStartNanos = System.nanoTime();
+        long mergeNanos;
+        boolean writerClosed = false;
+        try {
+            while (mergingIterator.hasNext()) {
+                Record record = mergingIterator.next();
+                if (null == minKey) {
+                    minKey = record.get(rowKeyName0);
+                }
+                maxKey = record.get(rowKeyName0);
+                if (null != pipelinedWriter) {
+                    pipelinedWriter.write(record);
+                } else {
+                    updateQuantilesSketch(record, keyFieldToSketch);
+                    // Write out
+                    writer.write(record);
+                }
+                recordsWritten++;
+                if (0 == recordsWritten % 1_000_000) {
+                    LOGGER.info("Compaction job {}: Written {} records", compactionJob.getId(), recordsWritten);
+                }
             }
-            maxKey = record.get(rowKeyName0);
-            updateQuantilesSketch(record, keyFieldToSketch);
-            // Write out
-            writer.write(record);
-            recordsWritten++;
-            if (0 == recordsWritten % 1_000_000) {
-                LOGGER.info("Compaction job {}: Written {} records", compactionJob.getId(), recordsWritten);
+            mergeNanos = System.nanoTime() - mergeStartNanos;
+            closeWriter(writer, pipelinedWriter);
+            writerClosed = true;
+        } finally {
+            if (!writerClosed) {
+                abortWriter(writer, pipelinedWriter, outputPath, conf);
             }
         }
-        writer.close();
+        logPipelineStageTimes(mergeNanos, pipelinedWriter);
         LOGGER.debug("Compaction job {}: Closed writer", compactionJob.getId());
 
         // Remove the extension (if present), then add one
@@ -177,7 +242,7 @@ public class CompactSortedFiles {
         new SketchesSerDeToS3(schema).saveToHadoopFS(sketchesPath, new Sketches(keyFieldToSketch), conf);
         LOGGER.info("Compaction job {}: Wrote sketches file to {}", compactionJob.getId(), sketchesPath);
 
-        for (CloseableIterator<Record> iterator : inputIterators) {
+        for (CloseableIterator<Record> iterator : mergeInputs) {
             iterator.close();
         }
         LOGGER.debug("Compaction job {}: Closed readers", compactionJob.getId());
@@ -204,14 +269,15 @@ public class CompactSortedFiles {
         return new RecordsProcessed(totalNumberOfRecordsRead, recordsWritten);
     }
 
-    private RecordsProcessed compactSplitting() throws IOException, IteratorException {
+    private RecordsProcessed compactSplitting(ExecutorService readAheadExecutor, ExecutorService pipelineExecutor) throws IOException, IteratorException {
         Configuration conf = getConfiguration();
 
         // Create a reader for each file
         List<CloseableIterator<Record>> inputIterators = createInputIterators(conf);
+        List<CloseableIterator<Record>> mergeInputs = readAhead(inputIterators, readAheadExecutor);
 
         // Merge these iterator into one sorted iterator
-        CloseableIterator<Record> mergingIterator = getMergingIterator(inputIterators);
+        CloseableIterator<Record> mergingIterator = getMergingIterator(mergeInputs);
 
         // Create writers
         Path leftPath = new Path(compactionJob.getOutputFiles().getLeft());
@@ -224,6 +290,8 @@ public class CompactSortedFiles {
 
         Map<String, ItemsSketch> leftKeyFieldToSketch = getSketches();
         Map<String, ItemsSketch> rightKeyFieldToSketch = getSketches();
+        PipelinedRecordWriter leftPipelinedWriter = createPipelinedWriter("left", leftWriter, leftKeyFieldToSketch, pipelineExecutor);
+        PipelinedRecordWriter rightPipelinedWriter = createPipelinedWriter("right", rightWriter, rightKeyFieldToSketch, pipelineExecutor);
 
         long recordsWrittenToLeftFile = 0L;
         long recordsWrittenToRightFile = 0L;
@@ -244,35 +312,62 @@ public class CompactSortedFiles {
 
         // TODO This is unnecessarily complicated as the records for the left file will all be written in one go,
         // followed by the records to the right file.
-        while (mergingIterator.hasNext()) {
-            Record record = mergingIterator.next();
-            if (keyComparator.compare(record.get(comparisonKeyFieldName), splitPoint) < 0) {
-                leftWriter.write(record);
-                recordsWrittenToLeftFile++;
-                if (null == minKeyLeftFile) {
-                    minKeyLeftFile = record.get(rowKeyName0);
+        long mergeStartNanos = System.nanoTime();
+        long mergeNanos;
+        boolean leftWriterClosed = false;
+        boolean rightWriterClosed = false;
+        try {
+            while (mergingIterator.hasNext()) {
+                Record record = mergingIterator.next();
+                if (keyComparator.compare(record.get(comparisonKeyFieldName), splitPoint) < 0) {
+                    if (null != leftPipelinedWriter) {
+                        leftPipelinedWriter.write(record);
+                    } else {
+                        leftWriter.write(record);
+                        updateQuantilesSketch(record, leftKeyFieldToSketch);
+                    }
+                    recordsWrittenToLeftFile++;
+                    if (null == minKeyLeftFile) {
+                        minKeyLeftFile = record.get(rowKeyName0);
+                    }
+                    maxKeyLeftFile = record.get(rowKeyName0);
+                } else {
+                    if (null != rightPipelinedWriter) {
+                        rightPipelinedWriter.write(record);
+                    } else {
+                        rightWriter.write(record);
+                        updateQuantilesSketch(record, rightKeyFieldToSketch);
+                    }
+                    recordsWrittenToRightFile++;
+                    if (null == minKeyRightFile) {
+                        minKeyRightFile = record.get(rowKeyName0);
+                    }
+                    maxKeyRightFile = record.get(rowKeyName0);
                 }
-                maxKeyLeftFile = record.get(rowKeyName0);
-                updateQuantilesSketch(record, leftKeyFieldToSketch);
-            } else {
-                rightWriter.write(record);
-                recordsWrittenToRightFile++;
-                if (null == minKeyRightFile) {
-                    minKeyRightFile = record.get(rowKeyName0);
+
+                if ((recordsWrittenToLeftFile > 0 && 0 == recordsWrittenToLeftFile % 1_000_000)
+                        || (recordsWrittenToRightFile > 0 && 0 == recordsWrittenToRightFile % 1_000_000)) {
+                    LOGGER.info("Compaction job {}: Written {} records to left file and {} records to right file",
+                            compactionJob.getId(), recordsWrittenToLeftFile, recordsWrittenToRightFile);
                 }
-                maxKeyRightFile = record.get(rowKeyName0);
-                updateQuantilesSketch(record, rightKeyFieldToSketch);
-            }
 
-            if ((recordsWrittenToLeftFile > 0 && 0 == recordsWrittenToLeftFile % 1_000_000)
-                    || (recordsWrittenToRightFile > 0 && 0 == recordsWrittenToRightFile % 1_000_000)) {
-                LOGGER.info("Compaction job {}: Written {} records to left file and {} records to right file",
-                        compactionJob.getId(), recordsWrittenToLeftFile, recordsWrittenToRightFile);
             }
-
+            mergeNanos = System.nanoTime() - mergeStartNanos;
+            closeWriter(leftWriter, leftPipelinedWriter);
+            leftWriterClosed = true;
+            closeWriter(rightWriter, rightPipelinedWriter);
+            rightWriterClosed = true;
+        } finally {
+            if (!rightWriterClosed) {
+                abortWriter(rightWriter, rightPipelinedWriter, rightPath, conf);
+                if (leftWriterClosed) {
+                    deleteOutputFile(leftPath, conf);
+                } else {
+                    abortWriter(leftWriter, leftPipelinedWriter, leftPath, conf);
+                }
+            }
         }
-        leftWriter.close();
-        rightWriter.close();
+        logPipelineStageTimes(mergeNanos, leftPipelinedWriter, rightPipelinedWriter);
         LOGGER.debug("Compaction job {}: Closed writers", compactionJob.getId());
 
         // Remove the extension (if present), then add one
@@ -290,7 +385,7 @@ public class CompactSortedFiles {
 
         LOGGER.info("Wrote sketches to {} and {}", leftSketchesPath, rightSketchesPath);
 
-        for (CloseableIterator<Record> iterator : inputIterators) {
+        for (CloseableIterator<Record> iterator : mergeInputs) {
             iterator.close();
         }
         LOGGER.debug("Compaction job {}: Closed readers", compactionJob.getId());
@@ -329,8 +424,100 @@ public class CompactSortedFiles {
         return inputIterators;
     }
 
+    private ExecutorService createReadAheadExecutor() {
+        int threads = instanceProperties.getInt(COMPACTION_TASK_READ_AHEAD_THREADS);
+        if (threads < 1) {
+            return null;
+        }
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    private List<CloseableIterator<Record>> readAhead(List<CloseableIterator<Record>> inputIterators, ExecutorService executorService) {
+        if (null == executorService || inputIterators.isEmpty()) {
+            return inputIterators;
+        }
+        // Each input holds up to 2 batches: one being consumed by the merge, and one being read in the background
+        int batchSize = Math.max(1, readAheadRecords / (2 * inputIterators.size()));
+        LOGGER.info("Compaction job {}: Reading ahead in batches of {} records", compactionJob.getId(), batchSize);
+        List<CloseableIterator<Record>> prefetchingIterators = new ArrayList<>();
+        for (CloseableIterator<Record> iterator : inputIterators) {
+            prefetchingIterators.add(new PrefetchingIterator<>(iterator, executorService, batchSize));
+        }
+        return prefetchingIterators;
+    }
+
+    private ExecutorService createPipelineExecutor() {
+        if (!instanceProperties.getBoolean(COMPACTION_TASK_PIPELINED_WRITE)) {
+            return null;
+        }
+        // Each output file has one thread to write records and one to update sketches
+        return Executors.newFixedThreadPool(compactionJob.isSplittingJob() ? 4 : 2);
+    }
+
+    private PipelinedRecordWriter createPipelinedWriter(
+            String name, ParquetWriter<Record> writer, Map<String, ItemsSketch> keyFieldToSketch, ExecutorService executorService) {
+        if (null == executorService) {
+            return null;
+        }
+        return new PipelinedRecordWriter(name, writer,
+                record -> updateQuantilesSketch(record, keyFieldToSketch),
+                executorService,
+                instanceProperties.getInt(COMPACTION_TASK_PIPELINED_WRITE_BATCH_SIZE),
+                instanceProperties.getInt(COMPACTION_TASK_PIPELINED_WRITE_BUFFER_BATCHES));
+    }
+
+    private void closeWriter(ParquetWriter<Record> writer, PipelinedRecordWriter pipelinedWriter) throws IOException {
+        if (null == pipelinedWriter) {
+            writer.close();
+        } else {
+            pipelinedWriter.close();
+        }
+    }
+
+    private void abortWriter(ParquetWriter<Record> writer, PipelinedRecordWriter pipelinedWriter, Path path, Configuration conf) {
+        LOGGER.warn("Compaction job {}: Failed writing file {}, closing writer and deleting partial output", compactionJob.getId(), path);
+        if (null != pipelinedWriter) {
+            pipelinedWriter.abort();
+        } else {
+            try {
+                writer.close();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Compaction job {}: Failed closing writer for file {}", compactionJob.getId(), path, e);
+            }
+        }
+        deleteOutputFile(path, conf);
+    }
+
+    private void deleteOutputFile(Path path, Configuration conf) {
+        try {
+            path.getFileSystem(conf).delete(path, false);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Compaction job {}: Failed deleting partial output file {}", compactionJob.getId(), path, e);
+        }
+    }
+
+    private void logPipelineStageTimes(long mergeNanos, PipelinedRecordWriter... pipelinedWriters) {
+        if (null == pipelinedWriters[0]) {
+            return;
+        }
+        // The merge runs on this thread, and is only idle while it hands batches to the writers
+        long handOffNanos = 0L;
+        List<PipelineStageTime> times = new ArrayList<>();
+        for (PipelinedRecordWriter pipelinedWriter : pipelinedWriters) {
+            handOffNanos += pipelinedWriter.getHandOffTime().toNanos();
+            times.addAll(pipelinedWriter.getStageTimes());
+        }
+        times.add(0, PipelineStageTime.fromNanos("merge", mergeNanos - handOffNanos, handOffNanos));
+        for (PipelineStageTime time : times) {
+            METRICS_LOGGER.info("Compaction job {}: {} stage was busy for {} seconds and idle for {} seconds",
+                    compactionJob.getId(), time.getStage(),
+                    String.format("%.1f", time.getBusyInSeconds()), String.format("%.1f", time.getIdleInSeconds()));
+        }
+    }
+
     private CloseableIterator<Record> getMergingIterator(List<CloseableIterator<Record>> inputIterators) throws IteratorException {
-        CloseableIterator<Record> mergingIterator = new MergingIterator(schema, inputIterators);
+        CloseableIterator<Record> mergingIterator = tableProperties.getEnumValue(MERGE_ALGORITHM, MergeAlgorithm.class)
+                .merge(schema, inputIterators);
 
         // Apply an iterator if one is provided
         if (null != compactionJob.getIteratorClassName()) {
@@ -58,16 +58,27 @@ import sleeper.utils.HadoopConfigurationProvider;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_ECS_LAUNCHTYPE;
 import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_KEEP_ALIVE_PERIOD_IN_SECONDS;
 import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_QUEUE_VISIBILITY_TIMEOUT_IN_SECONDS;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_JOB_MEMORY_MB;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_MAX_CONCURRENT_JOBS;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_READ_AHEAD_RECORDS;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_READ_AHEAD_THREADS;
 import static sleeper.configuration.properties.instance.SystemDefinedInstanceProperty.COMPACTION_JOB_QUEUE_URL;
 import static sleeper.configuration.properties.instance.SystemDefinedInstanceProperty.SPLITTING_COMPACTION_JOB_QUEUE_URL;
 
 /**
  * Retrieves compaction {@link CompactionJob}s from an SQS queue, and executes
- * them. It delegates the actual execution of the job to an instance of
+ * them, running up to a configured number of jobs at once. It delegates the actual execution of the job to an instance of
  * {@link CompactSortedFiles}. It passes a
  * {@link sleeper.job.common.action.ChangeMessageVisibilityTimeoutAction} to
  * that class so that the message on the SQS queue can be kept alive whilst the job
@@ -164,45 +175,138 @@ public class CompactSortedFilesRunner {
 
         taskStatusStore.taskStarted(taskStatusBuilder.build());
         CompactionTaskFinishedStatus.Builder taskFinishedBuilder = CompactionTaskFinishedStatus.builder();
+        int maxConcurrentJobs = getMaxConcurrentJobs();
+        LOGGER.info("Running up to {} compaction jobs at once", maxConcurrentJobs);
+        ExecutorService jobExecutor = Executors.newFixedThreadPool(maxConcurrentJobs);
+        // Reading ahead uses one thread pool and memory budget for the whole task, shared by the jobs running at once
+        ExecutorService readAheadExecutor = createReadAheadExecutor();
+        int readAheadRecordsPerJob = Math.max(1, instanceProperties.getInt(COMPACTION_TASK_READ_AHEAD_RECORDS) / maxConcurrentJobs);
+        CompletionService<RecordsProcessedSummary> runningJobs = new ExecutorCompletionService<>(jobExecutor);
+        int numRunningJobs = 0;
         long totalNumberOfMessagesProcessed = 0L;
         int numConsecutiveTimesNoMessages = 0;
-        while (numConsecutiveTimesNoMessages < maxMessageRetrieveAttempts) {
-            ReceiveMessageRequest receiveMessageRequest = new ReceiveMessageRequest(sqsJobQueueUrl)
-                    .withMaxNumberOfMessages(1)
-                    .withWaitTimeSeconds(waitTimeSeconds); // Must be >= 0 and <= 20
-            ReceiveMessageResult receiveMessageResult = sqsClient.receiveMessage(receiveMessageRequest);
-            if (receiveMessageResult.getMessages().isEmpty()) {
-                LOGGER.info("Received no messages in {} seconds", waitTimeSeconds);
-                numConsecutiveTimesNoMessages++;
-                Thread.sleep(10000L);
-            } else {
-                Message message = receiveMessageResult.getMessages().get(0);
-                LOGGER.info("Received message: {}", message);
-                CompactionJob compactionJob = compactionJobSerDe.deserialiseFromString(message.getBody());
-                LOGGER.info("CompactionJob is: {}", compactionJob);
-                try {
-                    taskFinishedBuilder.addJobSummary(compact(compactionJob, message));
-                } catch (IOException | IteratorException e) {
-                    LOGGER.error("Exception running compactionJob", e);
-                    return;
+        boolean queueWasEmpty = false;
+        try {
+            while (numConsecutiveTimesNoMessages < maxMessageRetrieveAttempts) {
+                // Record any jobs which have finished. Wait for one to finish if we cannot start any more, or for a
+                // short time if the queue was empty so that we do not poll it continuously while jobs are running.
+                Future<RecordsProcessedSummary> finishedJob;
+                if (numRunningJobs >= maxConcurrentJobs) {
+                    finishedJob = runningJobs.take();
+                } else if (queueWasEmpty && numRunningJobs > 0) {
+                    finishedJob = runningJobs.poll(1, TimeUnit.SECONDS);
+                } else {
+                    finishedJob = runningJobs.poll();
+                }
+                while (finishedJob != null) {
+                    numRunningJobs--;
+                    taskFinishedBuilder.addJobSummary(getJobSummary(finishedJob));
+                    totalNumberOfMessagesProcessed++;
+                    finishedJob = runningJobs.poll();
                 }
-                totalNumberOfMessagesProcessed++;
-                numConsecutiveTimesNoMessages = 0;
+                ReceiveMessageRequest receiveMessageRequest = new ReceiveMessageRequest(sqsJobQueueUrl)
+                        .withMaxNumberOfMessages(Math.min(10, maxConcurrentJobs - numRunningJobs))
+                        .withWaitTimeSeconds(numRunningJobs > 0 ? 0 : waitTimeSeconds); // Must be >= 0 and <= 20
+                ReceiveMessageResult receiveMessageResult = sqsClient.receiveMessage(receiveMessageRequest);
+                queueWasEmpty = receiveMessageResult.getMessages().isEmpty();
+                if (queueWasEmpty) {
+                    if (numRunningJobs == 0) {
+                        LOGGER.info("Received no messages in {} seconds", waitTimeSeconds);
+                        numConsecutiveTimesNoMessages++;
+                    }
+                } else {
+                    for (Message message : receiveMessageResult.getMessages()) {
+                        LOGGER.info("Received message: {}", message);
+                        CompactionJob compactionJob = compactionJobSerDe.deserialiseFromString(message.getBody());
+                        LOGGER.info("CompactionJob is: {}", compactionJob);
+                        runningJobs.submit(() -> compact(compactionJob, message, readAheadExecutor, readAheadRecordsPerJob));
+                        numRunningJobs++;
+                    }
+                    numConsecutiveTimesNoMessages = 0;
+                }
+            }
+            LOGGER.info("Returning from run() method in CompactSortedFilesRunner as no messages received in {} seconds",
+                    (numConsecutiveTimesNoMessages * waitTimeSeconds));
+        } catch (IOException | IteratorException e) {
+            LOGGER.error("Exception running compactionJob", e);
+        } finally {
+            jobExecutor.shutdown();
+            // Jobs which are still running must finish before the task does, so that they are included in the task's
+            // finished status
+            totalNumberOfMessagesProcessed += waitForRunningJobs(runningJobs, numRunningJobs, taskFinishedBuilder);
+            if (null != readAheadExecutor) {
+                readAheadExecutor.shutdownNow();
+            }
+            LOGGER.info("Total number of messages processed = {}", totalNumberOfMessagesProcessed);
+
+            Instant finishTime = Instant.now();
+            double runTimeInSeconds = (finishTime.toEpochMilli() - startTime.toEpochMilli()) / 1000.0;
+            LOGGER.info("CompactSortedFilesRunner total run time = {}", runTimeInSeconds);
+
+            CompactionTaskStatus taskFinished = taskStatusBuilder.finished(finishTime, taskFinishedBuilder).build();
+            taskStatusStore.taskFinished(taskFinished);
+        }
+    }
+
+    private static int waitForRunningJobs(CompletionService<RecordsProcessedSummary> runningJobs, int numRunningJobs,
+                                          CompactionTaskFinishedStatus.Builder taskFinishedBuilder) {
+        int numFinishedJobs = 0;
+        for (int i = 0; i < numRunningJobs; i++) {
+            try {
+                taskFinishedBuilder.addJobSummary(getJobSummary(runningJobs.take()));
+                numFinishedJobs++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.warn("Interrupted waiting for {} running compaction jobs", numRunningJobs - i);
+                break;
+            } catch (IOException | IteratorException | ActionException | RuntimeException e) {
+                LOGGER.error("Exception running compactionJob", e);
             }
         }
-        LOGGER.info("Returning from run() method in CompactSortedFilesRunner as no messages received in {} seconds",
-                (numConsecutiveTimesNoMessages * 30));
-        LOGGER.info("Total number of messages processed = {}", totalNumberOfMessagesProcessed);
+        return numFinishedJobs;
+    }
+
+    private int getMaxConcurrentJobs() {
+        int maxConcurrentJobs = instanceProperties.getInt(COMPACTION_TASK_MAX_CONCURRENT_JOBS);
+        long jobMemoryBytes = instanceProperties.getLong(COMPACTION_TASK_JOB_MEMORY_MB) * 1024L * 1024L;
+        long jobsFitInMemory = Runtime.getRuntime().maxMemory() / jobMemoryBytes;
+        if (jobsFitInMemory < maxConcurrentJobs) {
+            LOGGER.info("Limiting concurrent jobs to {} as the JVM has {} bytes of memory available",
+                    jobsFitInMemory, Runtime.getRuntime().maxMemory());
+        }
+        return (int) Math.max(1, Math.min(maxConcurrentJobs, jobsFitInMemory));
+    }
 
-        Instant finishTime = Instant.now();
-        double runTimeInSeconds = (finishTime.toEpochMilli() - startTime.toEpochMilli()) / 1000.0;
-        LOGGER.info("CompactSortedFilesRunner total run time = {}", runTimeInSeconds);
+    private ExecutorService createReadAheadExecutor() {
+        int threads = instanceProperties.getInt(COMPACTION_TASK_READ_AHEAD_THREADS);
+        if (threads < 1) {
+            return null;
+        }
+        return Executors.newFixedThreadPool(threads);
+    }
 
-        CompactionTaskStatus taskFinished = taskStatusBuilder.finished(finishTime, taskFinishedBuilder).build();
-        taskStatusStore.taskFinished(taskFinished);
+    private static RecordsProcessedSummary getJobSummary(Future<RecordsProcessedSummary> finishedJob)
+            throws InterruptedException, IOException, IteratorException, ActionException {
+        try {
+            return finishedJob.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof IteratorException) {
+                throw (IteratorException) cause;
+            } else if (cause instanceof ActionException) {
+                throw (ActionException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        }
     }
 
-    private RecordsProcessedSummary compact(CompactionJob compactionJob, Message message)
+    private RecordsProcessedSummary compact(CompactionJob compactionJob, Message message,
+                                            ExecutorService readAheadExecutor, int readAheadRecords)
             throws IOException, IteratorException, ActionException {
         MessageReference messageReference = new MessageReference(sqsClient, sqsJobQueueUrl,
                 "Compaction job " + compactionJob.getId(), message.getReceiptHandle());
@@ -215,20 +319,23 @@ public class CompactSortedFilesRunner {
         LOGGER.info("Compaction job {}: Created background thread to keep SQS messages alive (period is {} seconds)",
                 compactionJob.getId(), keepAliveFrequency);
 
-        TableProperties tableProperties = tablePropertiesProvider.getTableProperties(compactionJob.getTableName());
-        StateStore stateStore = stateStoreProvider.getStateStore(tableProperties);
-        CompactSortedFiles compactSortedFiles = new CompactSortedFiles(instanceProperties, tableProperties, objectFactory,
-                compactionJob, stateStore, jobStatusStore, taskId);
-        RecordsProcessedSummary summary = compactSortedFiles.compact();
-
-        // Delete message from queue
-        DeleteMessageAction deleteAction = messageReference.deleteAction();
-        deleteAction.call();
+        try {
+            // The providers are shared between jobs running at once, and cache with thread-safe maps
+            TableProperties tableProperties = tablePropertiesProvider.getTableProperties(compactionJob.getTableName());
+            StateStore stateStore = stateStoreProvider.getStateStore(tableProperties);
+            CompactSortedFiles compactSortedFiles = new CompactSortedFiles(instanceProperties, tableProperties, objectFactory,
+                    compactionJob, stateStore, jobStatusStore, taskId, readAheadExecutor, readAheadRecords);
+            RecordsProcessedSummary summary = compactSortedFiles.compact();
 
-        LOGGER.info("Compaction job {}: Stopping background thread to keep SQS messages alive",
-                compactionJob.getId());
-        keepAliveRunnable.stop();
-        return summary;
+            // Delete message from queue
+            DeleteMessageAction deleteAction = messageReference.deleteAction();
+            deleteAction.call();
+            return summary;
+        } finally {
+            LOGGER.info("Compaction job {}: Stopping background thread to keep SQS messages alive",
+                    compactionJob.getId());
+            keepAliveRunnable.stop();
+        }
     }
 
     public static void main(String[] args)
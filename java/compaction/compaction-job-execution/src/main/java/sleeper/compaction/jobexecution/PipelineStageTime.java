@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.compaction.jobexecution;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The time one stage of a compaction spent working and waiting for work.
+ */
+public class PipelineStageTime {
+    private final String stage;
+    private final Duration busy;
+    private final Duration idle;
+
+    public PipelineStageTime(String stage, Duration busy, Duration idle) {
+        this.stage = stage;
+        this.busy = busy;
+        this.idle = idle;
+    }
+
+    public static PipelineStageTime fromNanos(String stage, long busyNanos, long idleNanos) {
+        return new PipelineStageTime(stage, Duration.ofNanos(busyNanos), Duration.ofNanos(idleNanos));
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public Duration getBusy() {
+        return busy;
+    }
+
+    public Duration getIdle() {
+        return idle;
+    }
+
+    public double getBusyInSeconds() {
+        return busy.toMillis() / 1000.0;
+    }
+
+    public double getIdleInSeconds() {
+        return idle.toMillis() / 1000.0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PipelineStageTime that = (PipelineStageTime) o;
+        return stage.equals(that.stage) && busy.equals(that.busy) && idle.equals(that.idle);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(stage, busy, idle);
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineStageTime{" +
+                "stage='" + stage + '\'' +
+                ", busy=" + busy +
+                ", idle=" + idle +
+                '}';
+    }
+}
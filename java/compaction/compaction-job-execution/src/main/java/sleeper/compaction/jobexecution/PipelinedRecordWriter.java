@@ -0,0 +1,255 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.compaction.jobexecution;
+
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.core.record.Record;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes records to a Parquet file and updates their sketches on separate threads to the caller. Records are handed
+ * over in batches through a bounded buffer for each stage, so the caller only waits when a stage falls behind. The
+ * Parquet writer is closed once both stages have finished, so the file and the sketches are complete when
+ * {@link #close()} returns. If a stage fails, the Parquet writer is still closed before the failure is thrown.
+ */
+public class PipelinedRecordWriter implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedRecordWriter.class);
+    private static final List<Record> END_OF_INPUT = new ArrayList<>();
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final String name;
+    private final ParquetWriter<Record> writer;
+    private final int batchSize;
+    private final Stage writeStage;
+    private final Stage sketchStage;
+    private long handOffNanos;
+    private List<Record> batch;
+    private boolean closed;
+
+    public PipelinedRecordWriter(String name,
+                                 ParquetWriter<Record> writer,
+                                 RecordConsumer sketchUpdater,
+                                 ExecutorService executorService,
+                                 int batchSize,
+                                 int bufferBatches) {
+        this.name = name;
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.writeStage = new Stage(name + " write", writer::write, bufferBatches, executorService);
+        this.sketchStage = new Stage(name + " sketch", sketchUpdater, bufferBatches, executorService);
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    public void write(Record record) throws IOException {
+        batch.add(record);
+        if (batch.size() >= batchSize) {
+            try {
+                handOff(batch);
+            } catch (IOException | RuntimeException e) {
+                closed = true;
+                stopStagesAndCloseWriter(e);
+                throw e;
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (!batch.isEmpty()) {
+                handOff(batch);
+            }
+            handOff(END_OF_INPUT);
+            writeStage.await();
+            sketchStage.await();
+        } catch (IOException | RuntimeException e) {
+            stopStagesAndCloseWriter(e);
+            throw e;
+        }
+        writer.close();
+    }
+
+    /**
+     * Stops both stages without waiting for the records already handed over, then closes the Parquet writer. This
+     * should be called instead of {@link #close()} when the records being written have failed, so that the writer is
+     * not left open. The output file will be incomplete, and should be deleted by the caller.
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        stopStagesAndCloseWriter(null);
+    }
+
+    /**
+     * Reports how long the write and sketch stages spent working and waiting. This should be called after
+     * {@link #close()}.
+     *
+     * @return the times for the write and sketch stages
+     */
+    public List<PipelineStageTime> getStageTimes() {
+        return List.of(writeStage.getTime(), sketchStage.getTime());
+    }
+
+    /**
+     * Reports how long the caller spent handing batches to the stages. This includes time waiting when a buffer was
+     * full, so it is time that the merge was not working.
+     *
+     * @return the time spent handing off batches
+     */
+    public Duration getHandOffTime() {
+        return Duration.ofNanos(handOffNanos);
+    }
+
+    private void stopStagesAndCloseWriter(Exception failure) {
+        writeStage.stop();
+        sketchStage.stop();
+        try {
+            writer.close();
+        } catch (IOException | RuntimeException e) {
+            if (null != failure) {
+                failure.addSuppressed(e);
+            } else {
+                LOGGER.warn("Failed closing writer for {} after abort", name, e);
+            }
+        }
+    }
+
+    private void handOff(List<Record> records) throws IOException {
+        long startNanos = System.nanoTime();
+        writeStage.offer(records);
+        sketchStage.offer(records);
+        handOffNanos += System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Performs an action on a record in one stage of the pipeline.
+     */
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(Record record) throws IOException;
+    }
+
+    private static class Stage {
+        private final String name;
+        private final RecordConsumer consumer;
+        private final BlockingQueue<List<Record>> queue;
+        private final Future<?> future;
+        private volatile long busyNanos;
+        private volatile long idleNanos;
+
+        Stage(String name, RecordConsumer consumer, int bufferBatches, ExecutorService executorService) {
+            this.name = name;
+            this.consumer = consumer;
+            this.queue = new ArrayBlockingQueue<>(bufferBatches);
+            this.future = executorService.submit(() -> {
+                run();
+                return null;
+            });
+        }
+
+        private void run() throws IOException, InterruptedException {
+            long busy = 0L;
+            long idle = 0L;
+            try {
+                while (true) {
+                    long waitStart = System.nanoTime();
+                    List<Record> records = queue.take();
+                    long workStart = System.nanoTime();
+                    idle += workStart - waitStart;
+                    if (records == END_OF_INPUT) {
+                        return;
+                    }
+                    for (Record record : records) {
+                        consumer.accept(record);
+                    }
+                    busy += System.nanoTime() - workStart;
+                }
+            } finally {
+                busyNanos = busy;
+                idleNanos = idle;
+            }
+        }
+
+        void offer(List<Record> records) throws IOException {
+            try {
+                // Check periodically for a failure in the stage, which would otherwise leave the buffer full
+                while (!queue.offer(records, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (future.isDone()) {
+                        await();
+                        throw new IOException("Pipeline stage " + name + " finished before the end of input");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted handing records to pipeline stage " + name, e);
+            }
+        }
+
+        /**
+         * Discards any buffered batches and tells the stage to finish, then waits for it. This must only be called by
+         * the thread that hands off batches, so that there is space in the buffer for the end of input.
+         */
+        void stop() {
+            queue.clear();
+            if (!queue.offer(END_OF_INPUT)) {
+                future.cancel(true);
+            }
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | CancellationException e) {
+                LOGGER.debug("Pipeline stage {} failed before it was stopped", name, e);
+            }
+        }
+
+        void await() throws IOException {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for pipeline stage " + name, e);
+            } catch (ExecutionException e) {
+                throw new IOException("Failed in pipeline stage " + name, e.getCause());
+            }
+        }
+
+        PipelineStageTime getTime() {
+            return PipelineStageTime.fromNanos(name, busyNanos, idleNanos);
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import sleeper.compaction.job.CompactionJob;
 import sleeper.compaction.jobexecution.testutils.CompactSortedFilesTestBase;
 import sleeper.compaction.jobexecution.testutils.CompactSortedFilesTestDataHelper;
+import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.core.record.Record;
 import sleeper.core.record.process.RecordsProcessedSummary;
 import sleeper.core.schema.Schema;
@@ -29,6 +30,8 @@ import sleeper.core.schema.type.StringType;
 import sleeper.statestore.StateStore;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static sleeper.compaction.jobexecution.testutils.CompactSortedFilesTestData.combineSortedBySingleByteArrayKey;
@@ -43,6 +46,9 @@ import static sleeper.compaction.jobexecution.testutils.CompactSortedFilesTestDa
 import static sleeper.compaction.jobexecution.testutils.CompactSortedFilesTestUtils.assertReadyForGC;
 import static sleeper.compaction.jobexecution.testutils.CompactSortedFilesTestUtils.createCompactSortedFiles;
 import static sleeper.compaction.jobexecution.testutils.CompactSortedFilesTestUtils.createSchemaWithTypesForKeyAndTwoValues;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_PIPELINED_WRITE;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_PIPELINED_WRITE_BATCH_SIZE;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_PIPELINED_WRITE_BUFFER_BATCHES;
 import static sleeper.statestore.inmemory.StateStoreTestHelper.inMemoryStateStoreWithFixedSinglePartition;
 
 class CompactSortedFilesIT extends CompactSortedFilesTestBase {
@@ -83,6 +89,74 @@ class CompactSortedFilesIT extends CompactSortedFilesTestBase {
                 .containsExactly(dataHelper.expectedLeafFile(compactionJob.getOutputFile(), 200L, 0L, 199L));
     }
 
+    @Test
+    void filesShouldMergeCorrectlyWhenWritingThroughPipeline() throws Exception {
+        // Given
+        Schema schema = createSchemaWithTypesForKeyAndTwoValues(new LongType(), new LongType(), new LongType());
+        StateStore stateStore = inMemoryStateStoreWithFixedSinglePartition(schema);
+        CompactSortedFilesTestDataHelper dataHelper = new CompactSortedFilesTestDataHelper(schema, stateStore);
+
+        List<Record> data1 = keyAndTwoValuesSortedEvenLongs();
+        List<Record> data2 = keyAndTwoValuesSortedOddLongs();
+        dataHelper.writeLeafFile(folderName + "/file1.parquet", data1, 0L, 198L);
+        dataHelper.writeLeafFile(folderName + "/file2.parquet", data2, 1L, 199L);
+
+        CompactionJob compactionJob = compactionFactory().createCompactionJob(
+                dataHelper.allFileInfos(), dataHelper.singlePartition().getId());
+        dataHelper.addFilesToStateStoreForJob(compactionJob);
+        InstanceProperties instanceProperties = new InstanceProperties();
+        instanceProperties.set(COMPACTION_TASK_PIPELINED_WRITE, "true");
+        instanceProperties.set(COMPACTION_TASK_PIPELINED_WRITE_BATCH_SIZE, "7");
+        instanceProperties.set(COMPACTION_TASK_PIPELINED_WRITE_BUFFER_BATCHES, "1");
+
+        // When
+        CompactSortedFiles compactSortedFiles = createCompactSortedFiles(instanceProperties, schema, compactionJob, stateStore, DEFAULT_TASK_ID);
+        RecordsProcessedSummary summary = compactSortedFiles.compact();
+
+        // Then
+        List<Record> expectedResults = combineSortedBySingleKey(data1, data2);
+        assertThat(summary.getRecordsRead()).isEqualTo(expectedResults.size());
+        assertThat(summary.getRecordsWritten()).isEqualTo(expectedResults.size());
+        assertThat(readDataFile(schema, compactionJob.getOutputFile())).isEqualTo(expectedResults);
+        assertReadyForGC(stateStore, dataHelper.allFileInfos());
+        assertThat(stateStore.getActiveFiles())
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("lastStateStoreUpdateTime")
+                .containsExactly(dataHelper.expectedLeafFile(compactionJob.getOutputFile(), 200L, 0L, 199L));
+    }
+
+    @Test
+    void filesShouldMergeCorrectlyWhenReadingAheadOnSharedThreadPool() throws Exception {
+        // Given
+        Schema schema = createSchemaWithTypesForKeyAndTwoValues(new LongType(), new LongType(), new LongType());
+        StateStore stateStore = inMemoryStateStoreWithFixedSinglePartition(schema);
+        CompactSortedFilesTestDataHelper dataHelper = new CompactSortedFilesTestDataHelper(schema, stateStore);
+
+        List<Record> data1 = keyAndTwoValuesSortedEvenLongs();
+        List<Record> data2 = keyAndTwoValuesSortedOddLongs();
+        dataHelper.writeLeafFile(folderName + "/file1.parquet", data1, 0L, 198L);
+        dataHelper.writeLeafFile(folderName + "/file2.parquet", data2, 1L, 199L);
+
+        CompactionJob compactionJob = compactionFactory().createCompactionJob(
+                dataHelper.allFileInfos(), dataHelper.singlePartition().getId());
+        dataHelper.addFilesToStateStoreForJob(compactionJob);
+        ExecutorService readAheadExecutor = Executors.newFixedThreadPool(1);
+
+        // When
+        CompactSortedFiles compactSortedFiles = createCompactSortedFiles(new InstanceProperties(), schema,
+                compactionJob, stateStore, DEFAULT_TASK_ID, readAheadExecutor, 12);
+        RecordsProcessedSummary summary = compactSortedFiles.compact();
+
+        // Then
+        List<Record> expectedResults = combineSortedBySingleKey(data1, data2);
+        assertThat(summary.getRecordsRead()).isEqualTo(expectedResults.size());
+        assertThat(summary.getRecordsWritten()).isEqualTo(expectedResults.size());
+        assertThat(readDataFile(schema, compactionJob.getOutputFile())).isEqualTo(expectedResults);
+        assertReadyForGC(stateStore, dataHelper.allFileInfos());
+        //  - The shared thread pool is left running for other jobs in the task
+        assertThat(readAheadExecutor.isShutdown()).isFalse();
+        readAheadExecutor.shutdown();
+    }
+
     @Test
     void shouldGenerateTestData200EvenAndOddStrings() {
         // When
@@ -20,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import sleeper.compaction.job.CompactionJob;
 import sleeper.compaction.jobexecution.testutils.CompactSortedFilesTestBase;
 import sleeper.compaction.jobexecution.testutils.CompactSortedFilesTestDataHelper;
+import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.core.partition.PartitionsBuilder;
 import sleeper.core.record.Record;
 import sleeper.core.record.process.RecordsProcessedSummary;
@@ -44,6 +45,9 @@ import static sleeper.compaction.jobexecution.testutils.CompactSortedFilesTestUt
 import static sleeper.compaction.jobexecution.testutils.CompactSortedFilesTestUtils.createCompactSortedFiles;
 import static sleeper.compaction.jobexecution.testutils.CompactSortedFilesTestUtils.createSchemaWithTwoTypedValuesAndKeyFields;
 import static sleeper.compaction.jobexecution.testutils.CompactSortedFilesTestUtils.createSchemaWithTypesForKeyAndTwoValues;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_PIPELINED_WRITE;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_PIPELINED_WRITE_BATCH_SIZE;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_PIPELINED_WRITE_BUFFER_BATCHES;
 import static sleeper.statestore.inmemory.StateStoreTestHelper.inMemoryStateStoreWithFixedPartitions;
 
 class CompactSortedFilesSplittingIT extends CompactSortedFilesTestBase {
@@ -90,6 +94,47 @@ class CompactSortedFilesSplittingIT extends CompactSortedFilesTestBase {
                         dataHelper.expectedPartitionFile("B", compactionJob.getOutputFiles().getRight(), 100L, 100L, 199L));
     }
 
+    @Test
+    void filesShouldMergeAndSplitCorrectlyWhenWritingThroughPipeline() throws Exception {
+        // Given
+        Schema schema = createSchemaWithTypesForKeyAndTwoValues(new LongType(), new LongType(), new LongType());
+        StateStore stateStore = inMemoryStateStoreWithFixedPartitions(new PartitionsBuilder(schema)
+                .leavesWithSplits(Arrays.asList("A", "B"), Collections.singletonList(100L))
+                .parentJoining("C", "A", "B")
+                .buildList());
+        CompactSortedFilesTestDataHelper dataHelper = new CompactSortedFilesTestDataHelper(schema, stateStore);
+
+        List<Record> data1 = keyAndTwoValuesSortedEvenLongs();
+        List<Record> data2 = keyAndTwoValuesSortedOddLongs();
+        dataHelper.writeRootFile(folderName + "/file1.parquet", data1, 0L, 198L);
+        dataHelper.writeRootFile(folderName + "/file2.parquet", data2, 1L, 199L);
+
+        CompactionJob compactionJob = compactionFactory().createSplittingCompactionJob(
+                dataHelper.allFileInfos(), "C", "A", "B", 100L, 0);
+        dataHelper.addFilesToStateStoreForJob(compactionJob);
+        InstanceProperties instanceProperties = new InstanceProperties();
+        instanceProperties.set(COMPACTION_TASK_PIPELINED_WRITE, "true");
+        instanceProperties.set(COMPACTION_TASK_PIPELINED_WRITE_BATCH_SIZE, "7");
+        instanceProperties.set(COMPACTION_TASK_PIPELINED_WRITE_BUFFER_BATCHES, "1");
+
+        // When
+        CompactSortedFiles compactSortedFiles = createCompactSortedFiles(instanceProperties, schema, compactionJob, stateStore, DEFAULT_TASK_ID);
+        RecordsProcessedSummary summary = compactSortedFiles.compact();
+
+        // Then
+        List<Record> expectedResults = combineSortedBySingleKey(data1, data2);
+        assertThat(summary.getRecordsRead()).isEqualTo(200L);
+        assertThat(summary.getRecordsWritten()).isEqualTo(200L);
+        assertThat(readDataFile(schema, compactionJob.getOutputFiles().getLeft())).isEqualTo(expectedResults.subList(0, 100));
+        assertThat(readDataFile(schema, compactionJob.getOutputFiles().getRight())).isEqualTo(expectedResults.subList(100, 200));
+        assertReadyForGC(stateStore, dataHelper.allFileInfos());
+        assertThat(stateStore.getActiveFiles())
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("lastStateStoreUpdateTime")
+                .containsExactlyInAnyOrder(
+                        dataHelper.expectedPartitionFile("A", compactionJob.getOutputFiles().getLeft(), 100L, 0L, 99L),
+                        dataHelper.expectedPartitionFile("B", compactionJob.getOutputFiles().getRight(), 100L, 100L, 199L));
+    }
+
     @Test
     void filesShouldMergeAndSplitCorrectlyWith2DimKeySplitOnFirstKey() throws Exception {
         // Given
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.compaction.jobexecution;
+
+import org.apache.hadoop.fs.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.io.parquet.record.ParquetReaderIterator;
+import sleeper.io.parquet.record.ParquetRecordReader;
+import sleeper.io.parquet.record.ParquetRecordWriterFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PipelinedRecordWriterTest {
+    private static final Schema SCHEMA = Schema.builder().rowKeyFields(new Field("key", new LongType())).build();
+
+    @TempDir
+    public java.nio.file.Path tempDir;
+    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void shouldWriteAllRecordsAndUpdateSketches() throws Exception {
+        // Given
+        Path path = new Path(tempDir.resolve("file.parquet").toString());
+        List<Record> records = records(10);
+        List<Record> sketched = new ArrayList<>();
+
+        // When
+        try (PipelinedRecordWriter writer = new PipelinedRecordWriter("test",
+                ParquetRecordWriterFactory.createParquetRecordWriter(path, SCHEMA),
+                sketched::add, executorService, 3, 2)) {
+            for (Record record : records) {
+                writer.write(record);
+            }
+        }
+
+        // Then
+        assertThat(readRecords(path)).isEqualTo(records);
+        assertThat(sketched).isEqualTo(records);
+    }
+
+    @Test
+    void shouldCloseWriterWhenSketchStageFails() throws Exception {
+        // Given
+        Path path = new Path(tempDir.resolve("file.parquet").toString());
+        List<Record> records = records(10);
+        PipelinedRecordWriter writer = new PipelinedRecordWriter("test",
+                ParquetRecordWriterFactory.createParquetRecordWriter(path, SCHEMA),
+                record -> {
+                    throw new IOException("Sketch failure");
+                }, executorService, 3, 2);
+
+        // When / Then
+        assertThatThrownBy(() -> {
+            for (Record record : records) {
+                writer.write(record);
+            }
+            writer.close();
+        }).isInstanceOf(IOException.class)
+                .hasRootCauseMessage("Sketch failure");
+        assertThat(readRecords(path)).isSubsetOf(records);
+    }
+
+    @Test
+    void shouldCloseWriterWhenAborted() throws Exception {
+        // Given
+        Path path = new Path(tempDir.resolve("file.parquet").toString());
+        List<Record> records = records(10);
+        PipelinedRecordWriter writer = new PipelinedRecordWriter("test",
+                ParquetRecordWriterFactory.createParquetRecordWriter(path, SCHEMA),
+                record -> {
+                }, executorService, 3, 2);
+        for (Record record : records) {
+            writer.write(record);
+        }
+
+        // When
+        writer.abort();
+
+        // Then
+        assertThat(readRecords(path)).isSubsetOf(records);
+    }
+
+    @Test
+    void shouldReportWriteAndSketchStageTimes() throws Exception {
+        // Given
+        Path path = new Path(tempDir.resolve("file.parquet").toString());
+        PipelinedRecordWriter writer = new PipelinedRecordWriter("test",
+                ParquetRecordWriterFactory.createParquetRecordWriter(path, SCHEMA),
+                record -> {
+                }, executorService, 3, 2);
+        for (Record record : records(10)) {
+            writer.write(record);
+        }
+
+        // When
+        writer.close();
+
+        // Then
+        assertThat(writer.getStageTimes())
+                .extracting(PipelineStageTime::getStage)
+                .containsExactly("test write", "test sketch");
+    }
+
+    private static List<Record> records(int count) {
+        return LongStream.range(0, count)
+                .mapToObj(i -> new Record(Map.of("key", i)))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Record> readRecords(Path path) throws IOException {
+        List<Record> records = new ArrayList<>();
+        try (ParquetReaderIterator reader = new ParquetReaderIterator(new ParquetRecordReader(path, SCHEMA))) {
+            reader.forEachRemaining(records::add);
+        }
+        return records;
+    }
+}
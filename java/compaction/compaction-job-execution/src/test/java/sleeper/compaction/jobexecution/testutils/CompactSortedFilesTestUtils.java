@@ -36,6 +36,7 @@ import sleeper.statestore.dynamodb.DynamoDBStateStoreCreator;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
@@ -85,13 +86,32 @@ public class CompactSortedFilesTestUtils {
 
     public static CompactSortedFiles createCompactSortedFiles(
             Schema schema, CompactionJob compactionJob, StateStore stateStore, CompactionJobStatusStore jobStatusStore, String taskId) {
-        InstanceProperties instanceProperties = new InstanceProperties();
+        return createCompactSortedFiles(new InstanceProperties(), schema, compactionJob, stateStore, jobStatusStore, taskId);
+    }
+
+    public static CompactSortedFiles createCompactSortedFiles(
+            InstanceProperties instanceProperties, Schema schema, CompactionJob compactionJob, StateStore stateStore, String taskId) {
+        return createCompactSortedFiles(instanceProperties, schema, compactionJob, stateStore, CompactionJobStatusStore.NONE, taskId);
+    }
+
+    public static CompactSortedFiles createCompactSortedFiles(
+            InstanceProperties instanceProperties, Schema schema, CompactionJob compactionJob, StateStore stateStore,
+            CompactionJobStatusStore jobStatusStore, String taskId) {
         TableProperties tableProperties = new TableProperties(instanceProperties);
         tableProperties.setSchema(schema);
         return new CompactSortedFiles(instanceProperties, tableProperties, ObjectFactory.noUserJars(),
                 compactionJob, stateStore, jobStatusStore, taskId);
     }
 
+    public static CompactSortedFiles createCompactSortedFiles(
+            InstanceProperties instanceProperties, Schema schema, CompactionJob compactionJob, StateStore stateStore, String taskId,
+            ExecutorService readAheadExecutor, int readAheadRecords) {
+        TableProperties tableProperties = new TableProperties(instanceProperties);
+        tableProperties.setSchema(schema);
+        return new CompactSortedFiles(instanceProperties, tableProperties, ObjectFactory.noUserJars(),
+                compactionJob, stateStore, CompactionJobStatusStore.NONE, taskId, readAheadExecutor, readAheadRecords);
+    }
+
     public static void assertReadyForGC(StateStore dynamoStateStore, FileInfo... files) {
         assertReadyForGC(dynamoStateStore, Arrays.asList(files));
     }
@@ -19,6 +19,7 @@ import com.google.common.collect.Sets;
 import org.apache.commons.lang3.EnumUtils;
 
 import sleeper.configuration.properties.table.CompressionCodec;
+import sleeper.core.iterator.MergeAlgorithm;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -62,6 +63,10 @@ public class Utils {
         return parseAndCheckDouble(value, num -> num > 0);
     }
 
+    public static boolean isPositiveDoubleLessThanOne(String value) {
+        return parseAndCheckDouble(value, num -> num > 0 && num < 1);
+    }
+
     public static boolean isNonNullNonEmptyString(String string) {
         return null != string && !string.isEmpty();
     }
@@ -82,6 +87,10 @@ public class Utils {
         return EnumUtils.isValidEnumIgnoreCase(CompressionCodec.class, codec);
     }
 
+    public static boolean isValidMergeAlgorithm(String algorithm) {
+        return EnumUtils.isValidEnumIgnoreCase(MergeAlgorithm.class, algorithm);
+    }
+
     public static boolean isValidLogRetention(String logRetention) {
         return VALID_LOG_RETENTION_VALUES.contains(logRetention);
     }
@@ -42,6 +42,7 @@ import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.stream.Stream;
@@ -115,6 +116,10 @@ public abstract class SleeperProperties<T extends SleeperProperty> {
         return readList(get(property));
     }
 
+    public <E extends Enum<E>> E getEnumValue(T property, Class<E> enumClass) {
+        return Enum.valueOf(enumClass, get(property).toUpperCase(Locale.ROOT));
+    }
+
     public static List<String> readList(String value) {
         if (value == null) {
             return null;
@@ -97,6 +97,52 @@ public interface CompactionProperty {
             .defaultValue("4096")
             .propertyGroup(InstancePropertyGroup.COMPACTION)
             .runCDKDeployWhenChanged(true).build();
+    UserDefinedInstanceProperty COMPACTION_TASK_MAX_CONCURRENT_JOBS = Index.propertyBuilder("sleeper.compaction.task.max.concurrent.jobs")
+            .description("The maximum number of compaction jobs a compaction task runs at the same time. The task " +
+                    "receives up to 10 messages at once from the job queue, and will run fewer jobs at once if the JVM " +
+                    "does not have enough memory for this many, based on sleeper.compaction.task.job.memory.mb.")
+            .defaultValue("1")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(InstancePropertyGroup.COMPACTION).build();
+    UserDefinedInstanceProperty COMPACTION_TASK_JOB_MEMORY_MB = Index.propertyBuilder("sleeper.compaction.task.job.memory.mb")
+            .description("The amount of memory in MB that a compaction task expects one compaction job to use. This " +
+                    "limits how many jobs a task will run at the same time, with the JVM's maximum heap size.")
+            .defaultValue("1024")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(InstancePropertyGroup.COMPACTION).build();
+    UserDefinedInstanceProperty COMPACTION_TASK_READ_AHEAD_THREADS = Index.propertyBuilder("sleeper.compaction.task.read.ahead.threads")
+            .description("The number of threads a compaction task uses to read and decode records from the input files of " +
+                    "its jobs ahead of the merge. These threads are shared by all the jobs the task runs at once. Set " +
+                    "this to 0 to read each file on the same thread as the merge.")
+            .defaultValue("4")
+            .validationPredicate(Utils::isNonNegativeInteger)
+            .propertyGroup(InstancePropertyGroup.COMPACTION).build();
+    UserDefinedInstanceProperty COMPACTION_TASK_READ_AHEAD_RECORDS = Index.propertyBuilder("sleeper.compaction.task.read.ahead.records")
+            .description("The maximum number of records a compaction task holds in memory from reading ahead. This is " +
+                    "split evenly between the jobs the task can run at once, then between the input files of each job, " +
+                    "and bounds the memory used by the read ahead threads.")
+            .defaultValue("100000")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(InstancePropertyGroup.COMPACTION).build();
+    UserDefinedInstanceProperty COMPACTION_TASK_PIPELINED_WRITE = Index.propertyBuilder("sleeper.compaction.task.pipelined.write")
+            .description("Whether a compaction task writes records to its output files and updates their sketches on " +
+                    "separate threads to the merge. Records are handed over in batches through a bounded buffer. The time " +
+                    "each stage spends busy and idle is logged when a job finishes.")
+            .defaultValue("false")
+            .validationPredicate(Utils::isTrueOrFalse)
+            .propertyGroup(InstancePropertyGroup.COMPACTION).build();
+    UserDefinedInstanceProperty COMPACTION_TASK_PIPELINED_WRITE_BATCH_SIZE = Index.propertyBuilder("sleeper.compaction.task.pipelined.write.batch.size")
+            .description("The number of records in each batch handed from the merge to the writer and sketch threads, " +
+                    "when pipelined writes are enabled.")
+            .defaultValue("1000")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(InstancePropertyGroup.COMPACTION).build();
+    UserDefinedInstanceProperty COMPACTION_TASK_PIPELINED_WRITE_BUFFER_BATCHES = Index.propertyBuilder("sleeper.compaction.task.pipelined.write.buffer.batches")
+            .description("The number of batches that may be waiting for the writer and sketch threads for each output " +
+                    "file, when pipelined writes are enabled. The merge waits when this is full.")
+            .defaultValue("4")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(InstancePropertyGroup.COMPACTION).build();
     UserDefinedInstanceProperty COMPACTION_ECS_LAUNCHTYPE = Index.propertyBuilder("sleeper.compaction.ecs.launch.type")
             .description("What launch type should compaction containers use? Valid options: FARGATE, EC2.")
             .defaultValue("FARGATE")
@@ -16,6 +16,7 @@
 
 package sleeper.configuration.properties.instance;
 
+import sleeper.configuration.Utils;
 import sleeper.configuration.properties.SleeperPropertyIndex;
 
 import java.util.List;
@@ -35,6 +36,24 @@ public interface GarbageCollectionProperty {
             .description("The size of the batch of files ready for garbage collection requested from the State Store.")
             .defaultValue("2000")
             .propertyGroup(InstancePropertyGroup.GARBAGE_COLLECTOR).build();
+    UserDefinedInstanceProperty GARBAGE_COLLECTOR_BATCH_DELETE = Index.propertyBuilder("sleeper.gc.batch.delete")
+            .description("Whether the garbage collector deletes files in batches. If this is true, each batch of files " +
+                    "is deleted from S3 with multi-object delete requests, and removed from the State Store in one update. " +
+                    "If this is false, each file is deleted and removed from the State Store separately.")
+            .defaultValue("true")
+            .validationPredicate(Utils::isTrueOrFalse)
+            .propertyGroup(InstancePropertyGroup.GARBAGE_COLLECTOR).build();
+    UserDefinedInstanceProperty GARBAGE_COLLECTOR_DELETE_THREADS = Index.propertyBuilder("sleeper.gc.delete.threads")
+            .description("The number of delete requests the garbage collector makes to S3 at the same time, when " +
+                    "deleting files in batches. Each request deletes up to 1000 objects.")
+            .defaultValue("10")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(InstancePropertyGroup.GARBAGE_COLLECTOR).build();
+    UserDefinedInstanceProperty GARBAGE_COLLECTOR_TABLE_THREADS = Index.propertyBuilder("sleeper.gc.table.threads")
+            .description("The number of tables the garbage collector processes at the same time.")
+            .defaultValue("1")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(InstancePropertyGroup.GARBAGE_COLLECTOR).build();
     UserDefinedInstanceProperty DEFAULT_GARBAGE_COLLECTOR_DELAY_BEFORE_DELETION = Index.propertyBuilder("sleeper.default.gc.delay.minutes")
             .description("A file will not be deleted until this number of minutes have passed after it has been marked as ready for " +
                     "garbage collection. The reason for not deleting files immediately after they have been marked as ready for " +
@@ -93,6 +93,21 @@ public interface IngestProperty {
                     "is large.")
             .defaultValue("async")
             .propertyGroup(InstancePropertyGroup.INGEST).build();
+    UserDefinedInstanceProperty INGEST_JOB_FILES_READ_PARALLELISM = Index.propertyBuilder("sleeper.ingest.job.files.read.parallelism")
+            .description("The number of input files of an ingest job which are opened and read at once by an ingest task.\n" +
+                    "The records from files which are read at once are interleaved, which makes no difference as they are " +
+                    "sorted before they are written. Reading several files at once hides the time spent opening each " +
+                    "file, which helps when a job has many small files. Set this to 1 to read the files one at a time.")
+            .defaultValue("4")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(InstancePropertyGroup.INGEST).build();
+    UserDefinedInstanceProperty INGEST_JOB_FILES_READ_BUFFER_RECORDS = Index.propertyBuilder("sleeper.ingest.job.files.read.buffer.records")
+            .description("The maximum number of records which have been read from the input files of an ingest job but not " +
+                    "yet passed to the ingest, when more than one file is read at once. This limits the memory used by the " +
+                    "files which are read ahead.")
+            .defaultValue("100000")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(InstancePropertyGroup.INGEST).build();
 
     UserDefinedInstanceProperty INGEST_STATUS_STORE_ENABLED = IngestProperty.Index.propertyBuilder("sleeper.ingest.status.store.enabled")
             .description("Flag to enable/disable storage of tracking information for ingest jobs and tasks.")
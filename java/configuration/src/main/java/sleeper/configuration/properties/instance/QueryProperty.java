@@ -41,8 +41,11 @@ public interface QueryProperty {
             .runCDKDeployWhenChanged(true).build();
     UserDefinedInstanceProperty QUERY_PROCESSING_LAMBDA_STATE_REFRESHING_PERIOD_IN_SECONDS = Index.propertyBuilder("sleeper.query.processor.state.refresh.period.seconds")
             .description("The frequency with which the query processing lambda refreshes its knowledge of the system state " +
-                    "(i.e. the partitions and the mapping from partition to files), in seconds.")
+                    "(i.e. the partitions and the mapping from partition to files), in seconds. The lambda also reloads " +
+                    "the instance and table properties at this frequency. The refresh of the partitions and files can be " +
+                    "overridden for each table with sleeper.table.query.processor.state.max.staleness.seconds.")
             .defaultValue("60")
+            .validationPredicate(Utils::isPositiveInteger)
             .propertyGroup(InstancePropertyGroup.QUERY).build();
     UserDefinedInstanceProperty QUERY_PROCESSING_LAMBDA_RESULTS_BATCH_SIZE = Index.propertyBuilder("sleeper.query.processor.results.batch.size")
             .description("The maximum number of records to include in a batch of query results send to " +
@@ -54,6 +57,62 @@ public interface QueryProperty {
             .defaultValue("10")
             .validationPredicate(Utils::isPositiveInteger)
             .propertyGroup(InstancePropertyGroup.QUERY).build();
+    UserDefinedInstanceProperty QUERY_PROCESSOR_RESULTS_CACHE_SIZE = Index.propertyBuilder("sleeper.query.processor.results.cache.size")
+            .description("The maximum size of the cache of sub query results held in memory in each query processing " +
+                    "lambda. The results of a sub query are cached against the files it read and the shape of the query, " +
+                    "so a repeated query can be answered without reading the files again. When compaction changes the " +
+                    "files in a partition, the old results are no longer used. The least recently used results are " +
+                    "evicted when the cache is full. The size is an estimate of the memory used by the cached records. " +
+                    "This may be a number of bytes, or a number followed by K, M or G. Set to 0 to disable the cache.")
+            .defaultValue("0")
+            .validationPredicate(Utils::isValidNumberOfBytes)
+            .propertyGroup(InstancePropertyGroup.QUERY).build();
+    UserDefinedInstanceProperty QUERY_PROCESSOR_RESULTS_CACHE_MAX_ENTRY_SIZE = Index.propertyBuilder("sleeper.query.processor.results.cache.entry.max.size")
+            .description("The maximum estimated size of the results of a single sub query to be held in the results " +
+                    "cache in a query processing lambda. Results larger than this are not cached. " +
+                    "See sleeper.query.processor.results.cache.size.")
+            .defaultValue("16M")
+            .validationPredicate(Utils::isValidNumberOfBytes)
+            .propertyGroup(InstancePropertyGroup.QUERY).build();
+    UserDefinedInstanceProperty QUERY_PARQUET_FOOTER_CACHE_SIZE = Index.propertyBuilder("sleeper.query.parquet.footer.cache.size")
+            .description("The maximum size of the cache of Parquet file footers held in memory in each process which " +
+                    "runs queries, i.e. the query processing lambda, the Trino plugin and the Athena record handlers. " +
+                    "The footer of a data file is read when the file is first queried, and reused by later queries " +
+                    "until it is evicted. Where they fit within the maximum entry size, the column indexes, offset " +
+                    "indexes and bloom filters at the end of the file are cached too. This may be a number of bytes, " +
+                    "or a number followed by K, M or G. Set to 0 to disable the cache.")
+            .defaultValue("32M")
+            .validationPredicate(Utils::isValidNumberOfBytes)
+            .propertyGroup(InstancePropertyGroup.QUERY).build();
+    UserDefinedInstanceProperty QUERY_PARQUET_FOOTER_CACHE_MAX_ENTRY_SIZE = Index.propertyBuilder("sleeper.query.parquet.footer.cache.entry.max.size")
+            .description("The maximum size of the metadata cached for a single Parquet file. If the indexes and footer " +
+                    "are larger than this, only the footer is cached. If the footer is larger than this, nothing is " +
+                    "cached for the file. See sleeper.query.parquet.footer.cache.size.")
+            .defaultValue("1M")
+            .validationPredicate(Utils::isValidNumberOfBytes)
+            .propertyGroup(InstancePropertyGroup.QUERY).build();
+    UserDefinedInstanceProperty QUERY_LOCAL_BLOCK_CACHE_DIRECTORY = Index.propertyBuilder("sleeper.query.block.cache.directory")
+            .description("The directory on local disk under which blocks of data files are cached in each process " +
+                    "which runs queries, for tables which enable the cache. Blocks are held in a subdirectory named " +
+                    "sleeper-block-cache, which is cleared of cached blocks when the cache is created. See " +
+                    "sleeper.table.query.block.cache.enabled.")
+            .defaultValue("/tmp")
+            .propertyGroup(InstancePropertyGroup.QUERY).build();
+    UserDefinedInstanceProperty QUERY_LOCAL_BLOCK_CACHE_SIZE = Index.propertyBuilder("sleeper.query.block.cache.size")
+            .description("The maximum total size of blocks of data files cached on local disk in each process which " +
+                    "runs queries. Blocks are evicted in least recently used order. In a lambda this must fit in the " +
+                    "ephemeral storage. This may be a number of bytes, or a number followed by K, M or G. Set to 0 to " +
+                    "disable the cache.")
+            .defaultValue("256M")
+            .validationPredicate(Utils::isValidNumberOfBytes)
+            .propertyGroup(InstancePropertyGroup.QUERY).build();
+    UserDefinedInstanceProperty QUERY_LOCAL_BLOCK_CACHE_BLOCK_SIZE = Index.propertyBuilder("sleeper.query.block.cache.block.size")
+            .description("The size of each block of a data file cached on local disk. A whole block is read from S3 " +
+                    "whenever any part of it is read and it is not already cached. This must be less than 2G. See " +
+                    "sleeper.query.block.cache.size.")
+            .defaultValue("4M")
+            .validationPredicate(Utils::isValidNumberOfBytes)
+            .propertyGroup(InstancePropertyGroup.QUERY).build();
     UserDefinedInstanceProperty QUERY_TRACKER_ITEM_TTL_IN_DAYS = Index.propertyBuilder("sleeper.query.tracker.ttl.days")
             .description("This value is used to set the time-to-live on the tracking of the queries in the DynamoDB-based query tracker.")
             .defaultValue("1")
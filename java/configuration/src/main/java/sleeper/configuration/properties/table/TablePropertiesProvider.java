@@ -21,9 +21,9 @@ import sleeper.configuration.properties.instance.InstanceProperties;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 public class TablePropertiesProvider {
@@ -36,7 +36,7 @@ public class TablePropertiesProvider {
 
     protected TablePropertiesProvider(Function<String, TableProperties> getTableProperties) {
         this.getTableProperties = getTableProperties;
-        this.tableNameToPropertiesCache = new HashMap<>();
+        this.tableNameToPropertiesCache = new ConcurrentHashMap<>();
     }
 
     public TableProperties getTableProperties(String tableName) {
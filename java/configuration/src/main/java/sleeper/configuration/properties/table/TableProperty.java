@@ -22,6 +22,7 @@ import sleeper.configuration.properties.PropertyGroup;
 import sleeper.configuration.properties.SleeperPropertyIndex;
 import sleeper.configuration.properties.instance.SleeperProperty;
 import sleeper.configuration.properties.validation.BatchIngestMode;
+import sleeper.core.iterator.MergeAlgorithm;
 
 import java.util.List;
 import java.util.Objects;
@@ -60,6 +61,7 @@ import static sleeper.configuration.properties.instance.NonPersistentEMRProperty
 import static sleeper.configuration.properties.instance.NonPersistentEMRProperty.DEFAULT_BULK_IMPORT_EMR_MAX_EXECUTOR_CAPACITY;
 import static sleeper.configuration.properties.instance.NonPersistentEMRProperty.DEFAULT_BULK_IMPORT_EMR_RELEASE_LABEL;
 import static sleeper.configuration.properties.instance.PartitionSplittingProperty.DEFAULT_PARTITION_SPLIT_THRESHOLD;
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_PROCESSING_LAMBDA_STATE_REFRESHING_PERIOD_IN_SECONDS;
 
 /**
  * These contain the table properties which are stored separately to the instance properties.
@@ -152,6 +154,31 @@ public interface TableProperty extends SleeperProperty {
                     "https://github.com/apache/parquet-mr/blob/master/parquet-hadoop/README.md\n" +
                     "The length in bytes to truncate the min/max binary values in row groups.")
             .propertyGroup(TablePropertyGroup.DATA_STORAGE).build();
+    TableProperty PARQUET_BLOOM_FILTER_ROW_KEY_FIELDS = Index.propertyBuilder("sleeper.table.parquet.bloom.filter.row.key.fields")
+            .description("A comma-separated list of the row key fields to write Parquet bloom filters for. When a query " +
+                    "asks for an exact value of one of these fields, the bloom filters are used to skip row groups which " +
+                    "do not contain that value. Defaults to no bloom filters.")
+            .propertyGroup(TablePropertyGroup.DATA_STORAGE).build();
+    TableProperty PARQUET_BLOOM_FILTER_FPP = Index.propertyBuilder("sleeper.table.parquet.bloom.filter.fpp")
+            .defaultValue("0.01")
+            .description("The target false positive probability of the Parquet bloom filters on row key fields, " +
+                    "if they are enabled.")
+            .validationPredicate(Utils::isPositiveDoubleLessThanOne)
+            .propertyGroup(TablePropertyGroup.DATA_STORAGE).build();
+    TableProperty PARQUET_BLOOM_FILTER_NDV = Index.propertyBuilder("sleeper.table.parquet.bloom.filter.ndv")
+            .defaultValue("100000")
+            .description("The expected number of distinct values of a row key field in each row group, used to size " +
+                    "the Parquet bloom filters on row key fields, if they are enabled. Together with the false " +
+                    "positive probability this sets the size of each bloom filter, up to a maximum of 1MiB.")
+            .validationPredicate(Utils::isPositiveLong)
+            .propertyGroup(TablePropertyGroup.DATA_STORAGE).build();
+    TableProperty QUERY_LOCAL_BLOCK_CACHE_ENABLED = Index.propertyBuilder("sleeper.table.query.block.cache.enabled")
+            .defaultValue("false")
+            .description("Whether blocks of data files are cached on local disk by long-lived processes which run " +
+                    "queries against this table. This can help when the same data is queried repeatedly. The size of " +
+                    "the cache is set in the instance property sleeper.query.block.cache.size.")
+            .validationPredicate(Utils::isTrueOrFalse)
+            .propertyGroup(TablePropertyGroup.DATA_STORAGE).build();
     TableProperty S3A_READAHEAD_RANGE = Index.propertyBuilder("sleeper.table.fs.s3a.readahead.range")
             .defaultProperty(DEFAULT_S3A_READAHEAD_RANGE)
             .description("The S3 readahead range - defaults to the value in the instance properties.")
@@ -189,6 +216,15 @@ public interface TableProperty extends SleeperProperty {
                     "(NB This does not apply to splitting jobs which will run even if there is only 1 file.)")
             .propertyGroup(TablePropertyGroup.COMPACTION)
             .build();
+    TableProperty MERGE_ALGORITHM = Index.propertyBuilder("sleeper.table.merge.algorithm")
+            .defaultValue("priority_queue")
+            .validationPredicate(Utils::isValidMergeAlgorithm)
+            .description("The algorithm used to merge sorted files together, in compactions and when reading files in a " +
+                    "query. The loser_tree algorithm uses fewer comparisons and creates fewer objects per record, which " +
+                    "helps most when merging many files.\n" +
+                    "Valid values are: " + describeEnumValuesInLowerCase(MergeAlgorithm.class))
+            .propertyGroup(TablePropertyGroup.COMPACTION)
+            .build();
     TableProperty SIZE_RATIO_COMPACTION_STRATEGY_RATIO = Index.propertyBuilder("sleeper.table.compaction.strategy.sizeratio.ratio")
             .defaultProperty(DEFAULT_SIZERATIO_COMPACTION_STRATEGY_RATIO)
             .description("Used by the SizeRatioCompactionStrategy to decide if a group of files should be compacted.\n" +
@@ -204,9 +240,43 @@ public interface TableProperty extends SleeperProperty {
     TableProperty STATESTORE_CLASSNAME = Index.propertyBuilder("sleeper.table.statestore.classname")
             .defaultValue("sleeper.statestore.dynamodb.DynamoDBStateStore")
             .description("The name of the class used for the metadata store. The default is DynamoDBStateStore. " +
-                    "An alternative option is the S3StateStore.")
+                    "Alternative options are the S3StateStore and the S3DeltaLogStateStore.")
             .propertyGroup(TablePropertyGroup.METADATA)
             .editable(false).build();
+    TableProperty STATESTORE_CACHE_ENABLED = Index.propertyBuilder("sleeper.table.statestore.cache.enabled")
+            .defaultValue("false")
+            .description("Whether the partitions and active files read from the state store are held in memory by " +
+                    "each process that reads them, so that they are only reloaded when they have changed. With the " +
+                    "S3StateStore this is checked against the revision id held in DynamoDB. With the " +
+                    "DynamoDBStateStore the files and partitions are reloaded when they are older than " +
+                    "sleeper.table.statestore.cache.max.age.seconds.")
+            .validationPredicate(Utils::isTrueOrFalse)
+            .propertyGroup(TablePropertyGroup.METADATA)
+            .build();
+    TableProperty STATESTORE_CACHE_MAX_AGE_SECONDS = Index.propertyBuilder("sleeper.table.statestore.cache.max.age.seconds")
+            .defaultValue("60")
+            .description("If the state store cache is enabled, this is the maximum age in seconds of cached partitions " +
+                    "and files, for state stores which do not have a revision id to check whether they have changed.")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(TablePropertyGroup.METADATA)
+            .build();
+    TableProperty QUERY_PROCESSOR_STATE_MAX_STALENESS_SECONDS = Index.propertyBuilder("sleeper.table.query.processor.state.max.staleness.seconds")
+            .defaultProperty(QUERY_PROCESSING_LAMBDA_STATE_REFRESHING_PERIOD_IN_SECONDS)
+            .description("The maximum age in seconds of the partitions and files held by a query processor to split " +
+                    "up queries against this table. Once they are half this age they are refreshed in the background, " +
+                    "and queries carry on using the previous view until the refresh is done. If they reach this age " +
+                    "they are refreshed before the next query is split up.")
+            .propertyGroup(TablePropertyGroup.METADATA)
+            .build();
+    TableProperty QUERY_PROCESSOR_MAX_LOCAL_SUB_QUERIES = Index.propertyBuilder("sleeper.table.query.processor.local.subqueries.max")
+            .defaultValue("0")
+            .description("When a query against this table spans more than one leaf partition, up to this many of the " +
+                    "sub queries are run in parallel by the query processor that split it up. The remaining sub " +
+                    "queries are sent back to the query queue to be run by other query processors. If this is 0, " +
+                    "all the sub queries are sent to the queue.")
+            .validationPredicate(Utils::isNonNegativeInteger)
+            .propertyGroup(TablePropertyGroup.METADATA)
+            .build();
     TableProperty DYNAMODB_STRONGLY_CONSISTENT_READS = Index.propertyBuilder("sleeper.table.metadata.dynamo.consistent.reads")
             .defaultProperty(DEFAULT_DYNAMO_STRONGLY_CONSISTENT_READS)
             .description("This specifies whether queries and scans against DynamoDB tables used in the DynamoDB state store " +
@@ -225,6 +295,15 @@ public interface TableProperty extends SleeperProperty {
                     "the S3StateStore is used.")
             .propertyGroup(TablePropertyGroup.METADATA)
             .runCDKDeployWhenChanged(true).build();
+    TableProperty S3_DELTA_LOG_STATE_STORE_CHECKPOINT_INTERVAL = Index.propertyBuilder("sleeper.table.metadata.s3.deltalog.checkpoint.interval")
+            .defaultValue("100")
+            .description("If the S3DeltaLogStateStore is used, this is the number of updates to the file information " +
+                    "between checkpoints. Each update is written to S3 as a small delta, and a checkpoint holding all the " +
+                    "file information is written every time this many deltas have been added. A state store reads the " +
+                    "latest checkpoint when it starts, and then only reads the deltas after that.")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(TablePropertyGroup.METADATA)
+            .build();
     TableProperty BULK_IMPORT_EMR_MASTER_X86_INSTANCE_TYPES = Index.propertyBuilder("sleeper.table.bulk.import.emr.master.x86.instance.types")
             .defaultProperty(DEFAULT_BULK_IMPORT_EMR_MASTER_X86_INSTANCE_TYPES)
             .description("(Non-persistent EMR mode only) The EC2 x86_64 instance types to be used for the master node of the " +
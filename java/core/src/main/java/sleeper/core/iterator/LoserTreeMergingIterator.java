@@ -0,0 +1,192 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.core.record.CompiledRecordComparator;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Schema;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Merges sorted iterators of {@link Record}s with a tournament tree of losers. Each input has a fixed slot in the
+ * tree, and each internal node holds the slot that lost the match at that node. Taking the next record only replays
+ * the matches on the path from the winning slot to the root, which is log(k) comparisons for k inputs.
+ * <p>
+ * When the same input wins twice in a row, the best of the other inputs is found and held. Records are then taken
+ * from the winning input with one comparison each, without replaying the tree, for as long as they still sort
+ * before that record.
+ */
+public class LoserTreeMergingIterator implements CloseableIterator<Record> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoserTreeMergingIterator.class);
+
+    private final List<CloseableIterator<Record>> inputIterators;
+    private final CompiledRecordComparator comparator;
+    private final int numInputs;
+    private final Record[] currentRecords;
+    private final int[] tree;
+    private int runnerUp;
+    private long recordsRead;
+
+    public LoserTreeMergingIterator(Schema schema, List<CloseableIterator<Record>> inputIterators) {
+        this.inputIterators = inputIterators;
+        this.comparator = new CompiledRecordComparator(schema);
+        this.numInputs = inputIterators.size();
+        this.currentRecords = new Record[numInputs];
+        this.tree = new int[Math.max(numInputs, 1)];
+        this.runnerUp = -1;
+        this.recordsRead = 0L;
+        for (int slot = 0; slot < numInputs; slot++) {
+            CloseableIterator<Record> iterator = inputIterators.get(slot);
+            if (iterator.hasNext()) {
+                currentRecords[slot] = iterator.next();
+                recordsRead++;
+            }
+        }
+        buildTree();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return numInputs > 0 && null != currentRecords[tree[0]];
+    }
+
+    @Override
+    public Record next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int winner = tree[0];
+        Record record = currentRecords[winner];
+        advance(winner);
+        if (runnerUp >= 0 && beats(runnerUp, winner)) {
+            runnerUp = -1;
+        }
+        if (runnerUp < 0) {
+            replay(winner);
+            if (tree[0] == winner) {
+                runnerUp = findRunnerUp(winner);
+            }
+        }
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (CloseableIterator<Record> iterator : inputIterators) {
+            iterator.close();
+        }
+    }
+
+    public long getNumberOfRecordsRead() {
+        return recordsRead;
+    }
+
+    private void advance(int slot) {
+        CloseableIterator<Record> iterator = inputIterators.get(slot);
+        if (iterator.hasNext()) {
+            currentRecords[slot] = iterator.next();
+            recordsRead++;
+            if (0 == recordsRead % 1_000_000) {
+                LOGGER.info("Read {} records", recordsRead);
+            }
+        } else {
+            currentRecords[slot] = null;
+        }
+    }
+
+    /**
+     * Plays every match from the leaves up. Leaf nodes are numbered from numInputs to 2 * numInputs - 1, and the
+     * parent of node n is n / 2, so this works for any number of inputs.
+     */
+    private void buildTree() {
+        if (numInputs <= 1) {
+            return;
+        }
+        int[] winners = new int[2 * numInputs];
+        for (int slot = 0; slot < numInputs; slot++) {
+            winners[numInputs + slot] = slot;
+        }
+        for (int node = numInputs - 1; node >= 1; node--) {
+            int left = winners[2 * node];
+            int right = winners[2 * node + 1];
+            if (beats(right, left)) {
+                winners[node] = right;
+                tree[node] = left;
+            } else {
+                winners[node] = left;
+                tree[node] = right;
+            }
+        }
+        tree[0] = winners[1];
+    }
+
+    private void replay(int slot) {
+        int winner = slot;
+        for (int node = (slot + numInputs) / 2; node >= 1; node /= 2) {
+            int loser = tree[node];
+            if (beats(loser, winner)) {
+                tree[node] = winner;
+                winner = loser;
+            }
+        }
+        tree[0] = winner;
+    }
+
+    /**
+     * Finds the best of the other inputs. Every other input is in a subtree whose winner is held as a loser on the
+     * path from the winning slot to the root, so only those nodes need to be checked.
+     *
+     * @param winner the winning slot
+     * @return the slot of the best other input, or -1 if there are no other inputs
+     */
+    private int findRunnerUp(int winner) {
+        int best = -1;
+        for (int node = (winner + numInputs) / 2; node >= 1; node /= 2) {
+            int candidate = tree[node];
+            if (best < 0 || beats(candidate, best)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Checks whether the record in one slot sorts before the record in another. Exhausted inputs sort last, and
+     * ties are broken by slot number so that the tree stays consistent.
+     *
+     * @param slot1 the first slot
+     * @param slot2 the second slot
+     * @return true if the record in the first slot sorts before the record in the second slot
+     */
+    private boolean beats(int slot1, int slot2) {
+        Record record1 = currentRecords[slot1];
+        Record record2 = currentRecords[slot2];
+        if (null == record1) {
+            return false;
+        }
+        if (null == record2) {
+            return true;
+        }
+        int diff = comparator.compare(record1, record2);
+        return diff < 0 || (diff == 0 && slot1 < slot2);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import sleeper.core.record.Record;
+import sleeper.core.schema.Schema;
+
+import java.util.List;
+
+/**
+ * The algorithms available to merge sorted iterators of {@link Record}s.
+ */
+public enum MergeAlgorithm {
+    PRIORITY_QUEUE {
+        @Override
+        public CloseableIterator<Record> merge(Schema schema, List<CloseableIterator<Record>> inputIterators) {
+            return new MergingIterator(schema, inputIterators);
+        }
+    },
+    LOSER_TREE {
+        @Override
+        public CloseableIterator<Record> merge(Schema schema, List<CloseableIterator<Record>> inputIterators) {
+            return new LoserTreeMergingIterator(schema, inputIterators);
+        }
+    };
+
+    public abstract CloseableIterator<Record> merge(Schema schema, List<CloseableIterator<Record>> inputIterators);
+}
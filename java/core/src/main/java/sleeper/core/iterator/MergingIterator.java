@@ -18,8 +18,8 @@ package sleeper.core.iterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import sleeper.core.record.CompiledRecordComparator;
 import sleeper.core.record.Record;
-import sleeper.core.record.RecordComparator;
 import sleeper.core.schema.Schema;
 
 import java.io.IOException;
@@ -97,10 +97,10 @@ public class MergingIterator implements CloseableIterator<Record> {
     }
 
     private static class RecordIteratorPairComparator implements Comparator<RecordIteratorPair> {
-        private final RecordComparator recordComparator;
+        private final CompiledRecordComparator recordComparator;
 
         RecordIteratorPairComparator(Schema schema) {
-            this.recordComparator = new RecordComparator(schema);
+            this.recordComparator = new CompiledRecordComparator(schema);
         }
 
         @Override
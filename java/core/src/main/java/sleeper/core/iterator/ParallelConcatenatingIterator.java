@@ -0,0 +1,199 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import sleeper.core.record.Record;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A {@link ParallelConcatenatingIterator} reads fully from a list of iterator suppliers, like a
+ * {@link ConcatenatingIterator}, but reads several of them at once on a pool of threads. This means the time spent
+ * opening an iterator, e.g. to read a file from S3, overlaps with reading the other iterators. The records are
+ * returned in batches as they are read, and so the records from different iterators are interleaved. This should only
+ * be used when the order of the records does not matter.
+ * <p>
+ * At most the given number of iterators are open at once, one for each thread. The records which have been read but
+ * not yet returned are held in a bounded queue, and the threads wait when the queue is full, so that at most the
+ * given number of records are held in memory, plus one batch being filled by each thread.
+ */
+public class ParallelConcatenatingIterator implements CloseableIterator<Record> {
+    private static final List<Record> END_OF_INPUT = Collections.emptyList();
+
+    private final List<Supplier<CloseableIterator<Record>>> suppliers;
+    private final int batchSize;
+    private final int noOfThreads;
+    private final ExecutorService executorService;
+    private final BlockingQueue<List<Record>> queue;
+    private final Semaphore batchPermits;
+    private final AtomicInteger nextSupplierIndex = new AtomicInteger(0);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private int finishedThreads = 0;
+    private Iterator<Record> currentBatch = Collections.emptyIterator();
+
+    /**
+     * Creates the iterator and starts reading from the suppliers.
+     *
+     * @param suppliers the suppliers of the iterators to read
+     * @param noOfThreads the number of iterators to read at once
+     * @param maxBufferedRecords the maximum number of records to hold which have been read but not yet returned
+     * @param batchSize the number of records to pass from a reading thread to the consumer at once. If this is more
+     *                  than the maximum number of buffered records, the maximum number of buffered records is used as
+     *                  the batch size instead, so that the limit is kept.
+     */
+    public ParallelConcatenatingIterator(List<Supplier<CloseableIterator<Record>>> suppliers,
+                                         int noOfThreads, int maxBufferedRecords, int batchSize) {
+        if (noOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1, found " + noOfThreads);
+        }
+        if (maxBufferedRecords < 1) {
+            throw new IllegalArgumentException("Maximum buffered records must be at least 1, found " + maxBufferedRecords);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1, found " + batchSize);
+        }
+        this.suppliers = new ArrayList<>(suppliers);
+        this.batchSize = Math.min(batchSize, maxBufferedRecords);
+        this.noOfThreads = Math.max(1, Math.min(noOfThreads, this.suppliers.size()));
+        // The number of batches in the queue is limited separately from its capacity, so that there is always space
+        // for each thread's end of input marker
+        int maxBatches = maxBufferedRecords / this.batchSize;
+        this.batchPermits = new Semaphore(maxBatches);
+        this.queue = new ArrayBlockingQueue<>(maxBatches + this.noOfThreads);
+        this.executorService = Executors.newFixedThreadPool(this.noOfThreads);
+        for (int i = 0; i < this.noOfThreads; i++) {
+            executorService.execute(this::readSuppliers);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentBatch.hasNext()) {
+            throwIfFailed();
+            if (finishedThreads >= noOfThreads) {
+                return false;
+            }
+            List<Record> batch = takeBatch();
+            if (batch == END_OF_INPUT) {
+                finishedThreads++;
+            } else {
+                batchPermits.release();
+                currentBatch = batch.iterator();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Record next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentBatch.next();
+    }
+
+    @Override
+    public void close() throws IOException {
+        executorService.shutdownNow();
+        try {
+            if (!executorService.awaitTermination(1, TimeUnit.MINUTES)) {
+                throw new IOException("Timed out waiting for reading threads to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for reading threads to finish", e);
+        }
+    }
+
+    private void readSuppliers() {
+        try {
+            int index;
+            while (!Thread.currentThread().isInterrupted()
+                    && null == failure.get()
+                    && (index = nextSupplierIndex.getAndIncrement()) < suppliers.size()) {
+                Supplier<CloseableIterator<Record>> supplier = suppliers.get(index);
+                if (null != supplier) {
+                    readFully(supplier);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            // Errors are caught as well, as otherwise the consumer would wait forever for this thread to finish
+            failure.compareAndSet(null, e);
+        } finally {
+            // The queue always has space for each thread's end of input marker, so this never fails
+            queue.add(END_OF_INPUT);
+        }
+    }
+
+    private void readFully(Supplier<CloseableIterator<Record>> supplier) throws InterruptedException {
+        try (CloseableIterator<Record> iterator = supplier.get()) {
+            List<Record> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() >= batchSize) {
+                    putBatch(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                putBatch(batch);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close iterator", e);
+        }
+    }
+
+    private void putBatch(List<Record> batch) throws InterruptedException {
+        batchPermits.acquire();
+        queue.add(batch);
+    }
+
+    private List<Record> takeBatch() {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for records", e);
+        }
+    }
+
+    private void throwIfFailed() {
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        } else if (null != e) {
+            throw new RuntimeException("Failed reading records", e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads ahead from a {@link CloseableIterator} on an {@link ExecutorService}. Items are read in batches, and the next
+ * batch is read in the background while the current one is consumed, so at most two batches are held at once. The
+ * underlying iterator is only ever read by one thread at a time.
+ *
+ * @param <T> the type of the items
+ */
+public class PrefetchingIterator<T> implements CloseableIterator<T> {
+    private final CloseableIterator<T> source;
+    private final ExecutorService executorService;
+    private final int batchSize;
+    private Iterator<T> currentBatch;
+    private Future<List<T>> nextBatch;
+
+    public PrefetchingIterator(CloseableIterator<T> source, ExecutorService executorService, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1, found " + batchSize);
+        }
+        this.source = source;
+        this.executorService = executorService;
+        this.batchSize = batchSize;
+        this.currentBatch = Collections.emptyIterator();
+        this.nextBatch = executorService.submit(this::readBatch);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentBatch.hasNext()) {
+            if (null == nextBatch) {
+                return false;
+            }
+            List<T> batch = await(nextBatch);
+            if (batch.size() < batchSize) {
+                nextBatch = null;
+            } else {
+                nextBatch = executorService.submit(this::readBatch);
+            }
+            currentBatch = batch.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentBatch.next();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Wait for any read in progress, as the source should not be closed while another thread is reading from it
+        if (null != nextBatch) {
+            try {
+                nextBatch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // The failure will already have been reported, or the iterator is being closed early
+            }
+            nextBatch = null;
+        }
+        source.close();
+    }
+
+    private List<T> readBatch() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (batch.size() < batchSize && source.hasNext()) {
+            batch.add(source.next());
+        }
+        return batch;
+    }
+
+    private static <T> List<T> await(Future<List<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting to read ahead", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed reading ahead", e.getCause());
+        }
+    }
+}
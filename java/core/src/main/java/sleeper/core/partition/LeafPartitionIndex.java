@@ -0,0 +1,216 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.partition;
+
+import sleeper.core.key.Key;
+import sleeper.core.range.Range;
+import sleeper.core.record.PrimitiveFieldComparator;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Finds the leaf partition containing a key in logarithmic time, without visiting every range of the partitions on
+ * the way down the tree. If every partition was split on the first row key field, the leaf partitions are held in
+ * order with the boundaries between them, and found with a binary search. Otherwise the partition tree is encoded in
+ * flat arrays as a k-d tree, holding the split dimension and split point of each non-leaf partition.
+ * <p>
+ * This can only be built when every non-leaf partition has exactly two children, with canonical ranges which meet at
+ * the split point. Otherwise no index is created, and {@link PartitionTree} searches the tree directly.
+ */
+abstract class LeafPartitionIndex {
+
+    abstract Partition getLeafPartition(Key key);
+
+    static Optional<LeafPartitionIndex> from(Schema schema, Partition rootPartition, Map<String, Partition> idToPartition) {
+        if (rootPartition.isLeafPartition()) {
+            return Optional.empty();
+        }
+        Builder builder = new Builder(schema, idToPartition);
+        if (!builder.canIndex(rootPartition)) {
+            return Optional.empty();
+        }
+        builder.addNode(rootPartition);
+        return Optional.of(builder.build());
+    }
+
+    /**
+     * Finds leaf partitions by a binary search over the boundaries between them, when they are only split on the
+     * first row key field.
+     */
+    private static class SortedBoundaries extends LeafPartitionIndex {
+        private final PrimitiveFieldComparator comparator;
+        private final Object[] boundaries;
+        private final Partition[] leaves;
+
+        SortedBoundaries(PrimitiveFieldComparator comparator, Object[] boundaries, Partition[] leaves) {
+            this.comparator = comparator;
+            this.boundaries = boundaries;
+            this.leaves = leaves;
+        }
+
+        @Override
+        Partition getLeafPartition(Key key) {
+            Object value = key.get(0);
+            // Find the number of boundaries that are less than or equal to the value
+            int low = 0;
+            int high = boundaries.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(boundaries[mid], value) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return leaves[low];
+        }
+    }
+
+    /**
+     * Finds leaf partitions by following the splits of a k-d tree held in flat arrays. A reference to a child is
+     * the index of a non-leaf node if it is zero or positive, or minus one minus the index of a leaf if it is
+     * negative.
+     */
+    private static class FlatKdTree extends LeafPartitionIndex {
+        private final PrimitiveFieldComparator[] comparators;
+        private final int[] splitDimensions;
+        private final Object[] splitPoints;
+        private final int[] leftChildren;
+        private final int[] rightChildren;
+        private final Partition[] leaves;
+
+        FlatKdTree(PrimitiveFieldComparator[] comparators, int[] splitDimensions, Object[] splitPoints,
+                   int[] leftChildren, int[] rightChildren, Partition[] leaves) {
+            this.comparators = comparators;
+            this.splitDimensions = splitDimensions;
+            this.splitPoints = splitPoints;
+            this.leftChildren = leftChildren;
+            this.rightChildren = rightChildren;
+            this.leaves = leaves;
+        }
+
+        @Override
+        Partition getLeafPartition(Key key) {
+            int node = 0;
+            while (node >= 0) {
+                int dimension = splitDimensions[node];
+                if (comparators[dimension].compare(key.get(dimension), splitPoints[node]) < 0) {
+                    node = leftChildren[node];
+                } else {
+                    node = rightChildren[node];
+                }
+            }
+            return leaves[-node - 1];
+        }
+    }
+
+    private static class Builder {
+        private final List<Field> rowKeyFields;
+        private final PrimitiveFieldComparator[] comparators;
+        private final Map<String, Partition> idToPartition;
+        private final List<Integer> splitDimensions = new ArrayList<>();
+        private final List<Object> splitPoints = new ArrayList<>();
+        private final List<Integer> leftChildren = new ArrayList<>();
+        private final List<Integer> rightChildren = new ArrayList<>();
+        private final List<Partition> leaves = new ArrayList<>();
+        private boolean firstDimensionOnly = true;
+
+        Builder(Schema schema, Map<String, Partition> idToPartition) {
+            this.rowKeyFields = schema.getRowKeyFields();
+            this.comparators = PrimitiveFieldComparator.forTypes(schema.getRowKeyTypes());
+            this.idToPartition = idToPartition;
+        }
+
+        boolean canIndex(Partition partition) {
+            if (partition.isLeafPartition()) {
+                return true;
+            }
+            List<String> childIds = partition.getChildPartitionIds();
+            int dimension = partition.getDimension();
+            if (childIds.size() != 2 || dimension < 0 || dimension >= rowKeyFields.size()) {
+                return false;
+            }
+            Partition child1 = idToPartition.get(childIds.get(0));
+            Partition child2 = idToPartition.get(childIds.get(1));
+            if (null == child1 || null == child2) {
+                return false;
+            }
+            String fieldName = rowKeyFields.get(dimension).getName();
+            Range range1 = child1.getRegion().getRange(fieldName);
+            Range range2 = child2.getRegion().getRange(fieldName);
+            if (!range1.isInCanonicalForm() || !range2.isInCanonicalForm()) {
+                return false;
+            }
+            PrimitiveFieldComparator comparator = comparators[dimension];
+            boolean meetAtSplit = (null != range1.getMax() && comparator.compare(range1.getMax(), range2.getMin()) == 0)
+                    || (null != range2.getMax() && comparator.compare(range2.getMax(), range1.getMin()) == 0);
+            return meetAtSplit && canIndex(child1) && canIndex(child2);
+        }
+
+        int addNode(Partition partition) {
+            if (partition.isLeafPartition()) {
+                leaves.add(partition);
+                return -leaves.size();
+            }
+            int dimension = partition.getDimension();
+            String fieldName = rowKeyFields.get(dimension).getName();
+            Partition left = idToPartition.get(partition.getChildPartitionIds().get(0));
+            Partition right = idToPartition.get(partition.getChildPartitionIds().get(1));
+            if (comparators[dimension].compare(
+                    left.getRegion().getRange(fieldName).getMin(),
+                    right.getRegion().getRange(fieldName).getMin()) > 0) {
+                Partition swap = left;
+                left = right;
+                right = swap;
+            }
+            if (dimension != 0) {
+                firstDimensionOnly = false;
+            }
+            int node = splitDimensions.size();
+            splitDimensions.add(dimension);
+            splitPoints.add(right.getRegion().getRange(fieldName).getMin());
+            leftChildren.add(null);
+            rightChildren.add(null);
+            leftChildren.set(node, addNode(left));
+            rightChildren.set(node, addNode(right));
+            return node;
+        }
+
+        LeafPartitionIndex build() {
+            Partition[] leafArray = leaves.toArray(new Partition[0]);
+            if (firstDimensionOnly) {
+                // Leaves were added from left to right, so each boundary is the minimum of the next leaf
+                String fieldName = rowKeyFields.get(0).getName();
+                Object[] boundaries = new Object[leafArray.length - 1];
+                for (int i = 0; i < boundaries.length; i++) {
+                    boundaries[i] = leafArray[i + 1].getRegion().getRange(fieldName).getMin();
+                }
+                return new SortedBoundaries(comparators[0], boundaries, leafArray);
+            }
+            return new FlatKdTree(comparators,
+                    splitDimensions.stream().mapToInt(Integer::intValue).toArray(),
+                    splitPoints.toArray(),
+                    leftChildren.stream().mapToInt(Integer::intValue).toArray(),
+                    rightChildren.stream().mapToInt(Integer::intValue).toArray(),
+                    leafArray);
+        }
+    }
+}
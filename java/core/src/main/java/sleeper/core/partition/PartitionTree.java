@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -33,11 +34,15 @@ import java.util.stream.Stream;
  * This represents a tree of {@link Partition}s. It can be used to find all
  * ancestors of a partition, i.e. all partitions that are either parents of the
  * partition, or grandparents, or great-grandparents.
+ * <p>
+ * The first time a leaf partition is looked up by key, an index is built over the leaf partitions so that further
+ * lookups take logarithmic time in the number of leaf partitions. See {@link LeafPartitionIndex}.
  */
 public class PartitionTree {
     private final Schema schema;
     private final Map<String, Partition> idToPartition;
     private final Partition rootPartition;
+    private volatile Optional<LeafPartitionIndex> leafPartitionIndex;
 
     public PartitionTree(Schema schema, List<Partition> partitions) {
         this.schema = schema;
@@ -112,9 +117,22 @@ public class PartitionTree {
             return rootPartition;
         }
 
+        Optional<LeafPartitionIndex> index = getLeafPartitionIndex();
+        if (index.isPresent()) {
+            return index.get().getLeafPartition(key);
+        }
         return descend(rootPartition, key);
     }
 
+    private Optional<LeafPartitionIndex> getLeafPartitionIndex() {
+        Optional<LeafPartitionIndex> index = leafPartitionIndex;
+        if (null == index) {
+            index = LeafPartitionIndex.from(schema, rootPartition, idToPartition);
+            leafPartitionIndex = index;
+        }
+        return index;
+    }
+
     private Partition descend(Partition currentNode, Key key) {
         // Get child partitions
         List<String> childPartitionIds = currentNode.getChildPartitionIds();
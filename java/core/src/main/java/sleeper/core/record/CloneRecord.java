@@ -15,7 +15,6 @@
  */
 package sleeper.core.record;
 
-import sleeper.core.schema.Field;
 import sleeper.core.schema.Schema;
 
 /**
@@ -23,16 +22,16 @@ import sleeper.core.schema.Schema;
  * from the first record (more accurately all the fields from the {@link Schema}).
  */
 public class CloneRecord {
-    private final Schema schema;
+    private final RecordLayout layout;
 
     public CloneRecord(Schema schema) {
-        this.schema = schema;
+        this.layout = RecordLayout.forSchema(schema);
     }
 
     public Record clone(Record record) {
-        Record clonedRecord = new Record();
-        for (Field field : schema.getAllFields()) {
-            clonedRecord.put(field.getName(), record.get(field.getName()));
+        Record clonedRecord = new Record(layout);
+        for (int i = 0; i < layout.size(); i++) {
+            clonedRecord.put(i, record.get(layout.getFieldName(i)));
         }
         return clonedRecord;
     }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.record;
+
+import sleeper.core.key.Key;
+import sleeper.core.schema.type.PrimitiveType;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compares {@link Key}s field by field. This gives the same ordering as {@link KeyComparator}, but the types are
+ * resolved once on construction and byte arrays are compared without being wrapped.
+ */
+public class CompiledKeyComparator implements Comparator<Key> {
+    private final PrimitiveFieldComparator[] fieldComparators;
+
+    public CompiledKeyComparator(List<PrimitiveType> keyTypes) {
+        this.fieldComparators = PrimitiveFieldComparator.forTypes(keyTypes);
+    }
+
+    @Override
+    public int compare(Key key1, Key key2) {
+        for (int i = 0; i < fieldComparators.length; i++) {
+            int diff = fieldComparators[i].compare(key1.get(i), key2.get(i));
+            if (0 != diff) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+}
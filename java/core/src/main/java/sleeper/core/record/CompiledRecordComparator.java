@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.record;
+
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compares {@link Record}s by row keys then sort keys. This gives the same ordering as {@link RecordComparator},
+ * but the key fields and their types are resolved once from the {@link Schema}, so that no objects are created
+ * for each comparison. Array-backed records whose {@link RecordLayout} holds the key fields first are compared by
+ * position.
+ */
+public class CompiledRecordComparator implements Comparator<Record> {
+    private final String[] keyFieldNames;
+    private final PrimitiveFieldComparator[] fieldComparators;
+    // Layouts are shared between records of the same schema, so the last layout found to hold the key fields first
+    // is remembered, and checked by identity
+    private volatile RecordLayout keysByPositionLayout;
+
+    public CompiledRecordComparator(Schema schema) {
+        List<String> fieldNames = new ArrayList<>();
+        fieldNames.addAll(schema.getRowKeyFieldNames());
+        fieldNames.addAll(schema.getSortKeyFieldNames());
+        List<PrimitiveType> fieldTypes = new ArrayList<>();
+        fieldTypes.addAll(schema.getRowKeyTypes());
+        fieldTypes.addAll(schema.getSortKeyTypes());
+        this.keyFieldNames = fieldNames.toArray(new String[0]);
+        this.fieldComparators = PrimitiveFieldComparator.forTypes(fieldTypes);
+    }
+
+    @Override
+    public int compare(Record record1, Record record2) {
+        if (hasKeysByPosition(record1) && hasKeysByPosition(record2)) {
+            for (int i = 0; i < keyFieldNames.length; i++) {
+                int diff = fieldComparators[i].compare(record1.get(i), record2.get(i));
+                if (0 != diff) {
+                    return diff;
+                }
+            }
+            return 0;
+        }
+        for (int i = 0; i < keyFieldNames.length; i++) {
+            String fieldName = keyFieldNames[i];
+            int diff = fieldComparators[i].compare(record1.get(fieldName), record2.get(fieldName));
+            if (0 != diff) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    private boolean hasKeysByPosition(Record record) {
+        RecordLayout layout = record.getLayout();
+        if (null == layout) {
+            return false;
+        }
+        if (layout == keysByPositionLayout) {
+            return true;
+        }
+        if (layout.startsWith(keyFieldNames)) {
+            keysByPositionLayout = layout;
+            return true;
+        }
+        return false;
+    }
+}
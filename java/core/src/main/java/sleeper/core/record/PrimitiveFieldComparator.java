@@ -0,0 +1,92 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.record;
+
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.PrimitiveType;
+import sleeper.core.schema.type.StringType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares a single value of a row key or sort key field, resolving the type once up front. Byte arrays are
+ * compared in place rather than being wrapped. Null values sort after all non-null values.
+ */
+public enum PrimitiveFieldComparator {
+    INT {
+        @Override
+        int compareNonNull(Object value1, Object value2) {
+            return Integer.compare((int) value1, (int) value2);
+        }
+    },
+    LONG {
+        @Override
+        int compareNonNull(Object value1, Object value2) {
+            return Long.compare((long) value1, (long) value2);
+        }
+    },
+    STRING {
+        @Override
+        int compareNonNull(Object value1, Object value2) {
+            return ((String) value1).compareTo((String) value2);
+        }
+    },
+    BYTE_ARRAY {
+        @Override
+        int compareNonNull(Object value1, Object value2) {
+            return Arrays.compare((byte[]) value1, (byte[]) value2);
+        }
+    };
+
+    abstract int compareNonNull(Object value1, Object value2);
+
+    public int compare(Object value1, Object value2) {
+        if (value1 == value2) {
+            return 0;
+        }
+        if (null == value1) {
+            return 1;
+        }
+        if (null == value2) {
+            return -1;
+        }
+        return compareNonNull(value1, value2);
+    }
+
+    public static PrimitiveFieldComparator forType(PrimitiveType type) {
+        if (type instanceof IntType) {
+            return INT;
+        } else if (type instanceof LongType) {
+            return LONG;
+        } else if (type instanceof StringType) {
+            return STRING;
+        } else if (type instanceof ByteArrayType) {
+            return BYTE_ARRAY;
+        }
+        throw new IllegalArgumentException("Unknown type " + type);
+    }
+
+    public static PrimitiveFieldComparator[] forTypes(List<PrimitiveType> types) {
+        PrimitiveFieldComparator[] comparators = new PrimitiveFieldComparator[types.size()];
+        for (int i = 0; i < comparators.length; i++) {
+            comparators[i] = forType(types.get(i));
+        }
+        return comparators;
+    }
+}
@@ -22,8 +22,10 @@ import sleeper.core.schema.Schema;
 import sleeper.core.schema.type.ByteArrayType;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -33,12 +35,21 @@ import java.util.Set;
  * The fundamental data item. A {@link Record} consists of a {@link Map} from
  * {@link String} to {@link Object} where the object will be one of the supported
  * types.
+ * <p>
+ * A record may be backed by an array with a {@link RecordLayout}, in which case fields in the layout are held by
+ * position, and the name-based methods are a view over that array. Any other fields are held in a map as normal.
  */
 public class Record {
-    private final Map<String, Object> values;
+    private static final Object ABSENT = new Object();
+
+    private final RecordLayout layout;
+    private final Object[] positionalValues;
+    private Map<String, Object> values;
 
     public Record() {
-        values = new HashMap<>();
+        this.layout = null;
+        this.positionalValues = null;
+        this.values = new HashMap<>();
     }
 
     public Record(Map<String, Object> map) {
@@ -47,36 +58,135 @@ public class Record {
     }
 
     public Record(Record record) {
-        this();
-        this.values.putAll(record.values);
+        this.layout = record.layout;
+        if (null == record.positionalValues) {
+            this.positionalValues = null;
+        } else {
+            this.positionalValues = record.positionalValues.clone();
+        }
+        if (null != record.values) {
+            this.values = new HashMap<>(record.values);
+        }
+    }
+
+    /**
+     * Creates an empty array-backed record. Fields in the layout can be set by position or by name.
+     *
+     * @param layout the layout of the fields in the record
+     */
+    public Record(RecordLayout layout) {
+        this.layout = layout;
+        this.positionalValues = new Object[layout.size()];
+        Arrays.fill(positionalValues, ABSENT);
     }
 
     public Object get(String fieldName) {
-        return values.get(fieldName);
+        if (null != layout) {
+            int index = layout.indexOf(fieldName);
+            if (index >= 0) {
+                return get(index);
+            }
+        }
+        return null == values ? null : values.get(fieldName);
     }
 
     public void remove(String fieldName) {
-        this.values.remove(fieldName);
+        if (null != layout) {
+            int index = layout.indexOf(fieldName);
+            if (index >= 0) {
+                positionalValues[index] = ABSENT;
+                return;
+            }
+        }
+        if (null != values) {
+            values.remove(fieldName);
+        }
     }
 
     public void put(String fieldName, Object value) {
+        if (null != layout) {
+            int index = layout.indexOf(fieldName);
+            if (index >= 0) {
+                positionalValues[index] = value;
+                return;
+            }
+        }
+        if (null == values) {
+            values = new HashMap<>();
+        }
         values.put(fieldName, value);
     }
 
+    /**
+     * Retrieves a value by its position in the record's layout. Only valid for array-backed records.
+     *
+     * @param index the position of the field in the layout
+     * @return the value, or null if it has not been set
+     */
+    public Object get(int index) {
+        checkArrayBacked();
+        Object value = positionalValues[index];
+        return value == ABSENT ? null : value;
+    }
+
+    /**
+     * Sets a value by its position in the record's layout. Only valid for array-backed records.
+     *
+     * @param index the position of the field in the layout
+     * @param value the value
+     */
+    public void put(int index, Object value) {
+        checkArrayBacked();
+        positionalValues[index] = value;
+    }
+
+    private void checkArrayBacked() {
+        if (null == positionalValues) {
+            throw new IllegalStateException("Record is not array-backed, so fields cannot be accessed by position");
+        }
+    }
+
+    /**
+     * Retrieves the layout backing this record.
+     *
+     * @return the layout, or null if this record is held entirely in a map
+     */
+    public RecordLayout getLayout() {
+        return layout;
+    }
+
     public Set<String> getKeys() {
-        return Collections.unmodifiableSet(values.keySet());
+        if (null == layout) {
+            return Collections.unmodifiableSet(values.keySet());
+        }
+        return Collections.unmodifiableSet(toMap().keySet());
     }
 
     public List<Object> getValues(List<String> fieldNames) {
         List<Object> valuesList = new ArrayList<>();
         for (String fieldName : fieldNames) {
-            valuesList.add(values.get(fieldName));
+            valuesList.add(get(fieldName));
         }
         return valuesList;
     }
 
-    @Override
-    public int hashCode() {
+    private Map<String, Object> toMap() {
+        if (null == layout) {
+            return values;
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < positionalValues.length; i++) {
+            if (positionalValues[i] != ABSENT) {
+                map.put(layout.getFieldName(i), positionalValues[i]);
+            }
+        }
+        if (null != values) {
+            map.putAll(values);
+        }
+        return map;
+    }
+
+    private static Map<String, Object> cloneWithWrappedByteArray(Map<String, Object> values) {
         Map<String, Object> cloneWithWrappedByteArray = new HashMap<>();
         for (Map.Entry<String, Object> entry : values.entrySet()) {
             if (entry.getValue() instanceof byte[]) {
@@ -85,8 +195,13 @@ public class Record {
                 cloneWithWrappedByteArray.put(entry.getKey(), entry.getValue());
             }
         }
+        return cloneWithWrappedByteArray;
+    }
+
+    @Override
+    public int hashCode() {
         int hash = 7;
-        hash = 17 * hash + Objects.hashCode(cloneWithWrappedByteArray);
+        hash = 17 * hash + Objects.hashCode(cloneWithWrappedByteArray(toMap()));
         return hash;
     }
 
@@ -102,37 +217,12 @@ public class Record {
             return false;
         }
         final Record other = (Record) obj;
-
-        Map<String, Object> cloneWithWrappedByteArray = new HashMap<>();
-        for (Map.Entry<String, Object> entry : values.entrySet()) {
-            if (entry.getValue() instanceof byte[]) {
-                cloneWithWrappedByteArray.put(entry.getKey(), ByteArray.wrap((byte[]) entry.getValue()));
-            } else {
-                cloneWithWrappedByteArray.put(entry.getKey(), entry.getValue());
-            }
-        }
-        Map<String, Object> otherClonedWithWrappedByteArray = new HashMap<>();
-        for (Map.Entry<String, Object> entry : other.values.entrySet()) {
-            if (entry.getValue() instanceof byte[]) {
-                otherClonedWithWrappedByteArray.put(entry.getKey(), ByteArray.wrap((byte[]) entry.getValue()));
-            } else {
-                otherClonedWithWrappedByteArray.put(entry.getKey(), entry.getValue());
-            }
-        }
-        return Objects.equals(cloneWithWrappedByteArray, otherClonedWithWrappedByteArray);
+        return Objects.equals(cloneWithWrappedByteArray(toMap()), cloneWithWrappedByteArray(other.toMap()));
     }
 
     @Override
     public String toString() {
-        Map<String, Object> cloneWithWrappedByteArray = new HashMap<>();
-        for (Map.Entry<String, Object> entry : values.entrySet()) {
-            if (entry.getValue() instanceof byte[]) {
-                cloneWithWrappedByteArray.put(entry.getKey(), ByteArray.wrap((byte[]) entry.getValue()));
-            } else {
-                cloneWithWrappedByteArray.put(entry.getKey(), entry.getValue());
-            }
-        }
-        return "Record{" + "values=" + cloneWithWrappedByteArray + '}';
+        return "Record{" + "values=" + cloneWithWrappedByteArray(toMap()) + '}';
     }
 
     public String toString(Schema schema) {
@@ -151,9 +241,9 @@ public class Record {
         for (Field field : fields) {
             String term = field.getName() + "=";
             if (field.getType() instanceof ByteArrayType) {
-                term += ByteArray.wrap((byte[]) values.get(field.getName()));
+                term += ByteArray.wrap((byte[]) get(field.getName()));
             } else {
-                term += values.get(field.getName());
+                term += get(field.getName());
             }
             terms.add(term);
         }
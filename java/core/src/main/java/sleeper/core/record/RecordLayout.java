@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.record;
+
+import sleeper.core.schema.Schema;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixes the position of each field of a {@link Schema} within an array-backed {@link Record}. Fields are laid out
+ * with the row keys first, then the sort keys, then the values. This is built once per schema and shared by every
+ * record that uses it.
+ */
+public class RecordLayout {
+    private final String[] fieldNames;
+    private final Map<String, Integer> indexByName;
+
+    private RecordLayout(List<String> fieldNames) {
+        this.fieldNames = fieldNames.toArray(new String[0]);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < this.fieldNames.length; i++) {
+            index.put(this.fieldNames[i], i);
+        }
+        this.indexByName = Collections.unmodifiableMap(index);
+    }
+
+    public static RecordLayout forSchema(Schema schema) {
+        return new RecordLayout(schema.getAllFieldNames());
+    }
+
+    public int size() {
+        return fieldNames.length;
+    }
+
+    /**
+     * Finds the position of a field in this layout.
+     *
+     * @param fieldName the name of the field
+     * @return the position of the field, or -1 if it is not in this layout
+     */
+    public int indexOf(String fieldName) {
+        Integer index = indexByName.get(fieldName);
+        return null == index ? -1 : index;
+    }
+
+    public String getFieldName(int index) {
+        return fieldNames[index];
+    }
+
+    /**
+     * Checks whether the given fields are held at the start of this layout, in the same order. This can be used to
+     * check whether the key fields of a schema can be read by position.
+     *
+     * @param names the field names
+     * @return true if this layout starts with the given fields
+     */
+    public boolean startsWith(String[] names) {
+        if (names.length > fieldNames.length) {
+            return false;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (!fieldNames[i].equals(names[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RecordLayout that = (RecordLayout) o;
+        return Arrays.equals(fieldNames, that.fieldNames);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(fieldNames);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordLayout{fieldNames=" + Arrays.toString(fieldNames) + '}';
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import sleeper.core.record.Record;
+import sleeper.core.record.RecordComparator;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoserTreeMergingIteratorTest {
+
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(new Field("key", new LongType()))
+            .valueFields(new Field("value", new LongType()))
+            .build();
+
+    @Test
+    public void shouldMergeSortedIterators() {
+        // Given
+        List<CloseableIterator<Record>> inputs = List.of(
+                iterator(record(1L, 1L), record(4L, 1L), record(7L, 1L)),
+                iterator(record(2L, 2L), record(5L, 2L)),
+                iterator(record(3L, 3L), record(6L, 3L), record(8L, 3L), record(9L, 3L)));
+
+        // When
+        LoserTreeMergingIterator iterator = new LoserTreeMergingIterator(schema, inputs);
+
+        // Then
+        assertThat(iterator).toIterable().extracting(record -> record.get("key"))
+                .containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+        assertThat(iterator.getNumberOfRecordsRead()).isEqualTo(9L);
+    }
+
+    @Test
+    public void shouldReturnNothingWithNoInputs() {
+        // When
+        LoserTreeMergingIterator iterator = new LoserTreeMergingIterator(schema, List.of());
+
+        // Then
+        assertThat(iterator).isExhausted();
+    }
+
+    @Test
+    public void shouldReturnNothingWhenAllInputsAreEmpty() {
+        // When
+        LoserTreeMergingIterator iterator = new LoserTreeMergingIterator(schema, List.of(iterator(), iterator()));
+
+        // Then
+        assertThat(iterator).isExhausted();
+    }
+
+    @Test
+    public void shouldEmitRunsFromOneInputAndSwitchBetweenInputs() {
+        // Given
+        List<CloseableIterator<Record>> inputs = List.of(
+                iterator(record(1L, 1L), record(2L, 1L), record(3L, 1L), record(10L, 1L), record(11L, 1L)),
+                iterator(record(4L, 2L), record(5L, 2L), record(6L, 2L), record(12L, 2L)),
+                iterator(record(7L, 3L), record(8L, 3L), record(9L, 3L)));
+
+        // When
+        LoserTreeMergingIterator iterator = new LoserTreeMergingIterator(schema, inputs);
+
+        // Then
+        assertThat(iterator).toIterable().extracting(record -> record.get("key"))
+                .containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L);
+    }
+
+    @Test
+    public void shouldReturnAllRecordsWithDuplicateKeys() {
+        // Given
+        List<CloseableIterator<Record>> inputs = List.of(
+                iterator(record(1L, 1L), record(1L, 1L), record(2L, 1L)),
+                iterator(record(1L, 2L), record(2L, 2L)));
+
+        // When
+        LoserTreeMergingIterator iterator = new LoserTreeMergingIterator(schema, inputs);
+
+        // Then
+        assertThat(iterator).toIterable().extracting(record -> record.get("key"))
+                .containsExactly(1L, 1L, 1L, 2L, 2L);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 5, 16, 17, 200})
+    public void shouldGiveSameResultsAsSortingAllRecords(int numInputs) {
+        // Given
+        Random random = new Random(numInputs);
+        List<List<Record>> inputRecords = new ArrayList<>();
+        List<Record> allRecords = new ArrayList<>();
+        for (int i = 0; i < numInputs; i++) {
+            List<Record> records = new ArrayList<>();
+            long key = 0L;
+            int numRecords = random.nextInt(50);
+            for (int j = 0; j < numRecords; j++) {
+                key += random.nextInt(3);
+                records.add(record(key, i));
+            }
+            inputRecords.add(records);
+            allRecords.addAll(records);
+        }
+        List<CloseableIterator<Record>> inputs = inputRecords.stream()
+                .map(records -> new WrappedIterator<>(records.iterator()))
+                .collect(Collectors.toList());
+
+        // When
+        LoserTreeMergingIterator iterator = new LoserTreeMergingIterator(schema, inputs);
+        List<Record> merged = new ArrayList<>();
+        iterator.forEachRemaining(merged::add);
+
+        // Then
+        assertThat(merged)
+                .isSortedAccordingTo(new RecordComparator(schema))
+                .containsExactlyInAnyOrderElementsOf(allRecords);
+    }
+
+    private static Record record(long key, long value) {
+        Record record = new Record();
+        record.put("key", key);
+        record.put("value", value);
+        return record;
+    }
+
+    private static CloseableIterator<Record> iterator(Record... records) {
+        return new WrappedIterator<>(List.of(records).iterator());
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import sleeper.core.record.Record;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ParallelConcatenatingIteratorTest {
+
+    private final AtomicInteger openIterators = new AtomicInteger();
+    private final AtomicInteger maxOpenIterators = new AtomicInteger();
+    private final AtomicInteger closedIterators = new AtomicInteger();
+    private final AtomicInteger recordsRead = new AtomicInteger();
+
+    @Test
+    public void shouldReadAllRecordsFromEverySupplier() throws Exception {
+        // Given
+        List<Supplier<CloseableIterator<Record>>> suppliers = IntStream.range(0, 10)
+                .mapToObj(i -> supplier(records(i * 100, 100)))
+                .collect(Collectors.toList());
+
+        // When
+        List<Record> read = new ArrayList<>();
+        try (ParallelConcatenatingIterator iterator = new ParallelConcatenatingIterator(suppliers, 3, 50, 10)) {
+            iterator.forEachRemaining(read::add);
+        }
+
+        // Then
+        assertThat(read).containsExactlyInAnyOrderElementsOf(records(0, 1000));
+        assertThat(maxOpenIterators.get()).isLessThanOrEqualTo(3);
+        assertThat(closedIterators.get()).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldReturnNoRecordsWhenThereAreNoSuppliers() throws Exception {
+        // When
+        try (ParallelConcatenatingIterator iterator = new ParallelConcatenatingIterator(List.of(), 3, 50, 10)) {
+            // Then
+            assertThat(iterator).isExhausted();
+        }
+    }
+
+    @Test
+    public void shouldFailWhenASupplierFails() throws Exception {
+        // Given
+        List<Supplier<CloseableIterator<Record>>> suppliers = List.of(
+                supplier(records(0, 10)),
+                () -> {
+                    throw new IllegalStateException("Failed to open");
+                });
+
+        // When / Then
+        try (ParallelConcatenatingIterator iterator = new ParallelConcatenatingIterator(suppliers, 2, 50, 10)) {
+            assertThatThrownBy(() -> iterator.forEachRemaining(record -> {
+            }))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("Failed to open");
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void shouldFailWhenASupplierThrowsAnError() throws Exception {
+        // Given
+        List<Supplier<CloseableIterator<Record>>> suppliers = List.of(
+                supplier(records(0, 10)),
+                () -> {
+                    throw new AssertionError("Failed to open");
+                });
+
+        // When / Then
+        try (ParallelConcatenatingIterator iterator = new ParallelConcatenatingIterator(suppliers, 2, 50, 10)) {
+            assertThatThrownBy(() -> iterator.forEachRemaining(record -> {
+            }))
+                    .isInstanceOf(AssertionError.class)
+                    .hasMessage("Failed to open");
+        }
+    }
+
+    @Test
+    public void shouldKeepBufferLimitWhenBatchSizeIsLargerThanBuffer() throws Exception {
+        // Given
+        List<Supplier<CloseableIterator<Record>>> suppliers = IntStream.range(0, 2)
+                .mapToObj(i -> supplier(records(i * 1000, 1000)))
+                .collect(Collectors.toList());
+
+        // When
+        try (ParallelConcatenatingIterator iterator = new ParallelConcatenatingIterator(suppliers, 2, 5, 100)) {
+            iterator.next();
+            Thread.sleep(200);
+
+            // Then
+            // The batch size is reduced to 5, so at most the current batch, 1 buffered batch and 1 batch being filled
+            // by each thread have been read
+            assertThat(recordsRead.get()).isLessThanOrEqualTo(20);
+        }
+    }
+
+    @Test
+    public void shouldRefuseBufferWithNoRecords() {
+        assertThatThrownBy(() -> new ParallelConcatenatingIterator(List.of(), 1, 0, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldCloseOpenIteratorsWhenClosedBeforeAllRecordsAreRead() throws Exception {
+        // Given
+        List<Supplier<CloseableIterator<Record>>> suppliers = IntStream.range(0, 5)
+                .mapToObj(i -> supplier(records(i * 1000, 1000)))
+                .collect(Collectors.toList());
+
+        // When
+        try (ParallelConcatenatingIterator iterator = new ParallelConcatenatingIterator(suppliers, 2, 10, 5)) {
+            iterator.next();
+        }
+
+        // Then
+        assertThat(openIterators.get()).isZero();
+    }
+
+    private Supplier<CloseableIterator<Record>> supplier(List<Record> records) {
+        return () -> {
+            maxOpenIterators.accumulateAndGet(openIterators.incrementAndGet(), Math::max);
+            return new CloseableIterator<>() {
+                private final Iterator<Record> iterator = records.iterator();
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Record next() {
+                    recordsRead.incrementAndGet();
+                    return iterator.next();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    openIterators.decrementAndGet();
+                    closedIterators.incrementAndGet();
+                }
+            };
+        };
+    }
+
+    private static List<Record> records(int first, int count) {
+        return IntStream.range(first, first + count)
+                .mapToObj(i -> new Record(Map.<String, Object>of("key", i)))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PrefetchingIteratorTest {
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void shouldReturnAllItemsInOrderAcrossBatches() {
+        // Given
+        List<Integer> items = IntStream.range(0, 25).boxed().collect(Collectors.toList());
+
+        // When
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(
+                new WrappedIterator<>(items.iterator()), executorService, 10);
+
+        // Then
+        assertThat(iterator).toIterable().containsExactlyElementsOf(items);
+    }
+
+    @Test
+    public void shouldReturnAllItemsWhenSizeIsAMultipleOfBatchSize() {
+        // Given
+        List<Integer> items = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+
+        // When
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(
+                new WrappedIterator<>(items.iterator()), executorService, 10);
+
+        // Then
+        assertThat(iterator).toIterable().containsExactlyElementsOf(items);
+    }
+
+    @Test
+    public void shouldReturnNothingFromEmptySource() {
+        // When
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(
+                new WrappedIterator<>(List.<Integer>of().iterator()), executorService, 10);
+
+        // Then
+        assertThat(iterator).isExhausted();
+    }
+
+    @Test
+    public void shouldCloseSource() throws IOException {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean(false);
+        CloseableIterator<Integer> source = new WrappedIterator<>(List.of(1, 2, 3).iterator()) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(source, executorService, 2);
+
+        // When
+        iterator.next();
+        iterator.close();
+
+        // Then
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    public void shouldPassOnFailureFromSource() {
+        // Given
+        CloseableIterator<Integer> source = new WrappedIterator<>(List.of(1, 2, 3).iterator()) {
+            @Override
+            public Integer next() {
+                throw new IllegalStateException("Read failure");
+            }
+        };
+
+        // When
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(source, executorService, 2);
+
+        // Then
+        assertThatThrownBy(iterator::hasNext)
+                .isInstanceOf(RuntimeException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.partition;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.key.Key;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PartitionTreeGetLeafPartitionTest {
+
+    private final Random random = new Random(0);
+
+    @Test
+    public void shouldFindLeafPartitionsSplitOnFirstDimension() {
+        // Given
+        Schema schema = Schema.builder().rowKeyFields(new Field("key", new LongType())).build();
+        List<Object> splitPoints = LongStream.range(1, 2000).map(i -> i * 100).boxed().collect(Collectors.toList());
+        PartitionTree tree = PartitionsFromSplitPoints.treeFrom(schema, splitPoints);
+
+        // When / Then
+        List<Key> keys = new ArrayList<>();
+        splitPoints.forEach(splitPoint -> {
+            keys.add(Key.create(splitPoint));
+            keys.add(Key.create((long) splitPoint - 1));
+        });
+        keys.add(Key.create(Long.MIN_VALUE));
+        keys.add(Key.create(Long.MAX_VALUE));
+        IntStream.range(0, 1000).forEach(i -> keys.add(Key.create(random.nextLong() % 250000)));
+        assertFindsLeafPartitionContainingEachKey(schema, tree, keys);
+    }
+
+    @Test
+    public void shouldFindLeafPartitionsSplitOnFirstDimensionWithStringKey() {
+        // Given
+        Schema schema = Schema.builder().rowKeyFields(new Field("key", new StringType())).build();
+        PartitionTree tree = PartitionsFromSplitPoints.treeFrom(schema, List.of("bbb", "ddd", "fff", "hhh"));
+
+        // When / Then
+        assertThat(tree.getLeafPartition(Key.create("")).getRegion().getRange("key").getMax()).isEqualTo("bbb");
+        assertThat(tree.getLeafPartition(Key.create("bba")).getRegion().getRange("key").getMax()).isEqualTo("bbb");
+        assertThat(tree.getLeafPartition(Key.create("bbb")).getRegion().getRange("key").getMin()).isEqualTo("bbb");
+        assertThat(tree.getLeafPartition(Key.create("eee")).getRegion().getRange("key").getMin()).isEqualTo("ddd");
+        assertThat(tree.getLeafPartition(Key.create("zzz")).getRegion().getRange("key").getMin()).isEqualTo("hhh");
+    }
+
+    @Test
+    public void shouldFindLeafPartitionsSplitOnMultipleDimensions() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key1", new LongType()), new Field("key2", new LongType()))
+                .build();
+        PartitionsBuilder builder = new PartitionsBuilder(schema).rootFirst("root");
+        splitAlternatingDimensions(builder, "root", 0, 0L, 1024L, 0L, 1024L, 12);
+        PartitionTree tree = builder.buildTree();
+
+        // When / Then
+        List<Key> keys = new ArrayList<>();
+        IntStream.range(0, 2000).forEach(i -> keys.add(Key.create(List.of(
+                (long) random.nextInt(1100) - 50, (long) random.nextInt(1100) - 50))));
+        keys.add(Key.create(List.of(512L, 512L)));
+        keys.add(Key.create(List.of(Long.MIN_VALUE, Long.MAX_VALUE)));
+        assertFindsLeafPartitionContainingEachKey(schema, tree, keys);
+    }
+
+    @Test
+    public void shouldFindLeafPartitionsWhenSplitDimensionIsNotSet() {
+        // Given
+        Schema schema = Schema.builder().rowKeyFields(new Field("key", new LongType())).build();
+        List<String> ids = IntStream.range(0, 100).mapToObj(i -> "L" + i).collect(Collectors.toList());
+        List<Object> splitPoints = LongStream.range(1, 100).map(i -> i * 10).boxed().collect(Collectors.toList());
+        PartitionTree tree = new PartitionsBuilder(schema)
+                .leavesWithSplits(ids, splitPoints)
+                .anyTreeJoiningAllLeaves()
+                .buildTree();
+
+        // When / Then
+        List<Key> keys = LongStream.range(-10, 1010).mapToObj(Key::create).collect(Collectors.toList());
+        assertFindsLeafPartitionContainingEachKey(schema, tree, keys);
+    }
+
+    private void splitAlternatingDimensions(PartitionsBuilder builder, String parentId, int dimension,
+                                            long min1, long max1, long min2, long max2, int depth) {
+        if (depth == 0) {
+            return;
+        }
+        String leftId = parentId + "L";
+        String rightId = parentId + "R";
+        int nextDimension = 1 - dimension;
+        // Vary the split point so that the tree is not perfectly balanced
+        if (dimension == 0) {
+            long split = min1 + (max1 - min1) / (2 + random.nextInt(2));
+            builder.splitToNewChildrenOnDimension(parentId, leftId, rightId, 0, split);
+            splitAlternatingDimensions(builder, leftId, nextDimension, min1, split, min2, max2, depth - 1);
+            splitAlternatingDimensions(builder, rightId, nextDimension, split, max1, min2, max2, depth - 1);
+        } else {
+            long split = min2 + (max2 - min2) / (2 + random.nextInt(2));
+            builder.splitToNewChildrenOnDimension(parentId, leftId, rightId, 1, split);
+            splitAlternatingDimensions(builder, leftId, nextDimension, min1, max1, min2, split, depth - 1);
+            splitAlternatingDimensions(builder, rightId, nextDimension, min1, max1, split, max2, depth - 1);
+        }
+    }
+
+    private static void assertFindsLeafPartitionContainingEachKey(Schema schema, PartitionTree tree, List<Key> keys) {
+        List<Partition> leaves = tree.getAllPartitions().stream()
+                .filter(Partition::isLeafPartition)
+                .collect(Collectors.toList());
+        for (Key key : keys) {
+            Partition expected = leaves.stream()
+                    .filter(leaf -> leaf.isRowKeyInPartition(schema, key))
+                    .findFirst().orElseThrow();
+            assertThat(tree.getLeafPartition(key)).describedAs("leaf partition for key %s", key).isEqualTo(expected);
+        }
+    }
+}
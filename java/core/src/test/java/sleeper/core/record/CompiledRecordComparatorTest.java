@@ -0,0 +1,187 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.record;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.key.Key;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompiledRecordComparatorTest {
+
+    @Test
+    public void shouldCompareByRowKeyThenSortKey() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new LongType()))
+                .sortKeyFields(new Field("sort", new StringType()))
+                .valueFields(new Field("value", new IntType()))
+                .build();
+        Record record1 = record(1L, "b", 100);
+        Record record2 = record(1L, "a", 1000);
+        Record record3 = record(2L, "a", 10);
+        Record record4 = record(1L, "b", 10000);
+        CompiledRecordComparator comparator = new CompiledRecordComparator(schema);
+
+        // When / Then
+        assertThat(comparator.compare(record1, record2)).isGreaterThan(0);
+        assertThat(comparator.compare(record1, record3)).isLessThan(0);
+        assertThat(comparator.compare(record2, record3)).isLessThan(0);
+        assertThat(comparator.compare(record1, record4)).isZero();
+    }
+
+    @Test
+    public void shouldCompareByteArraysWithoutWrapping() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new ByteArrayType()))
+                .sortKeyFields(new Field("sort", new ByteArrayType()))
+                .build();
+        Record record1 = new Record();
+        record1.put("key", new byte[]{1, 2});
+        record1.put("sort", new byte[]{5});
+        Record record2 = new Record();
+        record2.put("key", new byte[]{1, 2, 0});
+        record2.put("sort", new byte[]{1});
+        Record record3 = new Record();
+        record3.put("key", new byte[]{1, 2});
+        record3.put("sort", new byte[]{-1});
+        CompiledRecordComparator comparator = new CompiledRecordComparator(schema);
+
+        // When / Then
+        assertThat(comparator.compare(record1, record2)).isLessThan(0);
+        assertThat(comparator.compare(record1, record3)).isGreaterThan(0);
+        assertThat(comparator.compare(record3, record2)).isLessThan(0);
+    }
+
+    @Test
+    public void shouldSortNullsAfterOtherValues() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new StringType()))
+                .sortKeyFields(new Field("sort", new IntType()))
+                .build();
+        Record record1 = new Record();
+        record1.put("key", null);
+        record1.put("sort", 1);
+        Record record2 = new Record();
+        record2.put("key", null);
+        record2.put("sort", 2);
+        Record record3 = new Record();
+        record3.put("key", "z");
+        record3.put("sort", 1);
+        CompiledRecordComparator comparator = new CompiledRecordComparator(schema);
+
+        // When / Then
+        assertThat(comparator.compare(record1, record3)).isGreaterThan(0);
+        assertThat(comparator.compare(record3, record1)).isLessThan(0);
+        assertThat(comparator.compare(record1, record2)).isLessThan(0);
+    }
+
+    @Test
+    public void shouldGiveSameOrderAsRecordComparator() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key1", new IntType()), new Field("key2", new ByteArrayType()))
+                .sortKeyFields(new Field("sort", new LongType()))
+                .valueFields(new Field("value", new StringType()))
+                .build();
+        Random random = new Random(0);
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Record record = new Record();
+            record.put("key1", random.nextInt(5));
+            record.put("key2", new byte[]{(byte) random.nextInt(3), (byte) (random.nextInt(5) - 2)});
+            record.put("sort", (long) random.nextInt(10));
+            record.put("value", "value-" + i);
+            records.add(record);
+        }
+
+        // When
+        List<Record> sortedByCompiled = new ArrayList<>(records);
+        sortedByCompiled.sort(new CompiledRecordComparator(schema));
+        List<Record> sortedByOriginal = new ArrayList<>(records);
+        sortedByOriginal.sort(new RecordComparator(schema));
+
+        // Then
+        assertThat(sortedByCompiled).isEqualTo(sortedByOriginal);
+    }
+
+    @Test
+    public void shouldCompareArrayBackedRecordsByPosition() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new LongType()))
+                .sortKeyFields(new Field("sort", new StringType()))
+                .valueFields(new Field("value", new IntType()))
+                .build();
+        RecordLayout layout = RecordLayout.forSchema(schema);
+        Record record1 = new Record(layout);
+        record1.put(0, 1L);
+        record1.put(1, "b");
+        record1.put(2, 100);
+        Record record2 = new Record(layout);
+        record2.put(0, 1L);
+        record2.put(1, "a");
+        record2.put(2, 1000);
+        CompiledRecordComparator comparator = new CompiledRecordComparator(schema);
+
+        // When / Then
+        assertThat(comparator.compare(record1, record2)).isGreaterThan(0);
+        assertThat(comparator.compare(record2, record("a", 1L))).isZero();
+        assertThat(comparator.compare(record("c", 0L), record1)).isLessThan(0);
+    }
+
+    @Test
+    public void shouldCompareKeys() {
+        // Given
+        CompiledKeyComparator comparator = new CompiledKeyComparator(List.of(new IntType(), new ByteArrayType()));
+        Key key1 = Key.create(List.of(1, new byte[]{1, 2}));
+        Key key2 = Key.create(List.of(1, new byte[]{1, 3}));
+        Key key3 = Key.create(List.of(0, new byte[]{9}));
+
+        // When / Then
+        assertThat(comparator.compare(key1, key2)).isLessThan(0);
+        assertThat(comparator.compare(key1, key3)).isGreaterThan(0);
+        assertThat(comparator.compare(key2, Key.create(List.of(1, new byte[]{1, 3})))).isZero();
+    }
+
+    private static Record record(String sort, long key) {
+        Record record = new Record();
+        record.put("key", key);
+        record.put("sort", sort);
+        return record;
+    }
+
+    private static Record record(long key, String sort, int value) {
+        Record record = new Record();
+        record.put("key", key);
+        record.put("sort", sort);
+        record.put("value", value);
+        return record;
+    }
+}
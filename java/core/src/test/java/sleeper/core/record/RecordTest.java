@@ -17,7 +17,14 @@ package sleeper.core.record;
 
 import org.junit.jupiter.api.Test;
 
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class RecordTest {
 
@@ -99,4 +106,80 @@ public class RecordTest {
         assertThat(hashCode2).isEqualTo(hashCode1);
         assertThat(hashCode3).isNotEqualTo(hashCode1);
     }
+
+    @Test
+    public void shouldReadArrayBackedRecordByNameAndPosition() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new LongType()))
+                .sortKeyFields(new Field("sort", new IntType()))
+                .valueFields(new Field("value", new StringType()))
+                .build();
+        Record record = new Record(RecordLayout.forSchema(schema));
+
+        // When
+        record.put(0, 1L);
+        record.put("sort", 2);
+        record.put("value", "A");
+
+        // Then
+        assertThat(record.get("key")).isEqualTo(1L);
+        assertThat(record.get(1)).isEqualTo(2);
+        assertThat(record.get(2)).isEqualTo("A");
+        assertThat(record.getKeys()).containsExactlyInAnyOrder("key", "sort", "value");
+    }
+
+    @Test
+    public void shouldEqualMapBackedRecordWithSameValues() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new LongType()))
+                .valueFields(new Field("value", new StringType()))
+                .build();
+        Record arrayBacked = new Record(RecordLayout.forSchema(schema));
+        arrayBacked.put("key", 1L);
+        arrayBacked.put("value", "A");
+        Record mapBacked = new Record();
+        mapBacked.put("key", 1L);
+        mapBacked.put("value", "A");
+
+        // When / Then
+        assertThat(arrayBacked).isEqualTo(mapBacked);
+        assertThat(mapBacked).isEqualTo(arrayBacked);
+        assertThat(arrayBacked.hashCode()).isEqualTo(mapBacked.hashCode());
+        assertThat(new Record(arrayBacked)).isEqualTo(mapBacked);
+    }
+
+    @Test
+    public void shouldHoldFieldsOutsideLayoutInArrayBackedRecord() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new LongType()))
+                .valueFields(new Field("value", new StringType()))
+                .build();
+        Record record = new Record(RecordLayout.forSchema(schema));
+        record.put("key", 1L);
+
+        // When
+        record.put("other", 2);
+        record.remove("key");
+
+        // Then
+        assertThat(record.get("other")).isEqualTo(2);
+        assertThat(record.get("key")).isNull();
+        assertThat(record.getKeys()).containsExactly("other");
+    }
+
+    @Test
+    public void shouldFailToReadByPositionFromMapBackedRecord() {
+        // Given
+        Record record = new Record();
+        record.put("key", 1L);
+
+        // When / Then
+        assertThatThrownBy(() -> record.get(0))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> record.put(0, 2L))
+                .isInstanceOf(IllegalStateException.class);
+    }
 }
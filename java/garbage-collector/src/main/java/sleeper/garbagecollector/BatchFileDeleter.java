@@ -0,0 +1,133 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.garbagecollector;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Deletes many files at once. Files in S3 are deleted with multi-object delete requests of up to 1000 keys, which are
+ * made in parallel. Other files are deleted one at a time through the Hadoop file system.
+ */
+class BatchFileDeleter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchFileDeleter.class);
+    private static final int MAX_KEYS_PER_REQUEST = 1000;
+
+    private final Configuration conf;
+    private final AmazonS3 s3Client;
+    private final ExecutorService executorService;
+
+    BatchFileDeleter(Configuration conf, AmazonS3 s3Client, ExecutorService executorService) {
+        this.conf = conf;
+        this.s3Client = s3Client;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Deletes the given files. Files which do not exist are treated as deleted.
+     *
+     * @param filenames the files to delete
+     * @return the files which could not be deleted
+     * @throws IOException if a file outside S3 could not be deleted
+     */
+    Set<String> deleteFiles(List<String> filenames) throws IOException {
+        Map<String, List<String>> bucketToFilenames = new LinkedHashMap<>();
+        List<String> otherFilenames = new ArrayList<>();
+        for (String filename : filenames) {
+            URI uri = new Path(filename).toUri();
+            if (null != s3Client && isS3(uri.getScheme())) {
+                bucketToFilenames.computeIfAbsent(uri.getAuthority(), bucket -> new ArrayList<>()).add(filename);
+            } else {
+                otherFilenames.add(filename);
+            }
+        }
+
+        List<Future<Set<String>>> requests = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : bucketToFilenames.entrySet()) {
+            List<String> bucketFilenames = entry.getValue();
+            for (int i = 0; i < bucketFilenames.size(); i += MAX_KEYS_PER_REQUEST) {
+                List<String> batch = bucketFilenames.subList(i, Math.min(i + MAX_KEYS_PER_REQUEST, bucketFilenames.size()));
+                requests.add(executorService.submit(() -> deleteFromBucket(entry.getKey(), batch)));
+            }
+        }
+
+        for (String filename : otherFilenames) {
+            Path path = new Path(filename);
+            path.getFileSystem(conf).delete(path, false);
+            LOGGER.debug("Deleted file {}", filename);
+        }
+
+        Set<String> failed = new HashSet<>();
+        for (Future<Set<String>> request : requests) {
+            failed.addAll(await(request));
+        }
+        return failed;
+    }
+
+    private Set<String> deleteFromBucket(String bucket, List<String> filenames) {
+        Map<String, String> keyToFilename = new LinkedHashMap<>();
+        for (String filename : filenames) {
+            keyToFilename.put(new Path(filename).toUri().getPath().substring(1), filename);
+        }
+        List<KeyVersion> keys = new ArrayList<>();
+        keyToFilename.keySet().forEach(key -> keys.add(new KeyVersion(key)));
+        try {
+            s3Client.deleteObjects(new DeleteObjectsRequest(bucket).withKeys(keys).withQuiet(true));
+            LOGGER.debug("Deleted {} objects from bucket {}", keys.size(), bucket);
+            return Set.of();
+        } catch (MultiObjectDeleteException e) {
+            Set<String> failed = new HashSet<>();
+            for (MultiObjectDeleteException.DeleteError error : e.getErrors()) {
+                LOGGER.error("Failed deleting object {} from bucket {}: {}", error.getKey(), bucket, error.getMessage());
+                failed.add(keyToFilename.get(error.getKey()));
+            }
+            return failed;
+        }
+    }
+
+    private static boolean isS3(String scheme) {
+        return "s3a".equals(scheme) || "s3".equals(scheme);
+    }
+
+    private static Set<String> await(Future<Set<String>> request) throws IOException {
+        try {
+            return request.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted deleting files", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed deleting files", e.getCause());
+        }
+    }
+}
@@ -15,11 +15,13 @@
  */
 package sleeper.garbagecollector;
 
+import com.amazonaws.services.s3.AmazonS3;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.TablePropertiesProvider;
 import sleeper.statestore.FileInfo;
 import sleeper.statestore.StateStore;
@@ -30,32 +32,57 @@ import sleeper.table.job.TableLister;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static sleeper.configuration.properties.instance.GarbageCollectionProperty.GARBAGE_COLLECTOR_BATCH_DELETE;
+import static sleeper.configuration.properties.instance.GarbageCollectionProperty.GARBAGE_COLLECTOR_BATCH_SIZE;
+import static sleeper.configuration.properties.instance.GarbageCollectionProperty.GARBAGE_COLLECTOR_DELETE_THREADS;
+import static sleeper.configuration.properties.instance.GarbageCollectionProperty.GARBAGE_COLLECTOR_TABLE_THREADS;
 
 /**
  * Queries the {@link StateStore} for files that are marked as being ready for
- * garbage collection, and deletes them.
+ * garbage collection, and deletes them. Files can be deleted in batches, in which
+ * case each batch is deleted from S3 with multi-object delete requests and removed
+ * from the state store in one update.
  */
 public class GarbageCollector {
     private static final Logger LOGGER = LoggerFactory.getLogger(GarbageCollector.class);
 
     private final Configuration conf;
+    private final AmazonS3 s3Client;
     private final TableLister tableLister;
     private final TablePropertiesProvider tablePropertiesProvider;
     private final StateStoreProvider stateStoreProvider;
     private final int garbageCollectorBatchSize;
+    private final boolean batchDelete;
+    private final int deleteThreads;
+    private final int tableThreads;
 
     public GarbageCollector(Configuration conf,
+                            AmazonS3 s3Client,
                             TableLister tableLister,
                             TablePropertiesProvider tablePropertiesProvider,
                             StateStoreProvider stateStoreProvider,
-                            int garbageCollectorBatchSize) {
+                            InstanceProperties instanceProperties) {
         this.conf = conf;
+        this.s3Client = s3Client;
         this.tableLister = tableLister;
         this.tablePropertiesProvider = tablePropertiesProvider;
         this.stateStoreProvider = stateStoreProvider;
-        this.garbageCollectorBatchSize = garbageCollectorBatchSize;
+        this.garbageCollectorBatchSize = instanceProperties.getInt(GARBAGE_COLLECTOR_BATCH_SIZE);
+        this.batchDelete = instanceProperties.getBoolean(GARBAGE_COLLECTOR_BATCH_DELETE);
+        this.deleteThreads = instanceProperties.getInt(GARBAGE_COLLECTOR_DELETE_THREADS);
+        this.tableThreads = instanceProperties.getInt(GARBAGE_COLLECTOR_TABLE_THREADS);
     }
 
     public void run() throws StateStoreException, IOException {
@@ -64,21 +91,36 @@ public class GarbageCollector {
         List<String> tables = tableLister.listTables();
         LOGGER.info("Obtained list of {} tables", tables.size());
 
+        Map<String, StateStore> tableToStateStore = new LinkedHashMap<>();
         for (String tableName : tables) {
             LOGGER.info("Obtaining StateStore for table {}", tableName);
-            StateStore stateStore = stateStoreProvider.getStateStore(tableName, tablePropertiesProvider);
-
-            LOGGER.debug("Requesting iterator of files ready for garbage collection from state store");
-            Iterator<FileInfo> readyForGC = stateStore.getReadyForGCFiles();
+            tableToStateStore.put(tableName, stateStoreProvider.getStateStore(tableName, tablePropertiesProvider));
+        }
 
-            int numberDeleted = 0;
-            while (readyForGC.hasNext() && numberDeleted < garbageCollectorBatchSize) {
-                FileInfo fileInfo = readyForGC.next();
-                deleteFileAndUpdateStateStore(fileInfo, stateStore, conf);
-                numberDeleted++;
+        ExecutorService deleteExecutor = batchDelete ? Executors.newFixedThreadPool(deleteThreads) : null;
+        ExecutorService tableExecutor = tableThreads > 1 ? Executors.newFixedThreadPool(tableThreads) : null;
+        BatchFileDeleter deleter = batchDelete ? new BatchFileDeleter(conf, s3Client, deleteExecutor) : null;
+        try {
+            if (null == tableExecutor) {
+                for (Map.Entry<String, StateStore> entry : tableToStateStore.entrySet()) {
+                    totalDeleted += collectFromTable(entry.getKey(), entry.getValue(), deleter);
+                }
+            } else {
+                List<Future<Integer>> results = new ArrayList<>();
+                for (Map.Entry<String, StateStore> entry : tableToStateStore.entrySet()) {
+                    results.add(tableExecutor.submit(() -> collectFromTable(entry.getKey(), entry.getValue(), deleter)));
+                }
+                for (Future<Integer> result : results) {
+                    totalDeleted += await(result);
+                }
+            }
+        } finally {
+            if (null != tableExecutor) {
+                tableExecutor.shutdownNow();
+            }
+            if (null != deleteExecutor) {
+                deleteExecutor.shutdownNow();
             }
-            LOGGER.info("{} files deleted for table {}", numberDeleted, tableName);
-            totalDeleted += numberDeleted;
         }
         long endTimeEpochSecs = LocalDateTime.now()
                 .atZone(ZoneId.systemDefault())
@@ -87,19 +129,75 @@ public class GarbageCollector {
         LOGGER.info("{} files deleted in {} seconds", totalDeleted, runTime);
     }
 
-    private void deleteFileAndUpdateStateStore(FileInfo fileInfo, StateStore stateStore, Configuration conf) throws IOException {
+    private int collectFromTable(String tableName, StateStore stateStore, BatchFileDeleter deleter) throws StateStoreException, IOException {
+        LOGGER.debug("Requesting iterator of files ready for garbage collection from state store");
+        Iterator<FileInfo> readyForGC = stateStore.getReadyForGCFiles();
+
+        int numberDeleted = 0;
+        if (null == deleter) {
+            int numberRead = 0;
+            while (readyForGC.hasNext() && numberRead < garbageCollectorBatchSize) {
+                FileInfo fileInfo = readyForGC.next();
+                numberRead++;
+                if (deleteFileAndUpdateStateStore(fileInfo, stateStore, conf)) {
+                    numberDeleted++;
+                }
+            }
+        } else {
+            List<FileInfo> batch = new ArrayList<>();
+            while (readyForGC.hasNext() && batch.size() < garbageCollectorBatchSize) {
+                batch.add(readyForGC.next());
+            }
+            numberDeleted = deleteBatchAndUpdateStateStore(batch, stateStore, deleter);
+        }
+        LOGGER.info("{} files deleted for table {}", numberDeleted, tableName);
+        return numberDeleted;
+    }
+
+    private int deleteBatchAndUpdateStateStore(List<FileInfo> batch, StateStore stateStore, BatchFileDeleter deleter) throws IOException {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<String> filenames = new ArrayList<>();
+        for (FileInfo fileInfo : batch) {
+            filenames.add(fileInfo.getFilename());
+            filenames.add(getSketchesFilename(fileInfo.getFilename()));
+        }
+        Set<String> failedFilenames = deleter.deleteFiles(filenames);
+        // Leave any file whose data or sketches could not be deleted in the state store, so that it will be retried
+        List<FileInfo> deletedFiles = batch.stream()
+                .filter(fileInfo -> !failedFilenames.contains(fileInfo.getFilename())
+                        && !failedFilenames.contains(getSketchesFilename(fileInfo.getFilename())))
+                .collect(Collectors.toList());
+        if (deletedFiles.size() < batch.size()) {
+            LOGGER.warn("Failed deleting {} of {} files, leaving them to be retried", batch.size() - deletedFiles.size(), batch.size());
+        }
+        if (deletedFiles.isEmpty()) {
+            return 0;
+        }
+        try {
+            stateStore.deleteReadyForGCFiles(deletedFiles);
+        } catch (StateStoreException e) {
+            LOGGER.error("Exception updating status of " + deletedFiles.size() + " files to garbage collected", e);
+            return 0;
+        }
+        return deletedFiles.size();
+    }
+
+    private boolean deleteFileAndUpdateStateStore(FileInfo fileInfo, StateStore stateStore, Configuration conf) throws IOException {
         deleteFiles(fileInfo.getFilename(), conf);
         try {
             stateStore.deleteReadyForGCFile(fileInfo);
+            return true;
         } catch (StateStoreException e) {
             LOGGER.error("Exception updating status of " + fileInfo.getFilename() + " to garbage collected", e);
+            return false;
         }
     }
 
     private void deleteFiles(String filename, Configuration conf) throws IOException {
         deleteFile(filename, conf);
-        String sketchesFile = filename.replace(".parquet", ".sketches");
-        deleteFile(sketchesFile, conf);
+        deleteFile(getSketchesFilename(filename), conf);
     }
 
     private void deleteFile(String filename, Configuration conf) throws IOException {
@@ -107,4 +205,28 @@ public class GarbageCollector {
         path.getFileSystem(conf).delete(path, false);
         LOGGER.info("Deleted file {}", filename);
     }
+
+    private static String getSketchesFilename(String filename) {
+        return filename.replace(".parquet", ".sketches");
+    }
+
+    private static int await(Future<Integer> result) throws StateStoreException, IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for garbage collection", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof StateStoreException) {
+                throw (StateStoreException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        }
+    }
 }
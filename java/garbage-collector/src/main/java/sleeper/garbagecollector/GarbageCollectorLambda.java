@@ -35,7 +35,6 @@ import sleeper.utils.HadoopConfigurationProvider;
 import java.io.IOException;
 import java.time.LocalDateTime;
 
-import static sleeper.configuration.properties.instance.GarbageCollectionProperty.GARBAGE_COLLECTOR_BATCH_SIZE;
 import static sleeper.configuration.properties.instance.SystemDefinedInstanceProperty.CONFIG_BUCKET;
 
 /**
@@ -66,10 +65,11 @@ public class GarbageCollectorLambda {
         StateStoreProvider stateStoreProvider = new StateStoreProvider(dynamoDBClient, instanceProperties, conf);
 
         this.garbageCollector = new GarbageCollector(conf,
+                s3Client,
                 tableLister,
                 tablePropertiesProvider,
                 stateStoreProvider,
-                instanceProperties.getInt(GARBAGE_COLLECTOR_BATCH_SIZE));
+                instanceProperties);
     }
 
     public void eventHandler(ScheduledEvent event, Context context) {
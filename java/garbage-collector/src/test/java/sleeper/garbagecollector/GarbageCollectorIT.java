@@ -376,9 +376,9 @@ public class GarbageCollectorIT {
 
     private static GarbageCollector createGarbageCollector(
             AmazonS3 s3Client, InstanceProperties instanceProperties, StateStoreProvider stateStoreProvider) {
-        return new GarbageCollector(new Configuration(), new TableLister(s3Client, instanceProperties),
+        return new GarbageCollector(new Configuration(), s3Client, new TableLister(s3Client, instanceProperties),
                 new TablePropertiesProvider(s3Client, instanceProperties), stateStoreProvider,
-                instanceProperties.getInt(GARBAGE_COLLECTOR_BATCH_SIZE));
+                instanceProperties);
     }
 
     private static Schema getSchema() {
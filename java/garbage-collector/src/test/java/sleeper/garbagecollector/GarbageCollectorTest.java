@@ -0,0 +1,128 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.garbagecollector;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsResult;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.jupiter.api.Test;
+
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.FixedTablePropertiesProvider;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.core.partition.Partition;
+import sleeper.core.partition.PartitionsBuilder;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.IntType;
+import sleeper.statestore.FileInfo;
+import sleeper.statestore.FileInfoFactory;
+import sleeper.statestore.FixedStateStoreProvider;
+import sleeper.statestore.StateStore;
+import sleeper.table.job.TableLister;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static sleeper.configuration.properties.InstancePropertiesTestHelper.createTestInstanceProperties;
+import static sleeper.configuration.properties.instance.GarbageCollectionProperty.GARBAGE_COLLECTOR_BATCH_DELETE;
+import static sleeper.configuration.properties.table.TablePropertiesTestHelper.createTestTableProperties;
+import static sleeper.configuration.properties.table.TableProperty.TABLE_NAME;
+import static sleeper.statestore.inmemory.StateStoreTestHelper.inMemoryStateStoreWithFixedPartitions;
+
+public class GarbageCollectorTest {
+    private static final Schema SCHEMA = Schema.builder().rowKeyFields(new Field("key", new IntType())).build();
+
+    private final AmazonS3 s3Client = mock(AmazonS3.class);
+    private final InstanceProperties instanceProperties = createTestInstanceProperties();
+    private final TableProperties tableProperties = createTestTableProperties(instanceProperties, SCHEMA);
+    private final List<Partition> partitions = new PartitionsBuilder(SCHEMA).singlePartition("root").buildList();
+    private final StateStore stateStore = inMemoryStateStoreWithFixedPartitions(partitions);
+    private final FileInfoFactory fileInfoFactory = new FileInfoFactory(SCHEMA, partitions);
+
+    @Test
+    void shouldRemoveDeletedFilesFromStateStoreInBatch() throws Exception {
+        // Given
+        createReadyForGCFile("s3a://test-bucket/file1.parquet");
+        createReadyForGCFile("s3a://test-bucket/file2.parquet");
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class)))
+                .thenReturn(new DeleteObjectsResult(List.of()));
+
+        // When
+        createGarbageCollector().run();
+
+        // Then
+        assertThat(readyForGCFilenames()).isEmpty();
+    }
+
+    @Test
+    void shouldLeaveFilesInStateStoreWhenBatchDeleterReportsPartialFailures() throws Exception {
+        // Given
+        createReadyForGCFile("s3a://test-bucket/file1.parquet");
+        createReadyForGCFile("s3a://test-bucket/file2.parquet");
+        createReadyForGCFile("s3a://test-bucket/file3.parquet");
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class)))
+                .thenThrow(deleteFailedForKeys("file2.parquet", "file3.sketches"));
+
+        // When
+        createGarbageCollector().run();
+
+        // Then
+        assertThat(readyForGCFilenames()).containsExactlyInAnyOrder(
+                "s3a://test-bucket/file2.parquet",
+                "s3a://test-bucket/file3.parquet");
+    }
+
+    private GarbageCollector createGarbageCollector() {
+        instanceProperties.set(GARBAGE_COLLECTOR_BATCH_DELETE, "true");
+        TableLister tableLister = mock(TableLister.class);
+        when(tableLister.listTables()).thenReturn(List.of(tableProperties.get(TABLE_NAME)));
+        return new GarbageCollector(new Configuration(), s3Client, tableLister,
+                new FixedTablePropertiesProvider(tableProperties),
+                new FixedStateStoreProvider(tableProperties, stateStore),
+                instanceProperties);
+    }
+
+    private void createReadyForGCFile(String filename) throws Exception {
+        FileInfo fileInfo = fileInfoFactory.rootFile(filename, 100L, 1, 100);
+        stateStore.addFile(fileInfo);
+        stateStore.atomicallyUpdateFilesToReadyForGCAndCreateNewActiveFile(List.of(fileInfo),
+                fileInfoFactory.rootFile(filename.replace(".parquet", "-compacted.parquet"), 100L, 1, 100));
+    }
+
+    private List<String> readyForGCFilenames() throws Exception {
+        List<String> filenames = new ArrayList<>();
+        stateStore.getReadyForGCFiles().forEachRemaining(file -> filenames.add(file.getFilename()));
+        return filenames;
+    }
+
+    private static MultiObjectDeleteException deleteFailedForKeys(String... keys) {
+        List<MultiObjectDeleteException.DeleteError> errors = new ArrayList<>();
+        for (String key : keys) {
+            MultiObjectDeleteException.DeleteError error = new MultiObjectDeleteException.DeleteError();
+            error.setKey(key);
+            error.setMessage("Access denied");
+            errors.add(error);
+        }
+        return new MultiObjectDeleteException(errors, List.of());
+    }
+}
@@ -30,6 +30,7 @@ public class IngestJob {
     private final String tableName;
     private final String id;
     private final List<String> files;
+    private final String inputFormat;
 
     private IngestJob(Builder builder) {
         tableName = builder.tableName;
@@ -40,6 +41,7 @@ public class IngestJob {
             id = builder.id;
         }
         files = builder.files;
+        inputFormat = builder.inputFormat;
     }
 
     public static Builder builder() {
@@ -54,6 +56,9 @@ public class IngestJob {
         if (tableName == null) {
             validationFailures.add("Missing property \"tableName\"");
         }
+        if (inputFormat != null && IngestJobInputFormat.fromName(inputFormat).isEmpty()) {
+            validationFailures.add("Unrecognised value for property \"inputFormat\": " + inputFormat);
+        }
         return validationFailures;
     }
 
@@ -69,12 +74,26 @@ public class IngestJob {
         return files;
     }
 
+    public String getInputFormat() {
+        return inputFormat;
+    }
+
+    /**
+     * Retrieves the format that all files in this job are read with, if it was set explicitly. If this is not set,
+     * the format of each file is chosen from its extension.
+     *
+     * @return the format set on the job, if any
+     */
+    public Optional<IngestJobInputFormat> getInputFormatIfSet() {
+        return Optional.ofNullable(inputFormat).flatMap(IngestJobInputFormat::fromName);
+    }
+
     public int getFileCount() {
         return Optional.ofNullable(files).map(List::size).orElse(0);
     }
 
     public Builder toBuilder() {
-        return builder().id(id).files(files).tableName(tableName);
+        return builder().id(id).files(files).tableName(tableName).inputFormat(inputFormat);
     }
 
     @Override
@@ -88,12 +107,13 @@ public class IngestJob {
         IngestJob ingestJob = (IngestJob) o;
         return Objects.equals(id, ingestJob.id) &&
                 Objects.equals(tableName, ingestJob.tableName) &&
-                Objects.equals(files, ingestJob.files);
+                Objects.equals(files, ingestJob.files) &&
+                Objects.equals(inputFormat, ingestJob.inputFormat);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, tableName, files);
+        return Objects.hash(id, tableName, files, inputFormat);
     }
 
     @Override
@@ -102,6 +122,7 @@ public class IngestJob {
                 "id='" + id + '\'' +
                 ", tableName=" + tableName +
                 ", files=" + files +
+                ", inputFormat=" + inputFormat +
                 '}';
     }
 
@@ -109,6 +130,7 @@ public class IngestJob {
         private String tableName;
         private String id;
         private List<String> files;
+        private String inputFormat;
 
         private Builder() {
         }
@@ -132,6 +154,15 @@ public class IngestJob {
             return files(Arrays.asList(files));
         }
 
+        public Builder inputFormat(String inputFormat) {
+            this.inputFormat = inputFormat;
+            return this;
+        }
+
+        public Builder inputFormat(IngestJobInputFormat inputFormat) {
+            return inputFormat(inputFormat.name());
+        }
+
         public IngestJob build() {
             return new IngestJob(this);
         }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.job;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * The formats of file that an ingest job can read. A job may set its format explicitly, otherwise the format of each
+ * file is chosen from its extension. Arrow has two IPC formats: the file format, which has a footer and is read with
+ * random access, and the stream format, which is read from start to end.
+ */
+public enum IngestJobInputFormat {
+    PARQUET(".parquet"),
+    CSV(".csv"),
+    JSON_LINES(".jsonl", ".ndjson"),
+    AVRO(".avro"),
+    ARROW(".arrow"),
+    ARROW_STREAM(".arrows");
+
+    private final List<String> fileExtensions;
+
+    IngestJobInputFormat(String... fileExtensions) {
+        this.fileExtensions = List.of(fileExtensions);
+    }
+
+    public List<String> getFileExtensions() {
+        return fileExtensions;
+    }
+
+    public static Optional<IngestJobInputFormat> fromName(String name) {
+        return Stream.of(values())
+                .filter(format -> format.name().equalsIgnoreCase(name))
+                .findFirst();
+    }
+
+    public static Optional<IngestJobInputFormat> fromFileName(String fileName) {
+        String lowerCaseFileName = fileName.toLowerCase(Locale.ROOT);
+        return Stream.of(values())
+                .filter(format -> format.fileExtensions.stream().anyMatch(lowerCaseFileName::endsWith))
+                .findFirst();
+    }
+}
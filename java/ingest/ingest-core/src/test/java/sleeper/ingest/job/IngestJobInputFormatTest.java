@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.job;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestJobInputFormatTest {
+
+    @Test
+    void shouldFindFormatFromFileExtension() {
+        assertThat(IngestJobInputFormat.fromFileName("s3a://bucket/dir/file.parquet")).contains(IngestJobInputFormat.PARQUET);
+        assertThat(IngestJobInputFormat.fromFileName("bucket/file.CSV")).contains(IngestJobInputFormat.CSV);
+        assertThat(IngestJobInputFormat.fromFileName("bucket/file.jsonl")).contains(IngestJobInputFormat.JSON_LINES);
+        assertThat(IngestJobInputFormat.fromFileName("bucket/file.ndjson")).contains(IngestJobInputFormat.JSON_LINES);
+        assertThat(IngestJobInputFormat.fromFileName("bucket/file.avro")).contains(IngestJobInputFormat.AVRO);
+        assertThat(IngestJobInputFormat.fromFileName("bucket/file.arrow")).contains(IngestJobInputFormat.ARROW);
+        assertThat(IngestJobInputFormat.fromFileName("bucket/file.arrows")).contains(IngestJobInputFormat.ARROW_STREAM);
+    }
+
+    @Test
+    void shouldNotFindFormatForUnrecognisedExtension() {
+        assertThat(IngestJobInputFormat.fromFileName("bucket/file.crc")).isEmpty();
+        assertThat(IngestJobInputFormat.fromFileName("bucket/parquet")).isEmpty();
+    }
+}
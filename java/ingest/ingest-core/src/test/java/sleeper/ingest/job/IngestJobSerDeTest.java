@@ -35,4 +35,21 @@ class IngestJobSerDeTest {
         // Then
         assertThat(deserialisedJob).isEqualTo(ingestJob);
     }
+
+    @Test
+    void shouldSerDeWithInputFormat() {
+        // Given
+        IngestJob ingestJob = IngestJob.builder()
+                .tableName("table").id("id").files("file1", "file2")
+                .inputFormat(IngestJobInputFormat.CSV)
+                .build();
+        IngestJobSerDe ingestJobSerDe = new IngestJobSerDe();
+
+        // When
+        IngestJob deserialisedJob = ingestJobSerDe.fromJson(ingestJobSerDe.toJson(ingestJob));
+
+        // Then
+        assertThat(deserialisedJob).isEqualTo(ingestJob);
+        assertThat(deserialisedJob.getInputFormatIfSet()).contains(IngestJobInputFormat.CSV);
+    }
 }
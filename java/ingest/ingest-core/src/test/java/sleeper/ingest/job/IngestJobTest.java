@@ -48,4 +48,33 @@ public class IngestJobTest {
         // Then
         assertThat(ingestJob.getId()).isNotEmpty();
     }
+
+    @Test
+    public void shouldReadInputFormatIgnoringCase() {
+        // Given/When
+        IngestJob ingestJob = IngestJob.builder()
+                .tableName("test-table")
+                .files(Collections.singletonList("test.txt"))
+                .inputFormat("json_lines")
+                .build();
+
+        // Then
+        assertThat(ingestJob.getInputFormatIfSet()).contains(IngestJobInputFormat.JSON_LINES);
+        assertThat(ingestJob.getValidationFailures()).isEmpty();
+    }
+
+    @Test
+    public void shouldFailValidationWithUnrecognisedInputFormat() {
+        // Given/When
+        IngestJob ingestJob = IngestJob.builder()
+                .tableName("test-table")
+                .files(Collections.singletonList("test.xml"))
+                .inputFormat("xml")
+                .build();
+
+        // Then
+        assertThat(ingestJob.getInputFormatIfSet()).isEmpty();
+        assertThat(ingestJob.getValidationFailures())
+                .containsExactly("Unrecognised value for property \"inputFormat\": xml");
+    }
 }
@@ -15,6 +15,7 @@
  */
 package sleeper.ingest;
 
+import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.hadoop.conf.Configuration;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 
@@ -32,6 +33,7 @@ import sleeper.ingest.impl.partitionfilewriter.PartitionFileWriterFactory;
 import sleeper.ingest.impl.recordbatch.RecordBatchFactory;
 import sleeper.ingest.impl.recordbatch.arraylist.ArrayListRecordBatchFactory;
 import sleeper.ingest.impl.recordbatch.arrow.ArrowRecordBatchFactory;
+import sleeper.ingest.impl.recordbatch.arrow.ArrowRecordWriterAcceptingVectorSchemaRoot;
 import sleeper.statestore.StateStoreException;
 import sleeper.statestore.StateStoreProvider;
 
@@ -98,6 +100,28 @@ public class IngestFactory {
                 .build();
     }
 
+    /**
+     * Creates an ingest coordinator which accepts batches of Arrow data, such as those read from an Arrow IPC stream.
+     * The batches are copied directly into an Arrow record batch, so this is always backed by Arrow, regardless of the
+     * configured record batch type.
+     *
+     * @param tableProperties the properties of the table to ingest into
+     * @return the ingest coordinator
+     */
+    public IngestCoordinator<VectorSchemaRoot> createIngestCoordinatorAcceptingArrowBatches(TableProperties tableProperties) {
+        ParquetConfiguration parquetConfiguration = ParquetConfiguration.from(tableProperties, hadoopConfiguration);
+        return IngestCoordinator.builderWith(instanceProperties, tableProperties)
+                .objectFactory(objectFactory)
+                .stateStore(stateStoreProvider.getStateStore(tableProperties))
+                .recordBatchFactory(ArrowRecordBatchFactory.builderWith(instanceProperties)
+                        .schema(tableProperties.getSchema())
+                        .localWorkingDirectory(localDir)
+                        .recordWriter(new ArrowRecordWriterAcceptingVectorSchemaRoot())
+                        .build())
+                .partitionFileWriterFactory(standardPartitionFileWriterFactory(tableProperties, parquetConfiguration))
+                .build();
+    }
+
     private RecordBatchFactory<Record> standardRecordBatchFactory(ParquetConfiguration parquetConfiguration) {
         String recordBatchType = instanceProperties.get(INGEST_RECORD_BATCH_TYPE).toLowerCase(Locale.ROOT);
         if (recordBatchType.equals("arraylist")) {
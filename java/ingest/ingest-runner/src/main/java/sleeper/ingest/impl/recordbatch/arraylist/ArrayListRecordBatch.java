@@ -25,8 +25,8 @@ import org.slf4j.LoggerFactory;
 
 import sleeper.core.iterator.CloseableIterator;
 import sleeper.core.iterator.MergingIterator;
+import sleeper.core.record.CompiledRecordComparator;
 import sleeper.core.record.Record;
-import sleeper.core.record.RecordComparator;
 import sleeper.core.schema.Schema;
 import sleeper.ingest.impl.ParquetConfiguration;
 import sleeper.ingest.impl.recordbatch.RecordBatch;
@@ -134,7 +134,7 @@ public class ArrayListRecordBatch<INCOMINGDATATYPE> implements RecordBatch<INCOM
                     localWorkingDirectory,
                     uniqueIdentifier,
                     batchNo);
-            inMemoryBatch.sort(new RecordComparator(sleeperSchema));
+            inMemoryBatch.sort(new CompiledRecordComparator(sleeperSchema));
             long time2 = System.currentTimeMillis();
             // Write the records to a local Parquet file. The try-with-resources block ensures that the writer
             // is closed in both success and failure.
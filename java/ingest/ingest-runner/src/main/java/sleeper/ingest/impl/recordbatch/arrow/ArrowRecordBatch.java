@@ -551,6 +551,8 @@ public class ArrowRecordBatch<INCOMINGDATATYPE> implements RecordBatch<INCOMINGD
                 writeRequired = false;
             } catch (OutOfMemoryException e) {
                 LOGGER.debug("OutOfMemoryException occurred whilst writing a Record: flushing and retrying");
+                // The writer may have completed some of the rows before running out of memory, and these are kept
+                currentInsertIndex = vectorSchemaRoot.getRowCount();
                 flushToLocalArrowFileThenClear();
             }
         }
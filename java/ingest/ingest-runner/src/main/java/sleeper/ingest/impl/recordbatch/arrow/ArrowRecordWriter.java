@@ -31,6 +31,10 @@ public interface ArrowRecordWriter<T> {
      * @param data The data to write
      * @param insertAtRowNo The location in the VectorSchemaRoot to use to insert the data
      * @return The index to use when this method is next called
+     * @throws org.apache.arrow.memory.OutOfMemoryException When the VectorSchemaRoot runs out of memory. The row count
+     *                                                      of the VectorSchemaRoot must only include rows which were
+     *                                                      written completely. The batch is then flushed and the same
+     *                                                      data is passed in again.
      */
     int insert(List<Field> allFields, VectorSchemaRoot vectorSchemaRoot, T data, int insertAtRowNo);
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.impl.recordbatch.arrow;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+
+import java.util.List;
+
+/**
+ * This class implements {@link ArrowRecordWriter} so that it accepts data as Arrow {@link VectorSchemaRoot} batches,
+ * such as those read from an Arrow IPC stream. The values are copied directly between the Arrow vectors, so no
+ * {@link sleeper.core.record.Record} objects are created.
+ * <p>
+ * The incoming batch must have a column for every Sleeper field, matched by name, with the same Arrow type as the
+ * Sleeper field is stored with. Any other columns are ignored. Null values are not supported.
+ * <p>
+ * The rows are copied in slices, and each slice is kept as soon as it has been copied. If the Arrow buffer fills up
+ * part way through a batch, the rows copied so far are flushed with the rest of the buffer, and the remaining rows are
+ * copied when the batch is passed in again. This means a batch may be bigger than the whole buffer. When the buffer is
+ * empty and a slice still does not fit, the slice is made smaller, down to a single row.
+ */
+public class ArrowRecordWriterAcceptingVectorSchemaRoot implements ArrowRecordWriter<VectorSchemaRoot> {
+    private static final int MAX_ROWS_PER_SLICE = 1024;
+
+    private VectorSchemaRoot partiallyInsertedBatch;
+    private int noOfRowsOfBatchInserted;
+
+    /**
+     * Add the rows of a batch to a VectorSchemaRoot, starting at a specified row. If this batch was only partly added
+     * when this method was last called, only the rows which were not added are added now.
+     *
+     * @param allFields          The result of {@link Schema#getAllFields()} of the records that are being written
+     * @param vectorSchemaRoot   The Arrow store to write into
+     * @param batch              The batch of rows to write
+     * @param startInsertAtRowNo The index of the first row to write
+     * @return The row number to use when this method is next called
+     * @throws OutOfMemoryException When the {@link BufferAllocator} associated with the {@link VectorSchemaRoot} cannot
+     *                              provide enough memory. The row count of the VectorSchemaRoot includes the rows
+     *                              that were added before this happened.
+     */
+    @Override
+    public int insert(List<Field> allFields,
+                      VectorSchemaRoot vectorSchemaRoot,
+                      VectorSchemaRoot batch,
+                      int startInsertAtRowNo) throws OutOfMemoryException {
+        // Follow the Arrow pattern of create > allocate > mutate > set value count > access > clear
+        // Here we do the mutate
+        // Note that copyFromSafe() is used so that more memory will be requested if required.
+        // An OutOfMemoryException is thrown if this fails. The row count is only set once every field in a slice has
+        // been copied, so that any partially copied rows are discarded when the batch is flushed.
+        FieldVector[] sourceVectors = new FieldVector[allFields.size()];
+        for (int fieldNo = 0; fieldNo < allFields.size(); fieldNo++) {
+            sourceVectors[fieldNo] = getSourceVector(batch, allFields.get(fieldNo), vectorSchemaRoot.getVector(fieldNo));
+        }
+        int noOfRows = batch.getRowCount();
+        int sourceRowNo = batch == partiallyInsertedBatch ? noOfRowsOfBatchInserted : 0;
+        int insertAtRowNo = startInsertAtRowNo;
+        int rowsPerSlice = MAX_ROWS_PER_SLICE;
+        while (sourceRowNo < noOfRows) {
+            int sliceRows = Math.min(rowsPerSlice, noOfRows - sourceRowNo);
+            try {
+                copySlice(vectorSchemaRoot, sourceVectors, sourceRowNo, insertAtRowNo, sliceRows);
+            } catch (OutOfMemoryException e) {
+                if (insertAtRowNo == 0 && sliceRows > 1) {
+                    // Nothing can be flushed to make space, so try a smaller slice
+                    rowsPerSlice = sliceRows / 2;
+                    continue;
+                }
+                partiallyInsertedBatch = batch;
+                noOfRowsOfBatchInserted = sourceRowNo;
+                throw e;
+            }
+            sourceRowNo += sliceRows;
+            insertAtRowNo += sliceRows;
+            vectorSchemaRoot.setRowCount(insertAtRowNo);
+        }
+        partiallyInsertedBatch = null;
+        noOfRowsOfBatchInserted = 0;
+        return insertAtRowNo;
+    }
+
+    private static void copySlice(VectorSchemaRoot vectorSchemaRoot, FieldVector[] sourceVectors,
+                                  int sourceRowNo, int insertAtRowNo, int sliceRows) {
+        for (int fieldNo = 0; fieldNo < sourceVectors.length; fieldNo++) {
+            FieldVector destinationVector = vectorSchemaRoot.getVector(fieldNo);
+            for (int rowNo = 0; rowNo < sliceRows; rowNo++) {
+                destinationVector.copyFromSafe(sourceRowNo + rowNo, insertAtRowNo + rowNo, sourceVectors[fieldNo]);
+            }
+        }
+    }
+
+    private static FieldVector getSourceVector(VectorSchemaRoot batch, Field sleeperField, FieldVector destinationVector) {
+        FieldVector sourceVector = batch.getVector(sleeperField.getName());
+        if (null == sourceVector) {
+            throw new IllegalArgumentException("Arrow batch has no column for field " + sleeperField.getName());
+        }
+        if (!hasSameTypes(sourceVector.getField(), destinationVector.getField())) {
+            throw new IllegalArgumentException("Arrow column " + sleeperField.getName() + " has type "
+                    + sourceVector.getField().getFieldType().getType() + ", expected "
+                    + destinationVector.getField().getFieldType().getType());
+        }
+        if (sourceVector.getNullCount() > 0) {
+            throw new IllegalArgumentException("Arrow column " + sleeperField.getName() + " contains null values");
+        }
+        return sourceVector;
+    }
+
+    private static boolean hasSameTypes(org.apache.arrow.vector.types.pojo.Field field1,
+                                        org.apache.arrow.vector.types.pojo.Field field2) {
+        List<org.apache.arrow.vector.types.pojo.Field> children1 = field1.getChildren();
+        List<org.apache.arrow.vector.types.pojo.Field> children2 = field2.getChildren();
+        if (!field1.getType().equals(field2.getType()) || children1.size() != children2.size()) {
+            return false;
+        }
+        for (int i = 0; i < children1.size(); i++) {
+            if (!hasSameTypes(children1.get(i), children2.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
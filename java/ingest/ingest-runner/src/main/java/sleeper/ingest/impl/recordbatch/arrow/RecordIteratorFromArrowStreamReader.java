@@ -16,7 +16,7 @@
 package sleeper.ingest.impl.recordbatch.arrow;
 
 import org.apache.arrow.vector.VectorSchemaRoot;
-import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.ArrowReader;
 
 import sleeper.core.iterator.CloseableIterator;
 import sleeper.core.record.Record;
@@ -25,14 +25,14 @@ import java.io.IOException;
 import java.util.NoSuchElementException;
 
 /**
- * This class is a {@link CloseableIterator} of {@link Record}s, where those records are read from a {@link
- * ArrowStreamReader}.
+ * This class is a {@link CloseableIterator} of {@link Record}s, where those records are read from an {@link
+ * ArrowReader}, which may read either an Arrow IPC stream or an Arrow IPC file.
  * <p>
  * The rows are read from the file in small batches, which correspond to the small batches that were used when the file
  * was orginally written.
  */
-class RecordIteratorFromArrowStreamReader implements CloseableIterator<Record> {
-    private final ArrowStreamReader arrowStreamReader;
+public class RecordIteratorFromArrowStreamReader implements CloseableIterator<Record> {
+    private final ArrowReader arrowStreamReader;
     private int currentRecordNoInBatch;
     private long totalNoOfRecordsRead = 0L;
     private boolean nextBatchLoaded;
@@ -40,16 +40,16 @@ class RecordIteratorFromArrowStreamReader implements CloseableIterator<Record> {
     /**
      * Construct an ArrowStreamIterator.
      *
-     * @param arrowStreamReader The {@link ArrowStreamReader} to use to read the small batchea from the file.
+     * @param arrowStreamReader The {@link ArrowReader} to use to read the small batchea from the file.
      * @throws IOException -
      */
-    RecordIteratorFromArrowStreamReader(ArrowStreamReader arrowStreamReader) throws IOException {
+    public RecordIteratorFromArrowStreamReader(ArrowReader arrowStreamReader) throws IOException {
         this.arrowStreamReader = arrowStreamReader;
         this.loadNextBatch();
     }
 
     /**
-     * Instruct the {@link ArrowStreamReader} to read the next small batch of rows from the file, into its internal
+     * Instruct the {@link ArrowReader} to read the next small batch of rows from the file, into its internal
      * {@link VectorSchemaRoot}
      *
      * @throws IOException -
@@ -75,7 +75,7 @@ class RecordIteratorFromArrowStreamReader implements CloseableIterator<Record> {
             throw new NoSuchElementException();
         }
         try {
-            // Retrieve the current small batch from within the ArrowStreamReader, read the value from
+            // Retrieve the current small batch from within the ArrowReader, read the value from
             // row currentRecordNoInBatch and use these values to construct a Record object.
             VectorSchemaRoot smallBatchVectorSchemaRoot = arrowStreamReader.getVectorSchemaRoot();
             Record record = ArrowToRecordConversionUtils.convertVectorSchemaRootToRecord(smallBatchVectorSchemaRoot, currentRecordNoInBatch);
@@ -15,9 +15,12 @@
  */
 package sleeper.ingest.job;
 
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowReader;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
-import org.apache.parquet.hadoop.ParquetReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
@@ -29,31 +32,46 @@ import sleeper.configuration.properties.table.TablePropertiesProvider;
 import sleeper.core.iterator.CloseableIterator;
 import sleeper.core.iterator.ConcatenatingIterator;
 import sleeper.core.iterator.IteratorException;
+import sleeper.core.iterator.ParallelConcatenatingIterator;
 import sleeper.core.record.Record;
 import sleeper.core.schema.Schema;
 import sleeper.ingest.IngestFactory;
 import sleeper.ingest.IngestResult;
-import sleeper.io.parquet.record.ParquetReaderIterator;
-import sleeper.io.parquet.record.ParquetRecordReader;
+import sleeper.ingest.impl.IngestCoordinator;
+import sleeper.ingest.job.format.IngestJobFileReader;
 import sleeper.statestore.StateStoreException;
 import sleeper.statestore.StateStoreProvider;
 import sleeper.utils.HadoopPathUtils;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Supplier;
 
 import static sleeper.configuration.properties.instance.CommonProperty.FILE_SYSTEM;
+import static sleeper.configuration.properties.instance.IngestProperty.INGEST_JOB_FILES_READ_BUFFER_RECORDS;
+import static sleeper.configuration.properties.instance.IngestProperty.INGEST_JOB_FILES_READ_PARALLELISM;
+import static sleeper.configuration.properties.instance.IngestProperty.INGEST_RECORD_BATCH_TYPE;
 
 /**
  * An IngestJobRunner takes ingest jobs and runs them.
  */
 public class IngestJobRunner implements IngestJobHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(IngestJobRunner.class);
+    private static final int READ_BATCH_SIZE = 1000;
+    private static final Set<IngestJobInputFormat> ARROW_FORMATS = EnumSet.of(
+            IngestJobInputFormat.ARROW, IngestJobInputFormat.ARROW_STREAM);
 
     private final TablePropertiesProvider tablePropertiesProvider;
     private final String fs;
+    private final int readParallelism;
+    private final int readBufferRecords;
+    private final boolean arrowRecordBatch;
     private final Configuration hadoopConfiguration;
     private final IngestFactory ingestFactory;
 
@@ -66,6 +84,9 @@ public class IngestJobRunner implements IngestJobHandler {
                            Configuration hadoopConfiguration) {
         this.tablePropertiesProvider = tablePropertiesProvider;
         this.fs = instanceProperties.get(FILE_SYSTEM);
+        this.readParallelism = instanceProperties.getInt(INGEST_JOB_FILES_READ_PARALLELISM);
+        this.readBufferRecords = instanceProperties.getInt(INGEST_JOB_FILES_READ_BUFFER_RECORDS);
+        this.arrowRecordBatch = instanceProperties.get(INGEST_RECORD_BATCH_TYPE).equalsIgnoreCase("arrow");
         this.hadoopConfiguration = hadoopConfiguration;
         this.ingestFactory = IngestFactory.builder()
                 .objectFactory(objectFactory)
@@ -87,16 +108,29 @@ public class IngestJobRunner implements IngestJobHandler {
         LOGGER.info("There are {} files to ingest", paths.size());
         LOGGER.debug("Files to ingest are: {}", paths);
 
-        // Create supplier of iterator of records from each file (using a supplier avoids having multiple files open
-        // at the same time)
+        // Find the format of each file. This is set on the job, or otherwise taken from the file extension.
+        Optional<IngestJobInputFormat> jobInputFormat = job.getInputFormatIfSet();
+        IngestJobFileReader fileReader = new IngestJobFileReader(schema, hadoopConfiguration);
+        Map<Path, IngestJobInputFormat> readablePathToFormat = new LinkedHashMap<>();
+
+        // Create supplier of iterator of records from each file (using a supplier avoids opening files before they are
+        // read, and limits the number of files open at the same time)
         List<Supplier<CloseableIterator<Record>>> inputIterators = new ArrayList<>();
         for (Path path : paths) {
             String pathString = path.toString();
-            if (pathString.endsWith(".parquet")) {
+            if (isHiddenFile(path)) {
+                // Skip files such as _SUCCESS markers and .crc checksums, which would otherwise be read when the
+                // format is set on the job
+                LOGGER.info("Ingest job {}: Skipping hidden file {}", job.getId(), pathString);
+                continue;
+            }
+            Optional<IngestJobInputFormat> formatOpt = jobInputFormat.or(() -> IngestJobInputFormat.fromFileName(pathString));
+            if (formatOpt.isPresent()) {
+                IngestJobInputFormat format = formatOpt.get();
+                readablePathToFormat.put(path, format);
                 inputIterators.add(() -> {
                     try {
-                        ParquetReader<Record> reader = new ParquetRecordReader.Builder(path, schema).withConf(hadoopConfiguration).build();
-                        return new ParquetReaderIterator(reader);
+                        return fileReader.openRecords(path, format);
                     } catch (IOException e) {
                         throw new RuntimeException("Ingest job: " + job.getId() + " IOException creating reader for file "
                                 + path + ": " + e.getMessage());
@@ -108,12 +142,63 @@ public class IngestJobRunner implements IngestJobHandler {
             }
         }
 
-        // Concatenate iterators into one iterator
-        CloseableIterator<Record> concatenatingIterator = new ConcatenatingIterator(inputIterators);
+        // When every file is an Arrow IPC file or stream and the ingest is backed by Arrow, copy the Arrow batches
+        // straight into the ingest rather than converting them into records
+        if (arrowRecordBatch && !readablePathToFormat.isEmpty()
+                && ARROW_FORMATS.containsAll(readablePathToFormat.values())) {
+            IngestResult result = ingestArrowBatches(tableProperties, fileReader, readablePathToFormat);
+            LOGGER.info("Ingest job {}: Wrote {} records from Arrow files {}", job.getId(), result.getRecordsWritten(), paths);
+            return result;
+        }
+
+        // Concatenate iterators into one iterator. When more than one file is read at once the records are interleaved,
+        // which does not matter as the ingest sorts them.
+        CloseableIterator<Record> concatenatingIterator;
+        if (readParallelism > 1 && inputIterators.size() > 1) {
+            concatenatingIterator = new ParallelConcatenatingIterator(
+                    inputIterators, readParallelism, readBufferRecords, READ_BATCH_SIZE);
+        } else {
+            concatenatingIterator = new ConcatenatingIterator(inputIterators);
+        }
 
         // Run the ingest
         IngestResult result = ingestFactory.ingestFromRecordIteratorAndClose(tableProperties, concatenatingIterator);
         LOGGER.info("Ingest job {}: Wrote {} records from files {}", job.getId(), result.getRecordsWritten(), paths);
         return result;
     }
+
+    private IngestResult ingestArrowBatches(
+            TableProperties tableProperties, IngestJobFileReader fileReader, Map<Path, IngestJobInputFormat> pathToFormat)
+            throws IteratorException, StateStoreException, IOException {
+        long recordsRead = 0L;
+        try (BufferAllocator bufferAllocator = new RootAllocator()) {
+            IngestCoordinator<VectorSchemaRoot> ingestCoordinator = ingestFactory.createIngestCoordinatorAcceptingArrowBatches(tableProperties);
+            boolean completed = false;
+            try {
+                for (Map.Entry<Path, IngestJobInputFormat> entry : pathToFormat.entrySet()) {
+                    try (ArrowReader reader = fileReader.openArrowReader(entry.getKey(), entry.getValue(), bufferAllocator)) {
+                        while (reader.loadNextBatch()) {
+                            VectorSchemaRoot batch = reader.getVectorSchemaRoot();
+                            ingestCoordinator.write(batch);
+                            recordsRead += batch.getRowCount();
+                        }
+                    }
+                }
+                // The ingest coordinator counts each batch as one record read, so the rows are counted here instead
+                IngestResult result = IngestResult.fromReadAndWritten(recordsRead, ingestCoordinator.closeReturningResult().getFileInfoList());
+                completed = true;
+                return result;
+            } finally {
+                // Abort on any failure, including errors, so that the Arrow memory and local files are released
+                if (!completed) {
+                    ingestCoordinator.abort();
+                }
+            }
+        }
+    }
+
+    private static boolean isHiddenFile(Path path) {
+        String name = path.getName();
+        return name.startsWith("_") || name.startsWith(".");
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.job.format;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.ipc.ArrowReader;
+
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.record.Record;
+import sleeper.ingest.impl.recordbatch.arrow.RecordIteratorFromArrowStreamReader;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link CloseableIterator} of {@link Record}s read from an Arrow IPC file or stream. This is used when Arrow files
+ * are ingested alongside files of other formats, or when the ingest is not backed by Arrow. Otherwise the Arrow batches
+ * are copied directly into the ingest, without being converted into records.
+ */
+public class ArrowRecordReader implements CloseableIterator<Record> {
+    private final BufferAllocator bufferAllocator;
+    private final RecordIteratorFromArrowStreamReader iterator;
+
+    public ArrowRecordReader(ArrowReaderOpener opener) throws IOException {
+        this.bufferAllocator = new RootAllocator();
+        ArrowReader reader = null;
+        try {
+            reader = opener.open(bufferAllocator);
+            this.iterator = new RecordIteratorFromArrowStreamReader(reader);
+        } catch (IOException | RuntimeException e) {
+            if (reader != null) {
+                reader.close();
+            }
+            bufferAllocator.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return iterator.hasNext();
+    }
+
+    @Override
+    public Record next() throws NoSuchElementException {
+        return iterator.next();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            iterator.close();
+        } finally {
+            bufferAllocator.close();
+        }
+    }
+
+    public long getNumberOfRecordsRead() {
+        return iterator.getNumberOfRecordsRead();
+    }
+
+    /**
+     * Opens an Arrow reader which allocates its memory from a given allocator.
+     */
+    @FunctionalInterface
+    public interface ArrowReaderOpener {
+        ArrowReader open(BufferAllocator bufferAllocator) throws IOException;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.job.format;
+
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.record.Record;
+import sleeper.core.record.RecordLayout;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.ListType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.MapType;
+import sleeper.core.schema.type.StringType;
+import sleeper.core.schema.type.Type;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link CloseableIterator} of {@link Record}s read from an Avro object container file. The Avro schema is read from
+ * the file, and must have a field for every field in the Sleeper {@link Schema}. Any other fields are ignored.
+ * <p>
+ * A single Avro {@link GenericRecord} is reused to decode every row, and the position of each Sleeper field in the
+ * Avro schema is found once when the file is opened.
+ */
+public class AvroRecordReader implements CloseableIterator<Record> {
+    private final DataFileStream<GenericRecord> dataFileStream;
+    private final RecordLayout layout;
+    private final Type[] fieldTypes;
+    private final int[] avroPositionForField;
+    private GenericRecord avroRecord;
+    private long recordsRead;
+
+    public AvroRecordReader(InputStream inputStream, Schema schema) throws IOException {
+        this.dataFileStream = new DataFileStream<>(inputStream, new GenericDatumReader<>());
+        this.layout = RecordLayout.forSchema(schema);
+        List<Field> allFields = schema.getAllFields();
+        this.fieldTypes = allFields.stream().map(Field::getType).toArray(Type[]::new);
+        this.avroPositionForField = new int[allFields.size()];
+        org.apache.avro.Schema avroSchema = dataFileStream.getSchema();
+        for (int fieldNo = 0; fieldNo < allFields.size(); fieldNo++) {
+            String fieldName = allFields.get(fieldNo).getName();
+            org.apache.avro.Schema.Field avroField = avroSchema.getField(fieldName);
+            if (null == avroField) {
+                dataFileStream.close();
+                throw new IllegalArgumentException("Avro schema has no field " + fieldName);
+            }
+            avroPositionForField[fieldNo] = avroField.pos();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return dataFileStream.hasNext();
+    }
+
+    @Override
+    public Record next() throws NoSuchElementException {
+        try {
+            avroRecord = dataFileStream.next(avroRecord);
+        } catch (IOException e) {
+            throw new UncheckedIOException("IOException when reading Avro", e);
+        }
+        Record record = new Record(layout);
+        for (int fieldNo = 0; fieldNo < fieldTypes.length; fieldNo++) {
+            Object value = avroRecord.get(avroPositionForField[fieldNo]);
+            if (null == value) {
+                throw new IllegalArgumentException("Null value for field " + layout.getFieldName(fieldNo)
+                        + " in Avro record " + (recordsRead + 1));
+            }
+            record.put(fieldNo, convertValue(fieldTypes[fieldNo], value));
+        }
+        recordsRead++;
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        dataFileStream.close();
+    }
+
+    public long getNumberOfRecordsRead() {
+        return recordsRead;
+    }
+
+    private static Object convertValue(Type type, Object value) {
+        if (type instanceof ListType) {
+            Type elementType = ((ListType) type).getElementType();
+            Collection<?> collection = (Collection<?>) value;
+            List<Object> list = new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                list.add(convertPrimitiveValue(elementType, element));
+            }
+            return list;
+        } else if (type instanceof MapType) {
+            Type keyType = ((MapType) type).getKeyType();
+            Type valueType = ((MapType) type).getValueType();
+            Map<?, ?> avroMap = (Map<?, ?>) value;
+            Map<Object, Object> map = new HashMap<>();
+            for (Map.Entry<?, ?> entry : avroMap.entrySet()) {
+                map.put(convertPrimitiveValue(keyType, entry.getKey()), convertPrimitiveValue(valueType, entry.getValue()));
+            }
+            return map;
+        } else {
+            return convertPrimitiveValue(type, value);
+        }
+    }
+
+    private static Object convertPrimitiveValue(Type type, Object value) {
+        if (type instanceof IntType) {
+            return ((Number) value).intValue();
+        } else if (type instanceof LongType) {
+            return ((Number) value).longValue();
+        } else if (type instanceof StringType) {
+            // Avro decodes strings as Utf8 by default
+            return value.toString();
+        } else if (type instanceof ByteArrayType) {
+            if (value instanceof GenericFixed) {
+                return ((GenericFixed) value).bytes().clone();
+            }
+            // The buffer may be reused when the next record is decoded, so it must be copied
+            ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        } else {
+            throw new UnsupportedOperationException("Sleeper column type " + type + " is not handled when reading Avro");
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.job.format;
+
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.record.Record;
+import sleeper.core.record.RecordLayout;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+import sleeper.core.schema.type.Type;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link CloseableIterator} of {@link Record}s read from a CSV file. The first line of the file must be a header
+ * giving the name of each column. Every field in the Sleeper {@link Schema} must have a column, and any other columns
+ * are ignored. Fields may be quoted as described in RFC 4180. Byte array fields are expected to be base 64 encoded.
+ * <p>
+ * The file is parsed in a single pass through a character buffer. The characters of each line are held in one
+ * reusable buffer, and numbers are parsed directly from it without creating a {@link String} for each column.
+ * <p>
+ * Note that this class does not support Sleeper list or map fields.
+ */
+public class CsvRecordReader implements CloseableIterator<Record> {
+    private static final int READ_BUFFER_CHARS = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] readBuffer = new char[READ_BUFFER_CHARS];
+    private int readBufferPosition;
+    private int readBufferLength;
+    private final StringBuilder line = new StringBuilder();
+    private int[] columnStarts = new int[16];
+    private int[] columnEnds = new int[16];
+    private int noOfColumnsInLine;
+    private long rowNumber;
+    private final RecordLayout layout;
+    private final Type[] fieldTypes;
+    private final int[] columnForField;
+    private int noOfColumns;
+    private Record record;
+    private long recordsRead;
+
+    public CsvRecordReader(Reader reader, Schema schema) throws IOException {
+        this.reader = reader;
+        this.layout = RecordLayout.forSchema(schema);
+        List<Field> allFields = schema.getAllFields();
+        this.fieldTypes = allFields.stream().map(Field::getType).toArray(Type[]::new);
+        this.columnForField = new int[allFields.size()];
+        for (Type type : fieldTypes) {
+            if (!(type instanceof IntType || type instanceof LongType
+                    || type instanceof StringType || type instanceof ByteArrayType)) {
+                throw new UnsupportedOperationException("Sleeper column type " + type + " is not handled when reading CSV");
+            }
+        }
+        if (readLine()) {
+            readHeader(allFields);
+            this.record = readRecord();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return null != record;
+    }
+
+    @Override
+    public Record next() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Record current = record;
+        try {
+            record = readRecord();
+        } catch (IOException e) {
+            throw new UncheckedIOException("IOException when reading CSV", e);
+        }
+        return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    public long getNumberOfRecordsRead() {
+        return recordsRead;
+    }
+
+    private void readHeader(List<Field> allFields) {
+        noOfColumns = noOfColumnsInLine;
+        Arrays.fill(columnForField, -1);
+        for (int columnNo = 0; columnNo < noOfColumns; columnNo++) {
+            int fieldNo = layout.indexOf(line.substring(columnStarts[columnNo], columnEnds[columnNo]).trim());
+            if (fieldNo >= 0) {
+                columnForField[fieldNo] = columnNo;
+            }
+        }
+        for (int fieldNo = 0; fieldNo < columnForField.length; fieldNo++) {
+            if (columnForField[fieldNo] < 0) {
+                throw new IllegalArgumentException("CSV header has no column for field " + allFields.get(fieldNo).getName());
+            }
+        }
+    }
+
+    private Record readRecord() throws IOException {
+        if (!readLine()) {
+            return null;
+        }
+        if (noOfColumnsInLine != noOfColumns) {
+            throw new IllegalArgumentException("Expected " + noOfColumns + " columns in CSV row " + rowNumber
+                    + ", found " + noOfColumnsInLine);
+        }
+        Record newRecord = new Record(layout);
+        for (int fieldNo = 0; fieldNo < fieldTypes.length; fieldNo++) {
+            int columnNo = columnForField[fieldNo];
+            newRecord.put(fieldNo, parseValue(fieldTypes[fieldNo], columnStarts[columnNo], columnEnds[columnNo]));
+        }
+        recordsRead++;
+        return newRecord;
+    }
+
+    private Object parseValue(Type type, int start, int end) {
+        try {
+            if (type instanceof IntType) {
+                return Integer.parseInt(line, start, end, 10);
+            } else if (type instanceof LongType) {
+                return Long.parseLong(line, start, end, 10);
+            } else if (type instanceof StringType) {
+                return line.substring(start, end);
+            } else {
+                return Base64.getDecoder().decode(line.substring(start, end));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for type " + type + " in CSV row " + rowNumber
+                    + ": " + line.substring(start, end), e);
+        }
+    }
+
+    /**
+     * Reads the next row into the line buffer, skipping empty lines, and records where each column starts and ends.
+     * Quotes are removed from quoted columns, so that the buffer holds the value of each column.
+     *
+     * @return true if a line was read, false if the end of the input was reached
+     * @throws IOException if the input could not be read
+     */
+    private boolean readLine() throws IOException {
+        line.setLength(0);
+        noOfColumnsInLine = 0;
+        int c = readChar();
+        while (c == '\n' || c == '\r') {
+            c = readChar();
+        }
+        if (c < 0) {
+            return false;
+        }
+        rowNumber++;
+        int columnStart = 0;
+        boolean inQuotes = false;
+        while (true) {
+            if (inQuotes) {
+                if (c < 0) {
+                    throw new IllegalArgumentException("Unterminated quoted column in CSV row " + rowNumber);
+                }
+                if (c == '"') {
+                    c = readChar();
+                    if (c != '"') {
+                        inQuotes = false;
+                        continue;
+                    }
+                }
+                line.append((char) c);
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                endColumn(columnStart);
+                columnStart = line.length();
+            } else if (c == '\n' || c == '\r' || c < 0) {
+                endColumn(columnStart);
+                return true;
+            } else {
+                line.append((char) c);
+            }
+            c = readChar();
+        }
+    }
+
+    private void endColumn(int columnStart) {
+        if (noOfColumnsInLine == columnStarts.length) {
+            columnStarts = Arrays.copyOf(columnStarts, noOfColumnsInLine * 2);
+            columnEnds = Arrays.copyOf(columnEnds, noOfColumnsInLine * 2);
+        }
+        columnStarts[noOfColumnsInLine] = columnStart;
+        columnEnds[noOfColumnsInLine] = line.length();
+        noOfColumnsInLine++;
+    }
+
+    private int readChar() throws IOException {
+        if (readBufferPosition >= readBufferLength) {
+            readBufferLength = reader.read(readBuffer, 0, readBuffer.length);
+            readBufferPosition = 0;
+            if (readBufferLength <= 0) {
+                return -1;
+            }
+        }
+        return readBuffer[readBufferPosition++];
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.job.format;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * A read-only {@link SeekableByteChannel} over a Hadoop {@link FSDataInputStream}. This lets a file be read with
+ * random access, which is needed to read an Arrow IPC file, as its footer is read before its record batches.
+ */
+class HadoopSeekableByteChannel implements SeekableByteChannel {
+    private static final int MAX_BYTES_PER_READ = 64 * 1024;
+
+    private final FSDataInputStream inputStream;
+    private final long size;
+    private byte[] readBuffer;
+    private boolean open = true;
+
+    HadoopSeekableByteChannel(FSDataInputStream inputStream, long size) {
+        this.inputStream = inputStream;
+        this.size = size;
+    }
+
+    @Override
+    public int read(ByteBuffer destination) throws IOException {
+        checkOpen();
+        if (!destination.hasRemaining()) {
+            return 0;
+        }
+        if (destination.hasArray()) {
+            int bytesRead = inputStream.read(destination.array(),
+                    destination.arrayOffset() + destination.position(), destination.remaining());
+            if (bytesRead > 0) {
+                destination.position(destination.position() + bytesRead);
+            }
+            return bytesRead;
+        }
+        // Arrow reads into direct buffers, which have no array to read into, so the bytes are copied through a
+        // buffer which is reused between reads
+        if (null == readBuffer) {
+            readBuffer = new byte[MAX_BYTES_PER_READ];
+        }
+        int bytesRead = inputStream.read(readBuffer, 0, Math.min(readBuffer.length, destination.remaining()));
+        if (bytesRead > 0) {
+            destination.put(readBuffer, 0, bytesRead);
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public int write(ByteBuffer source) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        checkOpen();
+        return inputStream.getPos();
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        checkOpen();
+        inputStream.seek(newPosition);
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        checkOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+        inputStream.close();
+    }
+
+    private void checkOpen() throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.job.format;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetReader;
+
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Schema;
+import sleeper.ingest.job.IngestJobInputFormat;
+import sleeper.io.parquet.record.ParquetReaderIterator;
+import sleeper.io.parquet.record.ParquetRecordReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Opens the files of an ingest job as iterators of {@link Record}s, according to the format of each file.
+ */
+public class IngestJobFileReader {
+    private final Schema schema;
+    private final Configuration hadoopConfiguration;
+
+    public IngestJobFileReader(Schema schema, Configuration hadoopConfiguration) {
+        this.schema = schema;
+        this.hadoopConfiguration = hadoopConfiguration;
+    }
+
+    /**
+     * Opens a file to read its records. The file is read as it is iterated through, and will be closed when the
+     * iterator is closed.
+     *
+     * @param path   the path to the file
+     * @param format the format of the file
+     * @return an iterator of the records in the file
+     * @throws IOException if the file could not be opened
+     */
+    public CloseableIterator<Record> openRecords(Path path, IngestJobInputFormat format) throws IOException {
+        switch (format) {
+            case PARQUET:
+                ParquetReader<Record> reader = new ParquetRecordReader.Builder(path, schema).withConf(hadoopConfiguration).build();
+                return new ParquetReaderIterator(reader);
+            case CSV:
+                return openWithStream(path, inputStream ->
+                        new CsvRecordReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), schema));
+            case JSON_LINES:
+                return openWithStream(path, inputStream ->
+                        new JsonLinesRecordReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), schema));
+            case AVRO:
+                return openWithStream(path, inputStream -> new AvroRecordReader(inputStream, schema));
+            case ARROW:
+            case ARROW_STREAM:
+                return new ArrowRecordReader(bufferAllocator -> openArrowReader(path, format, bufferAllocator));
+            default:
+                throw new IllegalArgumentException("Unrecognised input format: " + format);
+        }
+    }
+
+    /**
+     * Opens an Arrow IPC file or stream to read its record batches. An Arrow IPC file is read with random access, as
+     * its footer must be read first, and an Arrow IPC stream is read from start to end.
+     *
+     * @param path            the path to the file
+     * @param format          the format of the file, which must be {@link IngestJobInputFormat#ARROW} or
+     *                        {@link IngestJobInputFormat#ARROW_STREAM}
+     * @param bufferAllocator the allocator for the memory to read the record batches into
+     * @return the reader, which will close the file when it is closed
+     * @throws IOException if the file could not be opened
+     */
+    public ArrowReader openArrowReader(Path path, IngestJobInputFormat format, BufferAllocator bufferAllocator) throws IOException {
+        switch (format) {
+            case ARROW:
+                FileSystem fileSystem = path.getFileSystem(hadoopConfiguration);
+                long size = fileSystem.getFileStatus(path).getLen();
+                FSDataInputStream inputStream = fileSystem.open(path);
+                return new ArrowFileReader(new HadoopSeekableByteChannel(inputStream, size), bufferAllocator);
+            case ARROW_STREAM:
+                return new ArrowStreamReader(openStream(path), bufferAllocator);
+            default:
+                throw new IllegalArgumentException("Not an Arrow format: " + format);
+        }
+    }
+
+    /**
+     * Opens a file as a stream of bytes.
+     *
+     * @param path the path to the file
+     * @return the stream
+     * @throws IOException if the file could not be opened
+     */
+    public InputStream openStream(Path path) throws IOException {
+        return path.getFileSystem(hadoopConfiguration).open(path);
+    }
+
+    private CloseableIterator<Record> openWithStream(Path path, StreamReaderConstructor constructor) throws IOException {
+        InputStream inputStream = openStream(path);
+        try {
+            return constructor.open(inputStream);
+        } catch (IOException | RuntimeException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a reader of records from a stream of bytes.
+     */
+    @FunctionalInterface
+    private interface StreamReaderConstructor {
+        CloseableIterator<Record> open(InputStream inputStream) throws IOException;
+    }
+}
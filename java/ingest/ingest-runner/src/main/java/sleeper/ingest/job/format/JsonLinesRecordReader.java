@@ -0,0 +1,185 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.job.format;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.record.Record;
+import sleeper.core.record.RecordLayout;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.ListType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.MapType;
+import sleeper.core.schema.type.StringType;
+import sleeper.core.schema.type.Type;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link CloseableIterator} of {@link Record}s read from a file of JSON objects, one per line. Each object must have
+ * a property for every field in the Sleeper {@link Schema}, and any other properties are skipped. Byte array fields
+ * are expected to be base 64 encoded, lists are JSON arrays and maps are JSON objects.
+ * <p>
+ * The objects are read with a streaming JSON parser, so no intermediate JSON tree is built for each line.
+ */
+public class JsonLinesRecordReader implements CloseableIterator<Record> {
+    private final JsonReader jsonReader;
+    private final RecordLayout layout;
+    private final List<Field> allFields;
+    private final Type[] fieldTypes;
+    private Record record;
+    private long recordsRead;
+
+    public JsonLinesRecordReader(Reader reader, Schema schema) throws IOException {
+        this.jsonReader = new JsonReader(reader);
+        // Lenient parsing allows a sequence of top level values in one document
+        this.jsonReader.setLenient(true);
+        this.layout = RecordLayout.forSchema(schema);
+        this.allFields = schema.getAllFields();
+        this.fieldTypes = allFields.stream().map(Field::getType).toArray(Type[]::new);
+        this.record = readRecord();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return null != record;
+    }
+
+    @Override
+    public Record next() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Record current = record;
+        try {
+            record = readRecord();
+        } catch (IOException e) {
+            throw new UncheckedIOException("IOException when reading JSON lines", e);
+        }
+        return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+        jsonReader.close();
+    }
+
+    public long getNumberOfRecordsRead() {
+        return recordsRead;
+    }
+
+    private Record readRecord() throws IOException {
+        if (isEndOfInput()) {
+            return null;
+        }
+        Record newRecord = new Record(layout);
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            int fieldNo = layout.indexOf(jsonReader.nextName());
+            if (fieldNo < 0 || jsonReader.peek() == JsonToken.NULL) {
+                jsonReader.skipValue();
+            } else {
+                newRecord.put(fieldNo, readValue(fieldTypes[fieldNo]));
+            }
+        }
+        jsonReader.endObject();
+        recordsRead++;
+        for (int fieldNo = 0; fieldNo < fieldTypes.length; fieldNo++) {
+            if (null == newRecord.get(fieldNo)) {
+                throw new IllegalArgumentException("Missing field " + allFields.get(fieldNo).getName()
+                        + " in JSON record " + recordsRead);
+            }
+        }
+        return newRecord;
+    }
+
+    private boolean isEndOfInput() throws IOException {
+        try {
+            return jsonReader.peek() == JsonToken.END_DOCUMENT;
+        } catch (EOFException e) {
+            // The reader reports an empty document as an early end of input
+            return true;
+        }
+    }
+
+    private Object readValue(Type type) throws IOException {
+        if (type instanceof ListType) {
+            Type elementType = ((ListType) type).getElementType();
+            List<Object> list = new ArrayList<>();
+            jsonReader.beginArray();
+            while (jsonReader.hasNext()) {
+                list.add(readPrimitiveValue(elementType));
+            }
+            jsonReader.endArray();
+            return list;
+        } else if (type instanceof MapType) {
+            Type keyType = ((MapType) type).getKeyType();
+            Type valueType = ((MapType) type).getValueType();
+            Map<Object, Object> map = new HashMap<>();
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                Object key = parseKey(keyType, jsonReader.nextName());
+                map.put(key, readPrimitiveValue(valueType));
+            }
+            jsonReader.endObject();
+            return map;
+        } else {
+            return readPrimitiveValue(type);
+        }
+    }
+
+    private Object readPrimitiveValue(Type type) throws IOException {
+        if (type instanceof IntType) {
+            return jsonReader.nextInt();
+        } else if (type instanceof LongType) {
+            return jsonReader.nextLong();
+        } else if (type instanceof StringType) {
+            return jsonReader.nextString();
+        } else if (type instanceof ByteArrayType) {
+            return Base64.getDecoder().decode(jsonReader.nextString());
+        } else {
+            throw new UnsupportedOperationException("Sleeper column type " + type + " is not handled when reading JSON lines");
+        }
+    }
+
+    private static Object parseKey(Type type, String key) {
+        if (type instanceof IntType) {
+            return Integer.parseInt(key);
+        } else if (type instanceof LongType) {
+            return Long.parseLong(key);
+        } else if (type instanceof StringType) {
+            return key;
+        } else if (type instanceof ByteArrayType) {
+            return Base64.getDecoder().decode(key);
+        } else {
+            throw new UnsupportedOperationException("Sleeper column type " + type + " is not handled as a map key when reading JSON lines");
+        }
+    }
+}
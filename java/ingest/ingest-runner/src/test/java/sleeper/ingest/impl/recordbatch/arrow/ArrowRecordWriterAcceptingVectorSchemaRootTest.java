@@ -0,0 +1,156 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.impl.recordbatch.arrow;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+import sleeper.ingest.impl.recordbatch.RecordBatch;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArrowRecordWriterAcceptingVectorSchemaRootTest {
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(new Field("key", new LongType()))
+            .valueFields(new Field("value", new StringType()))
+            .build();
+    private final BufferAllocator allocator = new RootAllocator();
+    @TempDir
+    public Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        allocator.close();
+    }
+
+    @Test
+    void shouldCopyBatchesMatchingColumnsByName() throws Exception {
+        // Given
+        try (VectorSchemaRoot batch1 = batch(new ArrowType.Int(64, true), new long[]{3L, 1L}, "c", "a");
+             VectorSchemaRoot batch2 = batch(new ArrowType.Int(64, true), new long[]{2L}, "b");
+             RecordBatch<VectorSchemaRoot> recordBatch = createRecordBatch()) {
+
+            // When
+            recordBatch.append(batch1);
+            recordBatch.append(batch2);
+            List<Record> records = new ArrayList<>();
+            try (CloseableIterator<Record> iterator = recordBatch.createOrderedRecordIterator()) {
+                iterator.forEachRemaining(records::add);
+            }
+
+            // Then
+            assertThat(records).containsExactly(
+                    new Record(Map.of("key", 1L, "value", "a")),
+                    new Record(Map.of("key", 2L, "value", "b")),
+                    new Record(Map.of("key", 3L, "value", "c")));
+        }
+    }
+
+    @Test
+    void shouldCopyBatchBiggerThanBuffer() throws Exception {
+        // Given
+        int noOfRows = 10_000;
+        long[] keys = LongStream.range(0, noOfRows).map(i -> noOfRows - 1 - i).toArray();
+        String[] values = LongStream.of(keys).mapToObj(key -> "value-" + key).toArray(String[]::new);
+        try (VectorSchemaRoot batch = batch(new ArrowType.Int(64, true), keys, values);
+             RecordBatch<VectorSchemaRoot> recordBatch = createRecordBatch(64 * 1024L)) {
+
+            // When
+            recordBatch.append(batch);
+            List<Record> records = new ArrayList<>();
+            try (CloseableIterator<Record> iterator = recordBatch.createOrderedRecordIterator()) {
+                iterator.forEachRemaining(records::add);
+            }
+
+            // Then
+            assertThat(records).isEqualTo(LongStream.range(0, noOfRows)
+                    .mapToObj(key -> new Record(Map.of("key", key, "value", "value-" + key)))
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void shouldRefuseColumnWithDifferentType() throws Exception {
+        try (VectorSchemaRoot batch = batch(new ArrowType.Int(32, true), new long[]{1L}, "a");
+             RecordBatch<VectorSchemaRoot> recordBatch = createRecordBatch()) {
+            assertThatThrownBy(() -> recordBatch.append(batch))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("Arrow column key has type Int(32, true)");
+        }
+    }
+
+    private RecordBatch<VectorSchemaRoot> createRecordBatch() {
+        return createRecordBatch(1024 * 1024L);
+    }
+
+    private RecordBatch<VectorSchemaRoot> createRecordBatch(long batchBufferAllocatorBytes) {
+        return ArrowRecordBatchFactory.builder()
+                .schema(schema)
+                .bufferAllocator(allocator)
+                .localWorkingDirectory(tempDir.toString())
+                .workingBufferAllocatorBytes(1024 * 1024L)
+                .batchBufferAllocatorBytes(batchBufferAllocatorBytes)
+                .maxNoOfBytesToWriteLocally(16 * 1024 * 1024L)
+                .maxNoOfRecordsToWriteToArrowFileAtOnce(128)
+                .recordWriter(new ArrowRecordWriterAcceptingVectorSchemaRoot())
+                .build()
+                .createRecordBatch();
+    }
+
+    // Creates a batch with the columns in a different order to the Sleeper schema, and an extra column
+    private VectorSchemaRoot batch(ArrowType keyType, long[] keys, String... values) {
+        org.apache.arrow.vector.types.pojo.Schema arrowSchema = new org.apache.arrow.vector.types.pojo.Schema(List.of(
+                org.apache.arrow.vector.types.pojo.Field.notNullable("value", new ArrowType.Utf8()),
+                org.apache.arrow.vector.types.pojo.Field.notNullable("extra", new ArrowType.Int(32, true)),
+                org.apache.arrow.vector.types.pojo.Field.notNullable("key", keyType)));
+        VectorSchemaRoot root = VectorSchemaRoot.create(arrowSchema, allocator);
+        root.allocateNew();
+        for (int i = 0; i < keys.length; i++) {
+            ((VarCharVector) root.getVector("value")).setSafe(i, values[i].getBytes(StandardCharsets.UTF_8));
+            ((IntVector) root.getVector("extra")).setSafe(i, i);
+            if (root.getVector("key") instanceof BigIntVector) {
+                ((BigIntVector) root.getVector("key")).setSafe(i, keys[i]);
+            } else {
+                ((IntVector) root.getVector("key")).setSafe(i, (int) keys[i]);
+            }
+        }
+        root.setRowCount(keys.length);
+        return root;
+    }
+}
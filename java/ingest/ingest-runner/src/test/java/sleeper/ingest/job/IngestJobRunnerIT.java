@@ -15,6 +15,15 @@
  */
 package sleeper.ingest.job;
 
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.ArrowWriter;
+import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.parquet.hadoop.ParquetWriter;
@@ -35,8 +44,10 @@ import sleeper.configuration.properties.table.TableProperties;
 import sleeper.configuration.properties.table.TablePropertiesProvider;
 import sleeper.core.record.Record;
 import sleeper.core.record.RecordComparator;
+import sleeper.core.schema.Field;
 import sleeper.core.schema.Schema;
 import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
 import sleeper.ingest.testutils.AwsExternalResource;
 import sleeper.ingest.testutils.RecordGenerator;
 import sleeper.ingest.testutils.ResultVerifier;
@@ -46,11 +57,17 @@ import sleeper.statestore.StateStore;
 import sleeper.statestore.StateStoreProvider;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
@@ -77,6 +94,10 @@ class IngestJobRunnerIT {
     private static final String TEST_TABLE_NAME = "mytable";
     private static final String INGEST_DATA_BUCKET_NAME = TEST_INSTANCE_NAME + "-" + TEST_TABLE_NAME + "-ingestdata";
     private static final String TABLE_DATA_BUCKET_NAME = TEST_INSTANCE_NAME + "-" + TEST_TABLE_NAME + "-tabledata";
+    private static final Schema KEY_VALUE_SCHEMA = Schema.builder()
+            .rowKeyFields(new Field("key", new LongType()))
+            .valueFields(new Field("value", new StringType()))
+            .build();
     @TempDir
     public java.nio.file.Path temporaryFolder;
     private String currentLocalIngestDirectory;
@@ -261,6 +282,85 @@ class IngestJobRunnerIT {
                 recordListAndSchema.sleeperSchema, ingestJob, recordListAndSchema.recordList);
     }
 
+    @ParameterizedTest(name = "backedBy: {0}, writeMode: {1}, fileSystem: {2}")
+    @MethodSource("parametersForTests")
+    void shouldIngestCsvFileWithFormatSetOnJob(String recordBatchType,
+                                               String partitionFileWriterType,
+                                               String fileSystemPrefix) throws Exception {
+        // Given
+        String directory = getIngestBucket(fileSystemPrefix) + "/csv";
+        try (Writer writer = new OutputStreamWriter(createFile(fileSystemPrefix + directory + "/file.txt"), StandardCharsets.UTF_8)) {
+            writer.write("value,key\n");
+            for (long key = -100; key < 100; key++) {
+                writer.write("value-" + key + "," + key + "\n");
+            }
+        }
+        createFile(fileSystemPrefix + directory + "/_SUCCESS").close();
+        try (Writer writer = new OutputStreamWriter(createFile(fileSystemPrefix + directory + "/.hidden"), StandardCharsets.UTF_8)) {
+            writer.write("not,a,record\n");
+        }
+        IngestJob ingestJob = IngestJob.builder()
+                .tableName(TEST_TABLE_NAME).id("id").files(directory)
+                .inputFormat(IngestJobInputFormat.CSV)
+                .build();
+
+        // When / Then
+        consumeAndVerify(fileSystemPrefix, recordBatchType, partitionFileWriterType,
+                KEY_VALUE_SCHEMA, ingestJob, keyValueRecords(-100, 100));
+    }
+
+    @ParameterizedTest(name = "backedBy: {0}, writeMode: {1}, fileSystem: {2}")
+    @MethodSource("parametersForTests")
+    void shouldIngestArrowFiles(String recordBatchType,
+                                String partitionFileWriterType,
+                                String fileSystemPrefix) throws Exception {
+        // Given
+        List<String> files = List.of(
+                getIngestBucket(fileSystemPrefix) + "/file-1.arrow",
+                getIngestBucket(fileSystemPrefix) + "/file-2.arrows");
+        writeArrowFileForIngest(fileSystemPrefix + files.get(0), IngestJobInputFormat.ARROW, 0, 100);
+        writeArrowFileForIngest(fileSystemPrefix + files.get(1), IngestJobInputFormat.ARROW_STREAM, -100, 0);
+        IngestJob ingestJob = createJobWithTableAndFiles("id", TEST_TABLE_NAME, files);
+
+        // When / Then
+        consumeAndVerify(fileSystemPrefix, recordBatchType, partitionFileWriterType,
+                KEY_VALUE_SCHEMA, ingestJob, keyValueRecords(-100, 100));
+    }
+
+    private OutputStream createFile(String file) throws Exception {
+        URI uri = new URI(file);
+        return FileSystem.get(uri, AWS_EXTERNAL_RESOURCE.getHadoopConfiguration()).create(new Path(uri));
+    }
+
+    private void writeArrowFileForIngest(String file, IngestJobInputFormat format, long minKey, long maxKey) throws Exception {
+        org.apache.arrow.vector.types.pojo.Schema arrowSchema = new org.apache.arrow.vector.types.pojo.Schema(List.of(
+                org.apache.arrow.vector.types.pojo.Field.notNullable("key", new ArrowType.Int(64, true)),
+                org.apache.arrow.vector.types.pojo.Field.notNullable("value", new ArrowType.Utf8())));
+        try (BufferAllocator allocator = new RootAllocator();
+             VectorSchemaRoot root = VectorSchemaRoot.create(arrowSchema, allocator);
+             ArrowWriter writer = format == IngestJobInputFormat.ARROW
+                     ? new ArrowFileWriter(root, null, Channels.newChannel(createFile(file)))
+                     : new ArrowStreamWriter(root, null, createFile(file))) {
+            root.allocateNew();
+            int row = 0;
+            for (long key = minKey; key < maxKey; key++) {
+                ((BigIntVector) root.getVector("key")).setSafe(row, key);
+                ((VarCharVector) root.getVector("value")).setSafe(row, ("value-" + key).getBytes(StandardCharsets.UTF_8));
+                row++;
+            }
+            root.setRowCount(row);
+            writer.start();
+            writer.writeBatch();
+            writer.end();
+        }
+    }
+
+    private static List<Record> keyValueRecords(long minKey, long maxKey) {
+        return LongStream.range(minKey, maxKey)
+                .mapToObj(key -> new Record(Map.of("key", key, "value", "value-" + key)))
+                .collect(Collectors.toList());
+    }
+
     @ParameterizedTest(name = "backedBy: {0}, writeMode: {1}, fileSystem:{2}")
     @MethodSource("parametersForTests")
     void shouldIngestParquetFilesInNestedDirectories(String recordBatchType,
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.job.format;
+
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.ListType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.MapType;
+import sleeper.core.schema.type.StringType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AvroRecordReaderTest {
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(new Field("key", new StringType()))
+            .valueFields(
+                    new Field("count", new LongType()),
+                    new Field("bytes", new ByteArrayType()),
+                    new Field("list", new ListType(new IntType())),
+                    new Field("map", new MapType(new StringType(), new StringType())))
+            .build();
+    private final org.apache.avro.Schema avroSchema = SchemaBuilder.record("test").fields()
+            .requiredString("other")
+            .requiredString("key")
+            .requiredInt("count")
+            .requiredBytes("bytes")
+            .name("list").type().array().items().intType().noDefault()
+            .name("map").type().map().values().stringType().noDefault()
+            .endRecord();
+
+    @Test
+    void shouldReadRecordsConvertingAvroTypes() throws Exception {
+        // Given
+        byte[] avro = writeAvro(
+                avroRecord("a", 1, new byte[]{1, 2}, List.of(3, 4), Map.of("x", "y")),
+                avroRecord("b", 2, new byte[]{5}, List.of(), Map.of()));
+
+        // When
+        List<Record> records = readAll(avro, schema);
+
+        // Then
+        assertThat(records).containsExactly(
+                new Record(Map.of("key", "a", "count", 1L, "bytes", new byte[]{1, 2},
+                        "list", List.of(3, 4), "map", Map.of("x", "y"))),
+                new Record(Map.of("key", "b", "count", 2L, "bytes", new byte[]{5},
+                        "list", List.of(), "map", Map.of())));
+    }
+
+    @Test
+    void shouldFailWhenAvroSchemaHasNoFieldForSleeperField() throws Exception {
+        // Given
+        byte[] avro = writeAvro();
+        Schema otherSchema = Schema.builder()
+                .rowKeyFields(new Field("missing", new StringType()))
+                .build();
+
+        // When / Then
+        assertThatThrownBy(() -> readAll(avro, otherSchema))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Avro schema has no field missing");
+    }
+
+    private GenericRecord avroRecord(String key, int count, byte[] bytes, List<Integer> list, Map<String, String> map) {
+        GenericRecord record = new GenericData.Record(avroSchema);
+        record.put("other", "ignored");
+        record.put("key", key);
+        record.put("count", count);
+        record.put("bytes", ByteBuffer.wrap(bytes));
+        record.put("list", list);
+        record.put("map", map);
+        return record;
+    }
+
+    private byte[] writeAvro(GenericRecord... records) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<>(avroSchema))) {
+            writer.create(avroSchema, outputStream);
+            for (GenericRecord record : records) {
+                writer.append(record);
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static List<Record> readAll(byte[] avro, Schema schema) throws Exception {
+        List<Record> records = new ArrayList<>();
+        try (CloseableIterator<Record> reader = new AvroRecordReader(new ByteArrayInputStream(avro), schema)) {
+            reader.forEachRemaining(records::add);
+        }
+        return records;
+    }
+}
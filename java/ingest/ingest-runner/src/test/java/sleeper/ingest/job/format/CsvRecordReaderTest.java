@@ -0,0 +1,135 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.job.format;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.ListType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvRecordReaderTest {
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(new Field("key", new LongType()))
+            .sortKeyFields(new Field("sort", new IntType()))
+            .valueFields(new Field("value", new StringType()), new Field("bytes", new ByteArrayType()))
+            .build();
+
+    @Test
+    void shouldReadRecordsMatchingHeaderToFields() throws Exception {
+        // Given
+        String csv = "value,ignored,bytes,sort,key\n" +
+                "a,x,AQI=,1,10\r\n" +
+                "b,y,,2,-20\n";
+
+        // When
+        List<Record> records = readAll(csv);
+
+        // Then
+        assertThat(records).containsExactly(
+                record(10L, 1, "a", new byte[]{1, 2}),
+                record(-20L, 2, "b", new byte[0]));
+    }
+
+    @Test
+    void shouldReadQuotedColumns() throws Exception {
+        // Given
+        String csv = "key,sort,value,bytes\n" +
+                "1,2,\"a, \"\"quoted\"\"\nvalue\",\"\"\n";
+
+        // When
+        List<Record> records = readAll(csv);
+
+        // Then
+        assertThat(records).containsExactly(
+                record(1L, 2, "a, \"quoted\"\nvalue", new byte[0]));
+    }
+
+    @Test
+    void shouldSkipEmptyLines() throws Exception {
+        // Given
+        String csv = "\nkey,sort,value,bytes\n\n1,2,a,\n\n";
+
+        // When
+        List<Record> records = readAll(csv);
+
+        // Then
+        assertThat(records).containsExactly(record(1L, 2, "a", new byte[0]));
+    }
+
+    @Test
+    void shouldReadNoRecordsFromEmptyFile() throws Exception {
+        assertThat(readAll("")).isEmpty();
+        assertThat(readAll("key,sort,value,bytes\n")).isEmpty();
+    }
+
+    @Test
+    void shouldFailWhenHeaderHasNoColumnForField() {
+        assertThatThrownBy(() -> readAll("key,sort,value\n1,2,a\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("CSV header has no column for field bytes");
+    }
+
+    @Test
+    void shouldFailWhenRowHasWrongNumberOfColumns() {
+        assertThatThrownBy(() -> readAll("key,sort,value,bytes\n1,2,a,,\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Expected 4 columns in CSV row 2, found 5");
+    }
+
+    @Test
+    void shouldFailWhenValueDoesNotMatchType() {
+        assertThatThrownBy(() -> readAll("key,sort,value,bytes\nabc,2,a,\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Invalid value for type LongType");
+    }
+
+    @Test
+    void shouldRefuseSchemaWithListField() {
+        Schema listSchema = Schema.builder()
+                .rowKeyFields(new Field("key", new LongType()))
+                .valueFields(new Field("list", new ListType(new StringType())))
+                .build();
+        assertThatThrownBy(() -> new CsvRecordReader(new StringReader("key,list\n"), listSchema))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    private List<Record> readAll(String csv) throws Exception {
+        List<Record> records = new ArrayList<>();
+        try (CloseableIterator<Record> reader = new CsvRecordReader(new StringReader(csv), schema)) {
+            reader.forEachRemaining(records::add);
+        }
+        return records;
+    }
+
+    private static Record record(long key, int sort, String value, byte[] bytes) {
+        return new Record(Map.of("key", key, "sort", sort, "value", value, "bytes", bytes));
+    }
+}
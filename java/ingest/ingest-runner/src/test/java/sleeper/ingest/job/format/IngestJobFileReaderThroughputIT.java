@@ -0,0 +1,265 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.job.format;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.ArrowWriter;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+import sleeper.ingest.impl.recordbatch.RecordBatch;
+import sleeper.ingest.impl.recordbatch.arrow.ArrowRecordBatchFactory;
+import sleeper.ingest.impl.recordbatch.arrow.ArrowRecordWriterAcceptingVectorSchemaRoot;
+import sleeper.ingest.job.IngestJobInputFormat;
+import sleeper.io.parquet.record.ParquetRecordWriterFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that every input format reads the same records, and logs the rate at which records are read from each format.
+ * Arrow files are also read the way an Arrow-backed ingest reads them, copying the Arrow batches straight into the
+ * ingest buffer. The number of records is kept small enough to run as part of the build, and may be raised locally for
+ * a more representative measurement.
+ */
+class IngestJobFileReaderThroughputIT {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IngestJobFileReaderThroughputIT.class);
+    private static final int NUMBER_OF_RECORDS = 200_000;
+    private static final int ARROW_BATCH_SIZE = 1024;
+
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(new Field("key", new LongType()))
+            .sortKeyFields(new Field("sort", new IntType()))
+            .valueFields(new Field("value", new StringType()))
+            .build();
+    private final Configuration conf = new Configuration();
+    @TempDir
+    public java.nio.file.Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(IngestJobInputFormat.class)
+    void shouldReadAllRecordsFromEachFormat(IngestJobInputFormat format) throws Exception {
+        // Given
+        Path path = new Path(tempDir.resolve("file" + format.getFileExtensions().get(0)).toString());
+        writeFile(format, path);
+        IngestJobFileReader fileReader = new IngestJobFileReader(schema, conf);
+
+        // When
+        long startTime = System.nanoTime();
+        long recordsRead = 0;
+        Record lastRecord = null;
+        try (CloseableIterator<Record> iterator = fileReader.openRecords(path, format)) {
+            while (iterator.hasNext()) {
+                lastRecord = iterator.next();
+                recordsRead++;
+            }
+        }
+        logRate("records", recordsRead, format, startTime);
+
+        // Then
+        assertThat(recordsRead).isEqualTo(NUMBER_OF_RECORDS);
+        assertThat(lastRecord).isEqualTo(expectedRecord(NUMBER_OF_RECORDS - 1));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = IngestJobInputFormat.class, names = {"ARROW", "ARROW_STREAM"})
+    void shouldCopyAllArrowBatchesIntoIngestBuffer(IngestJobInputFormat format) throws Exception {
+        // Given
+        Path path = new Path(tempDir.resolve("file" + format.getFileExtensions().get(0)).toString());
+        writeFile(format, path);
+        IngestJobFileReader fileReader = new IngestJobFileReader(schema, conf);
+
+        try (BufferAllocator allocator = new RootAllocator();
+             RecordBatch<VectorSchemaRoot> recordBatch = createArrowRecordBatch(allocator)) {
+
+            // When
+            long startTime = System.nanoTime();
+            long rowsRead = 0;
+            try (ArrowReader reader = fileReader.openArrowReader(path, format, allocator)) {
+                while (reader.loadNextBatch()) {
+                    VectorSchemaRoot batch = reader.getVectorSchemaRoot();
+                    recordBatch.append(batch);
+                    rowsRead += batch.getRowCount();
+                }
+            }
+            logRate("rows into Arrow ingest buffer", rowsRead, format, startTime);
+
+            // Then
+            assertThat(rowsRead).isEqualTo(NUMBER_OF_RECORDS);
+            long recordsInBatch = 0;
+            Record lastRecord = null;
+            try (CloseableIterator<Record> iterator = recordBatch.createOrderedRecordIterator()) {
+                while (iterator.hasNext()) {
+                    lastRecord = iterator.next();
+                    recordsInBatch++;
+                }
+            }
+            assertThat(recordsInBatch).isEqualTo(NUMBER_OF_RECORDS);
+            assertThat(lastRecord).isEqualTo(expectedRecord(NUMBER_OF_RECORDS - 1));
+        }
+    }
+
+    private RecordBatch<VectorSchemaRoot> createArrowRecordBatch(BufferAllocator allocator) {
+        return ArrowRecordBatchFactory.builder()
+                .schema(schema)
+                .bufferAllocator(allocator)
+                .localWorkingDirectory(tempDir.toString())
+                .workingBufferAllocatorBytes(16 * 1024 * 1024L)
+                .batchBufferAllocatorBytes(64 * 1024 * 1024L)
+                .maxNoOfBytesToWriteLocally(1024 * 1024 * 1024L)
+                .maxNoOfRecordsToWriteToArrowFileAtOnce(ARROW_BATCH_SIZE)
+                .recordWriter(new ArrowRecordWriterAcceptingVectorSchemaRoot())
+                .build()
+                .createRecordBatch();
+    }
+
+    private static void logRate(String description, long count, IngestJobInputFormat format, long startTime) {
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        LOGGER.info("Read {} {} from {} in {}s ({} per second)",
+                count, description, format, String.format("%.2f", seconds), Math.round(count / seconds));
+    }
+
+    private static Record expectedRecord(int i) {
+        return new Record(Map.of("key", (long) i * 31, "sort", i % 100, "value", "value-" + i));
+    }
+
+    private void writeFile(IngestJobInputFormat format, Path path) throws IOException {
+        switch (format) {
+            case PARQUET:
+                writeParquet(path);
+                break;
+            case CSV:
+                writeLines(path, "key,sort,value", i -> String.format("%d,%d,value-%d", (long) i * 31, i % 100, i));
+                break;
+            case JSON_LINES:
+                writeLines(path, "", i -> String.format("{\"key\":%d,\"sort\":%d,\"value\":\"value-%d\"}", (long) i * 31, i % 100, i));
+                break;
+            case AVRO:
+                writeAvro(path);
+                break;
+            case ARROW:
+            case ARROW_STREAM:
+                writeArrow(path, format);
+                break;
+            default:
+                throw new IllegalArgumentException("Unrecognised format: " + format);
+        }
+    }
+
+    private void writeParquet(Path path) throws IOException {
+        try (ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(path, schema, conf)) {
+            for (int i = 0; i < NUMBER_OF_RECORDS; i++) {
+                writer.write(expectedRecord(i));
+            }
+        }
+    }
+
+    private void writeLines(Path path, String header, LineGenerator generator) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(java.nio.file.Path.of(path.toString()), StandardCharsets.UTF_8)) {
+            writer.write(header);
+            writer.newLine();
+            for (int i = 0; i < NUMBER_OF_RECORDS; i++) {
+                writer.write(generator.line(i));
+                writer.newLine();
+            }
+        }
+    }
+
+    private void writeAvro(Path path) throws IOException {
+        org.apache.avro.Schema avroSchema = SchemaBuilder.record("record").fields()
+                .requiredLong("key").requiredInt("sort").requiredString("value")
+                .endRecord();
+        try (OutputStream outputStream = Files.newOutputStream(java.nio.file.Path.of(path.toString()));
+             DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<>(avroSchema))) {
+            writer.create(avroSchema, outputStream);
+            GenericRecord record = new GenericData.Record(avroSchema);
+            for (int i = 0; i < NUMBER_OF_RECORDS; i++) {
+                record.put("key", (long) i * 31);
+                record.put("sort", i % 100);
+                record.put("value", "value-" + i);
+                writer.append(record);
+            }
+        }
+    }
+
+    private void writeArrow(Path path, IngestJobInputFormat format) throws IOException {
+        org.apache.arrow.vector.types.pojo.Schema arrowSchema = new org.apache.arrow.vector.types.pojo.Schema(List.of(
+                org.apache.arrow.vector.types.pojo.Field.notNullable("key", new ArrowType.Int(64, true)),
+                org.apache.arrow.vector.types.pojo.Field.notNullable("sort", new ArrowType.Int(32, true)),
+                org.apache.arrow.vector.types.pojo.Field.notNullable("value", new ArrowType.Utf8())));
+        try (BufferAllocator allocator = new RootAllocator();
+             VectorSchemaRoot root = VectorSchemaRoot.create(arrowSchema, allocator);
+             OutputStream outputStream = Files.newOutputStream(java.nio.file.Path.of(path.toString()));
+             ArrowWriter writer = format == IngestJobInputFormat.ARROW
+                     ? new ArrowFileWriter(root, null, Channels.newChannel(outputStream))
+                     : new ArrowStreamWriter(root, null, outputStream)) {
+            writer.start();
+            for (int batchStart = 0; batchStart < NUMBER_OF_RECORDS; batchStart += ARROW_BATCH_SIZE) {
+                root.allocateNew();
+                int batchSize = Math.min(ARROW_BATCH_SIZE, NUMBER_OF_RECORDS - batchStart);
+                for (int row = 0; row < batchSize; row++) {
+                    int i = batchStart + row;
+                    ((BigIntVector) root.getVector("key")).setSafe(row, (long) i * 31);
+                    ((IntVector) root.getVector("sort")).setSafe(row, i % 100);
+                    ((VarCharVector) root.getVector("value")).setSafe(row, ("value-" + i).getBytes(StandardCharsets.UTF_8));
+                }
+                root.setRowCount(batchSize);
+                writer.writeBatch();
+            }
+            writer.end();
+        }
+    }
+
+    @FunctionalInterface
+    private interface LineGenerator {
+        String line(int i);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.ingest.job.format;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.ListType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.MapType;
+import sleeper.core.schema.type.StringType;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonLinesRecordReaderTest {
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(new Field("key", new LongType()))
+            .valueFields(
+                    new Field("count", new IntType()),
+                    new Field("bytes", new ByteArrayType()),
+                    new Field("list", new ListType(new StringType())),
+                    new Field("map", new MapType(new IntType(), new LongType())))
+            .build();
+
+    @Test
+    void shouldReadRecordsFromEachLine() throws Exception {
+        // Given
+        String json = "{\"key\": 1, \"count\": 2, \"bytes\": \"AQI=\", \"list\": [\"a\", \"b\"], \"map\": {\"3\": 4}}\n" +
+                "{\"map\": {}, \"list\": [], \"bytes\": \"\", \"count\": -1, \"key\": 10, \"ignored\": {\"a\": [1]}}\n";
+
+        // When
+        List<Record> records = readAll(json);
+
+        // Then
+        assertThat(records).containsExactly(
+                new Record(Map.of("key", 1L, "count", 2, "bytes", new byte[]{1, 2},
+                        "list", List.of("a", "b"), "map", Map.of(3, 4L))),
+                new Record(Map.of("key", 10L, "count", -1, "bytes", new byte[0],
+                        "list", List.of(), "map", Map.of())));
+    }
+
+    @Test
+    void shouldReadNoRecordsFromEmptyFile() throws Exception {
+        assertThat(readAll("")).isEmpty();
+        assertThat(readAll("\n\n")).isEmpty();
+    }
+
+    @Test
+    void shouldFailWhenFieldIsMissing() {
+        assertThatThrownBy(() -> readAll("{\"key\": 1, \"count\": 2, \"bytes\": \"\", \"list\": [], \"map\": null}\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Missing field map in JSON record 1");
+    }
+
+    private List<Record> readAll(String json) throws Exception {
+        List<Record> records = new ArrayList<>();
+        try (CloseableIterator<Record> reader = new JsonLinesRecordReader(new StringReader(json), schema)) {
+            reader.forEachRemaining(records::add);
+        }
+        return records;
+    }
+}
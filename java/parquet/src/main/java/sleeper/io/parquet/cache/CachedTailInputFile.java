@@ -0,0 +1,188 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.io.parquet.cache;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.functional.FutureIO;
+import org.apache.parquet.hadoop.util.HadoopStreams;
+import org.apache.parquet.io.DelegatingSeekableInputStream;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A Parquet input file which reads the end of the file from a {@link ParquetFooterCache}. The rest of the file is only
+ * opened if it is needed, and is read through a {@link LocalBlockCache} if that is enabled.
+ */
+class CachedTailInputFile implements InputFile {
+    private final ParquetFooterCache cache;
+    private final LocalBlockCache blockCache;
+    private final Path path;
+    private final Configuration conf;
+
+    CachedTailInputFile(ParquetFooterCache cache, LocalBlockCache blockCache, Path path, Configuration conf) {
+        this.cache = cache;
+        this.blockCache = blockCache;
+        this.path = path;
+        this.conf = conf;
+    }
+
+    @Override
+    public long getLength() throws IOException {
+        return cache.getOrLoad(path, conf).getLength();
+    }
+
+    @Override
+    public SeekableInputStream newStream() throws IOException {
+        return new CachedTailInputStream(new PositionedInputStream(cache.getOrLoad(path, conf)));
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+
+    private SeekableInputStream openFile(FileStatus status) throws IOException {
+        // Passing the status avoids checking the file exists again when it is opened
+        return HadoopStreams.wrap(FutureIO.awaitFuture(status.getPath().getFileSystem(conf)
+                .openFile(status.getPath())
+                .withFileStatus(status)
+                .build()));
+    }
+
+    /**
+     * Tracks the position in the file, and serves reads from the cached bytes at the end of the file where possible.
+     */
+    private class PositionedInputStream extends InputStream implements LocalBlockCache.BlockSource {
+        private final ParquetFooterCache.FileTail tail;
+        private SeekableInputStream file;
+        private long position = 0;
+
+        PositionedInputStream(ParquetFooterCache.FileTail tail) {
+            this.tail = tail;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            int read = read(buffer, 0, 1);
+            return read < 0 ? -1 : buffer[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= tail.getLength()) {
+                return -1;
+            }
+            int read;
+            if (position >= tail.getStart()) {
+                read = tail.read(position, buffer, offset, length);
+            } else {
+                read = readFile(buffer, offset, (int) Math.min(length, tail.getStart() - position));
+            }
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, tail.getLength() - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (null != file) {
+                file.close();
+            }
+        }
+
+        @Override
+        public String getPath() {
+            return tail.getStatus().getPath().toString();
+        }
+
+        @Override
+        public long getLength() {
+            return tail.getLength();
+        }
+
+        @Override
+        public void readFully(long filePosition, byte[] buffer) throws IOException {
+            SeekableInputStream stream = file();
+            stream.seek(filePosition);
+            stream.readFully(buffer);
+        }
+
+        private int readFile(byte[] buffer, int offset, int length) throws IOException {
+            try {
+                if (blockCache.isEnabled()) {
+                    return blockCache.read(this, position, buffer, offset, length);
+                }
+                SeekableInputStream stream = file();
+                if (stream.getPos() != position) {
+                    stream.seek(position);
+                }
+                return stream.read(buffer, offset, length);
+            } catch (FileNotFoundException e) {
+                // The file has been deleted, e.g. by the garbage collector, so the cached data is no longer needed
+                cache.invalidate(path);
+                blockCache.invalidate(getPath());
+                throw e;
+            }
+        }
+
+        private SeekableInputStream file() throws IOException {
+            if (null == file) {
+                file = openFile(tail.getStatus());
+            }
+            return file;
+        }
+    }
+
+    /**
+     * Adapts the positioned stream to the interface Parquet uses to read files.
+     */
+    private static class CachedTailInputStream extends DelegatingSeekableInputStream {
+        private final PositionedInputStream stream;
+
+        CachedTailInputStream(PositionedInputStream stream) {
+            super(stream);
+            this.stream = stream;
+        }
+
+        @Override
+        public long getPos() {
+            return stream.position;
+        }
+
+        @Override
+        public void seek(long newPos) {
+            stream.position = newPos;
+        }
+    }
+}
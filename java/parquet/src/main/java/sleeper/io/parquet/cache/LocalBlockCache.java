@@ -0,0 +1,360 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.io.parquet.cache;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.TableProperties;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_LOCAL_BLOCK_CACHE_BLOCK_SIZE;
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_LOCAL_BLOCK_CACHE_DIRECTORY;
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_LOCAL_BLOCK_CACHE_SIZE;
+import static sleeper.configuration.properties.table.TableProperty.QUERY_LOCAL_BLOCK_CACHE_ENABLED;
+
+/**
+ * Holds fixed-size blocks of data files on local disk, so that data which is read repeatedly does not need to be
+ * fetched from S3 each time. Data files are never changed once they are written, so a block stays valid for as long as
+ * the file exists. Blocks are evicted in least recently used order when the total size of the blocks on disk exceeds
+ * the maximum, or when the file they came from is found to have been deleted.
+ * <p>
+ * The index of which blocks are held is kept in memory, so any blocks left on disk are deleted when the cache is
+ * created. Blocks are held in a subdirectory of the configured directory which is owned by the cache, and only files
+ * named like blocks are deleted from it.
+ */
+public class LocalBlockCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalBlockCache.class);
+    private static final String SUBDIRECTORY = "sleeper-block-cache";
+    private static final Pattern BLOCK_FILE_NAME = Pattern.compile("block-\\d+");
+    private static LocalBlockCache processCache = disabled();
+
+    private final Path directory;
+    private final long maxBytes;
+    private final int blockSize;
+    private final LinkedHashMap<BlockKey, Path> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<BlockKey, Long> blockSizes = new LinkedHashMap<>();
+    private long totalBytes = 0;
+    private long nextBlockNumber = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long bytesReadLocally = 0;
+    private long bytesReadRemotely = 0;
+
+    public LocalBlockCache(Path directory, long maxBytes, int blockSize) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.blockSize = blockSize;
+    }
+
+    public static LocalBlockCache from(InstanceProperties instanceProperties) {
+        long blockSize = instanceProperties.getBytes(QUERY_LOCAL_BLOCK_CACHE_BLOCK_SIZE);
+        if (blockSize < 1 || blockSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Block cache block size must be between 1 byte and " +
+                    Integer.MAX_VALUE + " bytes, found " + blockSize + " bytes in property " +
+                    QUERY_LOCAL_BLOCK_CACHE_BLOCK_SIZE.getPropertyName());
+        }
+        return new LocalBlockCache(
+                Path.of(instanceProperties.get(QUERY_LOCAL_BLOCK_CACHE_DIRECTORY)).resolve(SUBDIRECTORY),
+                instanceProperties.getBytes(QUERY_LOCAL_BLOCK_CACHE_SIZE),
+                (int) blockSize);
+    }
+
+    public static LocalBlockCache disabled() {
+        return new LocalBlockCache(null, 0, 1);
+    }
+
+    /**
+     * Sets the cache to be shared by everything reading data files in this process. This should be called once when
+     * a long-lived process starts, e.g. in the constructor of a lambda handler. Until this is called, the process-wide
+     * cache is disabled. The cache is only used for tables which enable it.
+     *
+     * @param instanceProperties the instance properties to configure the cache
+     */
+    public static synchronized void configureForProcess(InstanceProperties instanceProperties) {
+        LocalBlockCache cache = from(instanceProperties);
+        if (!cache.hasSameSettings(processCache)) {
+            cache.clearDirectory();
+            processCache = cache;
+        }
+    }
+
+    @SuppressFBWarnings("MS_EXPOSE_REP") // The cache is deliberately shared across the process
+    public static synchronized LocalBlockCache forProcess() {
+        return processCache;
+    }
+
+    /**
+     * Retrieves the cache to use to read data files for a table. This is the process-wide cache if the table enables
+     * it, or a disabled cache otherwise.
+     *
+     * @param tableProperties the table properties
+     * @return the cache
+     */
+    public static LocalBlockCache forTable(TableProperties tableProperties) {
+        if (tableProperties.getBoolean(QUERY_LOCAL_BLOCK_CACHE_ENABLED)) {
+            return forProcess();
+        } else {
+            return disabled();
+        }
+    }
+
+    public boolean isEnabled() {
+        return maxBytes >= blockSize && null != directory;
+    }
+
+    /**
+     * Reads from a data file through the cache. This reads at most up to the end of the block containing the given
+     * position. If the block is not held in the cache, it is read in full from the file and stored.
+     *
+     * @param file the file to read from
+     * @param position the position in the file to read from
+     * @param buffer the buffer to read into
+     * @param offset the offset in the buffer to read into
+     * @param length the maximum number of bytes to read
+     * @return the number of bytes read
+     * @throws IOException if the block could not be read from the file
+     */
+    public int read(BlockSource file, long position, byte[] buffer, int offset, int length) throws IOException {
+        long blockIndex = position / blockSize;
+        long blockStart = blockIndex * blockSize;
+        int blockLength = (int) Math.min(blockSize, file.getLength() - blockStart);
+        int positionInBlock = (int) (position - blockStart);
+        int bytesToRead = Math.min(length, blockLength - positionInBlock);
+        BlockKey key = new BlockKey(file.getPath(), file.getLength(), blockIndex);
+        Path blockFile = getBlockFile(key);
+        if (null != blockFile && readBlockFile(blockFile, positionInBlock, buffer, offset, bytesToRead)) {
+            recordHit(bytesToRead);
+            return bytesToRead;
+        }
+        byte[] block = new byte[blockLength];
+        file.readFully(blockStart, block);
+        System.arraycopy(block, positionInBlock, buffer, offset, bytesToRead);
+        recordMiss(blockLength);
+        putBlock(key, block);
+        return bytesToRead;
+    }
+
+    /**
+     * Removes all blocks of a file from the cache. This should be called when a file is deleted.
+     *
+     * @param path the path to the file
+     */
+    public void invalidate(String path) {
+        List<Path> removed = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<BlockKey, Path>> iterator = blocks.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<BlockKey, Path> entry = iterator.next();
+                if (entry.getKey().path.equals(path)) {
+                    removed.add(entry.getValue());
+                    totalBytes -= blockSizes.remove(entry.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+        removed.forEach(LocalBlockCache::deleteBlockFile);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized double getHitRatio() {
+        long reads = hits + misses;
+        return reads == 0 ? 0 : (double) hits / reads;
+    }
+
+    public synchronized long getBytesReadLocally() {
+        return bytesReadLocally;
+    }
+
+    public synchronized long getBytesReadRemotely() {
+        return bytesReadRemotely;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "LocalBlockCache{" +
+                "hitRatio=" + getHitRatio() +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", bytesReadLocally=" + bytesReadLocally +
+                ", bytesReadRemotely=" + bytesReadRemotely +
+                ", totalBytes=" + totalBytes +
+                '}';
+    }
+
+    private synchronized Path getBlockFile(BlockKey key) {
+        return blocks.get(key);
+    }
+
+    private synchronized void recordHit(int bytesRead) {
+        hits++;
+        bytesReadLocally += bytesRead;
+    }
+
+    private synchronized void recordMiss(int bytesRead) {
+        misses++;
+        bytesReadRemotely += bytesRead;
+    }
+
+    private void putBlock(BlockKey key, byte[] block) throws IOException {
+        Path blockFile = directory.resolve(nextBlockFileName());
+        Files.createDirectories(directory);
+        Files.write(blockFile, block);
+        List<Path> evicted = new ArrayList<>();
+        synchronized (this) {
+            Path previous = blocks.put(key, blockFile);
+            if (null != previous) {
+                evicted.add(previous);
+                totalBytes -= blockSizes.get(key);
+            }
+            blockSizes.put(key, (long) block.length);
+            totalBytes += block.length;
+            Iterator<Map.Entry<BlockKey, Path>> iterator = blocks.entrySet().iterator();
+            while (totalBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<BlockKey, Path> entry = iterator.next();
+                evicted.add(entry.getValue());
+                totalBytes -= blockSizes.remove(entry.getKey());
+                iterator.remove();
+            }
+        }
+        evicted.forEach(LocalBlockCache::deleteBlockFile);
+    }
+
+    private synchronized String nextBlockFileName() {
+        return "block-" + nextBlockNumber++;
+    }
+
+    private static boolean readBlockFile(Path blockFile, int positionInBlock, byte[] buffer, int offset, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(blockFile, StandardOpenOption.READ)) {
+            ByteBuffer target = ByteBuffer.wrap(buffer, offset, length);
+            long position = positionInBlock;
+            while (target.hasRemaining()) {
+                int read = channel.read(target, position);
+                if (read < 0) {
+                    return false;
+                }
+                position += read;
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            // The block was evicted after we looked it up
+            return false;
+        }
+    }
+
+    private static void deleteBlockFile(Path blockFile) {
+        try {
+            Files.deleteIfExists(blockFile);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete cached block {}", blockFile, e);
+        }
+    }
+
+    private boolean hasSameSettings(LocalBlockCache other) {
+        return Objects.equals(directory, other.directory)
+                && maxBytes == other.maxBytes
+                && blockSize == other.blockSize;
+    }
+
+    private void clearDirectory() {
+        if (!isEnabled() || !Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file) && BLOCK_FILE_NAME.matcher(String.valueOf(file.getFileName())).matches()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to clear block cache directory " + directory, e);
+        }
+    }
+
+    /**
+     * A data file which blocks can be read from.
+     */
+    public interface BlockSource {
+        String getPath();
+
+        long getLength();
+
+        void readFully(long position, byte[] buffer) throws IOException;
+    }
+
+    /**
+     * Identifies a block of a data file.
+     */
+    private static final class BlockKey {
+        private final String path;
+        private final long fileLength;
+        private final long blockIndex;
+
+        private BlockKey(String path, long fileLength, long blockIndex) {
+            this.path = path;
+            this.fileLength = fileLength;
+            this.blockIndex = blockIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BlockKey blockKey = (BlockKey) o;
+            return fileLength == blockKey.fileLength
+                    && blockIndex == blockKey.blockIndex
+                    && path.equals(blockKey.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, fileLength, blockIndex);
+        }
+    }
+}
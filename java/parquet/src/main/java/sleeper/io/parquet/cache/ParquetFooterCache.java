@@ -0,0 +1,266 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.io.parquet.cache;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.HadoopReadOptions;
+import org.apache.parquet.bytes.BytesUtils;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.internal.hadoop.metadata.IndexReference;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.configuration.properties.instance.InstanceProperties;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_PARQUET_FOOTER_CACHE_MAX_ENTRY_SIZE;
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_PARQUET_FOOTER_CACHE_SIZE;
+
+/**
+ * Holds the metadata at the end of Parquet files in memory, so that it does not need to be read again each time a file
+ * is opened. Data files are never changed once they are written, so this metadata stays valid for as long as the file
+ * exists. This holds the status of the file and the bytes at the end of the file, which include the footer, and if
+ * they fit within the maximum size of an entry, the column indexes, offset indexes and bloom filters.
+ * <p>
+ * Files are opened through {@link #getInputFile}, which reads the cached bytes from memory and only reads the rest of
+ * the file from the file system. Entries are evicted in least recently used order when the cache is full, or when the
+ * file is found to have been deleted.
+ */
+public class ParquetFooterCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParquetFooterCache.class);
+    private static final int FOOTER_LENGTH_AND_MAGIC_BYTES = 8;
+    private static ParquetFooterCache processCache = disabled();
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<String, FileTail> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+
+    public ParquetFooterCache(long maxBytes, long maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxBytes, maxEntryBytes);
+    }
+
+    public static ParquetFooterCache from(InstanceProperties instanceProperties) {
+        return new ParquetFooterCache(
+                instanceProperties.getBytes(QUERY_PARQUET_FOOTER_CACHE_SIZE),
+                instanceProperties.getBytes(QUERY_PARQUET_FOOTER_CACHE_MAX_ENTRY_SIZE));
+    }
+
+    public static ParquetFooterCache disabled() {
+        return new ParquetFooterCache(0, 0);
+    }
+
+    /**
+     * Sets the cache to be shared by everything reading Parquet files in this process. This should be called once when
+     * a long-lived process starts, e.g. in the constructor of a lambda handler. Until this is called, the process-wide
+     * cache is disabled.
+     *
+     * @param instanceProperties the instance properties to configure the cache
+     */
+    public static synchronized void configureForProcess(InstanceProperties instanceProperties) {
+        ParquetFooterCache cache = from(instanceProperties);
+        if (cache.maxBytes != processCache.maxBytes || cache.maxEntryBytes != processCache.maxEntryBytes) {
+            processCache = cache;
+        }
+    }
+
+    @SuppressFBWarnings("MS_EXPOSE_REP") // The cache is deliberately shared across the process
+    public static synchronized ParquetFooterCache forProcess() {
+        return processCache;
+    }
+
+    public boolean isEnabled() {
+        return maxEntryBytes > 0;
+    }
+
+    /**
+     * Creates an input file to read a Parquet file through the cache. No data is read until the file is opened.
+     *
+     * @param path the path to the file
+     * @param conf the Hadoop configuration to read the file
+     * @return the input file
+     * @throws IOException if the file could not be found, when the cache is disabled
+     */
+    public InputFile getInputFile(Path path, Configuration conf) throws IOException {
+        return getInputFile(path, conf, LocalBlockCache.disabled());
+    }
+
+    /**
+     * Creates an input file to read a Parquet file through the cache, and read the data in the file through a cache
+     * of blocks on local disk. No data is read until the file is opened.
+     *
+     * @param path the path to the file
+     * @param conf the Hadoop configuration to read the file
+     * @param blockCache the cache of blocks of data files on local disk
+     * @return the input file
+     * @throws IOException if the file could not be found, when both caches are disabled
+     */
+    public InputFile getInputFile(Path path, Configuration conf, LocalBlockCache blockCache) throws IOException {
+        if (!isEnabled() && !blockCache.isEnabled()) {
+            return HadoopInputFile.fromPath(path, conf);
+        }
+        return new CachedTailInputFile(this, blockCache, path, conf);
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized boolean contains(Path path) {
+        return entries.containsKey(path.toString());
+    }
+
+    /**
+     * Removes any cached metadata for a file. This should be called when a file is deleted.
+     *
+     * @param path the path to the file
+     */
+    public synchronized void invalidate(Path path) {
+        FileTail tail = entries.remove(path.toString());
+        if (null != tail) {
+            totalBytes -= tail.sizeInBytes();
+        }
+    }
+
+    FileTail getOrLoad(Path path, Configuration conf) throws IOException {
+        if (!isEnabled()) {
+            FileStatus status = path.getFileSystem(conf).getFileStatus(path);
+            return new FileTail(status, status.getLen(), new byte[0]);
+        }
+        FileTail tail = get(path);
+        if (null != tail) {
+            return tail;
+        }
+        // Files are read outside the lock, so if two threads open the same file at once they may both read it
+        tail = load(path, conf);
+        put(path, tail);
+        return tail;
+    }
+
+    private synchronized FileTail get(Path path) {
+        return entries.get(path.toString());
+    }
+
+    private synchronized void put(Path path, FileTail tail) {
+        if (tail.sizeInBytes() > maxEntryBytes) {
+            return;
+        }
+        FileTail previous = entries.put(path.toString(), tail);
+        if (null != previous) {
+            totalBytes -= previous.sizeInBytes();
+        }
+        totalBytes += tail.sizeInBytes();
+        Iterator<FileTail> iterator = entries.values().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            totalBytes -= iterator.next().sizeInBytes();
+            iterator.remove();
+        }
+    }
+
+    private FileTail load(Path path, Configuration conf) throws IOException {
+        FileSystem fs = path.getFileSystem(conf);
+        FileStatus status = fs.getFileStatus(path);
+        HadoopInputFile file = HadoopInputFile.fromStatus(status, conf);
+        long length = status.getLen();
+        try (SeekableInputStream stream = file.newStream()) {
+            ParquetMetadata footer = ParquetFileReader.readFooter(file, HadoopReadOptions.builder(conf).build(), stream);
+            stream.seek(length - FOOTER_LENGTH_AND_MAGIC_BYTES);
+            long footerStart = length - FOOTER_LENGTH_AND_MAGIC_BYTES - BytesUtils.readIntLittleEndian(stream);
+            long tailStart = Math.min(footerStart, findIndexesStart(footer));
+            if (length - tailStart > maxEntryBytes) {
+                tailStart = footerStart;
+            }
+            if (length - tailStart > maxEntryBytes) {
+                LOGGER.debug("Footer of file {} is too large to cache", path);
+                return new FileTail(status, length, new byte[0]);
+            }
+            byte[] bytes = new byte[(int) (length - tailStart)];
+            stream.seek(tailStart);
+            stream.readFully(bytes);
+            LOGGER.debug("Cached {} bytes at the end of file {}", bytes.length, path);
+            return new FileTail(status, tailStart, bytes);
+        }
+    }
+
+    private static long findIndexesStart(ParquetMetadata footer) {
+        long start = Long.MAX_VALUE;
+        for (BlockMetaData rowGroup : footer.getBlocks()) {
+            for (ColumnChunkMetaData column : rowGroup.getColumns()) {
+                start = Math.min(start, offsetOrMax(column.getColumnIndexReference()));
+                start = Math.min(start, offsetOrMax(column.getOffsetIndexReference()));
+                if (column.getBloomFilterOffset() >= 0) {
+                    start = Math.min(start, column.getBloomFilterOffset());
+                }
+            }
+        }
+        return start;
+    }
+
+    private static long offsetOrMax(IndexReference reference) {
+        return null == reference ? Long.MAX_VALUE : reference.getOffset();
+    }
+
+    /**
+     * The status of a file and the bytes at the end of it.
+     */
+    static class FileTail {
+        private final FileStatus status;
+        private final long start;
+        private final byte[] bytes;
+
+        FileTail(FileStatus status, long start, byte[] bytes) {
+            this.status = status;
+            this.start = start;
+            this.bytes = bytes;
+        }
+
+        FileStatus getStatus() {
+            return status;
+        }
+
+        long getStart() {
+            return start;
+        }
+
+        long getLength() {
+            return status.getLen();
+        }
+
+        int read(long position, byte[] buffer, int offset, int length) {
+            int bytesToRead = (int) Math.min(length, getLength() - position);
+            System.arraycopy(bytes, (int) (position - start), buffer, offset, bytesToRead);
+            return bytesToRead;
+        }
+
+        long sizeInBytes() {
+            return 256L + bytes.length;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package sleeper.io.parquet.record;
 import org.apache.hadoop.fs.Path;
 import org.apache.parquet.hadoop.ParquetReader;
 import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.io.InputFile;
 
 import sleeper.core.record.Record;
 import sleeper.core.schema.Schema;
@@ -41,6 +42,11 @@ public class ParquetRecordReader extends ParquetReader<Record> {
             this.schema = schema;
         }
 
+        public Builder(InputFile file, Schema schema) {
+            super(file);
+            this.schema = schema;
+        }
+
         @Override
         protected ReadSupport<Record> getReadSupport() {
             return new RecordReadSupport(schema);
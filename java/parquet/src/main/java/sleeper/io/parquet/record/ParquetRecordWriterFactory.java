@@ -37,6 +37,9 @@ import static sleeper.configuration.properties.table.TableProperty.DICTIONARY_EN
 import static sleeper.configuration.properties.table.TableProperty.DICTIONARY_ENCODING_FOR_SORT_KEY_FIELDS;
 import static sleeper.configuration.properties.table.TableProperty.DICTIONARY_ENCODING_FOR_VALUE_FIELDS;
 import static sleeper.configuration.properties.table.TableProperty.PAGE_SIZE;
+import static sleeper.configuration.properties.table.TableProperty.PARQUET_BLOOM_FILTER_FPP;
+import static sleeper.configuration.properties.table.TableProperty.PARQUET_BLOOM_FILTER_NDV;
+import static sleeper.configuration.properties.table.TableProperty.PARQUET_BLOOM_FILTER_ROW_KEY_FIELDS;
 import static sleeper.configuration.properties.table.TableProperty.ROW_GROUP_SIZE;
 import static sleeper.configuration.properties.table.TableProperty.STATISTICS_TRUNCATE_LENGTH;
 
@@ -69,7 +72,10 @@ public class ParquetRecordWriterFactory {
                 .withDictionaryEncodingForSortKeyFields(tableProperties.getBoolean(DICTIONARY_ENCODING_FOR_SORT_KEY_FIELDS))
                 .withDictionaryEncodingForValueFields(tableProperties.getBoolean(DICTIONARY_ENCODING_FOR_VALUE_FIELDS))
                 .withColumnIndexTruncateLength(tableProperties.getInt(COLUMN_INDEX_TRUNCATE_LENGTH))
-                .withStatisticsTruncateLength(tableProperties.getInt(STATISTICS_TRUNCATE_LENGTH));
+                .withStatisticsTruncateLength(tableProperties.getInt(STATISTICS_TRUNCATE_LENGTH))
+                .withBloomFilterForRowKeyFields(tableProperties.getList(PARQUET_BLOOM_FILTER_ROW_KEY_FIELDS),
+                        tableProperties.getDouble(PARQUET_BLOOM_FILTER_FPP),
+                        tableProperties.getLong(PARQUET_BLOOM_FILTER_NDV));
     }
 
     public static class Builder extends ParquetWriter.Builder<Record, Builder> {
@@ -110,6 +116,30 @@ public class ParquetRecordWriterFactory {
             setDictionaryEncoding(this, schema.getValueFieldNames(), dictionaryEncodingForValueFields);
             return this;
         }
+
+        /**
+         * Writes a bloom filter in each row group for each of the given fields which is a row key field. Other fields
+         * are ignored.
+         *
+         * @param fieldNames the names of the fields to write bloom filters for
+         * @param falsePositiveProbability the target false positive probability of each bloom filter
+         * @param expectedDistinctValues the expected number of distinct values in a row group, to size the filters
+         * @return this builder
+         */
+        public Builder withBloomFilterForRowKeyFields(List<String> fieldNames, double falsePositiveProbability, long expectedDistinctValues) {
+            if (null == fieldNames) {
+                return this;
+            }
+            List<String> rowKeyFieldNames = schema.getRowKeyFieldNames();
+            for (String fieldName : fieldNames) {
+                if (rowKeyFieldNames.contains(fieldName)) {
+                    withBloomFilterEnabled(fieldName, true);
+                    withBloomFilterFPP(fieldName, falsePositiveProbability);
+                    withBloomFilterNDV(fieldName, expectedDistinctValues);
+                }
+            }
+            return this;
+        }
     }
 
     private static void setDictionaryEncoding(Builder builder, List<String> fieldNames, boolean dictionaryEncodingEnabled) {
@@ -21,6 +21,7 @@ import org.apache.parquet.io.api.GroupConverter;
 import org.apache.parquet.io.api.PrimitiveConverter;
 
 import sleeper.core.record.Record;
+import sleeper.core.record.RecordLayout;
 import sleeper.core.schema.Field;
 import sleeper.core.schema.Schema;
 import sleeper.core.schema.type.ByteArrayType;
@@ -37,35 +38,36 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * Used to convert rows of Parquet data into {@link Record}s.
+ * Used to convert rows of Parquet data into {@link Record}s. The record is array-backed with a {@link RecordLayout}
+ * for the schema, and each column is written into it by position.
  */
 public class RecordConverter extends GroupConverter {
     private final Record currentRecord;
     private final Converter[] converters;
 
     public RecordConverter(Schema schema) {
-        currentRecord = new Record();
+        currentRecord = new Record(RecordLayout.forSchema(schema));
         List<Field> fields = schema.getAllFields();
         this.converters = new Converter[fields.size()];
         int count = 0;
         for (Field field : fields) {
             if (field.getType() instanceof IntType) {
-                this.converters[count] = new IntConverter(field.getName(), currentRecord);
+                this.converters[count] = new IntConverter(count, currentRecord);
             } else if (field.getType() instanceof LongType) {
-                this.converters[count] = new LongConverter(field.getName(), currentRecord);
+                this.converters[count] = new LongConverter(count, currentRecord);
             } else if (field.getType() instanceof StringType) {
-                this.converters[count] = new StringConverter(field.getName(), currentRecord);
+                this.converters[count] = new StringConverter(count, currentRecord);
             } else if (field.getType() instanceof ByteArrayType) {
-                this.converters[count] = new ByteArrayConverter(field.getName(), currentRecord);
+                this.converters[count] = new ByteArrayConverter(count, currentRecord);
             } else if (field.getType() instanceof MapType) {
                 MapType mapType = (MapType) field.getType();
                 PrimitiveType keyType = mapType.getKeyType();
                 PrimitiveType valueType = mapType.getValueType();
-                this.converters[count] = new MapConverter<>(field.getName(), keyType, valueType, currentRecord);
+                this.converters[count] = new MapConverter<>(count, keyType, valueType, currentRecord);
             } else if (field.getType() instanceof ListType) {
                 ListType listType = (ListType) field.getType();
                 PrimitiveType elementType = listType.getElementType();
-                this.converters[count] = new ListConverter<>(field.getName(), elementType, currentRecord);
+                this.converters[count] = new ListConverter<>(count, elementType, currentRecord);
             } else {
                 throw new IllegalArgumentException("Schema has a field with an unknown type (" + field + ")");
             }
@@ -91,73 +93,73 @@ public class RecordConverter extends GroupConverter {
     }
 
     public static class IntConverter extends PrimitiveConverter {
-        private final String name;
+        private final int index;
         private final Record record;
 
-        public IntConverter(String name, Record record) {
-            this.name = name;
+        public IntConverter(int index, Record record) {
+            this.index = index;
             this.record = record;
         }
 
         @Override
         public void addInt(int value) {
-            record.put(name, value);
+            record.put(index, value);
         }
     }
 
     public static class LongConverter extends PrimitiveConverter {
-        private final String name;
+        private final int index;
         private final Record record;
 
-        public LongConverter(String name, Record record) {
-            this.name = name;
+        public LongConverter(int index, Record record) {
+            this.index = index;
             this.record = record;
         }
 
         @Override
         public void addLong(long value) {
-            record.put(name, value);
+            record.put(index, value);
         }
     }
 
     public static class StringConverter extends PrimitiveConverter {
-        private final String name;
+        private final int index;
         private final Record record;
 
-        public StringConverter(String name, Record record) {
-            this.name = name;
+        public StringConverter(int index, Record record) {
+            this.index = index;
             this.record = record;
         }
 
         @Override
         public void addBinary(Binary value) {
-            record.put(name, value.toStringUsingUTF8());
+            record.put(index, value.toStringUsingUTF8());
         }
     }
 
     public static class ByteArrayConverter extends PrimitiveConverter {
-        private final String name;
+        private final int index;
         private final Record record;
 
-        public ByteArrayConverter(String name, Record record) {
-            this.name = name;
+        public ByteArrayConverter(int index, Record record) {
+            this.index = index;
             this.record = record;
         }
 
         @Override
         public void addBinary(Binary value) {
-            record.put(name, value.getBytes());
+            record.put(index, value.getBytes());
         }
     }
 
     public static class ListConverter<E> extends GroupConverter {
-        private final String name;
+        private final int index;
         private final Record record;
         private final List<E> elements;
         private final ElementConverter<E> elementConverter;
 
-        public ListConverter(String name, PrimitiveType elementType, Record record) {
-            this.name = name;
+        public ListConverter(int index, PrimitiveType elementType, Record record) {
+            this.index = index;
             this.record = record;
             this.elements = new ArrayList<>();
             this.elementConverter = new ElementConverter<>(elements, elementType);
@@ -179,19 +181,19 @@ public class RecordConverter extends GroupConverter {
         @Override
         public void end() {
             List<E> list = new ArrayList<>(elements);
-            record.put(name, list);
+            record.put(index, list);
         }
     }
 
     public static class MapConverter<K, V> extends GroupConverter {
-        private final String name;
+        private final int index;
         private final Record record;
         private final List<K> keys;
         private final List<V> values;
         private final KeyValueConverter<K, V> keyValueConverter;
 
-        public MapConverter(String name, PrimitiveType keyType, PrimitiveType valueType, Record record) {
-            this.name = name;
+        public MapConverter(int index, PrimitiveType keyType, PrimitiveType valueType, Record record) {
+            this.index = index;
             this.record = record;
             this.keys = new ArrayList<>();
             this.values = new ArrayList<>();
@@ -218,7 +220,7 @@ public class RecordConverter extends GroupConverter {
             for (int i = 0; i < keys.size(); i++) {
                 map.put(keys.get(i), values.get(i));
             }
-            record.put(name, map);
+            record.put(index, map);
         }
     }
 
@@ -19,8 +19,8 @@ import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.io.api.RecordConsumer;
 
 import sleeper.core.record.Record;
+import sleeper.core.record.RecordLayout;
 import sleeper.core.schema.Field;
-import sleeper.core.schema.Schema;
 import sleeper.core.schema.type.ByteArrayType;
 import sleeper.core.schema.type.IntType;
 import sleeper.core.schema.type.ListType;
@@ -34,36 +34,42 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * Writes {@link Record}s to a {@link RecordConsumer}.
+ * Writes {@link Record}s to a {@link RecordConsumer}. Array-backed records with the same {@link RecordLayout} as the
+ * schema are read by position.
  */
 public class RecordWriter {
     private final RecordConsumer recordConsumer;
-    private final Schema schema;
+    private final List<Field> fields;
+    private final RecordLayout layout;
+    private RecordLayout matchedLayout;
 
     public RecordWriter(RecordConsumer recordConsumer, sleeper.core.schema.Schema schema) {
         this.recordConsumer = recordConsumer;
-        this.schema = schema;
+        this.fields = schema.getAllFields();
+        this.layout = RecordLayout.forSchema(schema);
     }
 
     public void write(Record record) {
         recordConsumer.startMessage();
+        boolean byPosition = isSameLayout(record.getLayout());
         int count = 0;
-        for (Field entry : schema.getAllFields()) {
+        for (Field entry : fields) {
             String name = entry.getName();
             Type type = entry.getType();
+            Object value = byPosition ? record.get(count) : record.get(name);
             recordConsumer.startField(name, count);
             if (type instanceof IntType) {
-                recordConsumer.addInteger((int) record.get(name));
+                recordConsumer.addInteger((int) value);
             } else if (type instanceof LongType) {
-                recordConsumer.addLong((long) record.get(name));
+                recordConsumer.addLong((long) value);
             } else if (type instanceof StringType) {
-                recordConsumer.addBinary(Binary.fromString((String) record.get(name)));
+                recordConsumer.addBinary(Binary.fromString((String) value));
             } else if (type instanceof ByteArrayType) {
-                recordConsumer.addBinary(Binary.fromConstantByteArray((byte[]) record.get(name)));
+                recordConsumer.addBinary(Binary.fromConstantByteArray((byte[]) value));
             } else if (type instanceof MapType) {
-                addMap(recordConsumer, (MapType) type, (Map<?, ?>) record.get(name));
+                addMap(recordConsumer, (MapType) type, (Map<?, ?>) value);
             } else if (type instanceof ListType) {
-                addList(recordConsumer, (ListType) type, (List<?>) record.get(name));
+                addList(recordConsumer, (ListType) type, (List<?>) value);
             } else {
                 throw new RuntimeException("Unknown type " + type);
             }
@@ -73,6 +79,20 @@ public class RecordWriter {
         recordConsumer.endMessage();
     }
 
+    private boolean isSameLayout(RecordLayout recordLayout) {
+        if (null == recordLayout) {
+            return false;
+        }
+        if (recordLayout == matchedLayout) {
+            return true;
+        }
+        if (layout.equals(recordLayout)) {
+            matchedLayout = recordLayout;
+            return true;
+        }
+        return false;
+    }
+
     private void addList(RecordConsumer recordConsumer, ListType listType, List<?> list) {
         PrimitiveType elementType = listType.getElementType();
         recordConsumer.startGroup();
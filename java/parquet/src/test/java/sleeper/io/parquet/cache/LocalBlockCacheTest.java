@@ -0,0 +1,269 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.io.parquet.cache;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+import sleeper.io.parquet.record.ParquetRecordReader;
+import sleeper.io.parquet.record.ParquetRecordWriterFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_LOCAL_BLOCK_CACHE_BLOCK_SIZE;
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_LOCAL_BLOCK_CACHE_DIRECTORY;
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_LOCAL_BLOCK_CACHE_SIZE;
+
+class LocalBlockCacheTest {
+    @TempDir
+    public java.nio.file.Path tempDir;
+
+    @Test
+    void shouldReadBlockFromSourceThenFromLocalDisk() throws Exception {
+        // Given
+        LocalBlockCache cache = new LocalBlockCache(tempDir.resolve("cache"), 100, 10);
+        FakeSource source = new FakeSource("file", 25);
+
+        // When
+        byte[] first = read(cache, source, 12, 5);
+        byte[] second = read(cache, source, 14, 3);
+
+        // Then
+        assertThat(first).containsExactly(12, 13, 14, 15, 16);
+        assertThat(second).containsExactly(14, 15, 16);
+        assertThat(source.blocksRead).containsExactly(10L);
+        assertThat(cache.getHits()).isOne();
+        assertThat(cache.getMisses()).isOne();
+        assertThat(cache.getHitRatio()).isEqualTo(0.5);
+        assertThat(cache.getBytesReadLocally()).isEqualTo(3);
+        assertThat(cache.getBytesReadRemotely()).isEqualTo(10);
+        assertThat(cache.getTotalBytes()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldReadUpToEndOfBlock() throws Exception {
+        // Given
+        LocalBlockCache cache = new LocalBlockCache(tempDir.resolve("cache"), 100, 10);
+        FakeSource source = new FakeSource("file", 25);
+
+        // When
+        byte[] buffer = new byte[10];
+        int read = cache.read(source, 8, buffer, 0, 10);
+
+        // Then
+        assertThat(read).isEqualTo(2);
+        assertThat(Arrays.copyOf(buffer, read)).containsExactly(8, 9);
+    }
+
+    @Test
+    void shouldReadShortBlockAtEndOfFile() throws Exception {
+        // Given
+        LocalBlockCache cache = new LocalBlockCache(tempDir.resolve("cache"), 100, 10);
+        FakeSource source = new FakeSource("file", 25);
+
+        // When
+        byte[] read = read(cache, source, 20, 5);
+
+        // Then
+        assertThat(read).containsExactly(20, 21, 22, 23, 24);
+        assertThat(cache.getTotalBytes()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedBlockWhenFull() throws Exception {
+        // Given
+        LocalBlockCache cache = new LocalBlockCache(tempDir.resolve("cache"), 20, 10);
+        FakeSource source = new FakeSource("file", 30);
+        read(cache, source, 0, 1);
+        read(cache, source, 10, 1);
+        read(cache, source, 0, 1);
+
+        // When
+        read(cache, source, 20, 1);
+        read(cache, source, 0, 1);
+        read(cache, source, 10, 1);
+
+        // Then
+        assertThat(source.blocksRead).containsExactly(0L, 10L, 20L, 10L);
+        assertThat(cache.getTotalBytes()).isEqualTo(20);
+        try (var files = Files.list(tempDir.resolve("cache"))) {
+            assertThat(files).hasSize(2);
+        }
+    }
+
+    @Test
+    void shouldRemoveBlocksOfInvalidatedFile() throws Exception {
+        // Given
+        LocalBlockCache cache = new LocalBlockCache(tempDir.resolve("cache"), 100, 10);
+        FakeSource source1 = new FakeSource("file1", 20);
+        FakeSource source2 = new FakeSource("file2", 20);
+        read(cache, source1, 0, 1);
+        read(cache, source1, 10, 1);
+        read(cache, source2, 0, 1);
+
+        // When
+        cache.invalidate("file1");
+
+        // Then
+        assertThat(cache.getTotalBytes()).isEqualTo(10);
+        try (var files = Files.list(tempDir.resolve("cache"))) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    void shouldOnlyClearBlocksFromOwnSubdirectoryWhenConfiguredForProcess() throws Exception {
+        // Given
+        java.nio.file.Path cacheDir = tempDir.resolve("sleeper-block-cache");
+        Files.createDirectories(cacheDir.resolve("block-2"));
+        Files.write(cacheDir.resolve("block-1"), new byte[]{1});
+        Files.write(cacheDir.resolve("other-file"), new byte[]{1});
+        Files.write(tempDir.resolve("block-3"), new byte[]{1});
+        InstanceProperties instanceProperties = new InstanceProperties();
+        instanceProperties.set(QUERY_LOCAL_BLOCK_CACHE_DIRECTORY, tempDir.toString());
+
+        // When
+        try {
+            LocalBlockCache.configureForProcess(instanceProperties);
+        } finally {
+            instanceProperties.set(QUERY_LOCAL_BLOCK_CACHE_SIZE, "0");
+            LocalBlockCache.configureForProcess(instanceProperties);
+        }
+
+        // Then
+        assertThat(cacheDir.resolve("block-1")).doesNotExist();
+        assertThat(cacheDir.resolve("block-2")).isDirectory();
+        assertThat(cacheDir.resolve("other-file")).exists();
+        assertThat(tempDir.resolve("block-3")).exists();
+    }
+
+    @Test
+    void shouldRefuseBlockSizeLargerThanAnArrayCanHold() {
+        // Given
+        InstanceProperties instanceProperties = new InstanceProperties();
+        instanceProperties.set(QUERY_LOCAL_BLOCK_CACHE_BLOCK_SIZE, "2G");
+
+        // When / Then
+        assertThatThrownBy(() -> LocalBlockCache.from(instanceProperties))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(QUERY_LOCAL_BLOCK_CACHE_BLOCK_SIZE.getPropertyName());
+    }
+
+    @Test
+    void shouldNotUseCacheWhenDisabled() {
+        assertThat(LocalBlockCache.disabled().isEnabled()).isFalse();
+    }
+
+    @Test
+    void shouldReadParquetFileThroughCache() throws Exception {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new LongType()))
+                .valueFields(new Field("value", new StringType()))
+                .build();
+        List<Record> records = LongStream.range(0, 100)
+                .mapToObj(i -> new Record(Map.of("key", i, "value", "value-" + i)))
+                .collect(Collectors.toList());
+        Path path = new Path(tempDir.resolve("file.parquet").toUri());
+        try (ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(path, schema)) {
+            for (Record record : records) {
+                writer.write(record);
+            }
+        }
+        LocalBlockCache cache = new LocalBlockCache(tempDir.resolve("cache"), 1024 * 1024, 64);
+
+        // When
+        List<Record> readFirst = readRecords(cache, path, schema);
+        List<Record> readAgain = readRecords(cache, path, schema);
+
+        // Then
+        assertThat(readFirst).isEqualTo(records);
+        assertThat(readAgain).isEqualTo(records);
+        assertThat(cache.getHits()).isPositive();
+        assertThat(cache.getBytesReadRemotely()).isEqualTo(cache.getTotalBytes());
+    }
+
+    private static byte[] read(LocalBlockCache cache, LocalBlockCache.BlockSource source, long position, int length) throws IOException {
+        byte[] buffer = new byte[length];
+        int read = cache.read(source, position, buffer, 0, length);
+        return Arrays.copyOf(buffer, read);
+    }
+
+    private static List<Record> readRecords(LocalBlockCache cache, Path path, Schema schema) throws IOException {
+        Configuration conf = new Configuration();
+        List<Record> read = new ArrayList<>();
+        try (ParquetReader<Record> reader = new ParquetRecordReader.Builder(
+                ParquetFooterCache.disabled().getInputFile(path, conf, cache), schema)
+                .withConf(conf)
+                .build()) {
+            for (Record record = reader.read(); null != record; record = reader.read()) {
+                read.add(new Record(record));
+            }
+        }
+        return read;
+    }
+
+    /**
+     * A file where each byte holds its own position, which records which blocks were read from it.
+     */
+    private static class FakeSource implements LocalBlockCache.BlockSource {
+        private final String path;
+        private final long length;
+        private final List<Long> blocksRead = new ArrayList<>();
+
+        FakeSource(String path, long length) {
+            this.path = path;
+            this.length = length;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public long getLength() {
+            return length;
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer) {
+            blocksRead.add(position);
+            for (int i = 0; i < buffer.length; i++) {
+                buffer[i] = (byte) (position + i);
+            }
+        }
+    }
+}
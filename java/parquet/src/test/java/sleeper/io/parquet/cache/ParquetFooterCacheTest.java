@@ -0,0 +1,189 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.io.parquet.cache;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+import sleeper.io.parquet.record.ParquetRecordReader;
+import sleeper.io.parquet.record.ParquetRecordWriterFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.apache.parquet.filter2.predicate.FilterApi.and;
+import static org.apache.parquet.filter2.predicate.FilterApi.gtEq;
+import static org.apache.parquet.filter2.predicate.FilterApi.longColumn;
+import static org.apache.parquet.filter2.predicate.FilterApi.lt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParquetFooterCacheTest {
+    @TempDir
+    public java.nio.file.Path tempDir;
+
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(new Field("key", new LongType()))
+            .valueFields(new Field("value", new StringType()))
+            .build();
+    private final Configuration conf = new Configuration();
+    private final List<Record> records = LongStream.range(0, 100)
+            .mapToObj(i -> new Record(Map.of("key", i, "value", "value-" + i)))
+            .collect(Collectors.toList());
+
+    @Test
+    void shouldReadSameRecordsThroughCache() throws Exception {
+        // Given
+        Path path = writeFile("file.parquet");
+        ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024, 1024 * 1024);
+
+        // When
+        List<Record> readFirst = readRecords(cache, path, keysBetween(10, 20));
+        List<Record> readAgain = readRecords(cache, path, keysBetween(10, 20));
+        List<Record> readAll = readRecords(cache, path, keysBetween(0, 100));
+
+        // Then
+        assertThat(readFirst).isEqualTo(records.subList(10, 20));
+        assertThat(readAgain).isEqualTo(records.subList(10, 20));
+        assertThat(readAll).isEqualTo(records);
+        assertThat(cache.contains(path)).isTrue();
+        assertThat(cache.getTotalBytes()).isPositive();
+    }
+
+    @Test
+    void shouldUseCachedFooterWithoutOpeningFileWhenNoRowGroupsMatch() throws Exception {
+        // Given
+        Path path = writeFile("file.parquet");
+        ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024, 1024 * 1024);
+        readRecords(cache, path, keysBetween(10, 20));
+
+        // When
+        Files.delete(java.nio.file.Path.of(path.toUri()));
+
+        // Then
+        assertThat(readRecords(cache, path, keysBetween(200, 300))).isEmpty();
+    }
+
+    @Test
+    void shouldEvictFileWhenItIsFoundToBeDeleted() throws Exception {
+        // Given
+        Path path = writeFile("file.parquet");
+        ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024, 1024 * 1024);
+        readRecords(cache, path, keysBetween(10, 20));
+
+        // When
+        Files.delete(java.nio.file.Path.of(path.toUri()));
+
+        // Then
+        assertThatThrownBy(() -> readRecords(cache, path, keysBetween(10, 20)))
+                .isInstanceOf(FileNotFoundException.class);
+        assertThat(cache.contains(path)).isFalse();
+        assertThat(cache.getTotalBytes()).isZero();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedFileWhenFull() throws Exception {
+        // Given
+        Path path1 = writeFile("file1.parquet");
+        Path path2 = writeFile("file2.parquet");
+        ParquetFooterCache measure = new ParquetFooterCache(1024 * 1024, 1024 * 1024);
+        readRecords(measure, path1, keysBetween(0, 1));
+        long entryBytes = measure.getTotalBytes();
+        ParquetFooterCache cache = new ParquetFooterCache(entryBytes, entryBytes);
+
+        // When
+        readRecords(cache, path1, keysBetween(0, 1));
+        readRecords(cache, path2, keysBetween(0, 1));
+
+        // Then
+        assertThat(cache.contains(path1)).isFalse();
+        assertThat(cache.contains(path2)).isTrue();
+        assertThat(cache.getTotalBytes()).isEqualTo(entryBytes);
+    }
+
+    @Test
+    void shouldNotCacheFileWhenFooterIsLargerThanMaximumEntrySize() throws Exception {
+        // Given
+        Path path = writeFile("file.parquet");
+        ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024, 10);
+
+        // When
+        List<Record> read = readRecords(cache, path, keysBetween(10, 20));
+
+        // Then
+        assertThat(read).isEqualTo(records.subList(10, 20));
+        assertThat(cache.contains(path)).isFalse();
+        assertThat(cache.getTotalBytes()).isZero();
+    }
+
+    @Test
+    void shouldReadDirectlyWhenDisabled() throws Exception {
+        // Given
+        Path path = writeFile("file.parquet");
+        ParquetFooterCache cache = ParquetFooterCache.disabled();
+
+        // When
+        List<Record> read = readRecords(cache, path, keysBetween(10, 20));
+
+        // Then
+        assertThat(read).isEqualTo(records.subList(10, 20));
+        assertThat(cache.contains(path)).isFalse();
+    }
+
+    private Path writeFile(String name) throws IOException {
+        Path path = new Path(tempDir.resolve(name).toUri());
+        try (ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(path, schema)) {
+            for (Record record : records) {
+                writer.write(record);
+            }
+        }
+        return path;
+    }
+
+    private List<Record> readRecords(ParquetFooterCache cache, Path path, FilterPredicate filter) throws IOException {
+        List<Record> read = new ArrayList<>();
+        try (ParquetReader<Record> reader = new ParquetRecordReader.Builder(cache.getInputFile(path, conf), schema)
+                .withConf(conf)
+                .withFilter(FilterCompat.get(filter))
+                .build()) {
+            for (Record record = reader.read(); null != record; record = reader.read()) {
+                read.add(new Record(record));
+            }
+        }
+        return read;
+    }
+
+    private static FilterPredicate keysBetween(long min, long max) {
+        return and(gtEq(longColumn("key"), min), lt(longColumn("key"), max));
+    }
+}
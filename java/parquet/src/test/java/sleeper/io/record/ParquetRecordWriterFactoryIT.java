@@ -17,10 +17,15 @@ package sleeper.io.record;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.parquet.ParquetReadOptions;
 import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
 import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.ParquetReader;
 import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.hadoop.util.HadoopInputFile;
 import org.junit.jupiter.api.Test;
@@ -43,10 +48,14 @@ import java.util.List;
 import java.util.Map;
 
 import static java.nio.file.Files.createTempDirectory;
+import static org.apache.parquet.filter2.predicate.FilterApi.eq;
+import static org.apache.parquet.filter2.predicate.FilterApi.longColumn;
 import static org.assertj.core.api.Assertions.assertThat;
 import static sleeper.configuration.properties.table.TableProperty.DICTIONARY_ENCODING_FOR_ROW_KEY_FIELDS;
 import static sleeper.configuration.properties.table.TableProperty.DICTIONARY_ENCODING_FOR_SORT_KEY_FIELDS;
 import static sleeper.configuration.properties.table.TableProperty.DICTIONARY_ENCODING_FOR_VALUE_FIELDS;
+import static sleeper.configuration.properties.table.TableProperty.PARQUET_BLOOM_FILTER_NDV;
+import static sleeper.configuration.properties.table.TableProperty.PARQUET_BLOOM_FILTER_ROW_KEY_FIELDS;
 
 class ParquetRecordWriterFactoryIT {
 
@@ -214,6 +223,75 @@ class ParquetRecordWriterFactoryIT {
         }
     }
 
+    @Test
+    void shouldWriteBloomFiltersForConfiguredRowKeyFields() throws IOException {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("column1", new LongType()), new Field("column2", new StringType()))
+                .valueFields(new Field("column3", new StringType()))
+                .build();
+        TableProperties tableProperties = new TableProperties(new InstanceProperties());
+        tableProperties.setSchema(schema);
+        tableProperties.set(PARQUET_BLOOM_FILTER_ROW_KEY_FIELDS, "column1,column3");
+        tableProperties.set(PARQUET_BLOOM_FILTER_NDV, "1000");
+        Path path = new Path(createTempDirectory(folder, null).toString() + "/file.parquet");
+
+        // When
+        try (ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(path, tableProperties, new Configuration())) {
+            for (long i = 0; i < 1000; i++) {
+                writer.write(new Record(Map.of("column1", i * 2, "column2", "A", "column3", "B")));
+            }
+        }
+
+        // Then
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(path, new Configuration()))) {
+            BlockMetaData rowGroup = reader.getRowGroups().get(0);
+            List<ColumnChunkMetaData> columns = rowGroup.getColumns();
+            BloomFilter bloomFilter = reader.readBloomFilter(columns.get(0));
+            assertThat(bloomFilter).isNotNull();
+            assertThat(bloomFilter.findHash(bloomFilter.hash(10L))).isTrue();
+            assertThat(reader.readBloomFilter(columns.get(1))).isNull();
+            assertThat(reader.readBloomFilter(columns.get(2))).isNull();
+        }
+    }
+
+    @Test
+    void shouldSkipRowGroupsWithBloomFilterOnPointLookup() throws IOException {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("column1", new LongType()))
+                .build();
+        TableProperties tableProperties = new TableProperties(new InstanceProperties());
+        tableProperties.setSchema(schema);
+        tableProperties.set(PARQUET_BLOOM_FILTER_ROW_KEY_FIELDS, "column1");
+        tableProperties.set(PARQUET_BLOOM_FILTER_NDV, "1000");
+        Path path = new Path(createTempDirectory(folder, null).toString() + "/file.parquet");
+        try (ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(path, tableProperties, new Configuration())) {
+            for (long i = 0; i < 1000; i++) {
+                writer.write(new Record(Map.of("column1", i * 2)));
+            }
+        }
+
+        // When
+        FilterPredicate absentKey = eq(longColumn("column1"), 11L);
+        FilterPredicate presentKey = eq(longColumn("column1"), 10L);
+
+        // Then
+        assertThat(countRowGroupsToRead(path, absentKey, true)).isZero();
+        assertThat(countRowGroupsToRead(path, absentKey, false)).isOne();
+        assertThat(countRowGroupsToRead(path, presentKey, true)).isOne();
+    }
+
+    private int countRowGroupsToRead(Path path, FilterPredicate predicate, boolean useBloomFilter) throws IOException {
+        ParquetReadOptions options = ParquetReadOptions.builder()
+                .withRecordFilter(FilterCompat.get(predicate))
+                .useBloomFilter(useBloomFilter)
+                .build();
+        try (ParquetFileReader reader = new ParquetFileReader(HadoopInputFile.fromPath(path, new Configuration()), options)) {
+            return reader.getRowGroups().size();
+        }
+    }
+
     private void writeParquetFile(Path path, TableProperties tableProperties, Record record) throws IOException {
         ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(path, tableProperties, new Configuration());
         writeRecordNTimes(writer, record, 10_000);
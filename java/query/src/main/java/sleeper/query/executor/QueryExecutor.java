@@ -29,15 +29,19 @@ import sleeper.configuration.properties.table.TableProperties;
 import sleeper.configuration.properties.table.TablePropertiesProvider;
 import sleeper.core.iterator.CloseableIterator;
 import sleeper.core.iterator.ConcatenatingIterator;
+import sleeper.core.key.Key;
 import sleeper.core.partition.Partition;
 import sleeper.core.partition.PartitionTree;
+import sleeper.core.range.Range;
 import sleeper.core.range.Region;
 import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
 import sleeper.core.schema.Schema;
 import sleeper.query.QueryException;
 import sleeper.query.model.LeafPartitionQuery;
 import sleeper.query.model.Query;
 import sleeper.query.recordretrieval.LeafPartitionQueryExecutor;
+import sleeper.statestore.FileInfo;
 import sleeper.statestore.StateStore;
 import sleeper.statestore.StateStoreException;
 import sleeper.statestore.StateStoreProvider;
@@ -66,9 +70,9 @@ public class QueryExecutor {
     private final ExecutorService executorService;
     private final TableProperties tableProperties;
     private final Configuration configuration;
-    private List<Partition> leafPartitions;
     private PartitionTree partitionTree;
     private Map<String, List<String>> partitionToFiles;
+    private Map<String, List<FileInfo>> partitionToFileInfos;
 
     public QueryExecutor(ObjectFactory objectFactory,
                          StateStore stateStore,
@@ -115,23 +119,42 @@ public class QueryExecutor {
      * a balance between having an up-to-date view of the data and the cost of
      * frequently extracting all the information about the files and the partitions
      * from the state store.
+     * <p>
+     * The minimum and maximum row keys of the active files are retained, so that
+     * files which cannot contain any data in the range of a query are not read.
      *
      * @throws StateStoreException if the statestore can't be accessed.
      */
     public void init() throws StateStoreException {
         List<Partition> partitions = stateStore.getAllPartitions();
-        Map<String, List<String>> partitionToFileMapping = stateStore.getPartitionToActiveFilesMap();
-        LOGGER.info("Retrieved {} partitions from StateStore", partitions.size());
+        List<FileInfo> activeFiles = stateStore.getActiveFiles();
+        LOGGER.info("Retrieved {} partitions and {} active files from StateStore", partitions.size(), activeFiles.size());
 
-        init(partitions, partitionToFileMapping);
+        init(partitions, activeFiles);
     }
 
     public void init(List<Partition> partitions, Map<String, List<String>> partitionToFileMapping) {
-        this.leafPartitions = partitions.stream()
-                .filter(Partition::isLeafPartition)
-                .collect(Collectors.toList());
-        this.partitionTree = new PartitionTree(this.schema, partitions);
+        initPartitions(partitions);
+        this.partitionToFiles = partitionToFileMapping;
+        this.partitionToFileInfos = null;
+    }
+
+    public void init(List<Partition> partitions, List<FileInfo> activeFiles) {
+        initPartitions(partitions);
+        Map<String, List<String>> partitionToFileMapping = new HashMap<>();
+        Map<String, List<FileInfo>> partitionToFileInfoMapping = new HashMap<>();
+        for (FileInfo fileInfo : activeFiles) {
+            partitionToFileMapping.computeIfAbsent(fileInfo.getPartitionId(), id -> new ArrayList<>())
+                    .add(fileInfo.getFilename());
+            partitionToFileInfoMapping.computeIfAbsent(fileInfo.getPartitionId(), id -> new ArrayList<>())
+                    .add(fileInfo);
+        }
         this.partitionToFiles = partitionToFileMapping;
+        this.partitionToFileInfos = partitionToFileInfoMapping;
+    }
+
+    private void initPartitions(List<Partition> partitions) {
+        this.partitionTree = new PartitionTree(this.schema, partitions);
     }
 
     /**
@@ -150,7 +173,18 @@ public class QueryExecutor {
      * @throws QueryException if it errors.
      */
     public CloseableIterator<Record> execute(Query query) throws QueryException {
-        List<LeafPartitionQuery> leafPartitionQueries = splitIntoLeafPartitionQueries(query);
+        return execute(splitIntoLeafPartitionQueries(query));
+    }
+
+    /**
+     * Executes sub queries which have already been split up from a query. The records are returned from each
+     * sub query in turn, and the files for each leaf partition are only opened when they are needed.
+     *
+     * @param leafPartitionQueries the sub queries
+     * @return an iterator containing the records from all the sub queries
+     * @throws QueryException if it errors
+     */
+    public CloseableIterator<Record> execute(List<LeafPartitionQuery> leafPartitionQueries) throws QueryException {
         List<Supplier<CloseableIterator<Record>>> iteratorSuppliers = createRecordIteratorSuppliers(leafPartitionQueries, tableProperties);
         return new ConcatenatingIterator(iteratorSuppliers);
     }
@@ -159,7 +193,8 @@ public class QueryExecutor {
      * Splits up a {@link Query} into multiple {@link LeafPartitionQuery}s using the
      * {@code getRelevantLeafPartitions()} method. For each leaf partition, it
      * finds the parent partitions in the tree and adds any files still belonging
-     * to the parent to the sub query.
+     * to the parent to the sub query. If the row key ranges of the files are known,
+     * files which cannot contain any data in the regions of the query are left out.
      *
      * @param query the query to be split up
      * @return A list of {@link LeafPartitionQuery}s
@@ -173,7 +208,7 @@ public class QueryExecutor {
 
         List<LeafPartitionQuery> leafPartitionQueriesList = new ArrayList<>();
         for (Map.Entry<Partition, List<Region>> entry : relevantLeafPartitions.entrySet()) {
-            List<String> files = getFiles(entry.getKey());
+            List<String> files = getFiles(entry.getKey(), entry.getValue());
 
             if (files.isEmpty()) {
                 LOGGER.info("No files for partition {}", entry.getKey());
@@ -208,6 +243,22 @@ public class QueryExecutor {
         return leafPartitionQueriesList;
     }
 
+    /**
+     * Splits up a sub query again against the current partitions and files. This is needed if one of the files the
+     * sub query was created with has since been garbage collected. If the leaf partition has been split since the
+     * sub query was created, one sub query is returned for each of the leaf partitions beneath it.
+     *
+     * @param leafPartitionQuery the sub query
+     * @return sub queries covering the same data as the given sub query
+     */
+    public List<LeafPartitionQuery> splitAgainstCurrentPartitions(LeafPartitionQuery leafPartitionQuery) {
+        String partitionId = leafPartitionQuery.getLeafPartitionId();
+        return splitIntoLeafPartitionQueries(leafPartitionQuery).stream()
+                .filter(subQuery -> partitionId.equals(subQuery.getLeafPartitionId())
+                        || partitionTree.getAllAncestorIds(subQuery.getLeafPartitionId()).contains(partitionId))
+                .collect(Collectors.toList());
+    }
+
     private List<Supplier<CloseableIterator<Record>>> createRecordIteratorSuppliers(List<LeafPartitionQuery> leafPartitionQueries, TableProperties tableProperties) throws QueryException {
         List<Supplier<CloseableIterator<Record>>> iterators = new ArrayList<>();
 
@@ -226,35 +277,106 @@ public class QueryExecutor {
     }
 
     /**
-     * Gets the leaf partitions which are relevant to a query. This method is
-     * called by the default implementation of {@code getPartitionFiles()} If
-     * you overwrite getPartitionFiles() then you may make this method a no-op.
+     * Gets the leaf partitions which are relevant to a query. This descends the
+     * partition tree from the root, passing down to each child partition only the
+     * regions that overlap it. Subtrees which do not overlap any region of the query
+     * are not visited, so a batch of small regions only visits the partitions on the
+     * paths down to the leaves that contain them.
      *
      * @param query the query
      * @return the relevant leaf partitions
      */
     private Map<Partition, List<Region>> getRelevantLeafPartitions(Query query) {
         Map<Partition, List<Region>> leafPartitionToOverlappingRegions = new HashMap<>();
-        leafPartitions.stream()
-                .forEach(partition -> {
-                    leafPartitionToOverlappingRegions.put(partition, new ArrayList<>());
-                    for (Region region : query.getRegions()) {
-                        if (partition.doesRegionOverlapPartition(region)) {
-                            leafPartitionToOverlappingRegions.get(partition).add(region);
-                        }
-                    }
-                    if (leafPartitionToOverlappingRegions.get(partition).isEmpty()) {
-                        leafPartitionToOverlappingRegions.remove(partition);
-                    }
-                });
+        Partition rootPartition = partitionTree.getRootPartition();
+        List<Region> regions = overlappingRegions(rootPartition, query.getRegions());
+        if (!regions.isEmpty()) {
+            addRelevantLeafPartitions(rootPartition, regions, leafPartitionToOverlappingRegions);
+        }
         return leafPartitionToOverlappingRegions;
     }
 
+    private void addRelevantLeafPartitions(
+            Partition partition, List<Region> regions, Map<Partition, List<Region>> leafPartitionToOverlappingRegions) {
+        if (partition.isLeafPartition()) {
+            leafPartitionToOverlappingRegions.put(partition, regions);
+            return;
+        }
+        for (String childId : partition.getChildPartitionIds()) {
+            Partition child = partitionTree.getPartition(childId);
+            if (null == child) {
+                continue;
+            }
+            List<Region> childRegions = overlappingRegions(child, regions);
+            if (!childRegions.isEmpty()) {
+                addRelevantLeafPartitions(child, childRegions, leafPartitionToOverlappingRegions);
+            }
+        }
+    }
+
+    private static List<Region> overlappingRegions(Partition partition, List<Region> regions) {
+        List<Region> overlapping = new ArrayList<>();
+        for (Region region : regions) {
+            if (partition.doesRegionOverlapPartition(region)) {
+                overlapping.add(region);
+            }
+        }
+        return overlapping;
+    }
+
+    protected List<String> getFiles(Partition partition, List<Region> regions) {
+        if (null == partitionToFileInfos) {
+            return getFiles(partition);
+        }
+        List<String> files = new ArrayList<>();
+        int numberOfFilesSkipped = 0;
+        for (String partitionId : getPartitionAndAncestorIds(partition)) {
+            List<FileInfo> filesForPartition = partitionToFileInfos.get(partitionId);
+            if (null == filesForPartition) {
+                continue;
+            }
+            for (FileInfo fileInfo : filesForPartition) {
+                if (mayFileContainDataInRegions(fileInfo, regions)) {
+                    files.add(fileInfo.getFilename());
+                } else {
+                    numberOfFilesSkipped++;
+                }
+            }
+        }
+        LOGGER.debug("Skipped {} files for partition {} as their row keys are outside the query", numberOfFilesSkipped, partition.getId());
+        return files;
+    }
+
+    /**
+     * Checks whether a file could hold any records in the given regions. Only the
+     * first row key field is checked, as the minimum and maximum row keys of a file
+     * only bound the values of that field. If the range of the file is not known
+     * then it is assumed that it could.
+     *
+     * @param fileInfo the file
+     * @param regions the regions of the query which overlap the leaf partition
+     * @return true if the file could hold records in one of the regions
+     */
+    private boolean mayFileContainDataInRegions(FileInfo fileInfo, List<Region> regions) {
+        Key minRowKey = fileInfo.getMinRowKey();
+        Key maxRowKey = fileInfo.getMaxRowKey();
+        if (null == minRowKey || null == maxRowKey || minRowKey.isEmpty() || maxRowKey.isEmpty()
+                || null == minRowKey.get(0) || null == maxRowKey.get(0)) {
+            return true;
+        }
+        Field field = schema.getRowKeyFields().get(0);
+        Range fileRange = new Range(field, minRowKey.get(0), true, maxRowKey.get(0), true);
+        for (Region region : regions) {
+            Range range = region.getRange(field.getName());
+            if (null == range || range.doesRangeOverlap(fileRange)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected List<String> getFiles(Partition partition) {
-        // Get all partitions up to the root of the tree
-        List<String> relevantPartitions = new ArrayList<>();
-        relevantPartitions.add(partition.getId());
-        relevantPartitions.addAll(partitionTree.getAllAncestorIds(partition.getId()));
+        List<String> relevantPartitions = getPartitionAndAncestorIds(partition);
 
         // Get relevant files
         List<String> files = new ArrayList<>();
@@ -266,4 +388,12 @@ public class QueryExecutor {
         }
         return files;
     }
+
+    private List<String> getPartitionAndAncestorIds(Partition partition) {
+        // Get all partitions up to the root of the tree
+        List<String> relevantPartitions = new ArrayList<>();
+        relevantPartitions.add(partition.getId());
+        relevantPartitions.addAll(partitionTree.getAllAncestorIds(partition.getId()));
+        return relevantPartitions;
+    }
 }
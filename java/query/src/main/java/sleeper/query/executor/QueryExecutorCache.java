@@ -0,0 +1,178 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.query.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.statestore.StateStoreException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static sleeper.configuration.properties.table.TableProperty.QUERY_PROCESSOR_STATE_MAX_STALENESS_SECONDS;
+
+/**
+ * Holds an initialised {@link QueryExecutor} for each table, and keeps its view of the partitions and files up to
+ * date. Once a view is half the maximum staleness set for the table, a new query executor is initialised in the
+ * background and swapped in when it is ready, while queries carry on with the previous one. If a view reaches the
+ * maximum staleness, it is reloaded before it is used. If the state store for the table is cached with its revision,
+ * a refresh only reads the state store when it has changed.
+ */
+public class QueryExecutorCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryExecutorCache.class);
+
+    private final Function<String, TableProperties> getTableProperties;
+    private final Function<TableProperties, QueryExecutor> queryExecutorFactory;
+    private final Executor refreshExecutor;
+    private final Supplier<Instant> timeSupplier;
+    private final Map<String, CachedQueryExecutor> cache = new ConcurrentHashMap<>();
+    private final Set<String> refreshingTables = ConcurrentHashMap.newKeySet();
+    private final Map<String, CompletableFuture<QueryExecutor>> refreshesInProgress = new ConcurrentHashMap<>();
+
+    public QueryExecutorCache(Function<String, TableProperties> getTableProperties,
+                              Function<TableProperties, QueryExecutor> queryExecutorFactory,
+                              Executor refreshExecutor, Supplier<Instant> timeSupplier) {
+        this.getTableProperties = getTableProperties;
+        this.queryExecutorFactory = queryExecutorFactory;
+        this.refreshExecutor = refreshExecutor;
+        this.timeSupplier = timeSupplier;
+    }
+
+    /**
+     * Gets a query executor for a table. This will be initialised if it has not been loaded yet or if it has reached
+     * the maximum staleness, and may start a refresh in the background.
+     *
+     * @param tableName the table name
+     * @return the query executor
+     * @throws StateStoreException if the state store could not be read
+     */
+    public QueryExecutor getQueryExecutor(String tableName) throws StateStoreException {
+        CachedQueryExecutor cached = cache.get(tableName);
+        if (null == cached) {
+            LOGGER.info("No query executor for table {}, loading from state store", tableName);
+            return load(tableName);
+        }
+        Duration age = Duration.between(cached.loadTime, timeSupplier.get());
+        Duration maxStaleness = Duration.ofSeconds(getTableProperties.apply(tableName)
+                .getInt(QUERY_PROCESSOR_STATE_MAX_STALENESS_SECONDS));
+        if (age.compareTo(maxStaleness) >= 0) {
+            LOGGER.info("Query executor for table {} was loaded {} ago, reloading from state store", tableName, age);
+            return load(tableName);
+        }
+        if (age.compareTo(maxStaleness.dividedBy(2)) >= 0) {
+            refreshInBackground(tableName);
+        }
+        return cached.queryExecutor;
+    }
+
+    /**
+     * Loads a query executor for a table from the current state of the state store, replacing any cached one. If
+     * another thread is already refreshing the table, this waits for that refresh and uses its result rather than
+     * reading the state store again.
+     *
+     * @param tableName the table name
+     * @return the query executor
+     * @throws StateStoreException if the state store could not be read
+     */
+    public QueryExecutor refreshNow(String tableName) throws StateStoreException {
+        CompletableFuture<QueryExecutor> refresh = new CompletableFuture<>();
+        CompletableFuture<QueryExecutor> inProgress = refreshesInProgress.putIfAbsent(tableName, refresh);
+        if (null != inProgress) {
+            LOGGER.info("Waiting for refresh of query executor for table {} already in progress", tableName);
+            return waitForRefresh(inProgress);
+        }
+        try {
+            QueryExecutor queryExecutor = load(tableName);
+            refresh.complete(queryExecutor);
+            return queryExecutor;
+        } catch (StateStoreException | RuntimeException e) {
+            refresh.completeExceptionally(e);
+            throw e;
+        } finally {
+            refreshesInProgress.remove(tableName, refresh);
+        }
+    }
+
+    private static QueryExecutor waitForRefresh(CompletableFuture<QueryExecutor> refresh) throws StateStoreException {
+        try {
+            return refresh.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof StateStoreException) {
+                throw (StateStoreException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private QueryExecutor load(String tableName) throws StateStoreException {
+        Instant loadTime = timeSupplier.get();
+        QueryExecutor queryExecutor = queryExecutorFactory.apply(getTableProperties.apply(tableName));
+        return init(tableName, queryExecutor, loadTime);
+    }
+
+    private QueryExecutor init(String tableName, QueryExecutor queryExecutor, Instant loadTime) throws StateStoreException {
+        queryExecutor.init();
+        CachedQueryExecutor loaded = new CachedQueryExecutor(queryExecutor, loadTime);
+        cache.merge(tableName, loaded, (previous, next) -> previous.loadTime.isAfter(next.loadTime) ? previous : next);
+        return queryExecutor;
+    }
+
+    private void refreshInBackground(String tableName) {
+        if (!refreshingTables.add(tableName)) {
+            return;
+        }
+        LOGGER.info("Refreshing query executor for table {} in the background", tableName);
+        try {
+            // Create the query executor on this thread, so that its table properties and state store are looked up
+            // here. Only reading the state store is done in the background.
+            Instant loadTime = timeSupplier.get();
+            QueryExecutor queryExecutor = queryExecutorFactory.apply(getTableProperties.apply(tableName));
+            refreshExecutor.execute(() -> {
+                try {
+                    init(tableName, queryExecutor, loadTime);
+                } catch (StateStoreException | RuntimeException e) {
+                    LOGGER.error("Failed refreshing query executor for table {}", tableName, e);
+                } finally {
+                    refreshingTables.remove(tableName);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshingTables.remove(tableName);
+            throw e;
+        }
+    }
+
+    private static class CachedQueryExecutor {
+        private final QueryExecutor queryExecutor;
+        private final Instant loadTime;
+
+        CachedQueryExecutor(QueryExecutor queryExecutor, Instant loadTime) {
+            this.queryExecutor = queryExecutor;
+            this.loadTime = loadTime;
+        }
+    }
+}
@@ -18,6 +18,10 @@ package sleeper.query.lambda;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
 import org.apache.hadoop.conf.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,8 +35,11 @@ import sleeper.configuration.properties.table.TablePropertiesProvider;
 import sleeper.core.iterator.CloseableIterator;
 import sleeper.core.record.Record;
 import sleeper.core.schema.Schema;
+import sleeper.io.parquet.cache.LocalBlockCache;
+import sleeper.io.parquet.cache.ParquetFooterCache;
 import sleeper.query.QueryException;
 import sleeper.query.executor.QueryExecutor;
+import sleeper.query.executor.QueryExecutorCache;
 import sleeper.query.model.LeafPartitionQuery;
 import sleeper.query.model.Query;
 import sleeper.query.model.QuerySerDe;
@@ -42,67 +49,120 @@ import sleeper.query.model.output.S3ResultsOutput;
 import sleeper.query.model.output.SQSResultsOutput;
 import sleeper.query.model.output.WebSocketResultsOutput;
 import sleeper.query.recordretrieval.LeafPartitionQueryExecutor;
+import sleeper.query.recordretrieval.LeafPartitionQueryResultCache;
 import sleeper.query.tracker.DynamoDBQueryTracker;
+import sleeper.query.tracker.QueryStatusReportListener;
 import sleeper.query.tracker.QueryStatusReportListeners;
 import sleeper.statestore.StateStore;
 import sleeper.statestore.StateStoreException;
 import sleeper.statestore.StateStoreProvider;
 import sleeper.utils.HadoopConfigurationProvider;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static sleeper.configuration.properties.instance.QueryProperty.QUERY_PROCESSOR_LAMBDA_RECORD_RETRIEVAL_THREADS;
 import static sleeper.configuration.properties.instance.SystemDefinedInstanceProperty.QUERY_QUEUE_URL;
+import static sleeper.configuration.properties.table.TableProperty.QUERY_PROCESSOR_MAX_LOCAL_SUB_QUERIES;
+import static sleeper.configuration.properties.table.TableProperty.TABLE_NAME;
 
 public class SqsQueryProcessor {
     private static final Logger LOGGER = LoggerFactory.getLogger(SqsQueryProcessorLambda.class);
     private static final UserDefinedInstanceProperty EXECUTOR_POOL_THREADS = QUERY_PROCESSOR_LAMBDA_RECORD_RETRIEVAL_THREADS;
+    private static final int MAX_BATCH_SIZE = 10;
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+    private static final long FIRST_RETRY_WAIT_MILLIS = 200L;
 
     private final ExecutorService executorService;
-    private final InstanceProperties instanceProperties;
+    private final ExecutorService subQueryExecutorService;
     private final AmazonSQS sqsClient;
-    private final TablePropertiesProvider tablePropertiesProvider;
+    // These are replaced when the lambda reloads its properties
+    private volatile InstanceProperties instanceProperties;
+    private volatile TablePropertiesProvider tablePropertiesProvider;
     private final StateStoreProvider stateStoreProvider;
     private final ObjectFactory objectFactory;
-    private final DynamoDBQueryTracker queryTracker;
-    private final Map<String, QueryExecutor> queryExecutorCache = new HashMap<>();
-    private final Map<String, Configuration> configurationCache = new HashMap<>();
+    private final QueryStatusReportListener queryTracker;
+    private final QueryExecutorCache queryExecutorCache;
+    private final LeafPartitionQueryResultCache resultCache;
+    private final Map<String, Configuration> configurationCache = new ConcurrentHashMap<>();
+    private final RetryWaiter retryWaiter;
 
     private SqsQueryProcessor(Builder builder) throws ObjectFactoryException {
         sqsClient = builder.sqsClient;
         instanceProperties = builder.instanceProperties;
         tablePropertiesProvider = builder.tablePropertiesProvider;
         executorService = Executors.newFixedThreadPool(instanceProperties.getInt(EXECUTOR_POOL_THREADS));
+        // Sub queries are run on a separate thread pool, as each one waits for tasks on the record retrieval pool
+        subQueryExecutorService = Executors.newCachedThreadPool();
         objectFactory = new ObjectFactory(instanceProperties, builder.s3Client, "/tmp");
-        queryTracker = new DynamoDBQueryTracker(instanceProperties, builder.dynamoClient);
-        // The following Configuration is only used in StateStoreProvider for reading from S3 if the S3StateStore is used,
-        // so use the standard Configuration rather than the one for query lambdas which is specific to the table.
-        Configuration confForStateStore = HadoopConfigurationProvider.getConfigurationForLambdas(instanceProperties);
-        stateStoreProvider = new StateStoreProvider(builder.dynamoClient, instanceProperties, confForStateStore);
+        if (null != builder.queryTracker) {
+            queryTracker = builder.queryTracker;
+        } else {
+            queryTracker = new DynamoDBQueryTracker(instanceProperties, builder.dynamoClient);
+        }
+        if (null != builder.stateStoreProvider) {
+            stateStoreProvider = builder.stateStoreProvider;
+        } else {
+            // The following Configuration is only used in StateStoreProvider for reading from S3 if the S3StateStore is used,
+            // so use the standard Configuration rather than the one for query lambdas which is specific to the table.
+            Configuration confForStateStore = HadoopConfigurationProvider.getConfigurationForLambdas(instanceProperties);
+            stateStoreProvider = new StateStoreProvider(builder.dynamoClient, instanceProperties, confForStateStore);
+        }
+        retryWaiter = builder.retryWaiter;
+        queryExecutorCache = new QueryExecutorCache(
+                tableName -> this.tablePropertiesProvider.getTableProperties(tableName), this::createQueryExecutor,
+                Executors.newSingleThreadExecutor(SqsQueryProcessor::createRefreshThread), Instant::now);
+        resultCache = LeafPartitionQueryResultCache.from(instanceProperties);
+        ParquetFooterCache.configureForProcess(instanceProperties);
+        LocalBlockCache.configureForProcess(instanceProperties);
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
+    /**
+     * Replaces the instance and table properties used by later queries. The state of each table held by the query
+     * executor cache is kept, and picks up the new table properties when it is next refreshed.
+     *
+     * @param instanceProperties      the instance properties
+     * @param tablePropertiesProvider the provider for table properties
+     */
+    public void updateProperties(InstanceProperties instanceProperties, TablePropertiesProvider tablePropertiesProvider) {
+        this.instanceProperties = instanceProperties;
+        this.tablePropertiesProvider = tablePropertiesProvider;
+        configurationCache.clear();
+    }
+
     public void processQuery(Query query) {
+        TableProperties tableProperties = tablePropertiesProvider.getTableProperties(query.getTableName());
+        Configuration conf = getConfiguration(query.getTableName(), tableProperties);
+        processQuery(query, tableProperties, conf);
+    }
+
+    private void processQuery(Query query, TableProperties tableProperties, Configuration conf) {
         QueryStatusReportListeners queryTrackers = QueryStatusReportListeners.fromConfig(query.getStatusReportDestinations());
         queryTrackers.add(queryTracker);
 
         CloseableIterator<Record> results;
         try {
             queryTrackers.queryInProgress(query);
-            TableProperties tableProperties = tablePropertiesProvider.getTableProperties(query.getTableName());
             if (query instanceof LeafPartitionQuery) {
-                results = processLeafPartitionQuery((LeafPartitionQuery) query);
+                results = processLeafPartitionQuery((LeafPartitionQuery) query, queryTrackers, tableProperties, conf);
             } else {
-                results = processRangeQuery(query, queryTrackers);
+                results = processRangeQuery(query, queryTrackers, tableProperties, conf);
             }
             if (null != results) {
                 publishResults(results, query, tableProperties, queryTrackers);
@@ -111,31 +171,27 @@ public class SqsQueryProcessor {
             LOGGER.error("Exception thrown executing query", e);
             queryTrackers.queryFailed(query, e);
         }
+        LocalBlockCache blockCache = LocalBlockCache.forProcess();
+        if (blockCache.isEnabled()) {
+            LOGGER.info("Local block cache statistics: {}", blockCache);
+        }
     }
 
-    private CloseableIterator<Record> processRangeQuery(Query query, QueryStatusReportListeners queryTrackers) throws StateStoreException, QueryException {
+    private CloseableIterator<Record> processRangeQuery(Query query, QueryStatusReportListeners queryTrackers,
+                                                        TableProperties tableProperties, Configuration conf) throws StateStoreException, QueryException {
         // Split query over leaf partitions
-        if (!queryExecutorCache.containsKey(query.getTableName())) {
-            TableProperties tableProperties = tablePropertiesProvider.getTableProperties(query.getTableName());
-            StateStore stateStore = stateStoreProvider.getStateStore(tableProperties);
-            Configuration conf = getConfiguration(query.getTableName(), tableProperties);
-            QueryExecutor queryExecutor = new QueryExecutor(objectFactory, tableProperties, stateStore, conf, executorService);
-            queryExecutor.init();
-            queryExecutorCache.put(query.getTableName(), queryExecutor);
-        }
-        QueryExecutor queryExecutor = queryExecutorCache.get(query.getTableName());
+        QueryExecutor queryExecutor = queryExecutorCache.getQueryExecutor(query.getTableName());
         List<LeafPartitionQuery> subQueries = queryExecutor.splitIntoLeafPartitionQueries(query);
 
         if (subQueries.size() > 1) {
-            // Put these subqueries back onto the queue so that they
-            // can be processed independently
-            String sqsQueryQueueURL = instanceProperties.get(QUERY_QUEUE_URL);
-            for (LeafPartitionQuery subQuery : subQueries) {
-                String serialisedQuery = new QuerySerDe(tablePropertiesProvider).toJson(subQuery);
-                sqsClient.sendMessage(sqsQueryQueueURL, serialisedQuery);
-            }
+            // Run some subqueries here, and put the rest back onto the queue so that
+            // they can be processed independently
             queryTrackers.subQueriesCreated(query, subQueries);
-            LOGGER.info("Submitted {} subqueries to queue", subQueries.size());
+            int numLocal = Math.min(subQueries.size(), tableProperties.getInt(QUERY_PROCESSOR_MAX_LOCAL_SUB_QUERIES));
+            List<LeafPartitionQuery> queuedSubQueries = subQueries.subList(numLocal, subQueries.size());
+            sendToQueue(queuedSubQueries, queryTrackers);
+            LOGGER.info("Submitted {} subqueries to queue", queuedSubQueries.size());
+            processLocally(subQueries.subList(0, numLocal), tableProperties, conf);
             return null;
         } else if (subQueries.isEmpty()) {
             LOGGER.error("Query led to no sub queries");
@@ -146,27 +202,139 @@ public class SqsQueryProcessor {
             return null;
         } else {
             // If only 1 subquery then execute now
-            return queryExecutor.execute(query);
+            return processLeafPartitionQuery(subQueries.get(0), queryTrackers, tableProperties, conf);
         }
     }
 
-    private CloseableIterator<Record> processLeafPartitionQuery(LeafPartitionQuery leafPartitionQuery) throws QueryException {
-        TableProperties tableProperties = tablePropertiesProvider.getTableProperties(leafPartitionQuery.getTableName());
-        Configuration conf = getConfiguration(leafPartitionQuery.getTableName(), tableProperties);
-        LeafPartitionQueryExecutor leafPartitionQueryExecutor = new LeafPartitionQueryExecutor(executorService, objectFactory, conf, tableProperties);
-        return leafPartitionQueryExecutor.getRecords(leafPartitionQuery);
+    /**
+     * Sends sub queries to the query queue in batch requests. SQS accepts up to 10 messages in each request. Any sub
+     * query which could not be sent is reported as failed.
+     *
+     * @param subQueries the sub queries
+     * @param queryTrackers the listeners to report failures to
+     */
+    private void sendToQueue(List<LeafPartitionQuery> subQueries, QueryStatusReportListeners queryTrackers) {
+        String sqsQueryQueueURL = instanceProperties.get(QUERY_QUEUE_URL);
+        QuerySerDe querySerDe = new QuerySerDe(tablePropertiesProvider);
+        for (int i = 0; i < subQueries.size(); i += MAX_BATCH_SIZE) {
+            List<LeafPartitionQuery> batch = subQueries.subList(i, Math.min(i + MAX_BATCH_SIZE, subQueries.size()));
+            Map<String, SendMessageBatchRequestEntry> entriesById = new LinkedHashMap<>();
+            for (int j = 0; j < batch.size(); j++) {
+                String entryId = String.valueOf(j);
+                entriesById.put(entryId, new SendMessageBatchRequestEntry()
+                        .withId(entryId)
+                        .withMessageBody(querySerDe.toJson(batch.get(j))));
+            }
+            Exception failure = null;
+            try {
+                sendBatchWithRetries(sqsQueryQueueURL, entriesById);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+            } catch (RuntimeException e) {
+                // Carry on with the other batches and the local sub queries, and report this batch as failed
+                failure = e;
+            }
+            for (String entryId : entriesById.keySet()) {
+                LeafPartitionQuery subQuery = batch.get(Integer.parseInt(entryId));
+                LOGGER.error("Failed to send subquery {} to queue", subQuery.getSubQueryId(), failure);
+                queryTrackers.queryFailed(subQuery, new IOException("Failed to send subquery to queue", failure));
+            }
+        }
     }
 
-    private Configuration getConfiguration(String tableName, TableProperties tableProperties) {
-        if (!configurationCache.containsKey(tableName)) {
-            Configuration conf = HadoopConfigurationProvider.getConfigurationForQueryLambdas(instanceProperties, tableProperties);
-            configurationCache.put(tableName, conf);
+    private void sendBatchWithRetries(String queueUrl, Map<String, SendMessageBatchRequestEntry> entriesById) throws InterruptedException {
+        for (int attempt = 1; attempt <= MAX_BATCH_ATTEMPTS && !entriesById.isEmpty(); attempt++) {
+            if (attempt > 1) {
+                // Failed entries are often throttled, so back off exponentially before retrying them
+                retryWaiter.waitBeforeRetry(FIRST_RETRY_WAIT_MILLIS << (attempt - 2));
+            }
+            SendMessageBatchResult result = sqsClient.sendMessageBatch(new SendMessageBatchRequest()
+                    .withQueueUrl(queueUrl)
+                    .withEntries(new ArrayList<>(entriesById.values())));
+            for (SendMessageBatchResultEntry successful : result.getSuccessful()) {
+                entriesById.remove(successful.getId());
+            }
+        }
+    }
+
+    /**
+     * Runs sub queries in parallel in this query processor, and waits for them to finish. Each sub query publishes its
+     * results and reports its status in the same way as if it had been received from the query queue. The table
+     * properties and Hadoop configuration are looked up once by the caller and shared by the sub queries.
+     *
+     * @param subQueries      the sub queries
+     * @param tableProperties the properties of the table being queried
+     * @param conf            the Hadoop configuration for the table
+     */
+    private void processLocally(List<LeafPartitionQuery> subQueries, TableProperties tableProperties, Configuration conf) {
+        if (subQueries.isEmpty()) {
+            return;
+        }
+        LOGGER.info("Running {} subqueries in this query processor", subQueries.size());
+        List<Future<?>> futures = new ArrayList<>();
+        for (LeafPartitionQuery subQuery : subQueries) {
+            futures.add(subQueryExecutorService.submit(() -> processQuery(subQuery, tableProperties, conf)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.error("Interrupted waiting for subqueries to finish", e);
+                return;
+            } catch (ExecutionException e) {
+                LOGGER.error("Exception running subquery", e);
+            }
+        }
+    }
+
+    private CloseableIterator<Record> processLeafPartitionQuery(LeafPartitionQuery leafPartitionQuery, QueryStatusReportListeners queryTrackers,
+                                                                TableProperties tableProperties, Configuration conf) throws StateStoreException, QueryException {
+        LeafPartitionQueryExecutor leafPartitionQueryExecutor = new LeafPartitionQueryExecutor(executorService, objectFactory, conf, tableProperties, resultCache);
+        try {
+            return leafPartitionQueryExecutor.getRecords(leafPartitionQuery, queryTrackers);
+        } catch (QueryException e) {
+            if (!isFileNotFound(e)) {
+                throw e;
+            }
+            // A file may have been garbage collected since the sub query was created, so split it up again against
+            // the current state of the table
+            LOGGER.warn("File not found for sub query {}, retrying against the latest partitions and files",
+                    leafPartitionQuery.getSubQueryId(), e);
+            QueryExecutor queryExecutor = queryExecutorCache.refreshNow(leafPartitionQuery.getTableName());
+            return queryExecutor.execute(queryExecutor.splitAgainstCurrentPartitions(leafPartitionQuery));
+        }
+    }
+
+    private static boolean isFileNotFound(Throwable e) {
+        for (Throwable cause = e; null != cause; cause = cause.getCause()) {
+            if (cause instanceof FileNotFoundException) {
+                return true;
+            }
         }
-        return configurationCache.get(tableName);
+        return false;
+    }
+
+    private QueryExecutor createQueryExecutor(TableProperties tableProperties) {
+        StateStore stateStore = stateStoreProvider.getStateStore(tableProperties);
+        Configuration conf = getConfiguration(tableProperties.get(TABLE_NAME), tableProperties);
+        return new QueryExecutor(objectFactory, tableProperties, stateStore, conf, executorService);
+    }
+
+    private static Thread createRefreshThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "query-executor-refresh");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private Configuration getConfiguration(String tableName, TableProperties tableProperties) {
+        return configurationCache.computeIfAbsent(tableName,
+                name -> HadoopConfigurationProvider.getConfigurationForQueryLambdas(instanceProperties, tableProperties));
     }
 
     private void publishResults(CloseableIterator<Record> results, Query query, TableProperties tableProperties, QueryStatusReportListeners queryTrackers) {
-        Schema schema = tablePropertiesProvider.getTableProperties(query.getTableName()).getSchema();
+        Schema schema = tableProperties.getSchema();
 
         try {
             ResultsOutputInfo outputInfo;
@@ -177,7 +345,7 @@ public class SqsQueryProcessor {
             } else if (S3ResultsOutput.S3.equals(query.getResultsPublisherConfig().get(ResultsOutputConstants.DESTINATION))) {
                 outputInfo = new S3ResultsOutput(instanceProperties, tableProperties, query.getResultsPublisherConfig()).publish(query, results);
             } else if (WebSocketResultsOutput.DESTINATION_NAME.equals(query.getResultsPublisherConfig().get(ResultsOutputConstants.DESTINATION))) {
-                outputInfo = new WebSocketResultsOutput(query.getResultsPublisherConfig()).publish(query, results);
+                outputInfo = new WebSocketResultsOutput(schema, query.getResultsPublisherConfig()).publish(query, results);
             } else {
                 LOGGER.info("Unknown results publisher from config " + query.getResultsPublisherConfig());
                 outputInfo = new ResultsOutputInfo(0, Collections.emptyList(), new IOException("Unknown results publisher from config " + query.getResultsPublisherConfig()));
@@ -190,12 +358,23 @@ public class SqsQueryProcessor {
         }
     }
 
+    /**
+     * Waits before a batch of sub queries is sent to the query queue again.
+     */
+    @FunctionalInterface
+    public interface RetryWaiter {
+        void waitBeforeRetry(long millis) throws InterruptedException;
+    }
+
     public static final class Builder {
         private AmazonSQS sqsClient;
         private AmazonS3 s3Client;
         private AmazonDynamoDB dynamoClient;
         private InstanceProperties instanceProperties;
         private TablePropertiesProvider tablePropertiesProvider;
+        private StateStoreProvider stateStoreProvider;
+        private QueryStatusReportListener queryTracker;
+        private RetryWaiter retryWaiter = Thread::sleep;
 
         private Builder() {
         }
@@ -225,6 +404,21 @@ public class SqsQueryProcessor {
             return this;
         }
 
+        public Builder stateStoreProvider(StateStoreProvider stateStoreProvider) {
+            this.stateStoreProvider = stateStoreProvider;
+            return this;
+        }
+
+        public Builder queryTracker(QueryStatusReportListener queryTracker) {
+            this.queryTracker = queryTracker;
+            return this;
+        }
+
+        public Builder retryWaiter(RetryWaiter retryWaiter) {
+            this.retryWaiter = retryWaiter;
+            return this;
+        }
+
         public SqsQueryProcessor build() throws ObjectFactoryException {
             return new SqsQueryProcessor(this);
         }
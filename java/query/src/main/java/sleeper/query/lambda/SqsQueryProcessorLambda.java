@@ -43,19 +43,19 @@ import static sleeper.configuration.properties.instance.SystemDefinedInstancePro
  * A lambda that is triggered when a serialised query arrives on an SQS queue. A processor executes the request using a
  * {@link sleeper.query.executor.QueryExecutor} and publishes the results to either SQS or S3 based on the configuration of the query.
  * The processor contains a cache that includes mappings from partitions to files in those partitions. This is reused by
- * subsequent calls to the lambda if the AWS runtime chooses to reuse the instance.
+ * subsequent calls to the lambda if the AWS runtime chooses to reuse the instance, and is refreshed by the processor
+ * when it becomes stale. The instance and table properties are reloaded periodically.
  */
 @SuppressWarnings("unused")
 public class SqsQueryProcessorLambda implements RequestHandler<SQSEvent, Void> {
     private static final Logger LOGGER = LoggerFactory.getLogger(SqsQueryProcessorLambda.class);
 
-    private long lastUpdateTime;
-    private InstanceProperties instanceProperties;
-    private final AmazonSQS sqsClient;
     private final AmazonS3 s3Client;
-    private final AmazonDynamoDB dynamoClient;
+    private final String configBucket;
+    private final SqsQueryProcessor processor;
+    private InstanceProperties instanceProperties;
     private QuerySerDe serde;
-    private SqsQueryProcessor processor;
+    private long lastUpdateTime;
 
     public SqsQueryProcessorLambda() throws ObjectFactoryException {
         this(AmazonS3ClientBuilder.defaultClient(), AmazonSQSClientBuilder.defaultClient(),
@@ -63,19 +63,25 @@ public class SqsQueryProcessorLambda implements RequestHandler<SQSEvent, Void> {
     }
 
     public SqsQueryProcessorLambda(AmazonS3 s3Client, AmazonSQS sqsClient, AmazonDynamoDB dynamoClient, String configBucket) throws ObjectFactoryException {
+        if (null == configBucket) {
+            LOGGER.error("Config Bucket was null. Was an environment variable missing?");
+            throw new RuntimeException("Error: can't find S3 bucket from environment variable");
+        }
         this.s3Client = s3Client;
-        this.sqsClient = sqsClient;
-        this.dynamoClient = dynamoClient;
-        updateProperties(configBucket);
+        this.configBucket = configBucket;
+        instanceProperties = loadInstanceProperties(s3Client, configBucket);
+        TablePropertiesProvider tablePropertiesProvider = new TablePropertiesProvider(s3Client, instanceProperties);
+        serde = new QuerySerDe(tablePropertiesProvider);
+        processor = SqsQueryProcessor.builder()
+                .sqsClient(sqsClient).s3Client(s3Client).dynamoClient(dynamoClient)
+                .instanceProperties(instanceProperties).tablePropertiesProvider(tablePropertiesProvider)
+                .build();
+        lastUpdateTime = System.currentTimeMillis();
     }
 
     @Override
     public Void handleRequest(SQSEvent event, Context context) {
-        try {
-            updateStateIfNecessary();
-        } catch (ObjectFactoryException e) {
-            throw new RuntimeException("ObjectFactoryException updating state", e);
-        }
+        updatePropertiesIfNecessary();
 
         for (SQSEvent.SQSMessage message : event.getRecords()) {
             LOGGER.info("Received message with body {}", message.getBody());
@@ -92,29 +98,18 @@ public class SqsQueryProcessorLambda implements RequestHandler<SQSEvent, Void> {
         return null;
     }
 
-    private void updateStateIfNecessary() throws ObjectFactoryException {
+    private void updatePropertiesIfNecessary() {
         double timeSinceLastUpdatedInSeconds = (System.currentTimeMillis() - lastUpdateTime) / 1000.0;
         int stateRefreshingPeriod = instanceProperties.getInt(QUERY_PROCESSING_LAMBDA_STATE_REFRESHING_PERIOD_IN_SECONDS);
         if (timeSinceLastUpdatedInSeconds > stateRefreshingPeriod) {
-            LOGGER.info("Mapping of partition to files was last updated {} seconds ago, so refreshing", timeSinceLastUpdatedInSeconds);
-            updateProperties(instanceProperties.get(CONFIG_BUCKET));
-        }
-    }
-
-    private void updateProperties(String configBucket) throws ObjectFactoryException {
-        // Refresh properties and caches
-        if (null == configBucket) {
-            LOGGER.error("Config Bucket was null. Was an environment variable missing?");
-            throw new RuntimeException("Error: can't find S3 bucket from environment variable");
+            // The partitions and files for each table are refreshed separately by the processor
+            LOGGER.info("Properties were last loaded {} seconds ago, so reloading", timeSinceLastUpdatedInSeconds);
+            instanceProperties = loadInstanceProperties(s3Client, configBucket);
+            TablePropertiesProvider tablePropertiesProvider = new TablePropertiesProvider(s3Client, instanceProperties);
+            serde = new QuerySerDe(tablePropertiesProvider);
+            processor.updateProperties(instanceProperties, tablePropertiesProvider);
+            lastUpdateTime = System.currentTimeMillis();
         }
-        instanceProperties = loadInstanceProperties(s3Client, configBucket);
-        TablePropertiesProvider tablePropertiesProvider = new TablePropertiesProvider(s3Client, instanceProperties);
-        serde = new QuerySerDe(tablePropertiesProvider);
-        processor = SqsQueryProcessor.builder()
-                .sqsClient(sqsClient).s3Client(s3Client).dynamoClient(dynamoClient)
-                .instanceProperties(instanceProperties).tablePropertiesProvider(tablePropertiesProvider)
-                .build();
-        lastUpdateTime = System.currentTimeMillis();
     }
 
     private static InstanceProperties loadInstanceProperties(AmazonS3 s3Client, String configBucket) {
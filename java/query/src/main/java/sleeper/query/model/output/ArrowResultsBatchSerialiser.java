@@ -0,0 +1,299 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.query.model.output;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.complex.StructVector;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.FieldType;
+
+import sleeper.core.record.Record;
+import sleeper.core.record.ResultsBatch;
+import sleeper.core.record.serialiser.ResultsBatchSerialiser;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.SchemaSerDe;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.ListType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.MapType;
+import sleeper.core.schema.type.StringType;
+import sleeper.core.schema.type.Type;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Serialises and deserialises a {@link ResultsBatch} of {@link Record}s to and from a compressed Arrow IPC stream.
+ * This holds the records in a single Arrow record batch, with each field in a column, which is much smaller and
+ * quicker to write than JSON for wide rows of numeric fields. The query ID and the Sleeper schema are held in the
+ * metadata of the Arrow schema. The stream is compressed with deflate, and encoded in base64 where it must be sent as
+ * text.
+ * <p>
+ * Maps are held as a list of structs with a key and a value, in the same way as in Arrow ingest.
+ * <p>
+ * Arrow memory for each batch is taken from a child of the given allocator, which is closed once the batch has been
+ * serialised or deserialised. By default the child allocators are created from a single root allocator shared by the
+ * process.
+ */
+public class ArrowResultsBatchSerialiser implements ResultsBatchSerialiser {
+    public static final String QUERY_ID_METADATA_KEY = "sleeper.query.id";
+    public static final String SCHEMA_METADATA_KEY = "sleeper.schema";
+    private static final String LIST_ELEMENT_FIELD_NAME = "element";
+    private static final String MAP_ENTRY_FIELD_NAME = "entry";
+    private static final String MAP_KEY_FIELD_NAME = "key";
+    private static final String MAP_VALUE_FIELD_NAME = "value";
+    private static final BufferAllocator SHARED_ROOT_ALLOCATOR = new RootAllocator();
+
+    private final BufferAllocator allocator;
+    private final SchemaSerDe schemaSerDe = new SchemaSerDe();
+
+    public ArrowResultsBatchSerialiser() {
+        this(SHARED_ROOT_ALLOCATOR);
+    }
+
+    public ArrowResultsBatchSerialiser(BufferAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    @Override
+    public String serialise(ResultsBatch resultsBatch) throws IOException {
+        return Base64.getEncoder().encodeToString(serialiseToBytes(resultsBatch));
+    }
+
+    @Override
+    public ResultsBatch deserialise(String serialisedResultsBatch) throws IOException {
+        return deserialiseFromBytes(Base64.getDecoder().decode(serialisedResultsBatch));
+    }
+
+    /**
+     * Serialises a batch of records to a compressed Arrow IPC stream.
+     *
+     * @param resultsBatch the batch of records
+     * @return the compressed stream
+     * @throws IOException if the stream could not be written
+     */
+    public byte[] serialiseToBytes(ResultsBatch resultsBatch) throws IOException {
+        Schema schema = resultsBatch.getSchema();
+        List<Field> fields = schema.getAllFields();
+        List<Record> records = resultsBatch.getRecords();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (BufferAllocator batchAllocator = allocator.newChildAllocator("serialise-results-batch", 0, Long.MAX_VALUE);
+             VectorSchemaRoot root = VectorSchemaRoot.create(arrowSchema(resultsBatch), batchAllocator);
+             OutputStream out = new DeflaterOutputStream(bytes, deflater);
+             ArrowStreamWriter writer = new ArrowStreamWriter(root, null, Channels.newChannel(out))) {
+            for (int fieldNo = 0; fieldNo < fields.size(); fieldNo++) {
+                Field field = fields.get(fieldNo);
+                FieldVector vector = root.getVector(fieldNo);
+                vector.allocateNew();
+                for (int row = 0; row < records.size(); row++) {
+                    writeValue(vector, field.getType(), row, records.get(row).get(field.getName()));
+                }
+                vector.setValueCount(records.size());
+            }
+            root.setRowCount(records.size());
+            writer.start();
+            writer.writeBatch();
+            writer.end();
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserialises a batch of records from a compressed Arrow IPC stream.
+     *
+     * @param bytes the compressed stream
+     * @return the batch of records
+     * @throws IOException if the stream could not be read
+     */
+    public ResultsBatch deserialiseFromBytes(byte[] bytes) throws IOException {
+        Inflater inflater = new Inflater();
+        try (BufferAllocator batchAllocator = allocator.newChildAllocator("deserialise-results-batch", 0, Long.MAX_VALUE);
+             InputStream in = new InflaterInputStream(new ByteArrayInputStream(bytes), inflater);
+             ArrowStreamReader reader = new ArrowStreamReader(in, batchAllocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            Map<String, String> metadata = root.getSchema().getCustomMetadata();
+            String queryId = metadata.get(QUERY_ID_METADATA_KEY);
+            Schema schema = schemaSerDe.fromJson(metadata.get(SCHEMA_METADATA_KEY));
+            List<Field> fields = schema.getAllFields();
+            List<Record> records = new ArrayList<>();
+            while (reader.loadNextBatch()) {
+                for (int row = 0; row < root.getRowCount(); row++) {
+                    Record record = new Record();
+                    for (int fieldNo = 0; fieldNo < fields.size(); fieldNo++) {
+                        Field field = fields.get(fieldNo);
+                        record.put(field.getName(), readValue(root.getVector(fieldNo), field.getType(), row));
+                    }
+                    records.add(record);
+                }
+            }
+            return new ResultsBatch(queryId, schema, records);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private org.apache.arrow.vector.types.pojo.Schema arrowSchema(ResultsBatch resultsBatch) {
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(QUERY_ID_METADATA_KEY, resultsBatch.getQueryId());
+        metadata.put(SCHEMA_METADATA_KEY, schemaSerDe.toJson(resultsBatch.getSchema()));
+        return new org.apache.arrow.vector.types.pojo.Schema(
+                resultsBatch.getSchema().getAllFields().stream()
+                        .map(field -> arrowField(field.getName(), field.getType()))
+                        .collect(Collectors.toList()),
+                metadata);
+    }
+
+    private static org.apache.arrow.vector.types.pojo.Field arrowField(String name, Type type) {
+        if (type instanceof IntType) {
+            return org.apache.arrow.vector.types.pojo.Field.nullable(name, new ArrowType.Int(32, true));
+        } else if (type instanceof LongType) {
+            return org.apache.arrow.vector.types.pojo.Field.nullable(name, new ArrowType.Int(64, true));
+        } else if (type instanceof StringType) {
+            return org.apache.arrow.vector.types.pojo.Field.nullable(name, new ArrowType.Utf8());
+        } else if (type instanceof ByteArrayType) {
+            return org.apache.arrow.vector.types.pojo.Field.nullable(name, new ArrowType.Binary());
+        } else if (type instanceof ListType) {
+            return new org.apache.arrow.vector.types.pojo.Field(name, FieldType.nullable(new ArrowType.List()),
+                    List.of(arrowField(LIST_ELEMENT_FIELD_NAME, ((ListType) type).getElementType())));
+        } else if (type instanceof MapType) {
+            MapType mapType = (MapType) type;
+            org.apache.arrow.vector.types.pojo.Field entry = new org.apache.arrow.vector.types.pojo.Field(
+                    MAP_ENTRY_FIELD_NAME, FieldType.notNullable(new ArrowType.Struct()),
+                    List.of(arrowField(MAP_KEY_FIELD_NAME, mapType.getKeyType()),
+                            arrowField(MAP_VALUE_FIELD_NAME, mapType.getValueType())));
+            return new org.apache.arrow.vector.types.pojo.Field(name, FieldType.nullable(new ArrowType.List()), List.of(entry));
+        } else {
+            throw new IllegalArgumentException("Unknown type " + type);
+        }
+    }
+
+    private static void writeValue(ValueVector vector, Type type, int index, Object value) {
+        if (null == value) {
+            writeNull(vector, index);
+        } else if (type instanceof IntType) {
+            ((IntVector) vector).setSafe(index, (int) value);
+        } else if (type instanceof LongType) {
+            ((BigIntVector) vector).setSafe(index, (long) value);
+        } else if (type instanceof StringType) {
+            ((BaseVariableWidthVector) vector).setSafe(index, ((String) value).getBytes(StandardCharsets.UTF_8));
+        } else if (type instanceof ByteArrayType) {
+            ((BaseVariableWidthVector) vector).setSafe(index, (byte[]) value);
+        } else if (type instanceof ListType) {
+            ListVector listVector = (ListVector) vector;
+            List<?> list = (List<?>) value;
+            Type elementType = ((ListType) type).getElementType();
+            int offset = listVector.startNewValue(index);
+            for (int i = 0; i < list.size(); i++) {
+                writeValue(listVector.getDataVector(), elementType, offset + i, list.get(i));
+            }
+            listVector.endValue(index, list.size());
+        } else if (type instanceof MapType) {
+            ListVector listVector = (ListVector) vector;
+            StructVector entries = (StructVector) listVector.getDataVector();
+            MapType mapType = (MapType) type;
+            int entryIndex = listVector.startNewValue(index);
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                entries.setIndexDefined(entryIndex);
+                writeValue(entries.getChild(MAP_KEY_FIELD_NAME), mapType.getKeyType(), entryIndex, entry.getKey());
+                writeValue(entries.getChild(MAP_VALUE_FIELD_NAME), mapType.getValueType(), entryIndex, entry.getValue());
+                entryIndex++;
+            }
+            listVector.endValue(index, ((Map<?, ?>) value).size());
+        } else {
+            throw new IllegalArgumentException("Unknown type " + type);
+        }
+    }
+
+    private static void writeNull(ValueVector vector, int index) {
+        if (vector instanceof IntVector) {
+            ((IntVector) vector).setNull(index);
+        } else if (vector instanceof BigIntVector) {
+            ((BigIntVector) vector).setNull(index);
+        } else if (vector instanceof BaseVariableWidthVector) {
+            ((BaseVariableWidthVector) vector).setNull(index);
+        } else if (vector instanceof ListVector) {
+            ((ListVector) vector).setNull(index);
+        } else {
+            throw new IllegalArgumentException("Unexpected vector " + vector);
+        }
+    }
+
+    private static Object readValue(ValueVector vector, Type type, int index) {
+        if (vector.isNull(index)) {
+            return null;
+        } else if (type instanceof IntType) {
+            return ((IntVector) vector).get(index);
+        } else if (type instanceof LongType) {
+            return ((BigIntVector) vector).get(index);
+        } else if (type instanceof StringType) {
+            return new String(((VarCharVector) vector).get(index), StandardCharsets.UTF_8);
+        } else if (type instanceof ByteArrayType) {
+            return ((VarBinaryVector) vector).get(index);
+        } else if (type instanceof ListType) {
+            ListVector listVector = (ListVector) vector;
+            Type elementType = ((ListType) type).getElementType();
+            List<Object> list = new ArrayList<>();
+            for (int i = listVector.getElementStartIndex(index); i < listVector.getElementEndIndex(index); i++) {
+                list.add(readValue(listVector.getDataVector(), elementType, i));
+            }
+            return list;
+        } else if (type instanceof MapType) {
+            ListVector listVector = (ListVector) vector;
+            StructVector entries = (StructVector) listVector.getDataVector();
+            MapType mapType = (MapType) type;
+            Map<Object, Object> map = new HashMap<>();
+            for (int i = listVector.getElementStartIndex(index); i < listVector.getElementEndIndex(index); i++) {
+                map.put(readValue(entries.getChild(MAP_KEY_FIELD_NAME), mapType.getKeyType(), i),
+                        readValue(entries.getChild(MAP_VALUE_FIELD_NAME), mapType.getValueType(), i));
+            }
+            return map;
+        } else {
+            throw new IllegalArgumentException("Unknown type " + type);
+        }
+    }
+}
@@ -15,10 +15,26 @@
  */
 package sleeper.query.model.output;
 
+import java.util.Map;
+
 public class ResultsOutputConstants {
 
     private ResultsOutputConstants() {
     }
 
     public static final String DESTINATION = "destination";
+    public static final String RESULTS_FORMAT = "resultsFormat";
+    public static final String JSON_FORMAT = "JSON";
+    public static final String ARROW_FORMAT = "ARROW";
+
+    /**
+     * Checks whether results should be sent as compressed Arrow record batches rather than JSON. JSON is used unless
+     * the results publisher config of the query sets the format to Arrow.
+     *
+     * @param config the results publisher config
+     * @return true if results should be sent in Arrow format
+     */
+    public static boolean isArrowFormat(Map<String, String> config) {
+        return ARROW_FORMAT.equalsIgnoreCase(config.get(RESULTS_FORMAT));
+    }
 }
@@ -16,6 +16,7 @@
 package sleeper.query.model.output;
 
 import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
 import com.amazonaws.services.sqs.model.SendMessageRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +26,7 @@ import sleeper.core.iterator.CloseableIterator;
 import sleeper.core.record.Record;
 import sleeper.core.record.ResultsBatch;
 import sleeper.core.record.serialiser.JSONResultsBatchSerialiser;
+import sleeper.core.record.serialiser.ResultsBatchSerialiser;
 import sleeper.core.schema.Schema;
 import sleeper.query.model.Query;
 
@@ -51,6 +53,8 @@ public class SQSResultsOutput implements ResultsOutput {
     private String sqsUrl;
     private final int batchSize;
     private final ResultsOutputLocation outputLocation;
+    private final String resultsFormat;
+    private final ResultsBatchSerialiser serialiser;
 
     public SQSResultsOutput(InstanceProperties instanceProperties, AmazonSQS amazonSQS, Schema schema, Map<String, String> config) {
         this.amazonSQS = amazonSQS;
@@ -64,6 +68,13 @@ public class SQSResultsOutput implements ResultsOutput {
         }
         this.outputLocation = new ResultsOutputLocation("sqs", this.sqsUrl);
         this.batchSize = null != config.get(BATCH_SIZE) ? Integer.parseInt(config.get(BATCH_SIZE)) : instanceProperties.getInt(QUERY_PROCESSING_LAMBDA_RESULTS_BATCH_SIZE);
+        if (ResultsOutputConstants.isArrowFormat(config)) {
+            this.resultsFormat = ResultsOutputConstants.ARROW_FORMAT;
+            this.serialiser = new ArrowResultsBatchSerialiser();
+        } else {
+            this.resultsFormat = ResultsOutputConstants.JSON_FORMAT;
+            this.serialiser = new JSONResultsBatchSerialiser();
+        }
     }
 
     @Override
@@ -113,10 +124,13 @@ public class SQSResultsOutput implements ResultsOutput {
     }
 
     private void sendResultsToSQS(ResultsBatch resultsBatch, String sqsUrl) throws IOException {
-        String serialisedResults = new JSONResultsBatchSerialiser().serialise(resultsBatch);
+        String serialisedResults = serialiser.serialise(resultsBatch);
         SendMessageRequest sendMessageRequest = new SendMessageRequest()
                 .withQueueUrl(sqsUrl)
-                .withMessageBody(serialisedResults);
+                .withMessageBody(serialisedResults)
+                .addMessageAttributesEntry(ResultsOutputConstants.RESULTS_FORMAT, new MessageAttributeValue()
+                        .withDataType("String")
+                        .withStringValue(resultsFormat));
         amazonSQS.sendMessage(sendMessageRequest);
     }
 }
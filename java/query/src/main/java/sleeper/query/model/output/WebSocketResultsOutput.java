@@ -20,12 +20,14 @@ import org.slf4j.LoggerFactory;
 
 import sleeper.core.iterator.CloseableIterator;
 import sleeper.core.record.Record;
+import sleeper.core.record.ResultsBatch;
+import sleeper.core.schema.Schema;
 import sleeper.query.model.Query;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -39,12 +41,27 @@ public class WebSocketResultsOutput extends WebSocketOutput implements ResultsOu
 
     private final List<ResultsOutputLocation> outputLocations = new ArrayList<>();
     private final Long maxBatchSize;
+    private final Schema schema;
+    private final ArrowResultsBatchSerialiser arrowSerialiser;
 
     public WebSocketResultsOutput(Map<String, String> config) {
+        this(null, config);
+    }
+
+    public WebSocketResultsOutput(Schema schema, Map<String, String> config) {
         super(config);
 
         String maxBatchSize = config.get(MAX_BATCH_SIZE);
         this.maxBatchSize = maxBatchSize != null && !maxBatchSize.isEmpty() ? Long.parseLong(maxBatchSize) : null;
+        this.schema = schema;
+        if (ResultsOutputConstants.isArrowFormat(config)) {
+            if (null == schema) {
+                throw new IllegalArgumentException("Schema is required to publish results in Arrow format");
+            }
+            this.arrowSerialiser = new ArrowResultsBatchSerialiser();
+        } else {
+            this.arrowSerialiser = null;
+        }
         this.outputLocations.add(new ResultsOutputLocation("websocket-endpoint", config.get(ENDPOINT)));
         this.outputLocations.add(new ResultsOutputLocation("websocket-connection-id", config.get(CONNECTION_ID)));
     }
@@ -52,52 +69,15 @@ public class WebSocketResultsOutput extends WebSocketOutput implements ResultsOu
     @Override
     public ResultsOutputInfo publish(Query query, CloseableIterator<Record> results) {
         String queryId = getQueryId(query);
-
-        Map<String, Object> message = new HashMap<>();
-        message.put("message", "records");
-        message.put("queryId", queryId);
-        message.put("records", Collections.emptyList());
-        int baseMessageLength = serde.toJson(message).length();
-
-        List<Record> batch = new ArrayList<>();
-        long count = 0;
-        int remainingMessageLength = WebSocketOutput.MAX_PAYLOAD_SIZE - baseMessageLength;
-
+        Batcher batcher = null == arrowSerialiser ? new JsonBatcher(queryId) : new ArrowBatcher(queryId);
         try {
             while (results.hasNext()) {
-                Record record = results.next();
-
-                boolean batchReady = false;
-                if (maxBatchSize != null && maxBatchSize > 0 && batch.size() >= maxBatchSize) {
-                    batchReady = true;
-                } else {
-                    String recordJson = serde.toJson(record);
-                    int recordJsonLength = recordJson.length() + 1; // +1 for comma that seperates records
-                    if (recordJsonLength >= remainingMessageLength) {
-                        batchReady = true;
-                        remainingMessageLength = WebSocketOutput.MAX_PAYLOAD_SIZE - baseMessageLength - recordJsonLength;
-                    } else {
-                        remainingMessageLength -= recordJsonLength;
-                    }
-                }
-
-                if (batchReady) {
-                    publishBatch(message, batch);
-                    count += batch.size();
-                    batch.clear();
-                }
-
-                batch.add(record);
-            }
-
-            if (!batch.isEmpty()) {
-                publishBatch(message, batch);
-                count += batch.size();
-                batch.clear();
+                batcher.add(results.next());
             }
+            batcher.flush();
         } catch (Exception e) {
             LOGGER.error("Error publishing results to WebSocket", e);
-            return new ResultsOutputInfo(count, outputLocations, e);
+            return new ResultsOutputInfo(batcher.count, outputLocations, e);
         } finally {
             try {
                 results.close();
@@ -106,12 +86,160 @@ public class WebSocketResultsOutput extends WebSocketOutput implements ResultsOu
             }
         }
 
-        return new ResultsOutputInfo(count, outputLocations);
+        return new ResultsOutputInfo(batcher.count, outputLocations);
+    }
+
+    private boolean isBatchFull(int batchSize) {
+        return maxBatchSize != null && maxBatchSize > 0 && batchSize >= maxBatchSize;
     }
 
-    private void publishBatch(Map<String, Object> message, List<Record> records) throws IOException {
-        LOGGER.info("Publishing batch of {} records to WebSocket connection", records.size());
-        message.put("records", records);
-        this.sendJson(message);
+    /**
+     * Creates the start of a records message, up to where the records are written. The records are added to the
+     * message as text, so that each record is only serialised once.
+     *
+     * @param queryId the query ID
+     * @param format the format of the records
+     * @return the start of the message
+     */
+    private String messageStart(String queryId, String format) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("message", "records");
+        message.put("queryId", queryId);
+        message.put("format", format);
+        String json = serde.toJson(message);
+        return json.substring(0, json.length() - 1) + ",\"records\":";
+    }
+
+    /**
+     * Gathers records into batches which fit in a WebSocket message, and sends each batch when it is full.
+     */
+    private abstract static class Batcher {
+        protected long count = 0;
+
+        abstract void add(Record record) throws IOException;
+
+        abstract void flush() throws IOException;
+    }
+
+    /**
+     * Sends records as an array of JSON objects.
+     */
+    private class JsonBatcher extends Batcher {
+        private final String messageStart;
+        private final List<String> batch = new ArrayList<>();
+        private int batchLength = 0;
+
+        JsonBatcher(String queryId) {
+            messageStart = messageStart(queryId, ResultsOutputConstants.JSON_FORMAT) + "[";
+        }
+
+        @Override
+        void add(Record record) throws IOException {
+            String recordJson = serde.toJson(record);
+            int recordJsonLength = recordJson.length() + 1; // +1 for comma that separates records
+            if (!batch.isEmpty() && (isBatchFull(batch.size())
+                    || messageStart.length() + batchLength + recordJsonLength + 2 > WebSocketOutput.MAX_PAYLOAD_SIZE)) {
+                flush();
+            }
+            batch.add(recordJson);
+            batchLength += recordJsonLength;
+        }
+
+        @Override
+        void flush() throws IOException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            LOGGER.info("Publishing batch of {} records to WebSocket connection", batch.size());
+            sendString(messageStart + String.join(",", batch) + "]}");
+            count += batch.size();
+            batch.clear();
+            batchLength = 0;
+        }
+    }
+
+    /**
+     * Sends records as a compressed Arrow record batch encoded in base64. The size of each batch is estimated from the
+     * size of the data in the records. If a batch turns out to be too large once it is serialised, it is split in two.
+     */
+    private class ArrowBatcher extends Batcher {
+        private final String queryId;
+        private final String messageStart;
+        private final int maxDataLength;
+        private final List<String> fieldNames = schema.getAllFieldNames();
+        private final List<Record> batch = new ArrayList<>();
+        private long batchBytes = 0;
+
+        ArrowBatcher(String queryId) {
+            this.queryId = queryId;
+            this.messageStart = messageStart(queryId, ResultsOutputConstants.ARROW_FORMAT);
+            this.maxDataLength = WebSocketOutput.MAX_PAYLOAD_SIZE - messageStart.length() - 3;
+        }
+
+        @Override
+        void add(Record record) throws IOException {
+            long recordBytes = estimateSizeInBytes(record.getValues(fieldNames));
+            if (!batch.isEmpty() && (isBatchFull(batch.size())
+                    || base64Length(batchBytes + recordBytes) > maxDataLength)) {
+                flush();
+            }
+            batch.add(record);
+            batchBytes += recordBytes;
+        }
+
+        @Override
+        void flush() throws IOException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            publishBatch(batch);
+            batch.clear();
+            batchBytes = 0;
+        }
+
+        private void publishBatch(List<Record> records) throws IOException {
+            String data = arrowSerialiser.serialise(new ResultsBatch(queryId, schema, records));
+            if (data.length() > maxDataLength && records.size() > 1) {
+                int half = records.size() / 2;
+                publishBatch(records.subList(0, half));
+                publishBatch(records.subList(half, records.size()));
+                return;
+            }
+            LOGGER.info("Publishing batch of {} records to WebSocket connection in Arrow format", records.size());
+            sendString(messageStart + serde.toJson(data) + "}");
+            count += records.size();
+        }
+    }
+
+    private static long base64Length(long bytes) {
+        // Allows for the schema held in each Arrow batch
+        return (bytes + 1024) * 4 / 3;
+    }
+
+    private static long estimateSizeInBytes(Collection<?> values) {
+        long size = 0;
+        for (Object value : values) {
+            size += estimateSizeInBytes(value);
+        }
+        return size;
+    }
+
+    private static long estimateSizeInBytes(Object value) {
+        if (value instanceof Integer) {
+            return 4;
+        } else if (value instanceof Long) {
+            return 8;
+        } else if (value instanceof String) {
+            return 4L + ((String) value).length();
+        } else if (value instanceof byte[]) {
+            return 4L + ((byte[]) value).length;
+        } else if (value instanceof Collection) {
+            return 4L + estimateSizeInBytes((Collection<?>) value);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            return 4L + estimateSizeInBytes(map.keySet()) + estimateSizeInBytes(map.values());
+        } else {
+            return 1;
+        }
     }
 }
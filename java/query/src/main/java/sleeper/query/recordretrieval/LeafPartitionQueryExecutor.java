@@ -16,7 +16,9 @@
 package sleeper.query.recordretrieval;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.filter2.predicate.FilterApi;
 import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.io.InputFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +35,8 @@ import sleeper.core.schema.Schema;
 import sleeper.query.QueryException;
 import sleeper.query.model.LeafPartitionQuery;
 import sleeper.query.model.Query;
+import sleeper.query.tracker.QueryStatusReportListener;
+import sleeper.query.tracker.QueryStatusReportListeners;
 import sleeper.query.utils.RangeQueryUtils;
 
 import java.util.HashMap;
@@ -40,8 +44,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -54,19 +60,90 @@ public class LeafPartitionQueryExecutor {
     private final ObjectFactory objectFactory;
     private final Configuration conf;
     private final TableProperties tableProperties;
+    private final LeafPartitionQueryResultCache resultCache;
+    private final UnaryOperator<InputFile> inputFileWrapper;
 
     public LeafPartitionQueryExecutor(
             ExecutorService executorService,
             ObjectFactory objectFactory,
             Configuration conf,
             TableProperties tableProperties) {
+        this(executorService, objectFactory, conf, tableProperties, LeafPartitionQueryResultCache.disabled());
+    }
+
+    public LeafPartitionQueryExecutor(
+            ExecutorService executorService,
+            ObjectFactory objectFactory,
+            Configuration conf,
+            TableProperties tableProperties,
+            LeafPartitionQueryResultCache resultCache) {
+        this(executorService, objectFactory, conf, tableProperties, resultCache, UnaryOperator.identity());
+    }
+
+    /**
+     * Creates an executor which wraps each data file as it is opened, e.g. to count the bytes read.
+     *
+     * @param executorService  the executor to open the data files in parallel
+     * @param objectFactory    the object factory to create iterators
+     * @param conf             the Hadoop configuration to read the data files
+     * @param tableProperties  the properties of the table
+     * @param resultCache      the cache of results of sub queries
+     * @param inputFileWrapper a function to wrap the input file for each data file
+     */
+    public LeafPartitionQueryExecutor(
+            ExecutorService executorService,
+            ObjectFactory objectFactory,
+            Configuration conf,
+            TableProperties tableProperties,
+            LeafPartitionQueryResultCache resultCache,
+            UnaryOperator<InputFile> inputFileWrapper) {
         this.executorService = executorService;
         this.objectFactory = objectFactory;
         this.conf = conf;
         this.tableProperties = tableProperties;
+        this.resultCache = resultCache;
+        this.inputFileWrapper = inputFileWrapper;
     }
 
     public CloseableIterator<Record> getRecords(LeafPartitionQuery leafPartitionQuery) throws QueryException {
+        return getRecords(leafPartitionQuery, new QueryStatusReportListeners());
+    }
+
+    public CloseableIterator<Record> getRecords(LeafPartitionQuery leafPartitionQuery, QueryStatusReportListener queryTracker) throws QueryException {
+        if (!resultCache.isEnabled()) {
+            return readRecords(leafPartitionQuery, null);
+        }
+        LeafPartitionQueryResultCache.Key cacheKey = LeafPartitionQueryResultCache.Key.from(leafPartitionQuery, tableProperties);
+        Optional<LeafPartitionQueryResultCache.CachedResults> cachedResults = resultCache.get(cacheKey);
+        if (cachedResults.isPresent()) {
+            LeafPartitionQueryResultCache.CachedResults results = cachedResults.get();
+            LOGGER.info("Found {} cached records for LeafPartitionQuery {}", results.getRecordCount(), leafPartitionQuery);
+            queryTracker.resultsReadFromCache(leafPartitionQuery, results.getRecordCount(), results.getSizeInBytes());
+            return results.iterator();
+        }
+        return resultCache.cacheWhenRead(cacheKey, readRecords(leafPartitionQuery, null));
+    }
+
+    /**
+     * Retrieves the records for a sub query, and also filters the data files on fields other than the row keys. The
+     * filter is used by the Parquet reader to skip row groups and pages, and to drop records as they are read. The
+     * results of this method are not cached.
+     * <p>
+     * The filter is only applied when there is no compaction time iterator on the table and no query time iterator on
+     * the query, as an iterator may combine records which do not match the filter with records which do. The caller
+     * must therefore still apply the filter to the results. Any fields used in the filter must be included in the
+     * requested value fields of the query.
+     *
+     * @param leafPartitionQuery the sub query
+     * @param valueFilter the filter to apply to the data files, or null if there is none
+     * @return the records for the sub query
+     * @throws QueryException if the records could not be retrieved
+     */
+    public CloseableIterator<Record> getRecordsWithValueFilter(LeafPartitionQuery leafPartitionQuery, FilterPredicate valueFilter) throws QueryException {
+        return readRecords(leafPartitionQuery, valueFilter);
+    }
+
+    private CloseableIterator<Record> readRecords(LeafPartitionQuery leafPartitionQuery, FilterPredicate valueFilter) throws QueryException {
         LOGGER.info("Retrieving records for LeafPartitionQuery {}", leafPartitionQuery);
         List<String> files = leafPartitionQuery.getFiles();
         Schema tableSchema = tableProperties.getSchema();
@@ -86,8 +163,11 @@ public class LeafPartitionQueryExecutor {
 
         FilterPredicate filterPredicate = RangeQueryUtils.getFilterPredicateMultidimensionalKey(
                 tableSchema.getRowKeyFields(), leafPartitionQuery.getRegions(), leafPartitionQuery.getPartitionRegion());
+        if (null != valueFilter && null == compactionIterator && null == queryIterator) {
+            filterPredicate = FilterApi.and(filterPredicate, valueFilter);
+        }
 
-        LeafPartitionRecordRetriever retriever = new LeafPartitionRecordRetriever(executorService, conf);
+        LeafPartitionRecordRetriever retriever = new LeafPartitionRecordRetriever(executorService, conf, tableProperties, inputFileWrapper);
 
         try {
             CloseableIterator<Record> iterator = retriever.getRecords(files, dataReadSchema, filterPredicate);
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.query.recordretrieval;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.configuration.properties.table.TableProperty;
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.iterator.WrappedIterator;
+import sleeper.core.range.Region;
+import sleeper.core.range.RegionCanonicaliser;
+import sleeper.core.record.Record;
+import sleeper.query.model.LeafPartitionQuery;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_PROCESSOR_RESULTS_CACHE_MAX_ENTRY_SIZE;
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_PROCESSOR_RESULTS_CACHE_SIZE;
+
+/**
+ * Holds the results of leaf partition queries in memory, so that a repeated query can be answered without reading the
+ * same files again. Results are keyed by the files that were read and the shape of the query. When compaction changes
+ * the files in a partition, a new query will have a different key, so old results are never returned and will be
+ * evicted over time. Results are evicted in least recently used order when the total estimated size of the cached
+ * records exceeds the maximum.
+ */
+public class LeafPartitionQueryResultCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeafPartitionQueryResultCache.class);
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long bytesSaved = 0;
+
+    public LeafPartitionQueryResultCache(long maxBytes, long maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxBytes, maxEntryBytes);
+    }
+
+    public static LeafPartitionQueryResultCache from(InstanceProperties instanceProperties) {
+        return new LeafPartitionQueryResultCache(
+                instanceProperties.getBytes(QUERY_PROCESSOR_RESULTS_CACHE_SIZE),
+                instanceProperties.getBytes(QUERY_PROCESSOR_RESULTS_CACHE_MAX_ENTRY_SIZE));
+    }
+
+    public static LeafPartitionQueryResultCache disabled() {
+        return new LeafPartitionQueryResultCache(0, 0);
+    }
+
+    public boolean isEnabled() {
+        return maxEntryBytes > 0;
+    }
+
+    /**
+     * Retrieves the cached results of a query, if they are held in the cache.
+     *
+     * @param key the key of the query
+     * @return the cached results, if present
+     */
+    public synchronized Optional<CachedResults> get(Key key) {
+        Entry entry = entries.get(key);
+        if (null == entry) {
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        bytesSaved += entry.bytes;
+        LOGGER.debug("Results cache hit, {} hits, {} misses, {} bytes saved", hits, misses, bytesSaved);
+        return Optional.of(new CachedResults(entry));
+    }
+
+    /**
+     * Wraps the results of a query so that they are added to the cache once they have all been read. If the results
+     * are larger than the maximum size of an entry, they are not cached.
+     *
+     * @param key the key of the query
+     * @param iterator the results of the query
+     * @return an iterator over the same results
+     */
+    public CloseableIterator<Record> cacheWhenRead(Key key, CloseableIterator<Record> iterator) {
+        if (!isEnabled()) {
+            return iterator;
+        }
+        return new CachingIterator(key, iterator);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized void put(Key key, List<Record> records, long bytes) {
+        Entry previous = entries.put(key, new Entry(records, bytes));
+        if (null != previous) {
+            totalBytes -= previous.bytes;
+        }
+        totalBytes += bytes;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            totalBytes -= iterator.next().bytes;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Estimates the memory used by a record, for the purpose of bounding the size of the cache.
+     *
+     * @param record the record
+     * @return the estimated size in bytes
+     */
+    public static long estimateSizeInBytes(Record record) {
+        long size = 64;
+        for (String key : record.getKeys()) {
+            size += 32 + estimateSizeInBytes(record.get(key));
+        }
+        return size;
+    }
+
+    private static long estimateSizeInBytes(Object value) {
+        if (value instanceof String) {
+            return 40L + 2L * ((String) value).length();
+        } else if (value instanceof byte[]) {
+            return 16L + ((byte[]) value).length;
+        } else if (value instanceof Collection) {
+            long size = 32;
+            for (Object element : (Collection<?>) value) {
+                size += 8 + estimateSizeInBytes(element);
+            }
+            return size;
+        } else if (value instanceof Map) {
+            long size = 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += 32 + estimateSizeInBytes(entry.getKey()) + estimateSizeInBytes(entry.getValue());
+            }
+            return size;
+        } else {
+            return 16;
+        }
+    }
+
+    /**
+     * The key of a leaf partition query in the cache. This includes everything which affects the results of the query,
+     * including the files that are read.
+     */
+    public static final class Key {
+        private final List<String> files;
+        private final Region partitionRegion;
+        private final List<Region> regions;
+        private final List<String> requestedValueFields;
+        private final String queryIteratorClassName;
+        private final String queryIteratorConfig;
+        private final String compactionIteratorClassName;
+        private final String compactionIteratorConfig;
+
+        private Key(LeafPartitionQuery query, TableProperties tableProperties) {
+            files = query.getFiles().stream().sorted().collect(Collectors.toUnmodifiableList());
+            partitionRegion = query.getPartitionRegion();
+            regions = query.getRegions().stream()
+                    .map(RegionCanonicaliser::canonicaliseRegion)
+                    .collect(Collectors.toUnmodifiableList());
+            requestedValueFields = query.getRequestedValueFields();
+            queryIteratorClassName = query.getQueryTimeIteratorClassName();
+            queryIteratorConfig = query.getQueryTimeIteratorConfig();
+            compactionIteratorClassName = tableProperties.get(TableProperty.ITERATOR_CLASS_NAME);
+            compactionIteratorConfig = tableProperties.get(TableProperty.ITERATOR_CONFIG);
+        }
+
+        public static Key from(LeafPartitionQuery query, TableProperties tableProperties) {
+            return new Key(query, tableProperties);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return files.equals(key.files)
+                    && Objects.equals(partitionRegion, key.partitionRegion)
+                    && regions.equals(key.regions)
+                    && Objects.equals(requestedValueFields, key.requestedValueFields)
+                    && Objects.equals(queryIteratorClassName, key.queryIteratorClassName)
+                    && Objects.equals(queryIteratorConfig, key.queryIteratorConfig)
+                    && Objects.equals(compactionIteratorClassName, key.compactionIteratorClassName)
+                    && Objects.equals(compactionIteratorConfig, key.compactionIteratorConfig);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(files, partitionRegion, regions, requestedValueFields,
+                    queryIteratorClassName, queryIteratorConfig, compactionIteratorClassName, compactionIteratorConfig);
+        }
+    }
+
+    /**
+     * Results of a query which were found in the cache.
+     */
+    public static final class CachedResults {
+        private final Entry entry;
+
+        private CachedResults(Entry entry) {
+            this.entry = entry;
+        }
+
+        public long getRecordCount() {
+            return entry.records.size();
+        }
+
+        public long getSizeInBytes() {
+            return entry.bytes;
+        }
+
+        /**
+         * Creates an iterator over copies of the cached records, so that they are not changed by the caller.
+         *
+         * @return the iterator
+         */
+        public CloseableIterator<Record> iterator() {
+            return new WrappedIterator<>(entry.records.stream().map(Record::new).iterator());
+        }
+    }
+
+    private static final class Entry {
+        private final List<Record> records;
+        private final long bytes;
+
+        private Entry(List<Record> records, long bytes) {
+            this.records = records;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Passes through the results of a query, keeping copies of the records until they have all been read, at which
+     * point they are added to the cache.
+     */
+    private class CachingIterator implements CloseableIterator<Record> {
+        private final Key key;
+        private final CloseableIterator<Record> iterator;
+        private List<Record> records = new ArrayList<>();
+        private long bytes = 0;
+
+        CachingIterator(Key key, CloseableIterator<Record> iterator) {
+            this.key = key;
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = iterator.hasNext();
+            if (!hasNext && null != records) {
+                put(key, records, bytes);
+                records = null;
+            }
+            return hasNext;
+        }
+
+        @Override
+        public Record next() {
+            Record record = iterator.next();
+            if (null != records) {
+                bytes += estimateSizeInBytes(record);
+                if (bytes > maxEntryBytes) {
+                    records = null;
+                } else {
+                    records.add(new Record(record));
+                }
+            }
+            return record;
+        }
+
+        @Override
+        public void close() throws IOException {
+            records = null;
+            iterator.close();
+        }
+    }
+}
@@ -21,15 +21,19 @@ import org.apache.hadoop.fs.Path;
 import org.apache.parquet.filter2.compat.FilterCompat;
 import org.apache.parquet.filter2.predicate.FilterPredicate;
 import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.io.InputFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import sleeper.configuration.properties.table.TableProperties;
 import sleeper.core.iterator.CloseableIterator;
-import sleeper.core.iterator.MergingIterator;
+import sleeper.core.iterator.MergeAlgorithm;
 import sleeper.core.iterator.WrappedIterator;
+import sleeper.core.record.CompiledRecordComparator;
 import sleeper.core.record.Record;
-import sleeper.core.record.RecordComparator;
 import sleeper.core.schema.Schema;
+import sleeper.io.parquet.cache.LocalBlockCache;
+import sleeper.io.parquet.cache.ParquetFooterCache;
 import sleeper.io.parquet.record.ParquetRecordReader;
 
 import java.io.IOException;
@@ -42,6 +46,9 @@ import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+
+import static sleeper.configuration.properties.table.TableProperty.MERGE_ALGORITHM;
 
 /**
  * A {@link LeafPartitionRecordRetriever} pulls back records for a single leaf partition according to
@@ -52,10 +59,56 @@ public class LeafPartitionRecordRetriever {
 
     private final Configuration filesConfig;
     private final ExecutorService executorService;
+    private final MergeAlgorithm mergeAlgorithm;
+    private final ParquetFooterCache footerCache;
+    private final LocalBlockCache blockCache;
+    private final UnaryOperator<InputFile> inputFileWrapper;
 
     public LeafPartitionRecordRetriever(ExecutorService executorService, Configuration conf) {
+        this(executorService, conf, MergeAlgorithm.PRIORITY_QUEUE);
+    }
+
+    public LeafPartitionRecordRetriever(ExecutorService executorService, Configuration conf, MergeAlgorithm mergeAlgorithm) {
+        this(executorService, conf, mergeAlgorithm, ParquetFooterCache.forProcess());
+    }
+
+    public LeafPartitionRecordRetriever(ExecutorService executorService, Configuration conf, TableProperties tableProperties) {
+        this(executorService, conf, tableProperties, UnaryOperator.identity());
+    }
+
+    /**
+     * Creates a retriever for a table which wraps each data file as it is opened, e.g. to count the bytes read.
+     *
+     * @param executorService  the executor to open the files in parallel
+     * @param conf             the Hadoop configuration to read the files
+     * @param tableProperties  the properties of the table
+     * @param inputFileWrapper a function to wrap the input file for each data file
+     */
+    public LeafPartitionRecordRetriever(ExecutorService executorService, Configuration conf, TableProperties tableProperties,
+                                        UnaryOperator<InputFile> inputFileWrapper) {
+        this(executorService, conf, tableProperties.getEnumValue(MERGE_ALGORITHM, MergeAlgorithm.class),
+                ParquetFooterCache.forProcess(), LocalBlockCache.forTable(tableProperties), inputFileWrapper);
+    }
+
+    public LeafPartitionRecordRetriever(ExecutorService executorService, Configuration conf, MergeAlgorithm mergeAlgorithm,
+                                        ParquetFooterCache footerCache) {
+        this(executorService, conf, mergeAlgorithm, footerCache, LocalBlockCache.disabled());
+    }
+
+    public LeafPartitionRecordRetriever(ExecutorService executorService, Configuration conf, MergeAlgorithm mergeAlgorithm,
+                                        ParquetFooterCache footerCache, LocalBlockCache blockCache) {
+        this(executorService, conf, mergeAlgorithm, footerCache, blockCache, UnaryOperator.identity());
+    }
+
+    private LeafPartitionRecordRetriever(ExecutorService executorService, Configuration conf, MergeAlgorithm mergeAlgorithm,
+                                         ParquetFooterCache footerCache, LocalBlockCache blockCache,
+                                         UnaryOperator<InputFile> inputFileWrapper) {
         this.executorService = executorService;
         this.filesConfig = conf;
+        this.mergeAlgorithm = mergeAlgorithm;
+        this.footerCache = footerCache;
+        this.blockCache = blockCache;
+        this.inputFileWrapper = inputFileWrapper;
     }
 
     public CloseableIterator<Record> getRecords(List<String> files, Schema dataReadSchema, FilterPredicate filterPredicate) throws RecordRetrievalException {
@@ -101,7 +154,7 @@ public class LeafPartitionRecordRetriever {
         }
 
         // Sort current values and create iterator
-        RecordComparator recordComparator = new RecordComparator(dataReadSchema);
+        CompiledRecordComparator recordComparator = new CompiledRecordComparator(dataReadSchema);
         Iterator<Record> currentValuesSorted = currentValues.values()
                 .stream()
                 .sorted(recordComparator)
@@ -113,14 +166,15 @@ public class LeafPartitionRecordRetriever {
         iterators.add(new WrappedIterator<>(currentValuesSorted));
         iterators.addAll(indexToReader.values());
 
-        return new MergingIterator(dataReadSchema, iterators);
+        return mergeAlgorithm.merge(dataReadSchema, iterators);
     }
 
     private ParquetReader<Record> createParquetReader(Schema readSchema, String fileName, FilterPredicate filterPredicate)
             throws IOException {
         // NB Do not create a ParquetReaderIterator here as that forces the
         // opening of the file which needs to be done in parallel.
-        return new ParquetRecordReader.Builder(new Path(fileName), readSchema)
+        InputFile inputFile = inputFileWrapper.apply(footerCache.getInputFile(new Path(fileName), filesConfig, blockCache));
+        return new ParquetRecordReader.Builder(inputFile, readSchema)
                 .withConf(filesConfig)
                 .withFilter(FilterCompat.get(filterPredicate))
                 .build();
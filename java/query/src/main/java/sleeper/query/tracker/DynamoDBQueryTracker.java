@@ -22,6 +22,7 @@ import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryResult;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
@@ -57,6 +58,8 @@ public class DynamoDBQueryTracker implements QueryStatusReportListener {
     public static final String SUB_QUERY_ID = "subQueryId";
     public static final String NON_NESTED_QUERY_PLACEHOLDER = "-";
     public static final String EXPIRY_DATE = "expiryDate";
+    public static final String CACHE_HITS = "cacheHits";
+    public static final String BYTES_SAVED_BY_CACHE = "bytesSavedByCache";
 
     private final AmazonDynamoDB dynamoDB;
     private final String trackerTableName;
@@ -146,6 +149,28 @@ public class DynamoDBQueryTracker implements QueryStatusReportListener {
         }
     }
 
+    private void addCacheHit(String queryId, String subQueryId, long bytesSaved) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put(QUERY_ID, new AttributeValue(queryId));
+        key.put(SUB_QUERY_ID, new AttributeValue(subQueryId));
+
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":hits", new AttributeValue().withN("1"));
+        values.put(":bytes", new AttributeValue().withN(String.valueOf(bytesSaved)));
+
+        // Only update queries which are already tracked, as a sub query may be run without being tracked separately
+        try {
+            dynamoDB.updateItem(new UpdateItemRequest()
+                    .withTableName(trackerTableName)
+                    .withKey(key)
+                    .withUpdateExpression("ADD " + CACHE_HITS + " :hits, " + BYTES_SAVED_BY_CACHE + " :bytes")
+                    .withConditionExpression("attribute_exists(" + LAST_KNOWN_STATE + ")")
+                    .withExpressionAttributeValues(values));
+        } catch (ConditionalCheckFailedException e) {
+            LOGGER.debug("Query {} with sub query {} is not tracked, not recording cache hit", queryId, subQueryId);
+        }
+    }
+
     private void updateStateOfParent(LeafPartitionQuery leafPartitionQuery) {
         List<Map<String, AttributeValue>> trackedQueries = dynamoDB.query(new QueryRequest()
                 .withTableName(trackerTableName)
@@ -225,6 +250,16 @@ public class DynamoDBQueryTracker implements QueryStatusReportListener {
         subQueries.forEach(subQuery -> this.updateState(subQuery, QueryState.QUEUED));
     }
 
+    @Override
+    public void resultsReadFromCache(Query query, long recordCount, long bytesSaved) {
+        // Hits are counted against the sub query and its parent, so the hit rate of a query can be found from the
+        // number of cache hits against the parent and the number of sub queries
+        if (query instanceof LeafPartitionQuery) {
+            addCacheHit(query.getQueryId(), ((LeafPartitionQuery) query).getSubQueryId(), bytesSaved);
+        }
+        addCacheHit(query.getQueryId(), NON_NESTED_QUERY_PLACEHOLDER, bytesSaved);
+    }
+
     @Override
     public void queryCompleted(Query query, ResultsOutputInfo outputInfo) {
         if (outputInfo.getError() != null) {
@@ -31,6 +31,8 @@ public interface QueryStatusReportListener {
 
     void subQueriesCreated(Query query, List<LeafPartitionQuery> subQueries);
 
+    void resultsReadFromCache(Query query, long recordCount, long bytesSaved);
+
     void queryCompleted(Query query, ResultsOutputInfo outputInfo);
 
     void queryFailed(Query query, Exception e);
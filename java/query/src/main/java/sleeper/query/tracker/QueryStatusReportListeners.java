@@ -74,6 +74,12 @@ public class QueryStatusReportListeners implements QueryStatusReportListener {
         listeners.forEach(listener -> listener.subQueriesCreated(query, subQueries));
     }
 
+    @Override
+    public void resultsReadFromCache(Query query, long recordCount, long bytesSaved) {
+        LOGGER.info("Results Read From Cache: {} records, {} bytes saved, {}", recordCount, bytesSaved, query);
+        listeners.forEach(listener -> listener.resultsReadFromCache(query, recordCount, bytesSaved));
+    }
+
     @Override
     public void queryCompleted(Query query, ResultsOutputInfo outputInfo) {
         LOGGER.info("Query Completed: {} {}", query, outputInfo);
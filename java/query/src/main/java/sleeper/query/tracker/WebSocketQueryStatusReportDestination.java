@@ -63,6 +63,11 @@ public class WebSocketQueryStatusReportDestination extends WebSocketOutput imple
         this.sendStatusReport("subqueries", query, data);
     }
 
+    @Override
+    public void resultsReadFromCache(Query query, long recordCount, long bytesSaved) {
+        // Ignore
+    }
+
     @Override
     public void queryCompleted(Query query, ResultsOutputInfo outputInfo) {
         String message = outputInfo.getError() == null ? "completed" : "error";
@@ -32,10 +32,12 @@ import sleeper.core.schema.type.StringType;
 import sleeper.core.schema.type.Type;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.apache.parquet.filter2.predicate.FilterApi.and;
 import static org.apache.parquet.filter2.predicate.FilterApi.binaryColumn;
+import static org.apache.parquet.filter2.predicate.FilterApi.eq;
 import static org.apache.parquet.filter2.predicate.FilterApi.gtEq;
 import static org.apache.parquet.filter2.predicate.FilterApi.intColumn;
 import static org.apache.parquet.filter2.predicate.FilterApi.longColumn;
@@ -117,6 +119,9 @@ public class RangeQueryUtils {
         }
 
         IntColumn intColumn = intColumn(keyName);
+        if (null != maxKey && maxKey - 1 == minKey) {
+            return eq(intColumn, minKey);
+        }
         FilterPredicate greaterThanOrEqRangeMin = gtEq(intColumn, minKey);
         FilterPredicate lessThanRangeMax = null;
         if (null != maxKey) {
@@ -132,6 +137,9 @@ public class RangeQueryUtils {
         }
 
         LongColumn longColumn = longColumn(keyName);
+        if (null != maxKey && maxKey - 1L == minKey) {
+            return eq(longColumn, minKey);
+        }
         FilterPredicate greaterThanOrEqRangeMin = gtEq(longColumn, minKey);
         FilterPredicate lessThanRangeMax = null;
         if (null != maxKey) {
@@ -147,6 +155,9 @@ public class RangeQueryUtils {
         }
 
         BinaryColumn binaryColumn = binaryColumn(keyName);
+        if (isStringPoint(minKey, maxKey)) {
+            return eq(binaryColumn, Binary.fromString(minKey));
+        }
         FilterPredicate greaterThanOrEqRangeMin = gtEq(binaryColumn, Binary.fromString(minKey));
         FilterPredicate lessThanRangeMax = null;
         if (null != maxKey) {
@@ -163,6 +174,9 @@ public class RangeQueryUtils {
         }
 
         BinaryColumn binaryColumn = binaryColumn(keyName);
+        if (isByteArrayPoint(minKey, maxKey)) {
+            return eq(binaryColumn, Binary.fromConstantByteArray(minKey));
+        }
         FilterPredicate greaterThanOrEqRangeMin = gtEq(binaryColumn(keyName), Binary.fromConstantByteArray(minKey));
         FilterPredicate lessThanRangeMax = null;
         if (null != maxKey) {
@@ -171,4 +185,21 @@ public class RangeQueryUtils {
 
         return null == lessThanRangeMax ? greaterThanOrEqRangeMin : and(greaterThanOrEqRangeMin, lessThanRangeMax);
     }
+
+    // A canonical range containing a single key has a maximum which is the next value after the minimum, as set by
+    // RangeCanonicaliser. We use an equality predicate for these so that Parquet can use bloom filters to skip row
+    // groups.
+    private static boolean isStringPoint(String minKey, String maxKey) {
+        return null != maxKey
+                && maxKey.length() == minKey.length() + 1
+                && maxKey.charAt(minKey.length()) == '\u0000'
+                && maxKey.startsWith(minKey);
+    }
+
+    private static boolean isByteArrayPoint(byte[] minKey, byte[] maxKey) {
+        return null != maxKey
+                && maxKey.length == minKey.length + 1
+                && maxKey[minKey.length] == Byte.MIN_VALUE
+                && Arrays.equals(minKey, 0, minKey.length, maxKey, 0, minKey.length);
+    }
 }
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.query.executor;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import sleeper.configuration.jars.ObjectFactory;
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.FixedTablePropertiesProvider;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.core.partition.PartitionTree;
+import sleeper.core.partition.PartitionsBuilder;
+import sleeper.core.range.Range.RangeFactory;
+import sleeper.core.range.Region;
+import sleeper.core.schema.Schema;
+import sleeper.query.model.Query;
+import sleeper.statestore.FileInfoFactory;
+import sleeper.statestore.StateStore;
+import sleeper.statestore.inmemory.StateStoreTestHelper;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static sleeper.configuration.properties.InstancePropertiesTestHelper.createTestInstanceProperties;
+import static sleeper.configuration.properties.table.TablePropertiesTestHelper.createTestTableProperties;
+import static sleeper.configuration.properties.table.TableProperty.QUERY_PROCESSOR_STATE_MAX_STALENESS_SECONDS;
+import static sleeper.configuration.properties.table.TableProperty.TABLE_NAME;
+import static sleeper.core.schema.SchemaTestHelper.schemaWithKey;
+
+public class QueryExecutorCacheTest {
+    private final Schema schema = schemaWithKey("key");
+    private final InstanceProperties instanceProperties = createTestInstanceProperties();
+    private final TableProperties tableProperties = createTestTableProperties(instanceProperties, schema);
+    private final PartitionTree partitionTree = new PartitionsBuilder(schema).singlePartition("root").buildTree();
+    private final FileInfoFactory fileInfoFactory = FileInfoFactory.builder()
+            .schema(schema).partitionTree(partitionTree).build();
+    private final StateStore stateStore = StateStoreTestHelper.inMemoryStateStoreWithFixedPartitions(
+            partitionTree.getAllPartitions());
+    private final AtomicReference<Instant> time = new AtomicReference<>(Instant.parse("2023-08-01T10:00:00Z"));
+    private final List<Runnable> backgroundRefreshes = new ArrayList<>();
+    private final AtomicInteger queryExecutorsCreated = new AtomicInteger();
+    private final QueryExecutorCache cache = new QueryExecutorCache(
+            new FixedTablePropertiesProvider(tableProperties)::getTableProperties,
+            properties -> {
+                queryExecutorsCreated.incrementAndGet();
+                return new QueryExecutor(ObjectFactory.noUserJars(), properties, stateStore, new Configuration(), null);
+            },
+            backgroundRefreshes::add, time::get);
+    private String tableName;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tableProperties.setNumber(QUERY_PROCESSOR_STATE_MAX_STALENESS_SECONDS, 60);
+        tableName = tableProperties.get(TABLE_NAME);
+        stateStore.addFile(fileInfoFactory.rootFile("file1.parquet", 100, 1L, 100L));
+    }
+
+    @Test
+    void shouldLoadQueryExecutorOnFirstUse() throws Exception {
+        // When
+        QueryExecutor queryExecutor = cache.getQueryExecutor(tableName);
+
+        // Then
+        assertThat(filesToQuery(queryExecutor)).containsExactly("file1.parquet");
+        assertThat(backgroundRefreshes).isEmpty();
+    }
+
+    @Test
+    void shouldReuseQueryExecutorBeforeHalfMaxStaleness() throws Exception {
+        // Given
+        QueryExecutor queryExecutor = cache.getQueryExecutor(tableName);
+        stateStore.addFile(fileInfoFactory.rootFile("file2.parquet", 100, 1L, 100L));
+
+        // When
+        time.set(time.get().plusSeconds(29));
+        QueryExecutor found = cache.getQueryExecutor(tableName);
+
+        // Then
+        assertThat(found).isSameAs(queryExecutor);
+        assertThat(filesToQuery(found)).containsExactly("file1.parquet");
+        assertThat(backgroundRefreshes).isEmpty();
+    }
+
+    @Test
+    void shouldRefreshQueryExecutorInBackgroundAfterHalfMaxStaleness() throws Exception {
+        // Given
+        QueryExecutor queryExecutor = cache.getQueryExecutor(tableName);
+        stateStore.addFile(fileInfoFactory.rootFile("file2.parquet", 100, 1L, 100L));
+        time.set(time.get().plusSeconds(30));
+
+        // When
+        QueryExecutor foundBeforeRefresh = cache.getQueryExecutor(tableName);
+        QueryExecutor foundWhileRefreshing = cache.getQueryExecutor(tableName);
+        backgroundRefreshes.forEach(Runnable::run);
+        QueryExecutor foundAfterRefresh = cache.getQueryExecutor(tableName);
+
+        // Then
+        assertThat(foundBeforeRefresh).isSameAs(queryExecutor);
+        assertThat(foundWhileRefreshing).isSameAs(queryExecutor);
+        assertThat(backgroundRefreshes).hasSize(1);
+        assertThat(foundAfterRefresh).isNotSameAs(queryExecutor);
+        assertThat(filesToQuery(foundAfterRefresh)).containsExactlyInAnyOrder("file1.parquet", "file2.parquet");
+    }
+
+    @Test
+    void shouldCreateQueryExecutorBeforeHandingOffBackgroundRefresh() throws Exception {
+        // Given
+        cache.getQueryExecutor(tableName);
+        time.set(time.get().plusSeconds(30));
+
+        // When
+        cache.getQueryExecutor(tableName);
+
+        // Then the table properties and state store are looked up on the calling thread
+        assertThat(queryExecutorsCreated).hasValue(2);
+        assertThat(backgroundRefreshes).hasSize(1);
+    }
+
+    @Test
+    void shouldReloadQueryExecutorBeforeUseWhenAtMaxStaleness() throws Exception {
+        // Given
+        QueryExecutor queryExecutor = cache.getQueryExecutor(tableName);
+        stateStore.addFile(fileInfoFactory.rootFile("file2.parquet", 100, 1L, 100L));
+
+        // When
+        time.set(time.get().plusSeconds(60));
+        QueryExecutor found = cache.getQueryExecutor(tableName);
+
+        // Then
+        assertThat(found).isNotSameAs(queryExecutor);
+        assertThat(filesToQuery(found)).containsExactlyInAnyOrder("file1.parquet", "file2.parquet");
+        assertThat(backgroundRefreshes).isEmpty();
+    }
+
+    @Test
+    void shouldRefreshQueryExecutorOnDemand() throws Exception {
+        // Given
+        cache.getQueryExecutor(tableName);
+        stateStore.addFile(fileInfoFactory.rootFile("file2.parquet", 100, 1L, 100L));
+
+        // When
+        QueryExecutor refreshed = cache.refreshNow(tableName);
+
+        // Then
+        assertThat(cache.getQueryExecutor(tableName)).isSameAs(refreshed);
+        assertThat(filesToQuery(refreshed)).containsExactlyInAnyOrder("file1.parquet", "file2.parquet");
+    }
+
+    @Test
+    void shouldShareOnDemandRefreshAlreadyInProgress() throws Exception {
+        // Given
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch finishRefresh = new CountDownLatch(1);
+        QueryExecutorCache blockingCache = new QueryExecutorCache(
+                new FixedTablePropertiesProvider(tableProperties)::getTableProperties,
+                properties -> {
+                    queryExecutorsCreated.incrementAndGet();
+                    refreshStarted.countDown();
+                    awaitLatch(finishRefresh);
+                    return new QueryExecutor(ObjectFactory.noUserJars(), properties, stateStore, new Configuration(), null);
+                },
+                backgroundRefreshes::add, time::get);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<QueryExecutor> firstRefresh = executorService.submit(() -> blockingCache.refreshNow(tableName));
+            refreshStarted.await();
+            AtomicReference<Thread> secondThread = new AtomicReference<>();
+            Future<QueryExecutor> secondRefresh = executorService.submit(() -> {
+                secondThread.set(Thread.currentThread());
+                return blockingCache.refreshNow(tableName);
+            });
+
+            // When
+            waitUntilWaiting(secondThread);
+            finishRefresh.countDown();
+
+            // Then
+            assertThat(secondRefresh.get()).isSameAs(firstRefresh.get());
+            assertThat(queryExecutorsCreated).hasValue(1);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void waitUntilWaiting(AtomicReference<Thread> thread) throws InterruptedException {
+        while (null == thread.get() || thread.get().getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+    }
+
+    private List<String> filesToQuery(QueryExecutor queryExecutor) {
+        Region region = new Region(new RangeFactory(schema).createExactRange("key", 10L));
+        return queryExecutor.splitIntoLeafPartitionQueries(new Query.Builder(tableName, "query-id", region).build())
+                .stream().flatMap(query -> query.getFiles().stream())
+                .collect(Collectors.toList());
+    }
+}
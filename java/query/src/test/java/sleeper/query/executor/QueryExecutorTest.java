@@ -0,0 +1,180 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.query.executor;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.jupiter.api.Test;
+
+import sleeper.configuration.jars.ObjectFactory;
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.core.partition.Partition;
+import sleeper.core.partition.PartitionTree;
+import sleeper.core.partition.PartitionsBuilder;
+import sleeper.core.partition.PartitionsFromSplitPoints;
+import sleeper.core.range.Range.RangeFactory;
+import sleeper.core.range.Region;
+import sleeper.core.schema.Schema;
+import sleeper.query.model.LeafPartitionQuery;
+import sleeper.query.model.Query;
+import sleeper.statestore.FileInfo;
+import sleeper.statestore.FileInfoFactory;
+import sleeper.statestore.inmemory.StateStoreTestHelper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static sleeper.configuration.properties.InstancePropertiesTestHelper.createTestInstanceProperties;
+import static sleeper.configuration.properties.table.TablePropertiesTestHelper.createTestTableProperties;
+import static sleeper.core.schema.SchemaTestHelper.schemaWithKey;
+
+public class QueryExecutorTest {
+    private final Schema schema = schemaWithKey("key");
+    private final InstanceProperties instanceProperties = createTestInstanceProperties();
+    private final TableProperties tableProperties = createTestTableProperties(instanceProperties, schema);
+    private final PartitionTree partitionTree = new PartitionsBuilder(schema)
+            .rootFirst("root")
+            .splitToNewChildren("root", "L", "R", 10L)
+            .buildTree();
+    private final FileInfoFactory fileInfoFactory = FileInfoFactory.builder()
+            .schema(schema).partitionTree(partitionTree).build();
+    private final QueryExecutor queryExecutor = new QueryExecutor(ObjectFactory.noUserJars(), tableProperties,
+            StateStoreTestHelper.inMemoryStateStoreWithFixedPartitions(partitionTree.getAllPartitions()),
+            new Configuration(), null);
+
+    @Test
+    void shouldSkipFilesWhoseRowKeysAreOutsideTheQuery() {
+        // Given
+        List<FileInfo> activeFiles = List.of(
+                fileInfoFactory.partitionFile("root", "root-low.parquet", 10, 1L, 5L),
+                fileInfoFactory.partitionFile("root", "root-high.parquet", 10, 20L, 30L),
+                fileInfoFactory.partitionFile("L", "left.parquet", 10, 2L, 8L),
+                fileInfoFactory.partitionFile("L", "left-low.parquet", 10, 0L, 1L));
+        queryExecutor.init(partitionTree.getAllPartitions(), activeFiles);
+
+        // When
+        List<LeafPartitionQuery> leafPartitionQueries = queryExecutor.splitIntoLeafPartitionQueries(
+                exactQuery(3L));
+
+        // Then
+        assertThat(leafPartitionQueries)
+                .extracting(LeafPartitionQuery::getLeafPartitionId, LeafPartitionQuery::getFiles)
+                .containsExactly(tuple("L", List.of("left.parquet", "root-low.parquet")));
+    }
+
+    @Test
+    void shouldNotCreateSubQueryWhenNoFilesOverlapTheQuery() {
+        // Given
+        List<FileInfo> activeFiles = List.of(
+                fileInfoFactory.partitionFile("root", "root.parquet", 10, 1L, 5L),
+                fileInfoFactory.partitionFile("R", "right.parquet", 10, 10L, 20L));
+        queryExecutor.init(partitionTree.getAllPartitions(), activeFiles);
+
+        // When
+        List<LeafPartitionQuery> leafPartitionQueries = queryExecutor.splitIntoLeafPartitionQueries(
+                exactQuery(25L));
+
+        // Then
+        assertThat(leafPartitionQueries).isEmpty();
+    }
+
+    @Test
+    void shouldIncludeAllFilesWhenOnlyFilenamesAreKnown() {
+        // Given
+        queryExecutor.init(partitionTree.getAllPartitions(), Map.of(
+                "root", List.of("root-high.parquet"),
+                "L", List.of("left.parquet")));
+
+        // When
+        List<LeafPartitionQuery> leafPartitionQueries = queryExecutor.splitIntoLeafPartitionQueries(
+                exactQuery(3L));
+
+        // Then
+        assertThat(leafPartitionQueries)
+                .flatExtracting(LeafPartitionQuery::getFiles)
+                .containsExactly("left.parquet", "root-high.parquet");
+    }
+
+    @Test
+    void shouldSplitBatchOfRegionsOverManyLeafPartitions() {
+        // Given
+        List<Object> splitPoints = LongStream.range(1, 1000).map(i -> i * 100).boxed().collect(Collectors.toList());
+        PartitionTree tree = PartitionsFromSplitPoints.treeFrom(schema, splitPoints);
+        queryExecutor.init(tree.getAllPartitions(), tree.getAllPartitions().stream()
+                .filter(Partition::isLeafPartition).map(Partition::getId)
+                .collect(Collectors.toMap(id -> id, id -> List.of(id + ".parquet"))));
+        RangeFactory rangeFactory = new RangeFactory(schema);
+        List<Region> regions = LongStream.range(0, 2500)
+                .mapToObj(i -> new Region(rangeFactory.createExactRange("key", i * 47)))
+                .collect(Collectors.toList());
+        regions.add(new Region(rangeFactory.createRange("key", 99950L, 100150L)));
+
+        // When
+        List<LeafPartitionQuery> leafPartitionQueries = queryExecutor.splitIntoLeafPartitionQueries(
+                new Query.Builder("myTable", "query-id", regions).build());
+
+        // Then
+        assertThat(leafPartitionQueries).hasSize(1000);
+        assertThat(leafPartitionQueries).allSatisfy(leafPartitionQuery -> {
+            Partition partition = tree.getPartition(leafPartitionQuery.getLeafPartitionId());
+            assertThat(leafPartitionQuery.getRegions()).isEqualTo(regions.stream()
+                    .filter(partition::doesRegionOverlapPartition)
+                    .collect(Collectors.toList()));
+            assertThat(leafPartitionQuery.getFiles()).containsExactly(partition.getId() + ".parquet");
+        });
+    }
+
+    @Test
+    void shouldSplitSubQueryAgainstLeafPartitionsCreatedBeneathIt() {
+        // Given
+        queryExecutor.init(partitionTree.getAllPartitions(), Map.of(
+                "L", List.of("left-old.parquet"),
+                "R", List.of("right.parquet")));
+        Region region = new Region(new RangeFactory(schema).createRange("key", 0L, 20L));
+        LeafPartitionQuery leftSubQuery = queryExecutor.splitIntoLeafPartitionQueries(
+                        new Query.Builder("myTable", "query-id", region).build())
+                .stream().filter(query -> query.getLeafPartitionId().equals("L"))
+                .findFirst().orElseThrow();
+        PartitionTree treeAfterSplit = new PartitionsBuilder(schema)
+                .rootFirst("root")
+                .splitToNewChildren("root", "L", "R", 10L)
+                .splitToNewChildren("L", "LL", "LR", 5L)
+                .buildTree();
+        queryExecutor.init(treeAfterSplit.getAllPartitions(), Map.of(
+                "LL", List.of("left-left.parquet"),
+                "LR", List.of("left-right.parquet"),
+                "R", List.of("right.parquet")));
+
+        // When
+        List<LeafPartitionQuery> leafPartitionQueries = queryExecutor.splitAgainstCurrentPartitions(leftSubQuery);
+
+        // Then
+        assertThat(leafPartitionQueries)
+                .extracting(LeafPartitionQuery::getLeafPartitionId, LeafPartitionQuery::getFiles)
+                .containsExactlyInAnyOrder(
+                        tuple("LL", List.of("left-left.parquet")),
+                        tuple("LR", List.of("left-right.parquet")));
+    }
+
+    private Query exactQuery(Object key) {
+        Region region = new Region(new RangeFactory(schema).createExactRange("key", key));
+        return new Query.Builder("myTable", "query-id", region).build();
+    }
+}
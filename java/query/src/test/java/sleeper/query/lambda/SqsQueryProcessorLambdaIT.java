@@ -128,6 +128,7 @@ import static sleeper.configuration.properties.instance.SystemDefinedInstancePro
 import static sleeper.configuration.properties.instance.SystemDefinedInstanceProperty.QUERY_TRACKER_TABLE_NAME;
 import static sleeper.configuration.properties.instance.SystemDefinedInstanceProperty.VERSION;
 import static sleeper.configuration.properties.table.TableProperty.DATA_BUCKET;
+import static sleeper.configuration.properties.table.TableProperty.QUERY_PROCESSOR_MAX_LOCAL_SUB_QUERIES;
 import static sleeper.configuration.properties.table.TableProperty.TABLE_NAME;
 import static sleeper.configuration.testutils.LocalStackAwsV1ClientHelper.buildAwsV1Client;
 import static sleeper.query.tracker.QueryState.COMPLETED;
@@ -280,6 +281,61 @@ public class SqsQueryProcessorLambdaIT {
         assertThat(result.getMessages()).isEmpty();
     }
 
+    @Test
+    public void shouldRunSubQueriesLocallyUpToMaximumAndSendTheRestToTheQueue() throws ObjectFactoryException, IOException {
+        // Given
+        String dataDir = createTempDirectory(tempDir, null).toString();
+        InstanceProperties instanceProperties = createInstance(dataDir);
+        TableProperties timeSeriesTable = createTimeSeriesTable(instanceProperties, 2000, 2020);
+        loadData(instanceProperties, timeSeriesTable, createTempDirectory(tempDir, null).toString(), 2005, 2008);
+        AmazonS3 s3Client = createS3Client();
+        AmazonDynamoDB dynamoClient = createDynamoClient();
+        AmazonSQS sqsClient = createSqsClient();
+        timeSeriesTable.setNumber(QUERY_PROCESSOR_MAX_LOCAL_SUB_QUERIES, 2);
+        timeSeriesTable.saveToS3(s3Client);
+        RangeFactory rangeFactory = new RangeFactory(SCHEMA);
+
+        // When
+        Range range1 = rangeFactory.createRange(SCHEMA.getRowKeyFields().get(0), 2000, true, 2010, true);
+        Range range2 = rangeFactory.createRange(SCHEMA.getRowKeyFields().get(1), 0, true, null, true);
+        Range range3 = rangeFactory.createRange(SCHEMA.getRowKeyFields().get(2), 0, true, null, true);
+        Query query = new Query.Builder(timeSeriesTable.get(TABLE_NAME), "abc", new Region(Arrays.asList(range1, range2, range3))).build();
+        this.processQuery(query, instanceProperties);
+
+        // Then
+        Map<String, Condition> keyCondition = new HashMap<>();
+        keyCondition.put(DynamoDBQueryTracker.QUERY_ID, new Condition()
+                .withAttributeValueList(new AttributeValue("abc"))
+                .withComparisonOperator(ComparisonOperator.EQ)
+        );
+        keyCondition.put(DynamoDBQueryTracker.SUB_QUERY_ID, new Condition()
+                .withAttributeValueList(new AttributeValue(DynamoDBQueryTracker.NON_NESTED_QUERY_PLACEHOLDER))
+                .withComparisonOperator(ComparisonOperator.EQ)
+        );
+        QueryResult response = dynamoClient
+                .query(new QueryRequest(instanceProperties.get(QUERY_TRACKER_TABLE_NAME))
+                        .withKeyConditions(keyCondition)
+                );
+        assertThat(QueryState.valueOf(response.getItems().get(0).get(DynamoDBQueryTracker.LAST_KNOWN_STATE).getS())).isEqualTo(IN_PROGRESS);
+        ReceiveMessageRequest request = new ReceiveMessageRequest(instanceProperties.get(QUERY_QUEUE_URL))
+                .withMaxNumberOfMessages(10);
+        ReceiveMessageResult result = sqsClient.receiveMessage(request);
+        assertThat(result.getMessages()).hasSize(2);
+        SqsQueryProcessorLambda queryProcessorLambda = new SqsQueryProcessorLambda(s3Client, sqsClient, dynamoClient, instanceProperties.get(CONFIG_BUCKET));
+        for (Message message : result.getMessages()) {
+            SQSEvent event = new SQSEvent();
+            SQSMessage sqsMessage = new SQSMessage();
+            sqsMessage.setBody(message.getBody());
+            event.setRecords(Lists.newArrayList(sqsMessage));
+            queryProcessorLambda.handleRequest(event, null);
+        }
+        response = dynamoClient
+                .query(new QueryRequest(instanceProperties.get(QUERY_TRACKER_TABLE_NAME))
+                        .withKeyConditions(keyCondition)
+                );
+        assertThat(QueryState.valueOf(response.getItems().get(0).get(DynamoDBQueryTracker.LAST_KNOWN_STATE).getS())).isEqualTo(COMPLETED);
+    }
+
     @Test
     public void shouldSetStatusOfQueryToCOMPLETEDWhenOnlyOneSubQueryIsCreated() throws ObjectFactoryException, IOException {
         // Given
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.query.lambda;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.sqs.AbstractAmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.FixedTablePropertiesProvider;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.core.partition.PartitionTree;
+import sleeper.core.partition.PartitionsFromSplitPoints;
+import sleeper.core.range.Range.RangeFactory;
+import sleeper.core.range.Region;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Schema;
+import sleeper.io.parquet.record.ParquetRecordWriterFactory;
+import sleeper.query.model.LeafPartitionQuery;
+import sleeper.query.model.Query;
+import sleeper.query.model.QuerySerDe;
+import sleeper.query.model.output.ResultsOutputInfo;
+import sleeper.query.tracker.QueryStatusReportListener;
+import sleeper.statestore.FileInfoFactory;
+import sleeper.statestore.FixedStateStoreProvider;
+import sleeper.statestore.StateStore;
+import sleeper.statestore.inmemory.StateStoreTestHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static sleeper.configuration.properties.InstancePropertiesTestHelper.createTestInstanceProperties;
+import static sleeper.configuration.properties.instance.CommonProperty.FILE_SYSTEM;
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_LOCAL_BLOCK_CACHE_DIRECTORY;
+import static sleeper.configuration.properties.instance.SystemDefinedInstanceProperty.QUERY_QUEUE_URL;
+import static sleeper.configuration.properties.instance.SystemDefinedInstanceProperty.QUERY_RESULTS_BUCKET;
+import static sleeper.configuration.properties.table.TablePropertiesTestHelper.createTestTableProperties;
+import static sleeper.configuration.properties.table.TableProperty.QUERY_PROCESSOR_MAX_LOCAL_SUB_QUERIES;
+import static sleeper.configuration.properties.table.TableProperty.TABLE_NAME;
+import static sleeper.core.schema.SchemaTestHelper.schemaWithKey;
+
+public class SqsQueryProcessorTest {
+    private static final String QUEUE_URL = "test-query-queue";
+
+    @TempDir
+    public java.nio.file.Path tempDir;
+
+    private final Schema schema = schemaWithKey("key");
+    private final InstanceProperties instanceProperties = createTestInstanceProperties();
+    private final TableProperties tableProperties = createTestTableProperties(instanceProperties, schema);
+    private final FakeSqs sqsClient = new FakeSqs();
+    private final RecordingQueryTracker queryTracker = new RecordingQueryTracker();
+    private final List<Long> retryWaits = new ArrayList<>();
+    private StateStore stateStore;
+
+    @Test
+    void shouldRunSomeSubQueriesLocallyAndSendTheRestToTheQueue() throws Exception {
+        // Given
+        createTableWithLeafPartitions(4);
+        tableProperties.setNumber(QUERY_PROCESSOR_MAX_LOCAL_SUB_QUERIES, 2);
+
+        // When
+        processQuery(queryAllKeys());
+
+        // Then
+        List<String> subQueryIds = queryTracker.createdSubQueryIds();
+        assertThat(subQueryIds).hasSize(4);
+        assertThat(sqsClient.sentSubQueryIds()).containsExactlyElementsOf(subQueryIds.subList(2, 4));
+        assertThat(queryTracker.completedSubQueryIds()).containsExactlyInAnyOrderElementsOf(subQueryIds.subList(0, 2));
+        assertThat(queryTracker.failedSubQueryIds()).isEmpty();
+        assertThat(retryWaits).isEmpty();
+    }
+
+    @Test
+    void shouldSendAllSubQueriesToTheQueueWhenNoneRunLocally() throws Exception {
+        // Given
+        createTableWithLeafPartitions(3);
+        tableProperties.setNumber(QUERY_PROCESSOR_MAX_LOCAL_SUB_QUERIES, 0);
+
+        // When
+        processQuery(queryAllKeys());
+
+        // Then
+        assertThat(sqsClient.sentSubQueryIds()).containsExactlyElementsOf(queryTracker.createdSubQueryIds());
+        assertThat(queryTracker.completedSubQueryIds()).isEmpty();
+        assertThat(queryTracker.failedSubQueryIds()).isEmpty();
+    }
+
+    @Test
+    void shouldRetrySubQueriesWhichFailedInABatch() throws Exception {
+        // Given
+        createTableWithLeafPartitions(3);
+        sqsClient.failEntriesInNextBatch("0", "2");
+
+        // When
+        processQuery(queryAllKeys());
+
+        // Then
+        List<String> subQueryIds = queryTracker.createdSubQueryIds();
+        assertThat(sqsClient.sentSubQueryIds())
+                .containsExactly(subQueryIds.get(1), subQueryIds.get(0), subQueryIds.get(2));
+        assertThat(sqsClient.batchSizes()).containsExactly(3, 2);
+        assertThat(queryTracker.failedSubQueryIds()).isEmpty();
+        assertThat(retryWaits).containsExactly(200L);
+    }
+
+    @Test
+    void shouldReportSubQueriesAsFailedWhenNotSentAfterRetries() throws Exception {
+        // Given
+        createTableWithLeafPartitions(3);
+        sqsClient.failEntriesInNextBatch("1");
+        sqsClient.failEntriesInNextBatch("1");
+        sqsClient.failEntriesInNextBatch("1");
+
+        // When
+        processQuery(queryAllKeys());
+
+        // Then
+        List<String> subQueryIds = queryTracker.createdSubQueryIds();
+        assertThat(sqsClient.sentSubQueryIds()).containsExactly(subQueryIds.get(0), subQueryIds.get(2));
+        assertThat(sqsClient.batchSizes()).containsExactly(3, 1, 1);
+        assertThat(queryTracker.failedSubQueryIds()).containsExactly(subQueryIds.get(1));
+        assertThat(retryWaits).containsExactly(200L, 400L);
+    }
+
+    @Test
+    void shouldReportBatchAsFailedAndCarryOnWhenSendingItFails() throws Exception {
+        // Given
+        createTableWithLeafPartitions(12);
+        tableProperties.setNumber(QUERY_PROCESSOR_MAX_LOCAL_SUB_QUERIES, 1);
+        sqsClient.failNextBatch(new AmazonServiceException("Service unavailable"));
+
+        // When
+        processQuery(queryAllKeys());
+
+        // Then
+        List<String> subQueryIds = queryTracker.createdSubQueryIds();
+        assertThat(sqsClient.batchSizes()).containsExactly(10, 1);
+        assertThat(sqsClient.sentSubQueryIds()).containsExactly(subQueryIds.get(11));
+        assertThat(queryTracker.failedSubQueryIds()).containsExactlyElementsOf(subQueryIds.subList(1, 11));
+        assertThat(queryTracker.completedSubQueryIds()).containsExactly(subQueryIds.get(0));
+        assertThat(retryWaits).isEmpty();
+    }
+
+    private void createTableWithLeafPartitions(int numLeafPartitions) throws Exception {
+        instanceProperties.set(FILE_SYSTEM, "file://");
+        instanceProperties.set(QUERY_RESULTS_BUCKET, tempDir.resolve("results").toString());
+        instanceProperties.set(QUERY_QUEUE_URL, QUEUE_URL);
+        instanceProperties.set(QUERY_LOCAL_BLOCK_CACHE_DIRECTORY, tempDir.toString());
+        List<Object> splitPoints = LongStream.range(1, numLeafPartitions)
+                .mapToObj(i -> i * 10).collect(Collectors.toList());
+        PartitionTree partitionTree = PartitionsFromSplitPoints.treeFrom(schema, splitPoints);
+        stateStore = StateStoreTestHelper.inMemoryStateStoreWithFixedPartitions(partitionTree.getAllPartitions());
+        FileInfoFactory fileInfoFactory = FileInfoFactory.builder()
+                .schema(schema).partitionTree(partitionTree).build();
+        for (long i = 0; i < numLeafPartitions; i++) {
+            long key = i * 10 + 5;
+            String filename = tempDir.resolve("file" + i + ".parquet").toString();
+            try (ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(new Path(filename), schema)) {
+                writer.write(new Record(Map.of("key", key)));
+            }
+            stateStore.addFile(fileInfoFactory.leafFile(filename, 1, key, key));
+        }
+    }
+
+    private Query queryAllKeys() {
+        Region region = new Region(new RangeFactory(schema).createRange("key", 0L, 1000L));
+        return new Query.Builder(tableProperties.get(TABLE_NAME), "query-id", region).build();
+    }
+
+    private void processQuery(Query query) throws Exception {
+        SqsQueryProcessor.builder()
+                .sqsClient(sqsClient)
+                .instanceProperties(instanceProperties)
+                .tablePropertiesProvider(new FixedTablePropertiesProvider(tableProperties))
+                .stateStoreProvider(new FixedStateStoreProvider(tableProperties, stateStore))
+                .queryTracker(queryTracker)
+                .retryWaiter(retryWaits::add)
+                .build().processQuery(query);
+    }
+
+    private class FakeSqs extends AbstractAmazonSQS {
+        private final Queue<Function<SendMessageBatchRequestEntry, Boolean>> batchFailures = new LinkedList<>();
+        private final Queue<RuntimeException> batchExceptions = new LinkedList<>();
+        private final List<String> sentBodies = new ArrayList<>();
+        private final List<Integer> batchSizes = new ArrayList<>();
+
+        void failEntriesInNextBatch(String... entryIds) {
+            Set<String> ids = Set.of(entryIds);
+            batchFailures.add(entry -> ids.contains(entry.getId()));
+            batchExceptions.add(null);
+        }
+
+        void failNextBatch(RuntimeException e) {
+            batchFailures.add(entry -> false);
+            batchExceptions.add(e);
+        }
+
+        List<String> sentSubQueryIds() {
+            QuerySerDe serDe = new QuerySerDe(new FixedTablePropertiesProvider(tableProperties));
+            return sentBodies.stream()
+                    .map(body -> ((LeafPartitionQuery) serDe.fromJson(body)).getSubQueryId())
+                    .collect(Collectors.toList());
+        }
+
+        List<Integer> batchSizes() {
+            return batchSizes;
+        }
+
+        @Override
+        public SendMessageBatchResult sendMessageBatch(SendMessageBatchRequest request) {
+            assertThat(request.getQueueUrl()).isEqualTo(QUEUE_URL);
+            batchSizes.add(request.getEntries().size());
+            Function<SendMessageBatchRequestEntry, Boolean> shouldFail = batchFailures.isEmpty() ? entry -> false : batchFailures.poll();
+            RuntimeException exception = batchExceptions.poll();
+            if (null != exception) {
+                throw exception;
+            }
+            SendMessageBatchResult result = new SendMessageBatchResult();
+            for (SendMessageBatchRequestEntry entry : request.getEntries()) {
+                if (shouldFail.apply(entry)) {
+                    result.withFailed(new BatchResultErrorEntry().withId(entry.getId()).withCode("Throttled"));
+                } else {
+                    sentBodies.add(entry.getMessageBody());
+                    result.withSuccessful(new SendMessageBatchResultEntry().withId(entry.getId()));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class RecordingQueryTracker implements QueryStatusReportListener {
+        private final List<LeafPartitionQuery> createdSubQueries = new ArrayList<>();
+        private final List<String> completedSubQueryIds = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> failedSubQueryIds = Collections.synchronizedList(new ArrayList<>());
+
+        List<String> createdSubQueryIds() {
+            return createdSubQueries.stream().map(LeafPartitionQuery::getSubQueryId).collect(Collectors.toList());
+        }
+
+        List<String> completedSubQueryIds() {
+            return completedSubQueryIds;
+        }
+
+        List<String> failedSubQueryIds() {
+            return failedSubQueryIds;
+        }
+
+        @Override
+        public void queryQueued(Query query) {
+        }
+
+        @Override
+        public void queryInProgress(Query query) {
+        }
+
+        @Override
+        public void subQueriesCreated(Query query, List<LeafPartitionQuery> subQueries) {
+            createdSubQueries.addAll(subQueries);
+        }
+
+        @Override
+        public void resultsReadFromCache(Query query, long recordCount, long bytesSaved) {
+        }
+
+        @Override
+        public void queryCompleted(Query query, ResultsOutputInfo outputInfo) {
+            if (query instanceof LeafPartitionQuery) {
+                completedSubQueryIds.add(((LeafPartitionQuery) query).getSubQueryId());
+            }
+        }
+
+        @Override
+        public void queryFailed(Query query, Exception e) {
+            if (query instanceof LeafPartitionQuery) {
+                failedSubQueryIds.add(((LeafPartitionQuery) query).getSubQueryId());
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.query.model.output;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.record.Record;
+import sleeper.core.record.ResultsBatch;
+import sleeper.core.record.serialiser.JSONResultsBatchSerialiser;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.ListType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.MapType;
+import sleeper.core.schema.type.StringType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ArrowResultsBatchSerialiserTest {
+    private final ArrowResultsBatchSerialiser serialiser = new ArrowResultsBatchSerialiser();
+
+    @Test
+    public void shouldSerialiseAndDeserialisePrimitiveFields() throws Exception {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("column1", new IntType()), new Field("column2", new LongType()))
+                .sortKeyFields(new Field("column3", new StringType()), new Field("column4", new ByteArrayType()))
+                .valueFields(new Field("column5", new ByteArrayType()), new Field("column6", new StringType()))
+                .build();
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Record record = new Record();
+            record.put("column1", i);
+            record.put("column2", i * 100L);
+            record.put("column3", "abc" + i);
+            record.put("column4", new byte[]{(byte) i, (byte) (i + 1), (byte) (i + 2)});
+            record.put("column5", new byte[]{(byte) (i + 4), (byte) (i + 5)});
+            record.put("column6", i % 2 == 0 ? null : "value" + i);
+            records.add(record);
+        }
+        ResultsBatch resultsBatch = new ResultsBatch("query1", schema, records);
+
+        // When
+        String serialised = serialiser.serialise(resultsBatch);
+        ResultsBatch deserialised = serialiser.deserialise(serialised);
+
+        // Then
+        assertThat(deserialised).isEqualTo(resultsBatch);
+    }
+
+    @Test
+    public void shouldReleaseArrowMemoryAfterEachBatch() throws Exception {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new StringType()))
+                .valueFields(new Field("list", new ListType(new LongType())))
+                .build();
+        Record record = new Record(Map.of("key", "a", "list", List.of(1L, 2L)));
+        ResultsBatch resultsBatch = new ResultsBatch("query1", schema, List.of(record));
+
+        try (BufferAllocator allocator = new RootAllocator()) {
+            ArrowResultsBatchSerialiser serialiserWithAllocator = new ArrowResultsBatchSerialiser(allocator);
+
+            // When
+            ResultsBatch deserialised = serialiserWithAllocator.deserialise(serialiserWithAllocator.serialise(resultsBatch));
+
+            // Then
+            assertThat(deserialised).isEqualTo(resultsBatch);
+            assertThat(allocator.getAllocatedMemory()).isZero();
+            assertThat(allocator.getChildAllocators()).isEmpty();
+        }
+    }
+
+    @Test
+    public void shouldSerialiseAndDeserialiseListAndMapFields() throws Exception {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new StringType()))
+                .valueFields(
+                        new Field("list", new ListType(new LongType())),
+                        new Field("map", new MapType(new StringType(), new IntType())))
+                .build();
+        Record record1 = new Record(Map.of(
+                "key", "a",
+                "list", List.of(1L, 2L, 3L),
+                "map", Map.of("x", 1, "y", 2)));
+        Record record2 = new Record(Map.of(
+                "key", "b",
+                "list", List.of(),
+                "map", Map.of()));
+        Record record3 = new Record(Map.of(
+                "key", "c",
+                "list", List.of(4L),
+                "map", Map.of("z", 3)));
+        ResultsBatch resultsBatch = new ResultsBatch("query1", schema, List.of(record1, record2, record3));
+
+        // When
+        ResultsBatch deserialised = serialiser.deserialiseFromBytes(serialiser.serialiseToBytes(resultsBatch));
+
+        // Then
+        assertThat(deserialised).isEqualTo(resultsBatch);
+    }
+
+    @Test
+    public void shouldSerialiseEmptyBatch() throws Exception {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new LongType()))
+                .build();
+        ResultsBatch resultsBatch = new ResultsBatch("query1", schema, List.of());
+
+        // When
+        ResultsBatch deserialised = serialiser.deserialise(serialiser.serialise(resultsBatch));
+
+        // Then
+        assertThat(deserialised).isEqualTo(resultsBatch);
+    }
+
+    @Test
+    public void shouldBeSmallerThanJsonForWideNumericRows() throws Exception {
+        // Given
+        List<Field> valueFields = IntStream.range(0, 20)
+                .mapToObj(i -> new Field("value" + i, new LongType()))
+                .collect(Collectors.toList());
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new LongType()))
+                .valueFields(valueFields)
+                .build();
+        List<Record> records = new ArrayList<>();
+        for (long i = 0; i < 1000; i++) {
+            Record record = new Record();
+            record.put("key", i);
+            for (int j = 0; j < valueFields.size(); j++) {
+                record.put("value" + j, i * 1_000_003L + j * 7_919L);
+            }
+            records.add(record);
+        }
+        ResultsBatch resultsBatch = new ResultsBatch("query1", schema, records);
+
+        // When
+        String arrow = serialiser.serialise(resultsBatch);
+        String json = new JSONResultsBatchSerialiser().serialise(resultsBatch);
+
+        // Then
+        assertThat(arrow.length()).isLessThan(json.length() / 2);
+    }
+}
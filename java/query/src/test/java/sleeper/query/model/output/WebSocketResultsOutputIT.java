@@ -18,10 +18,17 @@ package sleeper.query.model.output;
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
 import com.github.tomakehurst.wiremock.matching.UrlPattern;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import org.junit.jupiter.api.Test;
 
 import sleeper.core.iterator.WrappedIterator;
 import sleeper.core.record.Record;
+import sleeper.core.record.ResultsBatch;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.StringType;
 import sleeper.query.model.Query;
 
 import java.util.ArrayList;
@@ -32,6 +39,7 @@ import java.util.Map;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.findAll;
 import static com.github.tomakehurst.wiremock.client.WireMock.matchingJsonPath;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
@@ -117,4 +125,41 @@ public class WebSocketResultsOutputIT {
                         .and(matchingJsonPath("$.message", equalTo("records")))
         ));
     }
+
+    @Test
+    public void shouldPublishResultsInArrowFormat(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        // Given
+        String connectionId = "connection1";
+        UrlPattern url = urlEqualTo("/@connections/" + connectionId);
+        stubFor(post(url).willReturn(aResponse().withStatus(200)));
+
+        Query query = new Query("table1", "query1", Collections.emptyList());
+        Schema schema = Schema.builder().rowKeyFields(new Field("id", new StringType())).build();
+
+        Map<String, String> config = new HashMap<>();
+        config.put(WebSocketResultsOutput.ENDPOINT, wmRuntimeInfo.getHttpBaseUrl());
+        config.put(WebSocketResultsOutput.REGION, "eu-west-1");
+        config.put(WebSocketResultsOutput.CONNECTION_ID, connectionId);
+        config.put(WebSocketResultsOutput.ACCESS_KEY, "accessKey");
+        config.put(WebSocketResultsOutput.SECRET_KEY, "secretKey");
+        config.put(ResultsOutputConstants.RESULTS_FORMAT, ResultsOutputConstants.ARROW_FORMAT);
+        WebSocketResultsOutput out = new WebSocketResultsOutput(schema, config);
+
+        List<Record> records = new ArrayList<>();
+        records.add(new Record(Collections.singletonMap("id", "record1")));
+        records.add(new Record(Collections.singletonMap("id", "record2")));
+
+        // When
+        ResultsOutputInfo result = out.publish(query, new WrappedIterator<>(records.iterator()));
+
+        // Then
+        List<LoggedRequest> requests = findAll(postRequestedFor(url));
+        assertThat(requests).hasSize(1);
+        JsonObject message = new Gson().fromJson(requests.get(0).getBodyAsString(), JsonObject.class);
+        assertThat(message.get("message").getAsString()).isEqualTo("records");
+        assertThat(message.get("format").getAsString()).isEqualTo(ResultsOutputConstants.ARROW_FORMAT);
+        assertThat(new ArrowResultsBatchSerialiser().deserialise(message.get("records").getAsString()))
+                .isEqualTo(new ResultsBatch("query1", schema, records));
+        assertThat(result.getRecordCount()).isEqualTo(2);
+    }
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.query.recordretrieval;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sleeper.configuration.jars.ObjectFactory;
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.iterator.impl.AdditionIterator;
+import sleeper.core.range.Range.RangeFactory;
+import sleeper.core.range.Region;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.io.parquet.record.ParquetRecordWriterFactory;
+import sleeper.query.model.LeafPartitionQuery;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static sleeper.configuration.properties.InstancePropertiesTestHelper.createTestInstanceProperties;
+import static sleeper.configuration.properties.table.TablePropertiesTestHelper.createTestTableProperties;
+import static sleeper.configuration.properties.table.TableProperty.ITERATOR_CLASS_NAME;
+
+public class LeafPartitionQueryExecutorTest {
+    private final Field field = new Field("key", new LongType());
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(field)
+            .valueFields(new Field("value", new LongType()))
+            .build();
+    private final RangeFactory rangeFactory = new RangeFactory(schema);
+    private final InstanceProperties instanceProperties = createTestInstanceProperties();
+    private final TableProperties tableProperties = createTestTableProperties(instanceProperties, schema);
+    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+    private final FilterPredicate valueIs20 = FilterApi.eq(FilterApi.longColumn("value"), 20L);
+
+    @TempDir
+    public java.nio.file.Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdown();
+    }
+
+    @Test
+    void shouldApplyValueFilterWhenThereAreNoIterators() throws Exception {
+        // Given
+        String file = writeFile(List.of(record(1L, 10L), record(1L, 20L), record(2L, 20L)));
+
+        // When
+        List<Record> records = readAll(executor().getRecordsWithValueFilter(queryBuilder(file).build(), valueIs20));
+
+        // Then
+        assertThat(records).containsExactly(record(1L, 20L), record(2L, 20L));
+    }
+
+    @Test
+    void shouldReadAllRecordsWhenThereIsNoValueFilter() throws Exception {
+        // Given
+        String file = writeFile(List.of(record(1L, 10L), record(2L, 20L)));
+
+        // When
+        List<Record> records = readAll(executor().getRecordsWithValueFilter(queryBuilder(file).build(), null));
+
+        // Then
+        assertThat(records).containsExactly(record(1L, 10L), record(2L, 20L));
+    }
+
+    @Test
+    void shouldNotApplyValueFilterWhenThereIsAQueryTimeIterator() throws Exception {
+        // Given
+        String file = writeFile(List.of(record(1L, 10L), record(1L, 20L), record(2L, 20L)));
+        LeafPartitionQuery query = queryBuilder(file)
+                .setQueryTimeIteratorClassName(AdditionIterator.class.getName())
+                .build();
+
+        // When
+        List<Record> records = readAll(executor().getRecordsWithValueFilter(query, valueIs20));
+
+        // Then
+        // The iterator must see the record which does not match the filter, so the caller applies the filter instead
+        assertThat(records).containsExactly(record(1L, 30L), record(2L, 20L));
+    }
+
+    @Test
+    void shouldNotApplyValueFilterWhenThereIsACompactionIterator() throws Exception {
+        // Given
+        String file = writeFile(List.of(record(1L, 10L), record(1L, 20L), record(2L, 20L)));
+        tableProperties.set(ITERATOR_CLASS_NAME, AdditionIterator.class.getName());
+
+        // When
+        List<Record> records = readAll(executor().getRecordsWithValueFilter(queryBuilder(file).build(), valueIs20));
+
+        // Then
+        assertThat(records).containsExactly(record(1L, 30L), record(2L, 20L));
+    }
+
+    private LeafPartitionQueryExecutor executor() {
+        return new LeafPartitionQueryExecutor(executorService, ObjectFactory.noUserJars(),
+                new Configuration(), tableProperties);
+    }
+
+    private LeafPartitionQuery.Builder queryBuilder(String file) {
+        Region region = new Region(rangeFactory.createRange(field, 0L, 10L));
+        Region partitionRegion = new Region(rangeFactory.createRange(field, Long.MIN_VALUE, null));
+        return new LeafPartitionQuery.Builder(
+                "myTable", "query", "subQuery", region, "leaf", partitionRegion, List.of(file));
+    }
+
+    private String writeFile(List<Record> records) throws IOException {
+        String file = tempDir.resolve("file.parquet").toString();
+        try (ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(new Path(file), schema)) {
+            for (Record record : records) {
+                writer.write(record);
+            }
+        }
+        return file;
+    }
+
+    private static Record record(long key, long value) {
+        return new Record(Map.of("key", key, "value", value));
+    }
+
+    private static List<Record> readAll(CloseableIterator<Record> iterator) throws IOException {
+        List<Record> records = new ArrayList<>();
+        try (iterator) {
+            iterator.forEachRemaining(records::add);
+        }
+        return records;
+    }
+}
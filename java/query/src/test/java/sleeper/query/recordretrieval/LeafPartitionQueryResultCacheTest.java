@@ -0,0 +1,321 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.query.recordretrieval;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sleeper.configuration.jars.ObjectFactory;
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.iterator.WrappedIterator;
+import sleeper.core.range.Range.RangeFactory;
+import sleeper.core.range.Region;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+import sleeper.io.parquet.record.ParquetRecordWriterFactory;
+import sleeper.query.model.LeafPartitionQuery;
+import sleeper.query.model.Query;
+import sleeper.query.model.output.ResultsOutputInfo;
+import sleeper.query.tracker.QueryStatusReportListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static sleeper.configuration.properties.InstancePropertiesTestHelper.createTestInstanceProperties;
+import static sleeper.configuration.properties.table.TablePropertiesTestHelper.createTestTableProperties;
+import static sleeper.configuration.properties.table.TableProperty.ITERATOR_CLASS_NAME;
+
+public class LeafPartitionQueryResultCacheTest {
+    private final Field field = new Field("key", new LongType());
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(field)
+            .valueFields(new Field("value", new StringType()))
+            .build();
+    private final RangeFactory rangeFactory = new RangeFactory(schema);
+    private final InstanceProperties instanceProperties = createTestInstanceProperties();
+    private final TableProperties tableProperties = createTestTableProperties(instanceProperties, schema);
+
+    @Nested
+    class CacheEntries {
+
+        @Test
+        void shouldReturnResultsOnceAllHaveBeenRead() throws Exception {
+            // Given
+            LeafPartitionQueryResultCache cache = new LeafPartitionQueryResultCache(10_000, 10_000);
+            LeafPartitionQueryResultCache.Key key = keyFor(queryForFiles(List.of("file1", "file2")));
+            List<Record> records = List.of(record(1L, "a"), record(2L, "b"));
+
+            // When
+            List<Record> readFirstTime = readAll(cache.cacheWhenRead(key, iterator(records)));
+
+            // Then
+            assertThat(readFirstTime).isEqualTo(records);
+            assertThat(cache.get(key))
+                    .get().extracting(results -> readAll(results.iterator()))
+                    .isEqualTo(records);
+            assertThat(cache.getHits()).isOne();
+            assertThat(cache.getBytesSaved()).isEqualTo(cache.getTotalBytes()).isPositive();
+        }
+
+        @Test
+        void shouldMatchSameFilesInAnyOrder() throws Exception {
+            // Given
+            LeafPartitionQueryResultCache cache = new LeafPartitionQueryResultCache(10_000, 10_000);
+            List<Record> records = List.of(record(1L, "a"));
+            readAll(cache.cacheWhenRead(keyFor(queryForFiles(List.of("file1", "file2"))), iterator(records)));
+
+            // When / Then
+            assertThat(cache.get(keyFor(queryForFiles(List.of("file2", "file1"))))).isPresent();
+        }
+
+        @Test
+        void shouldNotMatchDifferentFiles() throws Exception {
+            // Given
+            LeafPartitionQueryResultCache cache = new LeafPartitionQueryResultCache(10_000, 10_000);
+            List<Record> records = List.of(record(1L, "a"));
+            readAll(cache.cacheWhenRead(keyFor(queryForFiles(List.of("file1", "file2"))), iterator(records)));
+
+            // When / Then
+            assertThat(cache.get(keyFor(queryForFiles(List.of("file3"))))).isEmpty();
+            assertThat(cache.getMisses()).isOne();
+        }
+
+        @Test
+        void shouldNotMatchDifferentCompactionIterator() throws Exception {
+            // Given
+            LeafPartitionQueryResultCache cache = new LeafPartitionQueryResultCache(10_000, 10_000);
+            LeafPartitionQuery query = queryForFiles(List.of("file1"));
+            readAll(cache.cacheWhenRead(keyFor(query), iterator(List.of(record(1L, "a")))));
+
+            // When
+            tableProperties.set(ITERATOR_CLASS_NAME, "some.Iterator");
+
+            // Then
+            assertThat(cache.get(keyFor(query))).isEmpty();
+        }
+
+        @Test
+        void shouldNotCacheResultsWhichWereNotFullyRead() throws Exception {
+            // Given
+            LeafPartitionQueryResultCache cache = new LeafPartitionQueryResultCache(10_000, 10_000);
+            LeafPartitionQueryResultCache.Key key = keyFor(queryForFiles(List.of("file1")));
+
+            // When
+            try (CloseableIterator<Record> iterator = cache.cacheWhenRead(key, iterator(List.of(record(1L, "a"), record(2L, "b"))))) {
+                iterator.next();
+            }
+
+            // Then
+            assertThat(cache.get(key)).isEmpty();
+        }
+
+        @Test
+        void shouldNotCacheResultsLargerThanMaximumEntrySize() throws Exception {
+            // Given
+            List<Record> records = List.of(record(1L, "a"), record(2L, "b"));
+            long entryBytes = records.stream().mapToLong(LeafPartitionQueryResultCache::estimateSizeInBytes).sum();
+            LeafPartitionQueryResultCache cache = new LeafPartitionQueryResultCache(10_000, entryBytes - 1);
+            LeafPartitionQueryResultCache.Key key = keyFor(queryForFiles(List.of("file1")));
+
+            // When
+            List<Record> read = readAll(cache.cacheWhenRead(key, iterator(records)));
+
+            // Then
+            assertThat(read).isEqualTo(records);
+            assertThat(cache.get(key)).isEmpty();
+            assertThat(cache.getTotalBytes()).isZero();
+        }
+
+        @Test
+        void shouldEvictLeastRecentlyUsedResultsWhenFull() throws Exception {
+            // Given
+            List<Record> records = List.of(record(1L, "a"));
+            long entryBytes = LeafPartitionQueryResultCache.estimateSizeInBytes(records.get(0));
+            LeafPartitionQueryResultCache cache = new LeafPartitionQueryResultCache(entryBytes * 2, entryBytes);
+            LeafPartitionQueryResultCache.Key key1 = keyFor(queryForFiles(List.of("file1")));
+            LeafPartitionQueryResultCache.Key key2 = keyFor(queryForFiles(List.of("file2")));
+            LeafPartitionQueryResultCache.Key key3 = keyFor(queryForFiles(List.of("file3")));
+            readAll(cache.cacheWhenRead(key1, iterator(records)));
+            readAll(cache.cacheWhenRead(key2, iterator(records)));
+
+            // When
+            cache.get(key1);
+            readAll(cache.cacheWhenRead(key3, iterator(records)));
+
+            // Then
+            assertThat(cache.get(key1)).isPresent();
+            assertThat(cache.get(key2)).isEmpty();
+            assertThat(cache.get(key3)).isPresent();
+            assertThat(cache.getTotalBytes()).isEqualTo(entryBytes * 2);
+        }
+
+        @Test
+        void shouldNotChangeCachedResultsWhenReturnedRecordsAreChanged() throws Exception {
+            // Given
+            LeafPartitionQueryResultCache cache = new LeafPartitionQueryResultCache(10_000, 10_000);
+            LeafPartitionQueryResultCache.Key key = keyFor(queryForFiles(List.of("file1")));
+            List<Record> read = readAll(cache.cacheWhenRead(key, iterator(List.of(record(1L, "a")))));
+
+            // When
+            read.get(0).put("value", "changed");
+            cache.get(key).orElseThrow().iterator().next().put("value", "changed");
+
+            // Then
+            assertThat(readAll(cache.get(key).orElseThrow().iterator()))
+                    .containsExactly(record(1L, "a"));
+        }
+    }
+
+    @Nested
+    class ExecuteQueries {
+        @TempDir
+        public java.nio.file.Path tempDir;
+        private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        private final List<String> readFromCache = new ArrayList<>();
+
+        @AfterEach
+        void tearDown() {
+            executorService.shutdown();
+        }
+
+        @Test
+        void shouldReturnCachedResultsWithoutReadingFilesAgain() throws Exception {
+            // Given
+            String file = tempDir.resolve("file.parquet").toString();
+            List<Record> records = List.of(record(1L, "a"), record(2L, "b"));
+            writeFile(file, records);
+            LeafPartitionQueryExecutor executor = executorWithCache(new LeafPartitionQueryResultCache(10_000, 10_000));
+            LeafPartitionQuery query = queryForFiles(List.of(file));
+            List<Record> readFromFile = readAll(executor.getRecords(query, cacheHitRecorder()));
+
+            // When
+            Files.delete(java.nio.file.Path.of(file));
+            List<Record> readAgain = readAll(executor.getRecords(query, cacheHitRecorder()));
+
+            // Then
+            assertThat(readFromFile).isEqualTo(records);
+            assertThat(readAgain).isEqualTo(records);
+            assertThat(readFromCache).containsExactly("subQuery");
+        }
+
+        @Test
+        void shouldReadFilesAgainWhenCacheIsDisabled() throws Exception {
+            // Given
+            String file = tempDir.resolve("file.parquet").toString();
+            List<Record> records = List.of(record(1L, "a"), record(2L, "b"));
+            writeFile(file, records);
+            LeafPartitionQueryExecutor executor = executorWithCache(LeafPartitionQueryResultCache.disabled());
+            LeafPartitionQuery query = queryForFiles(List.of(file));
+
+            // When
+            List<Record> readFirstTime = readAll(executor.getRecords(query, cacheHitRecorder()));
+            List<Record> readAgain = readAll(executor.getRecords(query, cacheHitRecorder()));
+
+            // Then
+            assertThat(readFirstTime).isEqualTo(records);
+            assertThat(readAgain).isEqualTo(records);
+            assertThat(readFromCache).isEmpty();
+        }
+
+        private LeafPartitionQueryExecutor executorWithCache(LeafPartitionQueryResultCache cache) {
+            return new LeafPartitionQueryExecutor(executorService, ObjectFactory.noUserJars(),
+                    new Configuration(), tableProperties, cache);
+        }
+
+        private void writeFile(String file, List<Record> records) throws IOException {
+            try (ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(new Path(file), schema)) {
+                for (Record record : records) {
+                    writer.write(record);
+                }
+            }
+        }
+
+        private QueryStatusReportListener cacheHitRecorder() {
+            return new QueryStatusReportListener() {
+                @Override
+                public void queryQueued(Query query) {
+                }
+
+                @Override
+                public void queryInProgress(Query query) {
+                }
+
+                @Override
+                public void subQueriesCreated(Query query, List<LeafPartitionQuery> subQueries) {
+                }
+
+                @Override
+                public void resultsReadFromCache(Query query, long recordCount, long bytesSaved) {
+                    readFromCache.add(((LeafPartitionQuery) query).getSubQueryId());
+                }
+
+                @Override
+                public void queryCompleted(Query query, ResultsOutputInfo outputInfo) {
+                }
+
+                @Override
+                public void queryFailed(Query query, Exception e) {
+                }
+            };
+        }
+    }
+
+    private LeafPartitionQuery queryForFiles(List<String> files) {
+        Region region = new Region(rangeFactory.createRange(field, 0L, 10L));
+        Region partitionRegion = new Region(rangeFactory.createRange(field, Long.MIN_VALUE, null));
+        return new LeafPartitionQuery.Builder(
+                "myTable", "query", "subQuery", region, "leaf", partitionRegion, files)
+                .build();
+    }
+
+    private LeafPartitionQueryResultCache.Key keyFor(LeafPartitionQuery query) {
+        return LeafPartitionQueryResultCache.Key.from(query, tableProperties);
+    }
+
+    private static Record record(long key, String value) {
+        return new Record(Map.of("key", key, "value", value));
+    }
+
+    private static CloseableIterator<Record> iterator(List<Record> records) {
+        return new WrappedIterator<>(records.iterator());
+    }
+
+    private static List<Record> readAll(CloseableIterator<Record> iterator) {
+        List<Record> records = new ArrayList<>();
+        try (iterator) {
+            iterator.forEachRemaining(records::add);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return records;
+    }
+}
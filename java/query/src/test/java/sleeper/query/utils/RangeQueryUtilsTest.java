@@ -17,6 +17,7 @@ package sleeper.query.utils;
 
 import org.apache.parquet.filter2.predicate.FilterPredicate;
 import org.apache.parquet.filter2.predicate.Operators.And;
+import org.apache.parquet.filter2.predicate.Operators.Eq;
 import org.apache.parquet.filter2.predicate.Operators.GtEq;
 import org.apache.parquet.filter2.predicate.Operators.Lt;
 import org.apache.parquet.filter2.predicate.Operators.Or;
@@ -67,15 +68,10 @@ public class RangeQueryUtilsTest {
         assertThat(((GtEq) leftLeft).getValue()).isEqualTo(0);
         assertThat(leftRight).isInstanceOf(Lt.class);
         assertThat(((Lt) leftRight).getValue()).isEqualTo(100);
-        //  - Right predicate restricts to the range
+        //  - Right predicate restricts to the exact key, so that bloom filters can be used
         FilterPredicate right = and.getRight();
-        assertThat(right).isInstanceOf(And.class);
-        FilterPredicate rightLeft = ((And) right).getLeft();
-        FilterPredicate rightRight = ((And) right).getRight();
-        assertThat(rightLeft).isInstanceOf(GtEq.class);
-        assertThat(((GtEq) rightLeft).getValue()).isEqualTo(1);
-        assertThat(rightRight).isInstanceOf(Lt.class);
-        assertThat(((Lt) rightRight).getValue()).isEqualTo(2);
+        assertThat(right).isInstanceOf(Eq.class);
+        assertThat(((Eq) right).getValue()).isEqualTo(1);
     }
 
     @Test
@@ -105,15 +101,10 @@ public class RangeQueryUtilsTest {
         assertThat(((GtEq) leftLeft).getValue()).isEqualTo(0L);
         assertThat(leftRight).isInstanceOf(Lt.class);
         assertThat(((Lt) leftRight).getValue()).isEqualTo(100L);
-        //  - Right predicate restricts to the range
+        //  - Right predicate restricts to the exact key, so that bloom filters can be used
         FilterPredicate right = and.getRight();
-        assertThat(right).isInstanceOf(And.class);
-        FilterPredicate rightLeft = ((And) right).getLeft();
-        FilterPredicate rightRight = ((And) right).getRight();
-        assertThat(rightLeft).isInstanceOf(GtEq.class);
-        assertThat(((GtEq) rightLeft).getValue()).isEqualTo(1L);
-        assertThat(rightRight).isInstanceOf(Lt.class);
-        assertThat(((Lt) rightRight).getValue()).isEqualTo(2L);
+        assertThat(right).isInstanceOf(Eq.class);
+        assertThat(((Eq) right).getValue()).isEqualTo(1L);
     }
 
     @Test
@@ -143,15 +134,10 @@ public class RangeQueryUtilsTest {
         assertThat(((Binary) ((GtEq) leftLeft).getValue()).toStringUsingUTF8()).isEqualTo("A");
         assertThat(leftRight).isInstanceOf(Lt.class);
         assertThat(((Binary) ((Lt) leftRight).getValue()).toStringUsingUTF8()).isEqualTo("Z");
-        //  - Right predicate restricts to the range
+        //  - Right predicate restricts to the exact key, so that bloom filters can be used
         FilterPredicate right = and.getRight();
-        assertThat(right).isInstanceOf(And.class);
-        FilterPredicate rightLeft = ((And) right).getLeft();
-        FilterPredicate rightRight = ((And) right).getRight();
-        assertThat(rightLeft).isInstanceOf(GtEq.class);
-        assertThat(((Binary) ((GtEq) rightLeft).getValue()).toStringUsingUTF8()).isEqualTo("B");
-        assertThat(rightRight).isInstanceOf(Lt.class);
-        assertThat(((Binary) ((Lt) rightRight).getValue()).toStringUsingUTF8()).isEqualTo("B" + '\u0000');
+        assertThat(right).isInstanceOf(Eq.class);
+        assertThat(((Binary) ((Eq) right).getValue()).toStringUsingUTF8()).isEqualTo("B");
     }
 
     @Test
@@ -181,15 +167,10 @@ public class RangeQueryUtilsTest {
         assertThat(((Binary) ((GtEq) leftLeft).getValue()).getBytes()).containsExactly(new byte[]{1});
         assertThat(leftRight).isInstanceOf(Lt.class);
         assertThat(((Binary) ((Lt) leftRight).getValue()).getBytes()).containsExactly(new byte[]{50, 61});
-        //  - Right predicate restricts to the range
+        //  - Right predicate restricts to the exact key, so that bloom filters can be used
         FilterPredicate right = and.getRight();
-        assertThat(right).isInstanceOf(And.class);
-        FilterPredicate rightLeft = ((And) right).getLeft();
-        FilterPredicate rightRight = ((And) right).getRight();
-        assertThat(rightLeft).isInstanceOf(GtEq.class);
-        assertThat(((Binary) ((GtEq) rightLeft).getValue()).getBytes()).containsExactly(new byte[]{10, 20});
-        assertThat(rightRight).isInstanceOf(Lt.class);
-        assertThat(((Binary) ((Lt) rightRight).getValue()).getBytes()).containsExactly(new byte[]{10, 20, -128});
+        assertThat(right).isInstanceOf(Eq.class);
+        assertThat(((Binary) ((Eq) right).getValue()).getBytes()).containsExactly(new byte[]{10, 20});
     }
 
     @Test
@@ -226,13 +207,8 @@ public class RangeQueryUtilsTest {
         assertThat(right).isInstanceOf(Or.class);
         FilterPredicate rightLeft = ((Or) right).getLeft();
         FilterPredicate rightRight = ((Or) right).getRight();
-        assertThat(rightLeft).isInstanceOf(And.class);
-        FilterPredicate p1 = ((And) rightLeft).getLeft();
-        assertThat(p1).isInstanceOf(GtEq.class);
-        assertThat(((GtEq) p1).getValue()).isEqualTo(1);
-        FilterPredicate p2 = ((And) rightLeft).getRight();
-        assertThat(p2).isInstanceOf(Lt.class);
-        assertThat(((Lt) p2).getValue()).isEqualTo(2);
+        assertThat(rightLeft).isInstanceOf(Eq.class);
+        assertThat(((Eq) rightLeft).getValue()).isEqualTo(1);
         FilterPredicate p3 = ((And) rightRight).getLeft();
         assertThat(p3).isInstanceOf(GtEq.class);
         assertThat(((GtEq) p3).getValue()).isEqualTo(5);
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.core.partition.Partition;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link StateStore} which holds the partitions and the active files of another state store in memory, so that
+ * repeated reads do not need to load all the information again if nothing has changed.
+ * <p>
+ * If a revision supplier is set for the partitions or the files, the cached value is used for as long as the revision
+ * stays the same. This should be a cheap way to find out whether the underlying state store has changed, e.g. the
+ * revision id held in DynamoDB for the {@link sleeper.statestore.s3.S3StateStore}. Otherwise the cached value is used
+ * until it reaches a maximum age. Any update made through this class clears the relevant cache.
+ */
+public class CachingStateStore extends DelegatingStateStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingStateStore.class);
+
+    private final Cache<List<Partition>> partitions;
+    private final Cache<List<FileInfo>> activeFiles;
+
+    private CachingStateStore(Builder builder) {
+        super(Objects.requireNonNull(builder.stateStore, "stateStore must not be null"), builder.stateStore);
+        StateStore stateStore = builder.stateStore;
+        this.partitions = new Cache<>("partitions", stateStore::getAllPartitions,
+                builder.partitionsRevision, builder.maxAge, builder.timeSupplier);
+        this.activeFiles = builder.cacheFiles
+                ? new Cache<>("active files", stateStore::getActiveFiles,
+                builder.filesRevision, builder.maxAge, builder.timeSupplier)
+                : null;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public List<Partition> getAllPartitions() throws StateStoreException {
+        return new ArrayList<>(partitions.get());
+    }
+
+    @Override
+    public List<Partition> getLeafPartitions() throws StateStoreException {
+        return partitions.get().stream()
+                .filter(Partition::isLeafPartition)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<FileInfo> getActiveFiles() throws StateStoreException {
+        if (null == activeFiles) {
+            return super.getActiveFiles();
+        }
+        return new ArrayList<>(activeFiles.get());
+    }
+
+    @Override
+    public List<FileInfo> getActiveFilesWithNoJobId() throws StateStoreException {
+        if (null == activeFiles) {
+            return super.getActiveFilesWithNoJobId();
+        }
+        return activeFiles.get().stream()
+                .filter(file -> null == file.getJobId())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, List<String>> getPartitionToActiveFilesMap() throws StateStoreException {
+        if (null == activeFiles) {
+            return super.getPartitionToActiveFilesMap();
+        }
+        Map<String, List<String>> partitionToFiles = new HashMap<>();
+        for (FileInfo fileInfo : activeFiles.get()) {
+            partitionToFiles.computeIfAbsent(fileInfo.getPartitionId(), partitionId -> new ArrayList<>())
+                    .add(fileInfo.getFilename());
+        }
+        return partitionToFiles;
+    }
+
+    @Override
+    public void addFile(FileInfo fileInfo) throws StateStoreException {
+        try {
+            super.addFile(fileInfo);
+        } finally {
+            invalidateFiles();
+        }
+    }
+
+    @Override
+    public void addFiles(List<FileInfo> fileInfos) throws StateStoreException {
+        try {
+            super.addFiles(fileInfos);
+        } finally {
+            invalidateFiles();
+        }
+    }
+
+    @Override
+    public void atomicallyUpdateFilesToReadyForGCAndCreateNewActiveFile(List<FileInfo> filesToBeMarkedReadyForGC, FileInfo newActiveFile) throws StateStoreException {
+        try {
+            super.atomicallyUpdateFilesToReadyForGCAndCreateNewActiveFile(filesToBeMarkedReadyForGC, newActiveFile);
+        } finally {
+            invalidateFiles();
+        }
+    }
+
+    @Override
+    public void atomicallyUpdateFilesToReadyForGCAndCreateNewActiveFiles(List<FileInfo> filesToBeMarkedReadyForGC, FileInfo leftFileInfo, FileInfo rightFileInfo) throws StateStoreException {
+        try {
+            super.atomicallyUpdateFilesToReadyForGCAndCreateNewActiveFiles(filesToBeMarkedReadyForGC, leftFileInfo, rightFileInfo);
+        } finally {
+            invalidateFiles();
+        }
+    }
+
+    @Override
+    public void atomicallyUpdateJobStatusOfFiles(String jobId, List<FileInfo> fileInfos) throws StateStoreException {
+        try {
+            super.atomicallyUpdateJobStatusOfFiles(jobId, fileInfos);
+        } finally {
+            invalidateFiles();
+        }
+    }
+
+    @Override
+    public void atomicallyUpdateJobStatusOfFiles(Map<String, List<FileInfo>> jobIdToFileInfos) throws StateStoreException {
+        try {
+            super.atomicallyUpdateJobStatusOfFiles(jobIdToFileInfos);
+        } finally {
+            invalidateFiles();
+        }
+    }
+
+    @Override
+    public void initialise() throws StateStoreException {
+        try {
+            super.initialise();
+        } finally {
+            invalidatePartitions();
+            invalidateFiles();
+        }
+    }
+
+    @Override
+    public void initialise(List<Partition> partitions) throws StateStoreException {
+        try {
+            super.initialise(partitions);
+        } finally {
+            invalidatePartitions();
+            invalidateFiles();
+        }
+    }
+
+    @Override
+    public void atomicallyUpdatePartitionAndCreateNewOnes(Partition splitPartition, Partition newPartition1, Partition newPartition2) throws StateStoreException {
+        try {
+            super.atomicallyUpdatePartitionAndCreateNewOnes(splitPartition, newPartition1, newPartition2);
+        } finally {
+            invalidatePartitions();
+        }
+    }
+
+    /**
+     * Returns the number of reads which were served from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getCacheHits() {
+        return partitions.getHits() + (null == activeFiles ? 0 : activeFiles.getHits());
+    }
+
+    /**
+     * Returns the number of reads which found nothing in the cache, and loaded from the underlying state store.
+     *
+     * @return the number of cache misses
+     */
+    public long getCacheMisses() {
+        return partitions.getMisses() + (null == activeFiles ? 0 : activeFiles.getMisses());
+    }
+
+    /**
+     * Returns the number of reads which found the cached value was out of date, and reloaded it from the underlying
+     * state store.
+     *
+     * @return the number of reloads
+     */
+    public long getCacheReloads() {
+        return partitions.getReloads() + (null == activeFiles ? 0 : activeFiles.getReloads());
+    }
+
+    private void invalidateFiles() {
+        if (null != activeFiles) {
+            activeFiles.invalidate();
+        }
+    }
+
+    private void invalidatePartitions() {
+        partitions.invalidate();
+    }
+
+    /**
+     * Loads a value from the underlying state store.
+     *
+     * @param <T> the type of the value
+     */
+    @FunctionalInterface
+    private interface Loader<T> {
+        T load() throws StateStoreException;
+    }
+
+    /**
+     * Holds one value loaded from the underlying state store, and decides when it must be reloaded.
+     *
+     * @param <T> the type of the value
+     */
+    private static class Cache<T> {
+        private final String description;
+        private final Loader<T> loader;
+        private final Supplier<Object> revisionSupplier;
+        private final Duration maxAge;
+        private final Supplier<Instant> timeSupplier;
+        private T value;
+        private Object revision;
+        private Instant loadTime;
+        private long hits;
+        private long misses;
+        private long reloads;
+
+        Cache(String description, Loader<T> loader, Supplier<Object> revisionSupplier,
+              Duration maxAge, Supplier<Instant> timeSupplier) {
+            this.description = description;
+            this.loader = loader;
+            this.revisionSupplier = revisionSupplier;
+            this.maxAge = maxAge;
+            this.timeSupplier = timeSupplier;
+            this.loadTime = Instant.MIN;
+        }
+
+        synchronized T get() throws StateStoreException {
+            Object currentRevision = null == revisionSupplier ? null : revisionSupplier.get();
+            Instant now = timeSupplier.get();
+            if (null == value) {
+                misses++;
+                LOGGER.debug("No cached {}, loading from state store", description);
+            } else if (isValid(currentRevision, now)) {
+                hits++;
+                return value;
+            } else {
+                reloads++;
+                LOGGER.debug("Cached {} is out of date, reloading from state store", description);
+            }
+            value = loader.load();
+            revision = currentRevision;
+            loadTime = now;
+            return value;
+        }
+
+        private boolean isValid(Object currentRevision, Instant now) {
+            if (null != revisionSupplier) {
+                return null != currentRevision && currentRevision.equals(revision);
+            }
+            return now.isBefore(loadTime.plus(maxAge));
+        }
+
+        synchronized void invalidate() {
+            value = null;
+            revision = null;
+            loadTime = Instant.MIN;
+        }
+
+        synchronized long getHits() {
+            return hits;
+        }
+
+        synchronized long getMisses() {
+            return misses;
+        }
+
+        synchronized long getReloads() {
+            return reloads;
+        }
+    }
+
+    public static final class Builder {
+        private StateStore stateStore;
+        private Supplier<Object> partitionsRevision;
+        private Supplier<Object> filesRevision;
+        private boolean cacheFiles = true;
+        private Duration maxAge = Duration.ofMinutes(1);
+        private Supplier<Instant> timeSupplier = Instant::now;
+
+        private Builder() {
+        }
+
+        public Builder stateStore(StateStore stateStore) {
+            this.stateStore = stateStore;
+            return this;
+        }
+
+        public Builder partitionsRevision(Supplier<Object> partitionsRevision) {
+            this.partitionsRevision = partitionsRevision;
+            return this;
+        }
+
+        public Builder filesRevision(Supplier<Object> filesRevision) {
+            this.filesRevision = filesRevision;
+            return this;
+        }
+
+        public Builder cacheFiles(boolean cacheFiles) {
+            this.cacheFiles = cacheFiles;
+            return this;
+        }
+
+        public Builder maxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        public Builder timeSupplier(Supplier<Instant> timeSupplier) {
+            this.timeSupplier = timeSupplier;
+            return this;
+        }
+
+        public CachingStateStore build() {
+            return new CachingStateStore(this);
+        }
+    }
+}
@@ -55,11 +55,21 @@ public class DelegatingStateStore implements StateStore {
         fileInfoStore.atomicallyUpdateJobStatusOfFiles(jobId, fileInfos);
     }
 
+    @Override
+    public void atomicallyUpdateJobStatusOfFiles(Map<String, List<FileInfo>> jobIdToFileInfos) throws StateStoreException {
+        fileInfoStore.atomicallyUpdateJobStatusOfFiles(jobIdToFileInfos);
+    }
+
     @Override
     public void deleteReadyForGCFile(FileInfo fileInfo) throws StateStoreException {
         fileInfoStore.deleteReadyForGCFile(fileInfo);
     }
 
+    @Override
+    public void deleteReadyForGCFiles(List<FileInfo> fileInfos) throws StateStoreException {
+        fileInfoStore.deleteReadyForGCFiles(fileInfos);
+    }
+
     @Override
     public List<FileInfo> getActiveFiles() throws StateStoreException {
         return fileInfoStore.getActiveFiles();
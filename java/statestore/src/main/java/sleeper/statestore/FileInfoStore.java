@@ -78,6 +78,18 @@ public interface FileInfoStore {
     void atomicallyUpdateJobStatusOfFiles(String jobId, List<FileInfo> fileInfos)
             throws StateStoreException;
 
+    /**
+     * Updates the job field of the input files of many compaction jobs, as long as the job field is currently null.
+     * This has the same effect as calling {@link #atomicallyUpdateJobStatusOfFiles(String, List)} for each job, but
+     * implementations may combine the updates into fewer requests. The update for each job is atomic, but updates for
+     * different jobs may be applied separately.
+     *
+     * @param jobIdToFileInfos A map from each job id to the FileInfos which will be assigned to that job
+     * @throws StateStoreException if update fails
+     */
+    void atomicallyUpdateJobStatusOfFiles(Map<String, List<FileInfo>> jobIdToFileInfos)
+            throws StateStoreException;
+
     /**
      * Deletes this file with the status of {@link FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION}.
      *
@@ -86,6 +98,16 @@ public interface FileInfoStore {
      */
     void deleteReadyForGCFile(FileInfo fileInfo) throws StateStoreException;
 
+    /**
+     * Deletes these files with the status of {@link FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION}. This has the
+     * same effect as calling {@link #deleteReadyForGCFile(FileInfo)} for each file, but implementations may combine
+     * the updates into fewer requests.
+     *
+     * @param fileInfos The FileInfos to be deleted.
+     * @throws StateStoreException if update fails
+     */
+    void deleteReadyForGCFiles(List<FileInfo> fileInfos) throws StateStoreException;
+
     /**
      * Returns all {@link FileInfo}s with a status of status.
      *
@@ -21,8 +21,15 @@ import org.apache.hadoop.conf.Configuration;
 import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.TableProperties;
 import sleeper.statestore.dynamodb.DynamoDBStateStore;
+import sleeper.statestore.s3.S3DeltaLogStateStore;
+import sleeper.statestore.s3.S3RevisionUtils;
 import sleeper.statestore.s3.S3StateStore;
 
+import java.time.Duration;
+
+import static sleeper.configuration.properties.table.TableProperty.REVISION_TABLENAME;
+import static sleeper.configuration.properties.table.TableProperty.STATESTORE_CACHE_ENABLED;
+import static sleeper.configuration.properties.table.TableProperty.STATESTORE_CACHE_MAX_AGE_SECONDS;
 import static sleeper.configuration.properties.table.TableProperty.STATESTORE_CLASSNAME;
 
 public class StateStoreFactory {
@@ -37,6 +44,14 @@ public class StateStoreFactory {
     }
 
     public StateStore getStateStore(TableProperties tableProperties) {
+        StateStore stateStore = createStateStore(tableProperties);
+        if (tableProperties.getBoolean(STATESTORE_CACHE_ENABLED)) {
+            return createCachingStateStore(tableProperties, stateStore);
+        }
+        return stateStore;
+    }
+
+    private StateStore createStateStore(TableProperties tableProperties) {
         String stateStoreClassName = tableProperties.get(STATESTORE_CLASSNAME);
         if (stateStoreClassName.equals(DynamoDBStateStore.class.getName())) {
             return new DynamoDBStateStore(tableProperties, dynamoDB);
@@ -44,6 +59,27 @@ public class StateStoreFactory {
         if (stateStoreClassName.equals(S3StateStore.class.getName())) {
             return new S3StateStore(instanceProperties, tableProperties, dynamoDB, configuration);
         }
+        if (stateStoreClassName.equals(S3DeltaLogStateStore.class.getName())) {
+            return new S3DeltaLogStateStore(instanceProperties, tableProperties, dynamoDB, configuration);
+        }
         throw new RuntimeException("Unknown StateStore class: " + stateStoreClassName);
     }
+
+    private StateStore createCachingStateStore(TableProperties tableProperties, StateStore stateStore) {
+        CachingStateStore.Builder builder = CachingStateStore.builder()
+                .stateStore(stateStore)
+                .maxAge(Duration.ofSeconds(tableProperties.getInt(STATESTORE_CACHE_MAX_AGE_SECONDS)));
+        String stateStoreClassName = tableProperties.get(STATESTORE_CLASSNAME);
+        if (stateStoreClassName.equals(S3StateStore.class.getName())) {
+            S3RevisionUtils revisionUtils = new S3RevisionUtils(dynamoDB, tableProperties.get(REVISION_TABLENAME));
+            builder.partitionsRevision(revisionUtils::getCurrentPartitionsRevisionId)
+                    .filesRevision(revisionUtils::getCurrentFilesRevisionId);
+        } else if (stateStoreClassName.equals(S3DeltaLogStateStore.class.getName())) {
+            // The delta log state store already holds the files in memory and only reads what has changed
+            S3RevisionUtils revisionUtils = new S3RevisionUtils(dynamoDB, tableProperties.get(REVISION_TABLENAME));
+            builder.partitionsRevision(revisionUtils::getCurrentPartitionsRevisionId)
+                    .cacheFiles(false);
+        }
+        return builder.build();
+    }
 }
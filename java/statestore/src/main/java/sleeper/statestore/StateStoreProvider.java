@@ -22,8 +22,8 @@ import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.TableProperties;
 import sleeper.configuration.properties.table.TablePropertiesProvider;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import static sleeper.configuration.properties.table.TableProperty.TABLE_NAME;
@@ -45,7 +45,7 @@ public class StateStoreProvider {
 
     protected StateStoreProvider(Function<TableProperties, StateStore> stateStoreFactory) {
         this.stateStoreFactory = stateStoreFactory;
-        this.tableNameToStateStoreCache = new HashMap<>();
+        this.tableNameToStateStoreCache = new ConcurrentHashMap<>();
     }
 
     public StateStore getStateStore(String tableName, TablePropertiesProvider tablePropertiesProvider) {
@@ -55,10 +55,6 @@ public class StateStoreProvider {
 
     public StateStore getStateStore(TableProperties tableProperties) {
         String tableName = tableProperties.get(TABLE_NAME);
-        if (!tableNameToStateStoreCache.containsKey(tableName)) {
-            StateStore stateStore = stateStoreFactory.apply(tableProperties);
-            tableNameToStateStoreCache.put(tableName, stateStore);
-        }
-        return tableNameToStateStoreCache.get(tableName);
+        return tableNameToStateStoreCache.computeIfAbsent(tableName, name -> stateStoreFactory.apply(tableProperties));
     }
 }
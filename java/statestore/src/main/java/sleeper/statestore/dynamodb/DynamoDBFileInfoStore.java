@@ -17,11 +17,14 @@ package sleeper.statestore.dynamodb;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.Delete;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
 import com.amazonaws.services.dynamodbv2.model.IdempotentParameterMismatchException;
 import com.amazonaws.services.dynamodbv2.model.InternalServerErrorException;
 import com.amazonaws.services.dynamodbv2.model.ItemCollectionSizeLimitExceededException;
@@ -39,6 +42,7 @@ import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult;
 import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
 import com.amazonaws.services.dynamodbv2.model.TransactionConflictException;
 import com.amazonaws.services.dynamodbv2.model.TransactionInProgressException;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -73,6 +77,9 @@ import static sleeper.statestore.dynamodb.DynamoDBStateStore.FILE_NAME;
 public class DynamoDBFileInfoStore implements FileInfoStore {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DynamoDBFileInfoStore.class);
+    private static final int MAX_ITEMS_IN_TRANSACTION = 100;
+    private static final int MAX_ITEMS_IN_BATCH_WRITE = 25;
+    private static final int MAX_BATCH_WRITE_ATTEMPTS = 10;
 
     private final AmazonDynamoDB dynamoDB;
     private final Schema schema;
@@ -241,22 +248,53 @@ public class DynamoDBFileInfoStore implements FileInfoStore {
         // TODO This should only be done for active files
         // Create Puts for each of the files, conditional on the compactionJob field being not present
         for (FileInfo fileInfo : files) {
-            Map<String, AttributeValue> fileAttributeValues = fileInfoFormat.createRecordWithJobId(fileInfo, jobId);
-            Map<String, String> expressionAttributeNames = new HashMap<>();
-            expressionAttributeNames.put("#filename", FILE_NAME);
-            expressionAttributeNames.put("#partitionid", PARTITION);
-            expressionAttributeNames.put("#jobid", JOB_ID);
-            Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
-            expressionAttributeValues.put(":filename", new AttributeValue().withS(fileInfo.getFilename()));
-            expressionAttributeValues.put(":partitionid", new AttributeValue().withS(fileInfo.getPartitionId()));
-            Put put = new Put()
-                    .withTableName(activeTablename)
-                    .withItem(fileAttributeValues)
-                    .withExpressionAttributeNames(expressionAttributeNames)
-                    .withExpressionAttributeValues(expressionAttributeValues)
-                    .withConditionExpression("#filename=:filename and #partitionid=:partitionid and attribute_not_exists(#jobid)");
-            writes.add(new TransactWriteItem().withPut(put));
+            writes.add(new TransactWriteItem().withPut(createPutWithJobId(fileInfo, jobId)));
+        }
+        transactWriteJobIds(writes);
+    }
+
+    /**
+     * Updates the job field of the input files of many compaction jobs. The updates for whole jobs are combined into
+     * transactions of up to {@link #MAX_ITEMS_IN_TRANSACTION} items, so the files of each job are updated atomically
+     * with fewer requests than one transaction per job.
+     */
+    @Override
+    public void atomicallyUpdateJobStatusOfFiles(Map<String, List<FileInfo>> jobIdToFileInfos)
+            throws StateStoreException {
+        List<TransactWriteItem> writes = new ArrayList<>();
+        for (Map.Entry<String, List<FileInfo>> entry : jobIdToFileInfos.entrySet()) {
+            List<FileInfo> files = entry.getValue();
+            if (!writes.isEmpty() && writes.size() + files.size() > MAX_ITEMS_IN_TRANSACTION) {
+                transactWriteJobIds(writes);
+                writes = new ArrayList<>();
+            }
+            for (FileInfo fileInfo : files) {
+                writes.add(new TransactWriteItem().withPut(createPutWithJobId(fileInfo, entry.getKey())));
+            }
+        }
+        if (!writes.isEmpty()) {
+            transactWriteJobIds(writes);
         }
+    }
+
+    private Put createPutWithJobId(FileInfo fileInfo, String jobId) throws StateStoreException {
+        Map<String, AttributeValue> fileAttributeValues = fileInfoFormat.createRecordWithJobId(fileInfo, jobId);
+        Map<String, String> expressionAttributeNames = new HashMap<>();
+        expressionAttributeNames.put("#filename", FILE_NAME);
+        expressionAttributeNames.put("#partitionid", PARTITION);
+        expressionAttributeNames.put("#jobid", JOB_ID);
+        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+        expressionAttributeValues.put(":filename", new AttributeValue().withS(fileInfo.getFilename()));
+        expressionAttributeValues.put(":partitionid", new AttributeValue().withS(fileInfo.getPartitionId()));
+        return new Put()
+                .withTableName(activeTablename)
+                .withItem(fileAttributeValues)
+                .withExpressionAttributeNames(expressionAttributeNames)
+                .withExpressionAttributeValues(expressionAttributeValues)
+                .withConditionExpression("#filename=:filename and #partitionid=:partitionid and attribute_not_exists(#jobid)");
+    }
+
+    private void transactWriteJobIds(List<TransactWriteItem> writes) throws StateStoreException {
         TransactWriteItemsRequest transactWriteItemsRequest = new TransactWriteItemsRequest()
                 .withTransactItems(writes)
                 .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
@@ -265,7 +303,7 @@ public class DynamoDBFileInfoStore implements FileInfoStore {
             List<ConsumedCapacity> consumedCapacity = transactWriteItemsResult.getConsumedCapacity();
             double totalConsumed = consumedCapacity.stream().mapToDouble(ConsumedCapacity::getCapacityUnits).sum();
             LOGGER.debug("Updated job status of {} files, read capacity consumed = {}",
-                    files.size(), totalConsumed);
+                    writes.size(), totalConsumed);
         } catch (TransactionCanceledException | ResourceNotFoundException
                  | TransactionInProgressException | IdempotentParameterMismatchException
                  | ProvisionedThroughputExceededException | InternalServerErrorException e) {
@@ -288,6 +326,58 @@ public class DynamoDBFileInfoStore implements FileInfoStore {
                 fileInfo.getFilename(), consumedCapacity.getCapacityUnits());
     }
 
+    /**
+     * Deletes the records for these files in batches of up to {@link #MAX_ITEMS_IN_BATCH_WRITE}, retrying any items
+     * that DynamoDB does not process.
+     */
+    @Override
+    public void deleteReadyForGCFiles(List<FileInfo> fileInfos) throws StateStoreException {
+        for (int i = 0; i < fileInfos.size(); i += MAX_ITEMS_IN_BATCH_WRITE) {
+            List<WriteRequest> deletes = new ArrayList<>();
+            for (FileInfo fileInfo : fileInfos.subList(i, Math.min(i + MAX_ITEMS_IN_BATCH_WRITE, fileInfos.size()))) {
+                Map<String, AttributeValue> key = new HashMap<>();
+                key.put(FILE_NAME, new AttributeValue(fileInfo.getFilename()));
+                deletes.add(new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key)));
+            }
+            Map<String, List<WriteRequest>> requestItems = Map.of(readyForGCTablename, deletes);
+            double totalConsumed = 0;
+            try {
+                for (int attempt = 1; !requestItems.isEmpty(); attempt++) {
+                    if (attempt > MAX_BATCH_WRITE_ATTEMPTS) {
+                        throw new StateStoreException("Failed to delete " + requestItems.get(readyForGCTablename).size()
+                                + " ready for GC files after " + MAX_BATCH_WRITE_ATTEMPTS + " attempts");
+                    }
+                    if (attempt > 1) {
+                        // Unprocessed items are usually due to throttling, so back off before retrying them
+                        sleepBeforeRetry(attempt - 1);
+                    }
+                    BatchWriteItemResult result = dynamoDB.batchWriteItem(new BatchWriteItemRequest()
+                            .withRequestItems(requestItems)
+                            .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL));
+                    totalConsumed += result.getConsumedCapacity().stream().mapToDouble(ConsumedCapacity::getCapacityUnits).sum();
+                    requestItems = result.getUnprocessedItems();
+                }
+            } catch (ResourceNotFoundException | ProvisionedThroughputExceededException
+                     | RequestLimitExceededException | InternalServerErrorException e) {
+                throw new StateStoreException(e);
+            }
+            LOGGER.debug("Deleted {} files, capacity consumed = {}", deletes.size(), totalConsumed);
+        }
+    }
+
+    private static void sleepBeforeRetry(int n) throws StateStoreException {
+        // Implements exponential back-off with jitter, see
+        // https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/
+        long sleepTimeInMillis = Math.min(20000L, 50L << n);
+        long sleepTimeWithJitter = (long) (Math.random() * sleepTimeInMillis);
+        try {
+            Thread.sleep(sleepTimeWithJitter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StateStoreException("Interrupted retrying unprocessed items", e);
+        }
+    }
+
     @Override
     public List<FileInfo> getActiveFiles() throws StateStoreException {
         try {
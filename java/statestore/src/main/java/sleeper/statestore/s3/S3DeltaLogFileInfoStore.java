@@ -0,0 +1,661 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.s3;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionCheck;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.Put;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.core.schema.type.PrimitiveType;
+import sleeper.statestore.FileInfo;
+import sleeper.statestore.FileInfoStore;
+import sleeper.statestore.StateStoreException;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static sleeper.statestore.s3.S3StateStore.CURRENT_REVISION;
+import static sleeper.statestore.s3.S3StateStore.CURRENT_UUID;
+import static sleeper.statestore.s3.S3StateStore.REVISION_ID_KEY;
+
+/**
+ * Stores file information in S3 as an append-only log of deltas, with periodic checkpoints. Each update is written to
+ * S3 as a small Parquet file holding only the files that changed. It is then committed by claiming the next revision
+ * number with a conditional put to the DynamoDB revision table, so that only one update can succeed for each revision.
+ * <p>
+ * Each instance holds the file information in memory. Before each read or update it reads any deltas which have been
+ * committed since the revision it holds, so it never needs to read the whole state again. Every time the number of
+ * revisions reaches a multiple of the checkpoint interval, the update that reached it also writes a checkpoint holding
+ * all the file information. A new instance starts from the latest checkpoint.
+ * <p>
+ * Once a checkpoint has been written, the deltas it includes and their revision items are deleted, along with any
+ * older checkpoints. An update can only be committed at a revision after the latest checkpoint, and an instance which
+ * has fallen behind the latest checkpoint starts again from that checkpoint.
+ */
+public class S3DeltaLogFileInfoStore implements FileInfoStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(S3DeltaLogFileInfoStore.class);
+    public static final String FILES_DELTA_KEY_PREFIX = "FILES_DELTA_";
+    public static final String CURRENT_FILES_CHECKPOINT_KEY = "CURRENT_FILES_CHECKPOINT_KEY";
+    private static final int MAX_UPDATE_ATTEMPTS = 10;
+
+    private final List<PrimitiveType> rowKeyTypes;
+    private final int garbageCollectorDelayBeforeDeletionInMinutes;
+    private final int checkpointInterval;
+    private final String fs;
+    private final String s3Bucket;
+    private final AmazonDynamoDB dynamoDB;
+    private final String dynamoRevisionIdTable;
+    private final Configuration conf;
+    private final S3FileInfoFormat fileInfoFormat;
+    private final Map<String, FileInfo> filenameToFileInfo = new LinkedHashMap<>();
+    private long revision = -1;
+    private Clock clock = Clock.systemUTC();
+
+    private S3DeltaLogFileInfoStore(Builder builder) {
+        this.fs = Objects.requireNonNull(builder.fs, "fs must not be null");
+        this.s3Bucket = Objects.requireNonNull(builder.s3Bucket, "s3Bucket must not be null");
+        this.dynamoRevisionIdTable = Objects.requireNonNull(builder.dynamoRevisionIdTable, "dynamoRevisionIdTable must not be null");
+        this.rowKeyTypes = builder.rowKeyTypes;
+        this.garbageCollectorDelayBeforeDeletionInMinutes = builder.garbageCollectorDelayBeforeDeletionInMinutes;
+        this.checkpointInterval = builder.checkpointInterval;
+        this.dynamoDB = Objects.requireNonNull(builder.dynamoDB, "dynamoDB must not be null");
+        this.conf = builder.conf;
+        this.fileInfoFormat = new S3FileInfoFormat(rowKeyTypes, conf);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public void addFile(FileInfo fileInfo) throws StateStoreException {
+        addFiles(Collections.singletonList(fileInfo));
+    }
+
+    @Override
+    public void addFiles(List<FileInfo> fileInfos) throws StateStoreException {
+        for (FileInfo fileInfo : fileInfos) {
+            if (null == fileInfo.getFilename()
+                    || null == fileInfo.getFileStatus()
+                    || null == fileInfo.getPartitionId()
+                    || null == fileInfo.getNumberOfRecords()) {
+                throw new IllegalArgumentException("FileInfo needs non-null filename, status, partition id and number of records: got " + fileInfo);
+            }
+        }
+        updateFiles(files -> "", files -> S3FileInfoDelta.put(fileInfos));
+    }
+
+    @Override
+    public void atomicallyUpdateFilesToReadyForGCAndCreateNewActiveFile(List<FileInfo> filesToBeMarkedReadyForGC, FileInfo newActiveFile)
+            throws StateStoreException {
+        updateFiles(files -> checkFilesAreActive(files, filesToBeMarkedReadyForGC),
+                files -> S3FileInfoDelta.put(markReadyForGCAndAdd(filesToBeMarkedReadyForGC, List.of(newActiveFile))));
+    }
+
+    @Override
+    public void atomicallyUpdateFilesToReadyForGCAndCreateNewActiveFiles(List<FileInfo> filesToBeMarkedReadyForGC,
+                                                                         FileInfo leftFileInfo,
+                                                                         FileInfo rightFileInfo) throws StateStoreException {
+        updateFiles(files -> checkFilesAreActive(files, filesToBeMarkedReadyForGC),
+                files -> S3FileInfoDelta.put(markReadyForGCAndAdd(filesToBeMarkedReadyForGC, List.of(leftFileInfo, rightFileInfo))));
+    }
+
+    @Override
+    public void atomicallyUpdateJobStatusOfFiles(String jobId, List<FileInfo> fileInfos) throws StateStoreException {
+        atomicallyUpdateJobStatusOfFiles(Map.of(jobId, fileInfos));
+    }
+
+    @Override
+    public void atomicallyUpdateJobStatusOfFiles(Map<String, List<FileInfo>> jobIdToFileInfos) throws StateStoreException {
+        Map<String, String> fileNameToJobId = new HashMap<>();
+        jobIdToFileInfos.forEach((jobId, fileInfos) ->
+                fileInfos.forEach(fileInfo -> fileNameToJobId.put(fileInfo.getFilename(), jobId)));
+
+        Function<Map<String, FileInfo>, String> condition = files -> {
+            for (String filename : fileNameToJobId.keySet()) {
+                FileInfo currentFileInfo = files.get(filename);
+                if (null == currentFileInfo || null != currentFileInfo.getJobId()) {
+                    return "Files should have a null job status: file " + filename + " doesn't meet this criteria";
+                }
+            }
+            return "";
+        };
+        Function<Map<String, FileInfo>, S3FileInfoDelta> update = files -> S3FileInfoDelta.put(
+                fileNameToJobId.entrySet().stream()
+                        .map(entry -> files.get(entry.getKey()).toBuilder().jobId(entry.getValue()).build())
+                        .collect(Collectors.toList()));
+        updateFiles(condition, update);
+    }
+
+    @Override
+    public void deleteReadyForGCFile(FileInfo readyForGCFileInfo) throws StateStoreException {
+        deleteReadyForGCFiles(Collections.singletonList(readyForGCFileInfo));
+    }
+
+    @Override
+    public void deleteReadyForGCFiles(List<FileInfo> readyForGCFileInfos) throws StateStoreException {
+        Function<Map<String, FileInfo>, String> condition = files -> {
+            for (FileInfo fileInfo : readyForGCFileInfos) {
+                FileInfo currentFileInfo = files.get(fileInfo.getFilename());
+                if (null == currentFileInfo) {
+                    return "File to be deleted should be marked as ready for GC, file " + fileInfo.getFilename() + " does not exist";
+                }
+                if (!currentFileInfo.getFileStatus().equals(FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION)) {
+                    return "File to be deleted should be marked as ready for GC, got " + currentFileInfo.getFileStatus()
+                            + " for file " + currentFileInfo.getFilename();
+                }
+            }
+            return "";
+        };
+        updateFiles(condition, files -> S3FileInfoDelta.delete(readyForGCFileInfos.stream()
+                .map(fileInfo -> files.get(fileInfo.getFilename()))
+                .collect(Collectors.toList())));
+    }
+
+    @Override
+    public List<FileInfo> getActiveFiles() throws StateStoreException {
+        return getFiles(f -> f.getFileStatus().equals(FileInfo.FileStatus.ACTIVE));
+    }
+
+    @Override
+    public Iterator<FileInfo> getReadyForGCFiles() throws StateStoreException {
+        long delayInMilliseconds = 1000L * 60L * garbageCollectorDelayBeforeDeletionInMinutes;
+        long deleteTime = clock.millis() - delayInMilliseconds;
+        return getFiles(f -> f.getFileStatus().equals(FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION)
+                && f.getLastStateStoreUpdateTime() < deleteTime).iterator();
+    }
+
+    @Override
+    public List<FileInfo> getActiveFilesWithNoJobId() throws StateStoreException {
+        return getFiles(f -> f.getFileStatus().equals(FileInfo.FileStatus.ACTIVE) && null == f.getJobId());
+    }
+
+    @Override
+    public Map<String, List<String>> getPartitionToActiveFilesMap() throws StateStoreException {
+        Map<String, List<String>> partitionToFiles = new HashMap<>();
+        for (FileInfo fileInfo : getActiveFiles()) {
+            partitionToFiles.computeIfAbsent(fileInfo.getPartitionId(), partitionId -> new ArrayList<>())
+                    .add(fileInfo.getFilename());
+        }
+        return partitionToFiles;
+    }
+
+    /**
+     * Sets the file information to be empty. This is committed as an update which removes every file, so that it is
+     * seen by any other instance holding the file information, and cannot overwrite a concurrent update. An empty
+     * checkpoint is then written at that revision.
+     *
+     * @throws StateStoreException if the update could not be committed
+     */
+    @Override
+    public synchronized void initialise() throws StateStoreException {
+        updateFiles(files -> "", files -> S3FileInfoDelta.delete(new ArrayList<>(files.values())));
+        if (revision % checkpointInterval != 0) {
+            writeCheckpoint();
+        }
+    }
+
+    /**
+     * Deletes all the file information for the table, including the deltas, checkpoints and their revision items.
+     * This is used when the table is reinitialised, and must not be run while the table is in use. The file
+     * information must be initialised again afterwards.
+     *
+     * @throws StateStoreException if the file information could not be listed or deleted
+     */
+    public synchronized void deleteAllFileInfo() throws StateStoreException {
+        try {
+            for (FileStatus status : listFiles(getDeltasDirectory())) {
+                deleteItem(getDeltaKey(getRevisionFromFileName(status.getPath())));
+                deleteQuietly(status.getPath().toString());
+            }
+            deleteItem(CURRENT_FILES_CHECKPOINT_KEY);
+            for (FileStatus status : listFiles(getCheckpointsDirectory())) {
+                deleteQuietly(status.getPath().toString());
+            }
+        } catch (IOException | AmazonClientException e) {
+            throw new StateStoreException("Failed deleting file information", e);
+        }
+        filenameToFileInfo.clear();
+        revision = -1;
+    }
+
+    /**
+     * Writes a checkpoint holding all the file information at the latest revision. This is done automatically at every
+     * multiple of the checkpoint interval, but may also be called to fold the deltas at other times.
+     *
+     * @throws StateStoreException if the latest revision could not be read
+     */
+    public synchronized void checkpoint() throws StateStoreException {
+        refresh();
+        writeCheckpoint();
+    }
+
+    public void fixTime(Instant now) {
+        clock = Clock.fixed(now, ZoneId.of("UTC"));
+    }
+
+    private synchronized List<FileInfo> getFiles(Predicate<FileInfo> filter) throws StateStoreException {
+        refresh();
+        return filenameToFileInfo.values().stream()
+                .filter(filter)
+                .collect(Collectors.toList());
+    }
+
+    private List<FileInfo> markReadyForGCAndAdd(List<FileInfo> filesToBeMarkedReadyForGC, List<FileInfo> newActiveFiles) {
+        long updateTime = clock.millis();
+        List<FileInfo> filesToPut = new ArrayList<>();
+        for (FileInfo fileInfo : filesToBeMarkedReadyForGC) {
+            filesToPut.add(filenameToFileInfo.get(fileInfo.getFilename()).toBuilder()
+                    .fileStatus(FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION)
+                    .lastStateStoreUpdateTime(updateTime)
+                    .build());
+        }
+        filesToPut.addAll(newActiveFiles);
+        return filesToPut;
+    }
+
+    private static String checkFilesAreActive(Map<String, FileInfo> files, List<FileInfo> filesToBeMarkedReadyForGC) {
+        for (FileInfo fileInfo : filesToBeMarkedReadyForGC) {
+            FileInfo currentFileInfo = files.get(fileInfo.getFilename());
+            if (null == currentFileInfo || !currentFileInfo.getFileStatus().equals(FileInfo.FileStatus.ACTIVE)) {
+                return "Files in filesToBeMarkedReadyForGC should be active: file " + fileInfo.getFilename() + " is not active";
+            }
+        }
+        return "";
+    }
+
+    private synchronized void updateFiles(Function<Map<String, FileInfo>, String> condition,
+                                          Function<Map<String, FileInfo>, S3FileInfoDelta> update) throws StateStoreException {
+        Map<String, FileInfo> files = Collections.unmodifiableMap(filenameToFileInfo);
+        int numberAttempts = 0;
+        while (numberAttempts < MAX_UPDATE_ATTEMPTS) {
+            refresh();
+
+            String conditionCheck = condition.apply(files);
+            if (!conditionCheck.equals("")) {
+                throw new StateStoreException("Conditional check failed: " + conditionCheck);
+            }
+            S3FileInfoDelta delta = update.apply(files);
+
+            long nextRevision = revision + 1;
+            String uuid = UUID.randomUUID().toString();
+            String deltaPath = getDeltaPath(nextRevision, uuid);
+            try {
+                LOGGER.debug("Writing delta for revision {} to {}", nextRevision, deltaPath);
+                fileInfoFormat.writeDeltaToParquet(delta, deltaPath);
+            } catch (IOException e) {
+                LOGGER.debug("IOException thrown attempting to write delta; retrying", e);
+                numberAttempts++;
+                continue;
+            }
+            try {
+                commitDelta(nextRevision, uuid);
+            } catch (TransactionCanceledException e) {
+                LOGGER.info("Attempt number {} to commit revision {} failed as another update committed it first, retrying",
+                        numberAttempts, nextRevision);
+                deleteQuietly(deltaPath);
+                numberAttempts++;
+                sleep(numberAttempts);
+                continue;
+            } catch (AmazonClientException e) {
+                if (!isDeltaCommitted(nextRevision, uuid, e)) {
+                    deleteQuietly(deltaPath);
+                    throw new StateStoreException("Failed to commit revision " + nextRevision + " of file information", e);
+                }
+                LOGGER.warn("Exception committing revision {}, but the revision was committed", nextRevision, e);
+            }
+            delta.applyTo(filenameToFileInfo);
+            revision = nextRevision;
+            LOGGER.debug("Updated file information to revision {}", revision);
+            if (revision % checkpointInterval == 0) {
+                writeCheckpoint();
+            }
+            return;
+        }
+        throw new StateStoreException("Failed to update file information after " + numberAttempts + " attempts");
+    }
+
+    /**
+     * Brings the file information held in memory up to date, by reading any deltas committed since the revision that
+     * is held. If nothing is held yet, this starts from the latest checkpoint.
+     *
+     * @throws StateStoreException if a delta or checkpoint could not be read
+     */
+    private void refresh() throws StateStoreException {
+        if (revision < 0) {
+            loadLatestCheckpoint();
+        }
+        int numberOfDeltas = 0;
+        while (true) {
+            String uuid = getDeltaUuid(revision + 1);
+            if (null == uuid) {
+                // The deltas included in a checkpoint are deleted, so an instance which is behind the latest
+                // checkpoint must start again from there
+                if (getCheckpointRevision() > revision) {
+                    loadLatestCheckpoint();
+                    continue;
+                }
+                break;
+            }
+            String path = getDeltaPath(revision + 1, uuid);
+            S3FileInfoDelta delta;
+            try {
+                delta = fileInfoFormat.readDeltaFromParquet(path);
+            } catch (IOException e) {
+                if (getCheckpointRevision() > revision) {
+                    LOGGER.debug("Delta {} was deleted after a checkpoint, loading the checkpoint", path);
+                    loadLatestCheckpoint();
+                    continue;
+                }
+                throw new StateStoreException("IOException reading delta from " + path, e);
+            }
+            delta.applyTo(filenameToFileInfo);
+            revision++;
+            numberOfDeltas++;
+        }
+        if (numberOfDeltas > 0) {
+            LOGGER.debug("Read {} deltas, file information is now at revision {}", numberOfDeltas, revision);
+        }
+    }
+
+    private long getCheckpointRevision() {
+        Map<String, AttributeValue> item = getItem(CURRENT_FILES_CHECKPOINT_KEY);
+        return null == item ? 0L : Long.parseLong(item.get(CURRENT_REVISION).getS());
+    }
+
+    private void loadLatestCheckpoint() throws StateStoreException {
+        filenameToFileInfo.clear();
+        Map<String, AttributeValue> item = getItem(CURRENT_FILES_CHECKPOINT_KEY);
+        while (null != item) {
+            long checkpointRevision = Long.parseLong(item.get(CURRENT_REVISION).getS());
+            String path = getCheckpointPath(checkpointRevision, item.get(CURRENT_UUID).getS());
+            try {
+                for (FileInfo fileInfo : fileInfoFormat.readFileInfosFromParquet(path)) {
+                    filenameToFileInfo.put(fileInfo.getFilename(), fileInfo);
+                }
+                revision = checkpointRevision;
+                LOGGER.debug("Loaded checkpoint at revision {} from {}", revision, path);
+                return;
+            } catch (IOException e) {
+                // Older checkpoints are deleted when a new one is written, so check whether this one was replaced
+                filenameToFileInfo.clear();
+                Map<String, AttributeValue> latestItem = getItem(CURRENT_FILES_CHECKPOINT_KEY);
+                if (item.equals(latestItem)) {
+                    throw new StateStoreException("IOException reading checkpoint from " + path, e);
+                }
+                item = latestItem;
+            }
+        }
+        revision = 0L;
+    }
+
+    private void writeCheckpoint() {
+        String uuid = UUID.randomUUID().toString();
+        String path = getCheckpointPath(revision, uuid);
+        try {
+            fileInfoFormat.writeFileInfosToParquet(new ArrayList<>(filenameToFileInfo.values()), path);
+        } catch (IOException e) {
+            // The deltas are still committed, so a failed checkpoint only means new readers will read more deltas
+            LOGGER.warn("IOException writing checkpoint for revision {}", revision, e);
+            return;
+        }
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put(REVISION_ID_KEY, new AttributeValue().withS(CURRENT_FILES_CHECKPOINT_KEY));
+        item.put(CURRENT_REVISION, new AttributeValue().withS(S3StateStore.getZeroPaddedLong(revision)));
+        item.put(CURRENT_UUID, new AttributeValue().withS(uuid));
+        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+        expressionAttributeValues.put(":revision", new AttributeValue(S3StateStore.getZeroPaddedLong(revision)));
+        try {
+            dynamoDB.putItem(new PutItemRequest()
+                    .withTableName(dynamoRevisionIdTable)
+                    .withItem(item)
+                    .withExpressionAttributeValues(expressionAttributeValues)
+                    .withConditionExpression("attribute_not_exists(" + CURRENT_REVISION + ") or " + CURRENT_REVISION + " < :revision"));
+            LOGGER.info("Wrote checkpoint of {} files at revision {}", filenameToFileInfo.size(), revision);
+        } catch (ConditionalCheckFailedException e) {
+            LOGGER.info("A checkpoint at or after revision {} already exists, deleting {}", revision, path);
+            deleteQuietly(path);
+            return;
+        } catch (AmazonClientException e) {
+            // The checkpoint may have been written, so it is kept
+            LOGGER.warn("Exception writing checkpoint for revision {}", revision, e);
+            return;
+        }
+        deleteBeforeCheckpoint(revision);
+    }
+
+    private void deleteBeforeCheckpoint(long checkpointRevision) {
+        int numberOfDeltas = 0;
+        try {
+            for (FileStatus status : listFiles(getDeltasDirectory())) {
+                long deltaRevision = getRevisionFromFileName(status.getPath());
+                if (deltaRevision <= checkpointRevision) {
+                    deleteItem(getDeltaKey(deltaRevision));
+                    deleteQuietly(status.getPath().toString());
+                    numberOfDeltas++;
+                }
+            }
+            for (FileStatus status : listFiles(getCheckpointsDirectory())) {
+                if (getRevisionFromFileName(status.getPath()) < checkpointRevision) {
+                    deleteQuietly(status.getPath().toString());
+                }
+            }
+            LOGGER.debug("Deleted {} deltas included in checkpoint at revision {}", numberOfDeltas, checkpointRevision);
+        } catch (IOException | AmazonClientException e) {
+            // These will be deleted after the next checkpoint
+            LOGGER.warn("Failed deleting deltas and checkpoints before revision {}", checkpointRevision, e);
+        }
+    }
+
+    private void commitDelta(long nextRevision, String uuid) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put(REVISION_ID_KEY, new AttributeValue().withS(getDeltaKey(nextRevision)));
+        item.put(CURRENT_UUID, new AttributeValue().withS(uuid));
+        // The deltas included in a checkpoint are deleted, so the revision must also be after the latest checkpoint
+        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+        expressionAttributeValues.put(":revision", new AttributeValue(S3StateStore.getZeroPaddedLong(nextRevision)));
+        dynamoDB.transactWriteItems(new TransactWriteItemsRequest().withTransactItems(
+                new TransactWriteItem().withPut(new Put()
+                        .withTableName(dynamoRevisionIdTable)
+                        .withItem(item)
+                        .withConditionExpression("attribute_not_exists(" + REVISION_ID_KEY + ")")),
+                new TransactWriteItem().withConditionCheck(new ConditionCheck()
+                        .withTableName(dynamoRevisionIdTable)
+                        .withKey(Map.of(REVISION_ID_KEY, new AttributeValue().withS(CURRENT_FILES_CHECKPOINT_KEY)))
+                        .withExpressionAttributeValues(expressionAttributeValues)
+                        .withConditionExpression("attribute_not_exists(" + CURRENT_REVISION + ") or " + CURRENT_REVISION + " < :revision"))));
+    }
+
+    private boolean isDeltaCommitted(long deltaRevision, String uuid, AmazonClientException commitException) throws StateStoreException {
+        try {
+            return uuid.equals(getDeltaUuid(deltaRevision));
+        } catch (AmazonClientException e) {
+            // The delta is kept, as it may have been committed
+            commitException.addSuppressed(e);
+            throw new StateStoreException("Failed to commit revision " + deltaRevision
+                    + " of file information, and could not check whether it was committed", commitException);
+        }
+    }
+
+    private String getDeltaUuid(long deltaRevision) {
+        Map<String, AttributeValue> item = getItem(getDeltaKey(deltaRevision));
+        if (null == item) {
+            return null;
+        }
+        return item.get(CURRENT_UUID).getS();
+    }
+
+    private Map<String, AttributeValue> getItem(String key) {
+        GetItemResult result = dynamoDB.getItem(new GetItemRequest()
+                .withTableName(dynamoRevisionIdTable)
+                .withKey(Map.of(REVISION_ID_KEY, new AttributeValue().withS(key)))
+                .withConsistentRead(true));
+        if (null == result || null == result.getItem() || result.getItem().isEmpty()) {
+            return null;
+        }
+        return result.getItem();
+    }
+
+    private void deleteItem(String key) {
+        dynamoDB.deleteItem(new DeleteItemRequest()
+                .withTableName(dynamoRevisionIdTable)
+                .withKey(Map.of(REVISION_ID_KEY, new AttributeValue().withS(key))));
+    }
+
+    private FileStatus[] listFiles(Path directory) throws IOException {
+        FileSystem fileSystem = directory.getFileSystem(conf);
+        if (!fileSystem.exists(directory)) {
+            return new FileStatus[0];
+        }
+        return fileSystem.listStatus(directory);
+    }
+
+    private static long getRevisionFromFileName(Path path) {
+        String name = path.getName();
+        return Long.parseLong(name.substring(0, name.indexOf('-')));
+    }
+
+    private void deleteQuietly(String pathString) {
+        try {
+            Path path = new Path(pathString);
+            path.getFileSystem(conf).delete(path, false);
+            LOGGER.debug("Deleted file {}", path);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete file {}", pathString, e);
+        }
+    }
+
+    private void sleep(int n) {
+        // Implements exponential back-off with jitter, see
+        // https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/
+        // Only the new deltas need to be read before retrying, so this starts much shorter than for the S3StateStore
+        long sleepTimeInMilliseconds = (long) Math.min(10_000, 50 * Math.pow(2.0, n));
+        long sleepTimeWithJitter = (long) (Math.random() * sleepTimeInMilliseconds);
+        try {
+            Thread.sleep(sleepTimeWithJitter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String getDeltaKey(long deltaRevision) {
+        return FILES_DELTA_KEY_PREFIX + S3StateStore.getZeroPaddedLong(deltaRevision);
+    }
+
+    private Path getDeltasDirectory() {
+        return new Path(fs + s3Bucket + "/statestore/files-log");
+    }
+
+    private Path getCheckpointsDirectory() {
+        return new Path(fs + s3Bucket + "/statestore/files-checkpoints");
+    }
+
+    private String getDeltaPath(long deltaRevision, String uuid) {
+        return getDeltasDirectory() + "/" + S3StateStore.getZeroPaddedLong(deltaRevision) + "-" + uuid + "-delta.parquet";
+    }
+
+    private String getCheckpointPath(long checkpointRevision, String uuid) {
+        return getCheckpointsDirectory() + "/" + S3StateStore.getZeroPaddedLong(checkpointRevision) + "-" + uuid + "-files.parquet";
+    }
+
+    public static final class Builder {
+        private AmazonDynamoDB dynamoDB;
+        private String dynamoRevisionIdTable;
+        private List<PrimitiveType> rowKeyTypes;
+        private String fs;
+        private String s3Bucket;
+        private int garbageCollectorDelayBeforeDeletionInMinutes;
+        private int checkpointInterval = 100;
+        private Configuration conf;
+
+        private Builder() {
+        }
+
+        public Builder dynamoDB(AmazonDynamoDB dynamoDB) {
+            this.dynamoDB = dynamoDB;
+            return this;
+        }
+
+        public Builder dynamoRevisionIdTable(String dynamoRevisionIdTable) {
+            this.dynamoRevisionIdTable = dynamoRevisionIdTable;
+            return this;
+        }
+
+        public Builder rowKeyTypes(List<PrimitiveType> rowKeyTypes) {
+            this.rowKeyTypes = rowKeyTypes;
+            return this;
+        }
+
+        public Builder fs(String fs) {
+            this.fs = fs;
+            return this;
+        }
+
+        public Builder s3Bucket(String s3Bucket) {
+            this.s3Bucket = s3Bucket;
+            return this;
+        }
+
+        public Builder garbageCollectorDelayBeforeDeletionInMinutes(int garbageCollectorDelayBeforeDeletionInMinutes) {
+            this.garbageCollectorDelayBeforeDeletionInMinutes = garbageCollectorDelayBeforeDeletionInMinutes;
+            return this;
+        }
+
+        public Builder checkpointInterval(int checkpointInterval) {
+            this.checkpointInterval = checkpointInterval;
+            return this;
+        }
+
+        public Builder conf(Configuration conf) {
+            this.conf = conf;
+            return this;
+        }
+
+        public S3DeltaLogFileInfoStore build() {
+            return new S3DeltaLogFileInfoStore(this);
+        }
+    }
+}
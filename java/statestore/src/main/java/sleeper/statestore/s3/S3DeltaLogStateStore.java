@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.s3;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import org.apache.hadoop.conf.Configuration;
+
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.core.schema.Schema;
+import sleeper.statestore.DelegatingStateStore;
+import sleeper.statestore.StateStoreException;
+
+import java.time.Instant;
+
+import static sleeper.configuration.properties.instance.CommonProperty.FILE_SYSTEM;
+import static sleeper.configuration.properties.table.TableProperty.DATA_BUCKET;
+import static sleeper.configuration.properties.table.TableProperty.GARBAGE_COLLECTOR_DELAY_BEFORE_DELETION;
+import static sleeper.configuration.properties.table.TableProperty.REVISION_TABLENAME;
+import static sleeper.configuration.properties.table.TableProperty.S3_DELTA_LOG_STATE_STORE_CHECKPOINT_INTERVAL;
+
+/**
+ * An implementation of StateStore that stores the file information in S3 as a log of deltas with periodic checkpoints,
+ * see {@link S3DeltaLogFileInfoStore}. Partitions are stored in the same way as in the {@link S3StateStore}. The same
+ * DynamoDB revision table is used to commit updates to both.
+ */
+public class S3DeltaLogStateStore extends DelegatingStateStore {
+
+    public S3DeltaLogStateStore(InstanceProperties instanceProperties,
+                                TableProperties tableProperties,
+                                AmazonDynamoDB dynamoDB,
+                                Configuration conf) {
+        this(instanceProperties.get(FILE_SYSTEM),
+                tableProperties.get(DATA_BUCKET),
+                tableProperties.get(REVISION_TABLENAME),
+                tableProperties.getSchema(),
+                tableProperties.getInt(GARBAGE_COLLECTOR_DELAY_BEFORE_DELETION),
+                tableProperties.getInt(S3_DELTA_LOG_STATE_STORE_CHECKPOINT_INTERVAL),
+                dynamoDB,
+                conf);
+    }
+
+    public S3DeltaLogStateStore(String fs,
+                                String s3Bucket,
+                                String dynamoRevisionIdTable,
+                                Schema tableSchema,
+                                int garbageCollectorDelayBeforeDeletionInMinutes,
+                                int checkpointInterval,
+                                AmazonDynamoDB dynamoDB,
+                                Configuration conf) {
+        super(S3DeltaLogFileInfoStore.builder()
+                .fs(fs)
+                .s3Bucket(s3Bucket)
+                .dynamoRevisionIdTable(dynamoRevisionIdTable)
+                .rowKeyTypes(tableSchema.getRowKeyTypes())
+                .garbageCollectorDelayBeforeDeletionInMinutes(garbageCollectorDelayBeforeDeletionInMinutes)
+                .checkpointInterval(checkpointInterval)
+                .dynamoDB(dynamoDB)
+                .conf(conf)
+                .build(), S3PartitionStore.builder()
+                .fs(fs)
+                .s3Bucket(s3Bucket)
+                .dynamoRevisionIdTable(dynamoRevisionIdTable)
+                .tableSchema(tableSchema)
+                .dynamoDB(dynamoDB)
+                .conf(conf)
+                .build());
+    }
+
+    /**
+     * Deletes all the file information, including the deltas, checkpoints and their revision items, then initialises
+     * it to be empty. The partitions are kept. This is used when a table is reinitialised, and must not be run while
+     * the table is in use.
+     *
+     * @throws StateStoreException if the file information could not be deleted or initialised
+     */
+    public void clearFileInfo() throws StateStoreException {
+        S3DeltaLogFileInfoStore s3FileInfoStore = (S3DeltaLogFileInfoStore) fileInfoStore;
+        s3FileInfoStore.deleteAllFileInfo();
+        s3FileInfoStore.initialise();
+    }
+
+    public void checkpoint() throws StateStoreException {
+        ((S3DeltaLogFileInfoStore) fileInfoStore).checkpoint();
+    }
+
+    public void fixTime(Instant now) {
+        ((S3DeltaLogFileInfoStore) fileInfoStore).fixTime(now);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.s3;
+
+import sleeper.statestore.FileInfo;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A change to the file information held in an {@link S3DeltaLogFileInfoStore}. Each delta replaces or adds some files,
+ * and removes others.
+ */
+class S3FileInfoDelta {
+    private final List<FileInfo> filesToPut;
+    private final List<FileInfo> filesToDelete;
+
+    S3FileInfoDelta(List<FileInfo> filesToPut, List<FileInfo> filesToDelete) {
+        this.filesToPut = filesToPut;
+        this.filesToDelete = filesToDelete;
+    }
+
+    static S3FileInfoDelta put(List<FileInfo> filesToPut) {
+        return new S3FileInfoDelta(filesToPut, Collections.emptyList());
+    }
+
+    static S3FileInfoDelta delete(List<FileInfo> filesToDelete) {
+        return new S3FileInfoDelta(Collections.emptyList(), filesToDelete);
+    }
+
+    List<FileInfo> getFilesToPut() {
+        return filesToPut;
+    }
+
+    List<FileInfo> getFilesToDelete() {
+        return filesToDelete;
+    }
+
+    void applyTo(Map<String, FileInfo> filenameToFileInfo) {
+        for (FileInfo fileInfo : filesToDelete) {
+            filenameToFileInfo.remove(fileInfo.getFilename());
+        }
+        for (FileInfo fileInfo : filesToPut) {
+            filenameToFileInfo.put(fileInfo.getFilename(), fileInfo);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.s3;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.core.key.KeySerDe;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.PrimitiveType;
+import sleeper.core.schema.type.StringType;
+import sleeper.io.parquet.record.ParquetReaderIterator;
+import sleeper.io.parquet.record.ParquetRecordReader;
+import sleeper.io.parquet.record.ParquetRecordWriterFactory;
+import sleeper.statestore.FileInfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes {@link FileInfo}s in Parquet files, for the state stores which hold file information in S3.
+ */
+class S3FileInfoFormat {
+    private static final Logger LOGGER = LoggerFactory.getLogger(S3FileInfoFormat.class);
+    private static final String PUT_UPDATE = "PUT";
+    private static final String DELETE_UPDATE = "DELETE";
+
+    private final List<PrimitiveType> rowKeyTypes;
+    private final KeySerDe keySerDe;
+    private final Schema fileSchema;
+    private final Schema deltaSchema;
+    private final Configuration conf;
+
+    S3FileInfoFormat(List<PrimitiveType> rowKeyTypes, Configuration conf) {
+        this.rowKeyTypes = rowKeyTypes;
+        this.keySerDe = new KeySerDe(rowKeyTypes);
+        this.fileSchema = initialiseFileInfoSchema();
+        this.deltaSchema = initialiseDeltaSchema();
+        this.conf = conf;
+    }
+
+    private static Schema initialiseFileInfoSchema() {
+        return Schema.builder()
+                .rowKeyFields(new Field("fileName", new StringType()))
+                .valueFields(fileInfoValueFields())
+                .build();
+    }
+
+    private static Schema initialiseDeltaSchema() {
+        List<Field> valueFields = new ArrayList<>(fileInfoValueFields());
+        valueFields.add(new Field("update", new StringType()));
+        return Schema.builder()
+                .rowKeyFields(new Field("fileName", new StringType()))
+                .valueFields(valueFields)
+                .build();
+    }
+
+    private static List<Field> fileInfoValueFields() {
+        return List.of(
+                new Field("fileStatus", new StringType()),
+                new Field("partitionId", new StringType()),
+                new Field("lastStateStoreUpdateTime", new LongType()),
+                new Field("numberOfRecords", new LongType()),
+                new Field("jobId", new StringType()),
+                new Field("minRowKeys", new ByteArrayType()),
+                new Field("maxRowKeys", new ByteArrayType()));
+    }
+
+    Schema getFileSchema() {
+        return fileSchema;
+    }
+
+    Record getRecordFromFileInfo(FileInfo fileInfo) throws IOException {
+        Record record = new Record();
+        record.put("fileName", fileInfo.getFilename());
+        record.put("fileStatus", "" + fileInfo.getFileStatus());
+        record.put("partitionId", fileInfo.getPartitionId());
+        record.put("lastStateStoreUpdateTime", fileInfo.getLastStateStoreUpdateTime());
+        record.put("numberOfRecords", fileInfo.getNumberOfRecords());
+        if (null == fileInfo.getJobId()) {
+            record.put("jobId", "null");
+        } else {
+            record.put("jobId", fileInfo.getJobId());
+        }
+        record.put("minRowKeys", keySerDe.serialise(fileInfo.getMinRowKey()));
+        record.put("maxRowKeys", keySerDe.serialise(fileInfo.getMaxRowKey()));
+        return record;
+    }
+
+    FileInfo getFileInfoFromRecord(Record record) throws IOException {
+        String jobId = (String) record.get("jobId");
+        return FileInfo.builder()
+                .filename((String) record.get("fileName"))
+                .fileStatus(FileInfo.FileStatus.valueOf((String) record.get("fileStatus")))
+                .partitionId((String) record.get("partitionId"))
+                .lastStateStoreUpdateTime((Long) record.get("lastStateStoreUpdateTime"))
+                .numberOfRecords((Long) record.get("numberOfRecords"))
+                .jobId("null".equals(jobId) ? null : jobId)
+                .minRowKey(keySerDe.deserialise((byte[]) record.get("minRowKeys")))
+                .maxRowKey(keySerDe.deserialise((byte[]) record.get("maxRowKeys")))
+                .rowKeyTypes(rowKeyTypes)
+                .build();
+    }
+
+    void writeFileInfosToParquet(List<FileInfo> fileInfos, String path) throws IOException {
+        ParquetWriter<Record> recordWriter = ParquetRecordWriterFactory.createParquetRecordWriter(new Path(path), fileSchema, conf);
+
+        for (FileInfo fileInfo : fileInfos) {
+            recordWriter.write(getRecordFromFileInfo(fileInfo));
+        }
+        recordWriter.close();
+        LOGGER.debug("Wrote fileinfos to " + path);
+    }
+
+    List<FileInfo> readFileInfosFromParquet(String path) throws IOException {
+        List<FileInfo> fileInfos = new ArrayList<>();
+        ParquetReader<Record> reader = new ParquetRecordReader.Builder(new Path(path), fileSchema)
+                .withConf(conf)
+                .build();
+        ParquetReaderIterator recordReader = new ParquetReaderIterator(reader);
+        while (recordReader.hasNext()) {
+            fileInfos.add(getFileInfoFromRecord(recordReader.next()));
+        }
+        recordReader.close();
+        return fileInfos;
+    }
+
+    void writeDeltaToParquet(S3FileInfoDelta delta, String path) throws IOException {
+        ParquetWriter<Record> recordWriter = ParquetRecordWriterFactory.createParquetRecordWriter(new Path(path), deltaSchema, conf);
+
+        for (FileInfo fileInfo : delta.getFilesToPut()) {
+            Record record = getRecordFromFileInfo(fileInfo);
+            record.put("update", PUT_UPDATE);
+            recordWriter.write(record);
+        }
+        for (FileInfo fileInfo : delta.getFilesToDelete()) {
+            Record record = getRecordFromFileInfo(fileInfo);
+            record.put("update", DELETE_UPDATE);
+            recordWriter.write(record);
+        }
+        recordWriter.close();
+        LOGGER.debug("Wrote delta to " + path);
+    }
+
+    S3FileInfoDelta readDeltaFromParquet(String path) throws IOException {
+        List<FileInfo> filesToPut = new ArrayList<>();
+        List<FileInfo> filesToDelete = new ArrayList<>();
+        ParquetReader<Record> reader = new ParquetRecordReader.Builder(new Path(path), deltaSchema)
+                .withConf(conf)
+                .build();
+        ParquetReaderIterator recordReader = new ParquetReaderIterator(reader);
+        while (recordReader.hasNext()) {
+            Record record = recordReader.next();
+            if (DELETE_UPDATE.equals(record.get("update"))) {
+                filesToDelete.add(getFileInfoFromRecord(record));
+            } else {
+                filesToPut.add(getFileInfoFromRecord(record));
+            }
+        }
+        recordReader.close();
+        return new S3FileInfoDelta(filesToPut, filesToDelete);
+    }
+}
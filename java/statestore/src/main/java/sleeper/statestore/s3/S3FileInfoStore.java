@@ -21,22 +21,10 @@ import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
-import org.apache.parquet.hadoop.ParquetReader;
-import org.apache.parquet.hadoop.ParquetWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import sleeper.core.key.KeySerDe;
-import sleeper.core.record.Record;
-import sleeper.core.schema.Field;
-import sleeper.core.schema.Schema;
-import sleeper.core.schema.type.ByteArrayType;
-import sleeper.core.schema.type.LongType;
 import sleeper.core.schema.type.PrimitiveType;
-import sleeper.core.schema.type.StringType;
-import sleeper.io.parquet.record.ParquetReaderIterator;
-import sleeper.io.parquet.record.ParquetRecordReader;
-import sleeper.io.parquet.record.ParquetRecordWriterFactory;
 import sleeper.statestore.FileInfo;
 import sleeper.statestore.FileInfoStore;
 import sleeper.statestore.StateStoreException;
@@ -68,13 +56,11 @@ public class S3FileInfoStore implements FileInfoStore {
     public static final String CURRENT_FILES_REVISION_ID_KEY = "CURRENT_FILES_REVISION_ID_KEY";
     private final List<PrimitiveType> rowKeyTypes;
     private final int garbageCollectorDelayBeforeDeletionInMinutes;
-    private final KeySerDe keySerDe;
     private final String fs;
     private final String s3Bucket;
     private final AmazonDynamoDB dynamoDB;
     private final String dynamoRevisionIdTable;
-    private final Schema fileSchema;
-    private final Configuration conf;
+    private final S3FileInfoFormat fileInfoFormat;
     private final S3RevisionUtils s3RevisionUtils;
     private Clock clock = Clock.systemUTC();
 
@@ -85,9 +71,7 @@ public class S3FileInfoStore implements FileInfoStore {
         this.rowKeyTypes = builder.rowKeyTypes;
         this.garbageCollectorDelayBeforeDeletionInMinutes = builder.garbageCollectorDelayBeforeDeletionInMinutes;
         this.dynamoDB = Objects.requireNonNull(builder.dynamoDB, "dynamoDB must not be null");
-        this.keySerDe = new KeySerDe(rowKeyTypes);
-        this.fileSchema = initialiseFileInfoSchema();
-        this.conf = builder.conf;
+        this.fileInfoFormat = new S3FileInfoFormat(rowKeyTypes, builder.conf);
         this.s3RevisionUtils = new S3RevisionUtils(dynamoDB, dynamoRevisionIdTable);
     }
 
@@ -240,6 +224,46 @@ public class S3FileInfoStore implements FileInfoStore {
         }
     }
 
+    @Override
+    public void atomicallyUpdateJobStatusOfFiles(Map<String, List<FileInfo>> jobIdToFileInfos) throws StateStoreException {
+        // Update all the jobs in one transaction, so that the file info snapshot is only rewritten once
+        Map<String, String> fileNameToJobId = new HashMap<>();
+        jobIdToFileInfos.forEach((jobId, fileInfos) ->
+                fileInfos.forEach(fileInfo -> fileNameToJobId.put(fileInfo.getFilename(), jobId)));
+
+        Function<List<FileInfo>, String> condition = list -> {
+            Map<String, FileInfo> fileNameToFileInfo = new HashMap<>();
+            list.forEach(f -> fileNameToFileInfo.put(f.getFilename(), f));
+            for (String filename : fileNameToJobId.keySet()) {
+                if (!fileNameToFileInfo.containsKey(filename)
+                        || null != fileNameToFileInfo.get(filename).getJobId()) {
+                    return "Files should have a null job status: file " + filename + " doesn't meet this criteria";
+                }
+            }
+            return "";
+        };
+
+        Function<List<FileInfo>, List<FileInfo>> update = list -> {
+            List<FileInfo> filteredFiles = new ArrayList<>();
+            for (FileInfo fileInfo : list) {
+                String jobId = fileNameToJobId.get(fileInfo.getFilename());
+                if (null != jobId) {
+                    fileInfo = fileInfo.toBuilder().jobId(jobId).build();
+                }
+                filteredFiles.add(fileInfo);
+            }
+            return filteredFiles;
+        };
+
+        try {
+            updateFiles(update, condition);
+        } catch (IOException e) {
+            throw new StateStoreException("IOException updating file infos", e);
+        } catch (StateStoreException e) {
+            throw new StateStoreException("StateStoreException updating jobid of files", e);
+        }
+    }
+
     @Override
     public void deleteReadyForGCFile(FileInfo readyForGCFileInfo) throws StateStoreException {
         Function<List<FileInfo>, String> condition = list -> {
@@ -270,6 +294,40 @@ public class S3FileInfoStore implements FileInfoStore {
         }
     }
 
+    @Override
+    public void deleteReadyForGCFiles(List<FileInfo> readyForGCFileInfos) throws StateStoreException {
+        // Delete all the files in one transaction, so that the file info snapshot is only rewritten once
+        Set<String> namesOfFiles = new HashSet<>();
+        readyForGCFileInfos.stream().map(FileInfo::getFilename).forEach(namesOfFiles::add);
+
+        Function<List<FileInfo>, String> condition = list -> {
+            for (FileInfo currentFileInfo : list) {
+                if (namesOfFiles.contains(currentFileInfo.getFilename())
+                        && !currentFileInfo.getFileStatus().equals(FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION)) {
+                    return "File to be deleted should be marked as ready for GC, got " + currentFileInfo.getFileStatus()
+                            + " for file " + currentFileInfo.getFilename();
+                }
+            }
+            return "";
+        };
+
+        Function<List<FileInfo>, List<FileInfo>> update = list -> {
+            List<FileInfo> filteredFiles = new ArrayList<>();
+            for (FileInfo fileInfo : list) {
+                if (!namesOfFiles.contains(fileInfo.getFilename())) {
+                    filteredFiles.add(fileInfo);
+                }
+            }
+            return filteredFiles;
+        };
+
+        try {
+            updateFiles(update, condition);
+        } catch (IOException e) {
+            throw new StateStoreException("IOException updating file infos", e);
+        }
+    }
+
     @Override
     public List<FileInfo> getActiveFiles() throws StateStoreException {
         // TODO Optimise the following by pushing the predicate down to the Parquet reader
@@ -416,20 +474,6 @@ public class S3FileInfoStore implements FileInfoStore {
         s3RevisionUtils.conditionalUpdateOfFileInfoRevisionId(currentRevisionId, newRevisionId);
     }
 
-    private Schema initialiseFileInfoSchema() {
-        return Schema.builder()
-                .rowKeyFields(new Field("fileName", new StringType()))
-                .valueFields(
-                        new Field("fileStatus", new StringType()),
-                        new Field("partitionId", new StringType()),
-                        new Field("lastStateStoreUpdateTime", new LongType()),
-                        new Field("numberOfRecords", new LongType()),
-                        new Field("jobId", new StringType()),
-                        new Field("minRowKeys", new ByteArrayType()),
-                        new Field("maxRowKeys", new ByteArrayType()))
-                .build();
-    }
-
     public void initialise() throws StateStoreException {
         RevisionId firstRevisionId = new RevisionId(S3StateStore.getZeroPaddedLong(1L), UUID.randomUUID().toString());
         String path = getFilesPath(firstRevisionId);
@@ -454,59 +498,12 @@ public class S3FileInfoStore implements FileInfoStore {
         return fs + s3Bucket + "/statestore/files/" + revisionId.getRevision() + "-" + revisionId.getUuid() + "-files.parquet";
     }
 
-    private Record getRecordFromFileInfo(FileInfo fileInfo) throws IOException {
-        Record record = new Record();
-        record.put("fileName", fileInfo.getFilename());
-        record.put("fileStatus", "" + fileInfo.getFileStatus());
-        record.put("partitionId", fileInfo.getPartitionId());
-        record.put("lastStateStoreUpdateTime", fileInfo.getLastStateStoreUpdateTime());
-        record.put("numberOfRecords", fileInfo.getNumberOfRecords());
-        if (null == fileInfo.getJobId()) {
-            record.put("jobId", "null");
-        } else {
-            record.put("jobId", fileInfo.getJobId());
-        }
-        record.put("minRowKeys", keySerDe.serialise(fileInfo.getMinRowKey()));
-        record.put("maxRowKeys", keySerDe.serialise(fileInfo.getMaxRowKey()));
-        return record;
-    }
-
-    private FileInfo getFileInfoFromRecord(Record record) throws IOException {
-        String jobId = (String) record.get("jobId");
-        return FileInfo.builder()
-                .filename((String) record.get("fileName"))
-                .fileStatus(FileInfo.FileStatus.valueOf((String) record.get("fileStatus")))
-                .partitionId((String) record.get("partitionId"))
-                .lastStateStoreUpdateTime((Long) record.get("lastStateStoreUpdateTime"))
-                .numberOfRecords((Long) record.get("numberOfRecords"))
-                .jobId("null".equals(jobId) ? null : jobId)
-                .minRowKey(keySerDe.deserialise((byte[]) record.get("minRowKeys")))
-                .maxRowKey(keySerDe.deserialise((byte[]) record.get("maxRowKeys")))
-                .rowKeyTypes(rowKeyTypes)
-                .build();
-    }
-
     private void writeFileInfosToParquet(List<FileInfo> fileInfos, String path) throws IOException {
-        ParquetWriter<Record> recordWriter = ParquetRecordWriterFactory.createParquetRecordWriter(new Path(path), fileSchema, conf);
-
-        for (FileInfo fileInfo : fileInfos) {
-            recordWriter.write(getRecordFromFileInfo(fileInfo));
-        }
-        recordWriter.close();
-        LOGGER.debug("Wrote fileinfos to " + path);
+        fileInfoFormat.writeFileInfosToParquet(fileInfos, path);
     }
 
     private List<FileInfo> readFileInfosFromParquet(String path) throws IOException {
-        List<FileInfo> fileInfos = new ArrayList<>();
-        ParquetReader<Record> reader = new ParquetRecordReader.Builder(new Path(path), fileSchema)
-                .withConf(conf)
-                .build();
-        ParquetReaderIterator recordReader = new ParquetReaderIterator(reader);
-        while (recordReader.hasNext()) {
-            fileInfos.add(getFileInfoFromRecord(recordReader.next()));
-        }
-        recordReader.close();
-        return fileInfos;
+        return fileInfoFormat.readFileInfosFromParquet(path);
     }
 
     public void fixTime(Instant now) {
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.partition.PartitionTree;
+import sleeper.core.partition.PartitionsBuilder;
+import sleeper.core.schema.Schema;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static sleeper.core.schema.SchemaTestHelper.schemaWithKey;
+import static sleeper.statestore.inmemory.StateStoreTestHelper.inMemoryStateStoreWithPartitions;
+
+public class CachingStateStoreTest {
+    private final Schema schema = schemaWithKey("key");
+    private final PartitionTree splitTree = new PartitionsBuilder(schema)
+            .rootFirst("root")
+            .splitToNewChildren("root", "L", "R", 10L)
+            .buildTree();
+    private final FileInfoFactory fileInfoFactory = FileInfoFactory.builder()
+            .schema(schema).partitionTree(splitTree).build();
+    private final StateStore underlyingStore = inMemoryStateStoreWithPartitions(
+            new PartitionsBuilder(schema).rootFirst("root").buildList());
+    private final AtomicReference<Object> filesRevision = new AtomicReference<>("revision-1");
+    private final AtomicReference<Instant> time = new AtomicReference<>(Instant.parse("2023-08-01T10:00:00Z"));
+
+    @Test
+    void shouldServeActiveFilesFromCacheWhileRevisionIsUnchanged() throws Exception {
+        // Given
+        CachingStateStore cachingStore = cacheWithFilesRevision();
+        FileInfo file1 = fileInfoFactory.rootFile("file1", 100, 1L, 20L);
+        FileInfo file2 = fileInfoFactory.rootFile("file2", 100, 1L, 20L);
+        underlyingStore.addFile(file1);
+        assertThat(cachingStore.getActiveFiles()).containsExactly(file1);
+
+        // When
+        underlyingStore.addFile(file2);
+
+        // Then
+        assertThat(cachingStore.getActiveFiles()).containsExactly(file1);
+        assertThat(cachingStore.getCacheMisses()).isEqualTo(1);
+        assertThat(cachingStore.getCacheHits()).isEqualTo(1);
+        assertThat(cachingStore.getCacheReloads()).isZero();
+    }
+
+    @Test
+    void shouldReloadActiveFilesWhenRevisionChanges() throws Exception {
+        // Given
+        CachingStateStore cachingStore = cacheWithFilesRevision();
+        FileInfo file1 = fileInfoFactory.rootFile("file1", 100, 1L, 20L);
+        FileInfo file2 = fileInfoFactory.rootFile("file2", 100, 1L, 20L);
+        underlyingStore.addFile(file1);
+        assertThat(cachingStore.getActiveFiles()).containsExactly(file1);
+
+        // When
+        underlyingStore.addFile(file2);
+        filesRevision.set("revision-2");
+
+        // Then
+        assertThat(cachingStore.getActiveFiles()).containsExactlyInAnyOrder(file1, file2);
+        assertThat(cachingStore.getPartitionToActiveFilesMap().get("root"))
+                .containsExactlyInAnyOrder("file1", "file2");
+        assertThat(cachingStore.getCacheMisses()).isEqualTo(1);
+        assertThat(cachingStore.getCacheHits()).isEqualTo(1);
+        assertThat(cachingStore.getCacheReloads()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReloadActiveFilesWhenOlderThanMaxAge() throws Exception {
+        // Given
+        CachingStateStore cachingStore = CachingStateStore.builder()
+                .stateStore(underlyingStore)
+                .maxAge(Duration.ofSeconds(30))
+                .timeSupplier(time::get)
+                .build();
+        FileInfo file1 = fileInfoFactory.rootFile("file1", 100, 1L, 20L);
+        FileInfo file2 = fileInfoFactory.rootFile("file2", 100, 1L, 20L);
+        underlyingStore.addFile(file1);
+        assertThat(cachingStore.getActiveFiles()).containsExactly(file1);
+        underlyingStore.addFile(file2);
+
+        // When
+        time.set(time.get().plusSeconds(10));
+        List<FileInfo> filesBeforeMaxAge = cachingStore.getActiveFiles();
+        time.set(time.get().plusSeconds(30));
+        List<FileInfo> filesAfterMaxAge = cachingStore.getActiveFiles();
+
+        // Then
+        assertThat(filesBeforeMaxAge).containsExactly(file1);
+        assertThat(filesAfterMaxAge).containsExactlyInAnyOrder(file1, file2);
+        assertThat(cachingStore.getCacheReloads()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldClearCachedFilesWhenUpdatedThroughCache() throws Exception {
+        // Given
+        CachingStateStore cachingStore = cacheWithFilesRevision();
+        FileInfo file1 = fileInfoFactory.rootFile("file1", 100, 1L, 20L);
+        cachingStore.addFile(file1);
+        assertThat(cachingStore.getActiveFilesWithNoJobId()).containsExactly(file1);
+
+        // When
+        cachingStore.atomicallyUpdateJobStatusOfFiles("job1", List.of(file1));
+
+        // Then
+        assertThat(cachingStore.getActiveFilesWithNoJobId()).isEmpty();
+        assertThat(cachingStore.getCacheMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldClearCachedPartitionsWhenSplitThroughCache() throws Exception {
+        // Given
+        CachingStateStore cachingStore = cacheWithFilesRevision();
+        assertThat(cachingStore.getLeafPartitions()).extracting("id").containsExactly("root");
+
+        // When
+        cachingStore.atomicallyUpdatePartitionAndCreateNewOnes(splitTree.getPartition("root"),
+                splitTree.getPartition("L"), splitTree.getPartition("R"));
+
+        // Then
+        assertThat(cachingStore.getLeafPartitions()).extracting("id").containsExactlyInAnyOrder("L", "R");
+        assertThat(cachingStore.getAllPartitions()).extracting("id").containsExactlyInAnyOrder("root", "L", "R");
+    }
+
+    private CachingStateStore cacheWithFilesRevision() {
+        return CachingStateStore.builder()
+                .stateStore(underlyingStore)
+                .filesRevision(filesRevision::get)
+                .build();
+    }
+}
@@ -48,6 +48,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -491,6 +492,45 @@ public class DynamoDBStateStoreIT {
         assertThat(dynamoDBStateStore.getReadyForGCFiles()).isExhausted();
     }
 
+    @Test
+    public void shouldDeleteManyReadyForGCFiles() throws StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore dynamoDBStateStore = getStateStore(schema);
+        FileInfo activeFile = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("active-file")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("4")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(1_000_000L)
+                .numberOfRecords(1L)
+                .build();
+        List<FileInfo> readyForGCFiles = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            readyForGCFiles.add(FileInfo.builder()
+                    .rowKeyTypes(new LongType())
+                    .filename("gc-file" + i)
+                    .fileStatus(FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION)
+                    .partitionId("5")
+                    .minRowKey(Key.create(1L))
+                    .maxRowKey(Key.create(10L))
+                    .lastStateStoreUpdateTime(2_000_000L)
+                    .numberOfRecords(2L)
+                    .build());
+        }
+        dynamoDBStateStore.addFile(activeFile);
+        dynamoDBStateStore.addFiles(readyForGCFiles);
+
+        // When
+        dynamoDBStateStore.deleteReadyForGCFiles(readyForGCFiles);
+
+        // Then
+        assertThat(dynamoDBStateStore.getActiveFiles()).containsExactly(activeFile);
+        assertThat(dynamoDBStateStore.getReadyForGCFiles()).isExhausted();
+    }
+
     @Test
     public void shouldAtomicallyUpdateStatusToReadyForGCAndCreateNewActiveFile() throws StateStoreException {
         // Given
@@ -636,6 +676,43 @@ public class DynamoDBStateStoreIT {
         assertThat(dynamoDBStateStore.getReadyForGCFiles()).isExhausted();
     }
 
+    @Test
+    public void shouldUpdateJobStatusOfFilesForManyJobs() throws StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore dynamoDBStateStore = getStateStore(schema);
+        List<FileInfo> files = new ArrayList<>();
+        Map<String, List<FileInfo>> jobIdToFiles = new LinkedHashMap<>();
+        for (int job = 0; job < 30; job++) {
+            String jobId = "job" + job;
+            for (int i = 0; i < 4; i++) {
+                FileInfo fileInfo = FileInfo.builder()
+                        .rowKeyTypes(new LongType())
+                        .filename("job" + job + "-file" + i)
+                        .fileStatus(FileInfo.FileStatus.ACTIVE)
+                        .partitionId("8")
+                        .minRowKey(Key.create(1L))
+                        .maxRowKey(Key.create(10L))
+                        .lastStateStoreUpdateTime(1_000_000L)
+                        .numberOfRecords(1L)
+                        .build();
+                files.add(fileInfo);
+                jobIdToFiles.computeIfAbsent(jobId, id -> new ArrayList<>()).add(fileInfo);
+            }
+        }
+        dynamoDBStateStore.addFiles(files);
+
+        // When
+        dynamoDBStateStore.atomicallyUpdateJobStatusOfFiles(jobIdToFiles);
+
+        // Then
+        assertThat(dynamoDBStateStore.getActiveFiles())
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("jobId")
+                .containsExactlyInAnyOrderElementsOf(files);
+        assertThat(dynamoDBStateStore.getActiveFiles())
+                .allSatisfy(file -> assertThat(file.getFilename()).startsWith(file.getJobId() + "-"));
+    }
+
     @Test
     public void shouldNotAtomicallyCreateJobAndUpdateJobStatusOfFilesWhenJobIdAlreadySet() throws StateStoreException {
         // Given
@@ -102,6 +102,13 @@ public class InMemoryFileInfoStore implements FileInfoStore {
         }
     }
 
+    @Override
+    public void atomicallyUpdateJobStatusOfFiles(Map<String, List<FileInfo>> jobIdToFileInfos) throws StateStoreException {
+        for (Map.Entry<String, List<FileInfo>> entry : jobIdToFileInfos.entrySet()) {
+            atomicallyUpdateJobStatusOfFiles(entry.getKey(), entry.getValue());
+        }
+    }
+
     private List<String> findFilenamesWithJobIdSet(List<FileInfo> fileInfos) {
         return fileInfos.stream()
                 .filter(file -> activeFiles.getOrDefault(file.getFilename(), file).getJobId() != null)
@@ -114,6 +121,11 @@ public class InMemoryFileInfoStore implements FileInfoStore {
         readyForGCFiles.remove(fileInfo.getFilename());
     }
 
+    @Override
+    public void deleteReadyForGCFiles(List<FileInfo> fileInfos) {
+        fileInfos.forEach(this::deleteReadyForGCFile);
+    }
+
     @Override
     public void initialise() throws StateStoreException {
 
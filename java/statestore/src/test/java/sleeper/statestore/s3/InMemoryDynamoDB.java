@@ -0,0 +1,210 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.s3;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.CancellationReason;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.CreateTableResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory fake of the DynamoDB operations used on the revision table by the S3 state stores. Tables must have a
+ * single string hash key. Condition expressions may combine the conditions attribute_exists, attribute_not_exists,
+ * = and &lt; with either "and" or "or", which covers the conditions used by the state stores.
+ */
+class InMemoryDynamoDB extends AbstractAmazonDynamoDB {
+    private final Map<String, String> tableNameToKeyName = new HashMap<>();
+    private final Map<String, Map<String, Map<String, AttributeValue>>> tableNameToItems = new HashMap<>();
+    private AmazonClientException nextTransactWriteFailure;
+    private boolean applyNextTransactWriteBeforeFailure;
+
+    /**
+     * Makes the next transactional write fail with the given exception.
+     *
+     * @param failure            the exception to throw
+     * @param applyBeforeFailure whether the write is applied before the exception is thrown, as when a response is
+     *                           lost
+     */
+    synchronized void failNextTransactWrite(AmazonClientException failure, boolean applyBeforeFailure) {
+        nextTransactWriteFailure = failure;
+        applyNextTransactWriteBeforeFailure = applyBeforeFailure;
+    }
+
+    synchronized Map<String, Map<String, AttributeValue>> getItems(String tableName) {
+        return new HashMap<>(getTable(tableName));
+    }
+
+    @Override
+    public synchronized CreateTableResult createTable(CreateTableRequest request) {
+        String keyName = request.getKeySchema().stream()
+                .filter(element -> KeyType.HASH.toString().equals(element.getKeyType()))
+                .findFirst().orElseThrow().getAttributeName();
+        tableNameToKeyName.put(request.getTableName(), keyName);
+        tableNameToItems.put(request.getTableName(), new HashMap<>());
+        return new CreateTableResult();
+    }
+
+    @Override
+    public synchronized GetItemResult getItem(GetItemRequest request) {
+        Map<String, AttributeValue> item = getTable(request.getTableName()).get(getKey(request.getTableName(), request.getKey()));
+        return new GetItemResult().withItem(null == item ? null : new HashMap<>(item));
+    }
+
+    @Override
+    public synchronized PutItemResult putItem(PutItemRequest request) {
+        String tableName = request.getTableName();
+        String key = getKey(tableName, request.getItem());
+        if (!conditionMet(request.getConditionExpression(), request.getExpressionAttributeValues(), getTable(tableName).get(key))) {
+            throw new ConditionalCheckFailedException("Condition failed: " + request.getConditionExpression());
+        }
+        getTable(tableName).put(key, new HashMap<>(request.getItem()));
+        return new PutItemResult();
+    }
+
+    @Override
+    public synchronized DeleteItemResult deleteItem(DeleteItemRequest request) {
+        getTable(request.getTableName()).remove(getKey(request.getTableName(), request.getKey()));
+        return new DeleteItemResult();
+    }
+
+    @Override
+    public synchronized TransactWriteItemsResult transactWriteItems(TransactWriteItemsRequest request) {
+        AmazonClientException failure = nextTransactWriteFailure;
+        nextTransactWriteFailure = null;
+        if (null != failure && !applyNextTransactWriteBeforeFailure) {
+            throw failure;
+        }
+        List<CancellationReason> reasons = new ArrayList<>();
+        boolean cancelled = false;
+        for (TransactWriteItem write : request.getTransactItems()) {
+            boolean met;
+            if (null != write.getPut()) {
+                String tableName = write.getPut().getTableName();
+                met = conditionMet(write.getPut().getConditionExpression(), write.getPut().getExpressionAttributeValues(),
+                        getTable(tableName).get(getKey(tableName, write.getPut().getItem())));
+            } else if (null != write.getConditionCheck()) {
+                String tableName = write.getConditionCheck().getTableName();
+                met = conditionMet(write.getConditionCheck().getConditionExpression(), write.getConditionCheck().getExpressionAttributeValues(),
+                        getTable(tableName).get(getKey(tableName, write.getConditionCheck().getKey())));
+            } else {
+                throw new UnsupportedOperationException("Only puts and condition checks are supported: " + write);
+            }
+            reasons.add(new CancellationReason().withCode(met ? "None" : "ConditionalCheckFailed"));
+            cancelled = cancelled || !met;
+        }
+        if (cancelled) {
+            TransactionCanceledException exception = new TransactionCanceledException("Transaction cancelled");
+            exception.setCancellationReasons(reasons);
+            throw exception;
+        }
+        for (TransactWriteItem write : request.getTransactItems()) {
+            if (null != write.getPut()) {
+                String tableName = write.getPut().getTableName();
+                getTable(tableName).put(getKey(tableName, write.getPut().getItem()), new HashMap<>(write.getPut().getItem()));
+            }
+        }
+        if (null != failure) {
+            throw failure;
+        }
+        return new TransactWriteItemsResult();
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    private Map<String, Map<String, AttributeValue>> getTable(String tableName) {
+        Map<String, Map<String, AttributeValue>> items = tableNameToItems.get(tableName);
+        if (null == items) {
+            throw new ResourceNotFoundException("Table not found: " + tableName);
+        }
+        return items;
+    }
+
+    private String getKey(String tableName, Map<String, AttributeValue> item) {
+        return item.get(tableNameToKeyName.get(tableName)).getS();
+    }
+
+    private static boolean conditionMet(String expression, Map<String, AttributeValue> values, Map<String, AttributeValue> item) {
+        if (null == expression) {
+            return true;
+        }
+        if (expression.contains(" or ")) {
+            for (String part : expression.split(" or ")) {
+                if (conditionMet(part, values, item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (String part : expression.split(" and ")) {
+            if (!termMet(part.trim(), values, item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean termMet(String term, Map<String, AttributeValue> values, Map<String, AttributeValue> item) {
+        if (term.startsWith("attribute_not_exists(")) {
+            return null == item || !item.containsKey(getFunctionArgument(term));
+        }
+        if (term.startsWith("attribute_exists(")) {
+            return null != item && item.containsKey(getFunctionArgument(term));
+        }
+        String[] parts = term.split(" ");
+        if (parts.length != 3) {
+            throw new UnsupportedOperationException("Unsupported condition: " + term);
+        }
+        AttributeValue actual = null == item ? null : item.get(parts[0]);
+        if (null == actual) {
+            return false;
+        }
+        int comparison = actual.getS().compareTo(values.get(parts[2]).getS());
+        switch (parts[1]) {
+            case "=":
+                return comparison == 0;
+            case "<":
+                return comparison < 0;
+            default:
+                throw new UnsupportedOperationException("Unsupported comparison: " + term);
+        }
+    }
+
+    private static String getFunctionArgument(String term) {
+        return term.substring(term.indexOf('(') + 1, term.indexOf(')'));
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.s3;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import sleeper.core.CommonTestConstants;
+
+import static sleeper.dynamodb.tools.GenericContainerAwsV1ClientHelper.buildAwsV1Client;
+
+/**
+ * Runs the tests of the {@link S3DeltaLogStateStore} against DynamoDB in a container.
+ */
+@Testcontainers
+public class S3DeltaLogStateStoreIT extends S3DeltaLogStateStoreTestBase {
+    private static final int DYNAMO_PORT = 8000;
+
+    @Container
+    public static GenericContainer dynamoDb = new GenericContainer(CommonTestConstants.DYNAMODB_LOCAL_CONTAINER)
+            .withExposedPorts(DYNAMO_PORT);
+
+    @BeforeAll
+    public static void initDynamoClient() {
+        dynamoDBClient = buildAwsV1Client(dynamoDb, DYNAMO_PORT, AmazonDynamoDBClientBuilder.standard());
+    }
+
+    @AfterAll
+    public static void shutdownDynamoClient() {
+        dynamoDBClient.shutdown();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.s3;
+
+import com.amazonaws.AmazonServiceException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.partition.PartitionsFromSplitPoints;
+import sleeper.statestore.StateStore;
+import sleeper.statestore.StateStoreException;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static java.nio.file.Files.createTempDirectory;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the tests of the {@link S3DeltaLogStateStore} against an in-memory fake of DynamoDB, so that they run as part
+ * of the build. This also checks how failures to commit an update are handled.
+ */
+public class S3DeltaLogStateStoreTest extends S3DeltaLogStateStoreTestBase {
+    private static InMemoryDynamoDB inMemoryDynamoDB;
+
+    @BeforeAll
+    public static void initDynamoClient() {
+        inMemoryDynamoDB = new InMemoryDynamoDB();
+        dynamoDBClient = inMemoryDynamoDB;
+    }
+
+    @Test
+    public void shouldDeleteDeltaWhenCommitFails() throws IOException, StateStoreException {
+        // Given
+        String bucket = createTempDirectory(folder, null).toString();
+        String dynamoTableName = createDynamoTable();
+        StateStore stateStore = createStateStore(bucket, dynamoTableName, schema, 0);
+        stateStore.initialise(new PartitionsFromSplitPoints(schema, Collections.emptyList()).construct());
+        inMemoryDynamoDB.failNextTransactWrite(new AmazonServiceException("Service unavailable"), false);
+
+        // When / Then
+        assertThatThrownBy(() -> stateStore.addFile(fileInfo("file1")))
+                .isInstanceOf(StateStoreException.class)
+                .hasCauseInstanceOf(AmazonServiceException.class);
+        assertThat(listRevisions(bucket + "/statestore/files-log")).isEmpty();
+        assertThat(stateStore.getActiveFiles()).isEmpty();
+    }
+
+    @Test
+    public void shouldKeepDeltaWhenCommitSucceededDespiteFailure() throws IOException, StateStoreException {
+        // Given
+        String bucket = createTempDirectory(folder, null).toString();
+        String dynamoTableName = createDynamoTable();
+        StateStore stateStore = createStateStore(bucket, dynamoTableName, schema, 0);
+        stateStore.initialise(new PartitionsFromSplitPoints(schema, Collections.emptyList()).construct());
+        inMemoryDynamoDB.failNextTransactWrite(new AmazonServiceException("Response lost"), true);
+
+        // When
+        stateStore.addFile(fileInfo("file1"));
+
+        // Then
+        assertThat(stateStore.getActiveFiles()).containsExactly(fileInfo("file1"));
+        assertThat(createStateStore(bucket, dynamoTableName, schema, 0).getActiveFiles())
+                .containsExactly(fileInfo("file1"));
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.s3;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.key.Key;
+import sleeper.core.partition.PartitionsFromSplitPoints;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.statestore.FileInfo;
+import sleeper.statestore.StateStore;
+import sleeper.statestore.StateStoreException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static java.nio.file.Files.createTempDirectory;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs all the tests of the {@link S3StateStoreTestBase} against the {@link S3DeltaLogStateStore}, with a small
+ * checkpoint interval so that checkpoints are written during the tests.
+ */
+public abstract class S3DeltaLogStateStoreTestBase extends S3StateStoreTestBase {
+    protected static final int CHECKPOINT_INTERVAL = 3;
+    protected final Schema schema = Schema.builder().rowKeyFields(new Field("key", new LongType())).build();
+
+    @Override
+    protected StateStore createStateStore(String bucket, String dynamoTableName, Schema schema,
+                                          int garbageCollectorDelayBeforeDeletionInMinutes) {
+        return new S3DeltaLogStateStore("", bucket, dynamoTableName, schema,
+                garbageCollectorDelayBeforeDeletionInMinutes, CHECKPOINT_INTERVAL, dynamoDBClient, new Configuration());
+    }
+
+    @Override
+    protected void fixTime(StateStore stateStore, Instant now) {
+        ((S3DeltaLogStateStore) stateStore).fixTime(now);
+    }
+
+    @Test
+    public void shouldSeeUpdatesMadeByAnotherInstance() throws IOException, StateStoreException {
+        // Given
+        String bucket = createTempDirectory(folder, null).toString();
+        String dynamoTableName = createDynamoTable();
+        StateStore stateStore1 = createStateStore(bucket, dynamoTableName, schema, 0);
+        stateStore1.initialise(new PartitionsFromSplitPoints(schema, Collections.emptyList()).construct());
+        StateStore stateStore2 = createStateStore(bucket, dynamoTableName, schema, 0);
+        FileInfo file1 = fileInfo("file1");
+        FileInfo file2 = fileInfo("file2");
+
+        // When
+        stateStore1.addFile(file1);
+        assertThat(stateStore2.getActiveFiles()).containsExactly(file1);
+        stateStore2.addFile(file2);
+
+        // Then
+        assertThat(stateStore1.getActiveFiles()).containsExactly(file1, file2);
+        assertThat(stateStore2.getActiveFiles()).containsExactly(file1, file2);
+    }
+
+    @Test
+    public void shouldRetryWhenAnotherInstanceUpdatedFirst() throws IOException, StateStoreException {
+        // Given
+        String bucket = createTempDirectory(folder, null).toString();
+        String dynamoTableName = createDynamoTable();
+        StateStore stateStore1 = createStateStore(bucket, dynamoTableName, schema, 0);
+        stateStore1.initialise(new PartitionsFromSplitPoints(schema, Collections.emptyList()).construct());
+        StateStore stateStore2 = createStateStore(bucket, dynamoTableName, schema, 0);
+        FileInfo file1 = fileInfo("file1");
+        stateStore1.addFile(file1);
+        assertThat(stateStore2.getActiveFiles()).containsExactly(file1);
+        FileInfo file2 = fileInfo("file2");
+        stateStore1.addFile(file2);
+
+        // When
+        stateStore2.atomicallyUpdateJobStatusOfFiles("job1", List.of(file1, file2));
+
+        // Then
+        assertThat(stateStore1.getActiveFilesWithNoJobId()).isEmpty();
+        assertThat(stateStore2.getActiveFiles()).containsExactly(
+                file1.toBuilder().jobId("job1").build(),
+                file2.toBuilder().jobId("job1").build());
+    }
+
+    @Test
+    public void shouldStartNewInstanceFromCheckpoint() throws IOException, StateStoreException {
+        // Given
+        String bucket = createTempDirectory(folder, null).toString();
+        String dynamoTableName = createDynamoTable();
+        StateStore stateStore1 = createStateStore(bucket, dynamoTableName, schema, 0);
+        stateStore1.initialise(new PartitionsFromSplitPoints(schema, Collections.emptyList()).construct());
+        List<FileInfo> files = new ArrayList<>();
+        for (int i = 0; i < 2 * CHECKPOINT_INTERVAL + 1; i++) {
+            FileInfo file = fileInfo("file" + i);
+            stateStore1.addFile(file);
+            files.add(file);
+        }
+
+        // When
+        StateStore stateStore2 = createStateStore(bucket, dynamoTableName, schema, 0);
+
+        // Then
+        assertThat(stateStore2.getActiveFiles()).containsExactlyElementsOf(files);
+    }
+
+    @Test
+    public void shouldDeleteDeltasAndCheckpointsBeforeLatestCheckpoint() throws IOException, StateStoreException {
+        // Given
+        String bucket = createTempDirectory(folder, null).toString();
+        String dynamoTableName = createDynamoTable();
+        StateStore stateStore = createStateStore(bucket, dynamoTableName, schema, 0);
+        stateStore.initialise(new PartitionsFromSplitPoints(schema, Collections.emptyList()).construct());
+
+        // When
+        // Initialising commits revision 1, then these are revisions 2 to 8, with checkpoints at 3 and 6
+        for (int i = 0; i < 7; i++) {
+            stateStore.addFile(fileInfo("file" + i));
+        }
+
+        // Then
+        assertThat(listRevisions(bucket + "/statestore/files-log")).containsExactly(7L, 8L);
+        assertThat(listRevisions(bucket + "/statestore/files-checkpoints")).containsExactly(6L);
+        assertThat(LongStream.rangeClosed(1, 8).filter(revision -> hasDeltaItem(dynamoTableName, revision)))
+                .containsExactly(7L, 8L);
+    }
+
+    @Test
+    public void shouldCatchUpWhenDeltasWereDeletedAfterCheckpoint() throws IOException, StateStoreException {
+        // Given
+        String bucket = createTempDirectory(folder, null).toString();
+        String dynamoTableName = createDynamoTable();
+        StateStore stateStore1 = createStateStore(bucket, dynamoTableName, schema, 0);
+        stateStore1.initialise(new PartitionsFromSplitPoints(schema, Collections.emptyList()).construct());
+        StateStore stateStore2 = createStateStore(bucket, dynamoTableName, schema, 0);
+        assertThat(stateStore2.getActiveFiles()).isEmpty();
+        List<FileInfo> files = new ArrayList<>();
+        for (int i = 0; i < 2 * CHECKPOINT_INTERVAL; i++) {
+            FileInfo file = fileInfo("file" + i);
+            stateStore1.addFile(file);
+            files.add(file);
+        }
+
+        // When
+        FileInfo newFile = fileInfo("new-file");
+        stateStore2.addFile(newFile);
+        files.add(newFile);
+
+        // Then
+        assertThat(stateStore2.getActiveFiles()).containsExactlyElementsOf(files);
+        assertThat(stateStore1.getActiveFiles()).containsExactlyElementsOf(files);
+    }
+
+    @Test
+    public void shouldSeeInitialiseByAnotherInstance() throws IOException, StateStoreException {
+        // Given
+        String bucket = createTempDirectory(folder, null).toString();
+        String dynamoTableName = createDynamoTable();
+        S3DeltaLogFileInfoStore fileInfoStore1 = createFileInfoStore(bucket, dynamoTableName);
+        fileInfoStore1.initialise();
+        S3DeltaLogFileInfoStore fileInfoStore2 = createFileInfoStore(bucket, dynamoTableName);
+        fileInfoStore1.addFile(fileInfo("file1"));
+        assertThat(fileInfoStore2.getActiveFiles()).containsExactly(fileInfo("file1"));
+
+        // When
+        fileInfoStore1.initialise();
+        fileInfoStore1.addFile(fileInfo("file2"));
+
+        // Then
+        assertThat(fileInfoStore2.getActiveFiles()).containsExactly(fileInfo("file2"));
+        assertThat(createFileInfoStore(bucket, dynamoTableName).getActiveFiles())
+                .containsExactly(fileInfo("file2"));
+    }
+
+    @Test
+    public void shouldDeleteAllFileInfo() throws IOException, StateStoreException {
+        // Given
+        String bucket = createTempDirectory(folder, null).toString();
+        String dynamoTableName = createDynamoTable();
+        S3DeltaLogStateStore stateStore = (S3DeltaLogStateStore) createStateStore(bucket, dynamoTableName, schema, 0);
+        stateStore.initialise(new PartitionsFromSplitPoints(schema, Collections.emptyList()).construct());
+        for (int i = 0; i < CHECKPOINT_INTERVAL + 1; i++) {
+            stateStore.addFile(fileInfo("file" + i));
+        }
+
+        // When
+        stateStore.clearFileInfo();
+
+        // Then
+        assertThat(stateStore.getActiveFiles()).isEmpty();
+        assertThat(createStateStore(bucket, dynamoTableName, schema, 0).getActiveFiles()).isEmpty();
+        assertThat(listRevisions(bucket + "/statestore/files-log")).isEmpty();
+        assertThat(listRevisions(bucket + "/statestore/files-checkpoints")).containsExactly(1L);
+    }
+
+    private S3DeltaLogFileInfoStore createFileInfoStore(String bucket, String dynamoTableName) {
+        return S3DeltaLogFileInfoStore.builder()
+                .fs("").s3Bucket(bucket)
+                .dynamoDB(dynamoDBClient).dynamoRevisionIdTable(dynamoTableName)
+                .rowKeyTypes(schema.getRowKeyTypes())
+                .checkpointInterval(CHECKPOINT_INTERVAL)
+                .conf(new Configuration())
+                .build();
+    }
+
+    protected static List<Long> listRevisions(String directory) throws IOException {
+        Path path = Path.of(directory);
+        if (!Files.exists(path)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            return files.map(file -> String.valueOf(file.getFileName()))
+                    .filter(name -> name.endsWith(".parquet"))
+                    .map(name -> Long.parseLong(name.substring(0, name.indexOf('-'))))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    protected static boolean hasDeltaItem(String dynamoTableName, long revision) {
+        GetItemResult result = dynamoDBClient.getItem(new GetItemRequest()
+                .withTableName(dynamoTableName)
+                .withKey(Map.of(S3StateStore.REVISION_ID_KEY, new AttributeValue().withS(
+                        S3DeltaLogFileInfoStore.FILES_DELTA_KEY_PREFIX + S3StateStore.getZeroPaddedLong(revision))))
+                .withConsistentRead(true));
+        return null != result.getItem() && !result.getItem().isEmpty();
+    }
+
+    protected FileInfo fileInfo(String filename) {
+        return FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename(filename)
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("root")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .numberOfRecords(10L)
+                .lastStateStoreUpdateTime(1_000_000L)
+                .build();
+    }
+}
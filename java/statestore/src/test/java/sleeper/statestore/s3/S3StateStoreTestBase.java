@@ -0,0 +1,1488 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.s3;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.BillingMode;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sleeper.core.key.Key;
+import sleeper.core.partition.Partition;
+import sleeper.core.partition.PartitionsFromSplitPoints;
+import sleeper.core.range.Range;
+import sleeper.core.range.Range.RangeFactory;
+import sleeper.core.range.Region;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.PrimitiveType;
+import sleeper.core.schema.type.StringType;
+import sleeper.core.schema.type.Type;
+import sleeper.statestore.FileInfo;
+import sleeper.statestore.StateStore;
+import sleeper.statestore.StateStoreException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.nio.file.Files.createTempDirectory;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the S3 state store, which are run against a DynamoDB revision table set by a subclass.
+ */
+public abstract class S3StateStoreTestBase {
+    protected static AmazonDynamoDB dynamoDBClient;
+
+    @TempDir
+    public Path folder;
+
+    protected String createDynamoTable() {
+        String tableName = UUID.randomUUID().toString();
+        List<AttributeDefinition> attributeDefinitions = new ArrayList<>();
+        attributeDefinitions.add(new AttributeDefinition(S3StateStore.REVISION_ID_KEY, ScalarAttributeType.S));
+        List<KeySchemaElement> keySchemaElements = new ArrayList<>();
+        keySchemaElements.add(new KeySchemaElement(S3StateStore.REVISION_ID_KEY, KeyType.HASH));
+        CreateTableRequest request = new CreateTableRequest()
+                .withTableName(tableName)
+                .withAttributeDefinitions(attributeDefinitions)
+                .withKeySchema(keySchemaElements)
+                .withBillingMode(BillingMode.PAY_PER_REQUEST);
+        dynamoDBClient.createTable(request);
+        return tableName;
+    }
+
+    protected StateStore createStateStore(String bucket, String dynamoTableName, Schema schema,
+                                          int garbageCollectorDelayBeforeDeletionInMinutes) {
+        return new S3StateStore("", 5, bucket, dynamoTableName, schema, garbageCollectorDelayBeforeDeletionInMinutes, dynamoDBClient, new Configuration());
+    }
+
+    protected void fixTime(StateStore stateStore, Instant now) {
+        ((S3StateStore) stateStore).fixTime(now);
+    }
+
+    private StateStore getStateStore(Schema schema,
+                                     List<Partition> partitions,
+                                     int garbageCollectorDelayBeforeDeletionInMinutes) throws IOException, StateStoreException {
+        String bucket = createTempDirectory(folder, null).toString();
+        String dynamoTableName = createDynamoTable();
+        StateStore stateStore = createStateStore(bucket, dynamoTableName, schema, garbageCollectorDelayBeforeDeletionInMinutes);
+        stateStore.initialise(partitions);
+        return stateStore;
+    }
+
+    private StateStore getStateStore(Schema schema,
+                                     List<Partition> partitions) throws IOException, StateStoreException {
+        return getStateStore(schema, partitions, 0);
+    }
+
+    private StateStore getStateStoreFromSplitPoints(Schema schema, List<Object> splitPoints) throws IOException, StateStoreException {
+        return getStateStore(schema, new PartitionsFromSplitPoints(schema, splitPoints).construct(), 0);
+    }
+
+    private StateStore getStateStore(Schema schema, int garbageCollectorDelayBeforeDeletionInMinutes) throws IOException, StateStoreException {
+        return getStateStore(schema, new PartitionsFromSplitPoints(schema, Collections.emptyList()).construct(), garbageCollectorDelayBeforeDeletionInMinutes);
+    }
+
+    private StateStore getStateStore(Schema schema) throws IOException, StateStoreException {
+        return getStateStoreFromSplitPoints(schema, Collections.EMPTY_LIST);
+    }
+
+    private Schema schemaWithSingleRowKeyType(PrimitiveType type) {
+        return Schema.builder().rowKeyFields(new Field("key", type)).build();
+    }
+
+    private Schema schemaWithTwoRowKeyTypes(PrimitiveType type1, PrimitiveType type2) {
+        return Schema.builder().rowKeyFields(new Field("key1", type1), new Field("key2", type2)).build();
+    }
+
+    private Schema schemaWithKeyAndValueWithTypes(PrimitiveType keyType, Type valueType) {
+        return Schema.builder()
+                .rowKeyFields(new Field("key", keyType))
+                .valueFields(new Field("value", valueType))
+                .build();
+    }
+
+    @Test
+    public void shouldReturnCorrectFileInfoForLongRowKey() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        FileInfo fileInfo = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("abc")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("1")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(1_000_000L)
+                .numberOfRecords(1L)
+                .build();
+
+        // When
+        stateStore.addFile(fileInfo);
+
+        // Then
+        assertThat(stateStore.getActiveFiles()).singleElement().satisfies(found -> {
+            assertThat(found.getRowKeyTypes()).containsExactly(new LongType());
+            assertThat(found.getFilename()).isEqualTo("abc");
+            assertThat(found.getFileStatus()).isEqualTo(FileInfo.FileStatus.ACTIVE);
+            assertThat(found.getPartitionId()).isEqualTo("1");
+            assertThat(found.getMinRowKey()).isEqualTo(Key.create(1L));
+            assertThat(found.getMaxRowKey()).isEqualTo(Key.create(10L));
+            assertThat(found.getLastStateStoreUpdateTime().longValue()).isEqualTo(1_000_000L);
+        });
+    }
+
+    @Test
+    public void shouldReturnCorrectFileInfoForByteArrayKey() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new ByteArrayType());
+        StateStore stateStore = getStateStore(schema);
+        FileInfo fileInfo = FileInfo.builder()
+                .rowKeyTypes(new ByteArrayType())
+                .filename("abc")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("1")
+                .minRowKey(Key.create(new byte[]{1}))
+                .maxRowKey(Key.create(new byte[]{10}))
+                .lastStateStoreUpdateTime(1_000_000L)
+                .numberOfRecords(1L)
+                .build();
+
+        // When
+        stateStore.addFile(fileInfo);
+
+        // Then
+        assertThat(stateStore.getActiveFiles()).singleElement().satisfies(found -> {
+            assertThat(found.getRowKeyTypes()).containsExactly(new ByteArrayType());
+            assertThat(found.getFilename()).isEqualTo("abc");
+            assertThat(found.getFileStatus()).isEqualTo(FileInfo.FileStatus.ACTIVE);
+            assertThat(found.getPartitionId()).isEqualTo("1");
+            assertThat(found.getMinRowKey().size()).isOne();
+            assertThat((byte[]) found.getMinRowKey().get(0)).containsExactly(new byte[]{1});
+            assertThat(found.getMaxRowKey().size()).isOne();
+            assertThat((byte[]) found.getMaxRowKey().get(0)).containsExactly(new byte[]{10});
+            assertThat(found.getLastStateStoreUpdateTime().longValue()).isEqualTo(1_000_000L);
+        });
+    }
+
+    @Test
+    public void shouldReturnCorrectFileInfoFor2DimensionalByteArrayKey() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithTwoRowKeyTypes(new ByteArrayType(), new ByteArrayType());
+        StateStore stateStore = getStateStore(schema);
+        FileInfo fileInfo = FileInfo.builder()
+                .rowKeyTypes(new ByteArrayType(), new ByteArrayType())
+                .filename("abc")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("1")
+                .minRowKey(Key.create(Arrays.asList(new byte[]{1}, new byte[]{2})))
+                .maxRowKey(Key.create(Arrays.asList(new byte[]{10}, new byte[]{11})))
+                .lastStateStoreUpdateTime(1_000_000L)
+                .numberOfRecords(1L)
+                .build();
+
+        // When
+        stateStore.addFile(fileInfo);
+
+        // Then
+        assertThat(stateStore.getActiveFiles()).singleElement().satisfies(found -> {
+            assertThat(found.getRowKeyTypes()).containsExactly(new ByteArrayType(), new ByteArrayType());
+            assertThat(found.getFilename()).isEqualTo("abc");
+            assertThat(found.getFileStatus()).isEqualTo(FileInfo.FileStatus.ACTIVE);
+            assertThat(found.getPartitionId()).isEqualTo("1");
+            assertThat(found.getMinRowKey().size()).isEqualTo(2);
+            assertThat((byte[]) found.getMinRowKey().get(0)).containsExactly(new byte[]{1});
+            assertThat((byte[]) found.getMinRowKey().get(1)).containsExactly(new byte[]{2});
+            assertThat(found.getMaxRowKey().size()).isEqualTo(2);
+            assertThat((byte[]) found.getMaxRowKey().get(0)).containsExactly(new byte[]{10});
+            assertThat((byte[]) found.getMaxRowKey().get(1)).containsExactly(new byte[]{11});
+            assertThat(found.getLastStateStoreUpdateTime().longValue()).isEqualTo(1_000_000L);
+        });
+    }
+
+    @Test
+    public void shouldReturnCorrectFileInfoForMultidimensionalRowKey() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithTwoRowKeyTypes(new LongType(), new StringType());
+        StateStore stateStore = getStateStore(schema);
+        FileInfo fileInfo = FileInfo.builder()
+                .rowKeyTypes(new LongType(), new StringType())
+                .filename("abc")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("1")
+                .minRowKey(Key.create(Arrays.asList(1L, "Z")))
+                .maxRowKey(Key.create(Arrays.asList(10L, "A")))
+                .lastStateStoreUpdateTime(1_000_000L)
+                .numberOfRecords(1L)
+                .build();
+
+        // When
+        stateStore.addFile(fileInfo);
+
+        // Then
+        assertThat(stateStore.getActiveFiles()).singleElement().satisfies(found -> {
+            assertThat(found.getRowKeyTypes()).containsExactly(new LongType(), new StringType());
+            assertThat(found.getFilename()).isEqualTo("abc");
+            assertThat(found.getFileStatus()).isEqualTo(FileInfo.FileStatus.ACTIVE);
+            assertThat(found.getPartitionId()).isEqualTo("1");
+            assertThat(found.getMinRowKey()).isEqualTo(Key.create(Arrays.asList(1L, "Z")));
+            assertThat(found.getMaxRowKey()).isEqualTo(Key.create(Arrays.asList(10L, "A")));
+            assertThat(found.getLastStateStoreUpdateTime().longValue()).isEqualTo(1_000_000L);
+        });
+    }
+
+    @Test
+    public void shouldReturnAllFileInfos() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        Set<FileInfo> expected = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            FileInfo fileInfo = FileInfo.builder()
+                    .rowKeyTypes(new LongType())
+                    .filename("file-" + i)
+                    .fileStatus(FileInfo.FileStatus.ACTIVE)
+                    .partitionId("" + i)
+                    .minRowKey(Key.create(1L))
+                    .maxRowKey(Key.create(10L))
+                    .lastStateStoreUpdateTime(1_000_000L)
+                    .numberOfRecords(1L)
+                    .build();
+            expected.add(fileInfo);
+        }
+        stateStore.addFiles(new ArrayList<>(expected));
+
+        // When
+        List<FileInfo> fileInfos = stateStore.getActiveFiles();
+
+        // Then
+        assertThat(fileInfos).hasSize(10000).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    public void testExceptionThrownWhenAddingFileInfoWithMissingFilename() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        FileInfo fileInfo = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("1")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(1_000_000L)
+                .numberOfRecords(1L)
+                .build();
+
+        // When / Then
+        assertThatThrownBy(() -> stateStore.addFile(fileInfo))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testExceptionThrownWhenAddingFileInfoWithMissingStatus() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        FileInfo fileInfo = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("abc")
+                .partitionId("1")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(1_000_000L)
+                .numberOfRecords(1L)
+                .build();
+
+        // When / Then
+        assertThatThrownBy(() -> stateStore.addFile(fileInfo))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testExceptionThrownWhenAddingFileInfoWithMissingPartition() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        FileInfo fileInfo = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("abc")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(1_000_000L)
+                .numberOfRecords(1L)
+                .build();
+
+        // When / Then
+        assertThatThrownBy(() -> stateStore.addFile(fileInfo))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldAddFilesUnderContention() throws IOException, StateStoreException, InterruptedException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        ExecutorService executorService = Executors.newFixedThreadPool(20);
+        List<FileInfo> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            FileInfo fileInfo = FileInfo.builder()
+                    .rowKeyTypes(new LongType())
+                    .filename("file-" + i)
+                    .fileStatus(FileInfo.FileStatus.ACTIVE)
+                    .partitionId("root")
+                    .minRowKey(Key.create(1L))
+                    .maxRowKey(Key.create(10L))
+                    .lastStateStoreUpdateTime(1_000_000L)
+                    .numberOfRecords(1L)
+                    .build();
+            files.add(fileInfo);
+        }
+
+        // When
+        CompletableFuture.allOf(files.stream()
+                .map(file -> (Runnable) () -> {
+                    try {
+                        stateStore.addFile(file);
+                    } catch (StateStoreException e) {
+                        e.printStackTrace();
+                    }
+                })
+                .map(runnable -> CompletableFuture.runAsync(runnable, executorService))
+                .toArray(CompletableFuture[]::new)
+        ).join();
+
+        // Then
+        assertThat(stateStore.getActiveFiles())
+                .hasSize(20)
+                .containsExactlyInAnyOrderElementsOf(files);
+        executorService.shutdown();
+    }
+
+    @Test
+    public void testGetFilesThatAreReadyForGC() throws IOException, InterruptedException, StateStoreException {
+        // Given
+        Instant file1Time = Instant.parse("2023-06-06T15:00:00Z");
+        Instant file2Time = Instant.parse("2023-06-06T15:01:00Z");
+        Instant file3Time = Instant.parse("2023-06-06T15:02:00Z");
+        Instant file1GCTime = Instant.parse("2023-06-06T15:05:30Z");
+        Instant file3GCTime = Instant.parse("2023-06-06T15:07:30Z");
+        Schema schema = schemaWithKeyAndValueWithTypes(new IntType(), new StringType());
+        StateStore stateStore = getStateStore(schema, 5);
+        Partition partition = stateStore.getAllPartitions().get(0);
+        //  - A file which should be garbage collected immediately
+        FileInfo fileInfo1 = FileInfo.builder()
+                .rowKeyTypes(new IntType())
+                .filename("file1")
+                .fileStatus(FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION)
+                .partitionId(partition.getId())
+                .minRowKey(Key.create(1))
+                .maxRowKey(Key.create(100))
+                .numberOfRecords(100L)
+                .lastStateStoreUpdateTime(file1Time)
+                .build();
+        stateStore.addFile(fileInfo1);
+        //  - An active file which should not be garbage collected
+        FileInfo fileInfo2 = FileInfo.builder()
+                .rowKeyTypes(new IntType())
+                .filename("file2")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId(partition.getId())
+                .minRowKey(Key.create(1))
+                .maxRowKey(Key.create(100))
+                .numberOfRecords(100L)
+                .lastStateStoreUpdateTime(file2Time)
+                .build();
+        stateStore.addFile(fileInfo2);
+        //  - A file which is ready for garbage collection but which should not be garbage collected now as it has only
+        //      just been marked as ready for GC
+        FileInfo fileInfo3 = FileInfo.builder()
+                .rowKeyTypes(new IntType())
+                .filename("file3")
+                .fileStatus(FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION)
+                .partitionId(partition.getId())
+                .minRowKey(Key.create(1))
+                .maxRowKey(Key.create(100))
+                .numberOfRecords(100L)
+                .lastStateStoreUpdateTime(file3Time)
+                .build();
+        stateStore.addFile(fileInfo3);
+
+        // When 1
+        fixTime(stateStore, file1GCTime);
+        Iterator<FileInfo> readyForGCFilesIterator = stateStore.getReadyForGCFiles();
+
+        // Then 1
+        assertThat(readyForGCFilesIterator).toIterable().containsExactly(fileInfo1);
+
+        // When 2
+        fixTime(stateStore, file3GCTime);
+        readyForGCFilesIterator = stateStore.getReadyForGCFiles();
+
+        // Then 2
+        assertThat(readyForGCFilesIterator).toIterable().containsExactlyInAnyOrder(fileInfo1, fileInfo3);
+    }
+
+    @Test
+    public void shouldReturnOnlyActiveFilesWithNoJobId() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        FileInfo fileInfo1 = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("file1")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("1")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(1_000_000L)
+                .numberOfRecords(1L)
+                .build();
+        stateStore.addFile(fileInfo1);
+        FileInfo fileInfo2 = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("file2")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("2")
+                .minRowKey(Key.create(20L))
+                .maxRowKey(Key.create(29L))
+                .lastStateStoreUpdateTime(2_000_000L)
+                .numberOfRecords(2L)
+                .build();
+        stateStore.addFile(fileInfo2);
+        FileInfo fileInfo3 = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("file3")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("3")
+                .jobId("job1")
+                .minRowKey(Key.create(100L))
+                .maxRowKey(Key.create(10000L))
+                .lastStateStoreUpdateTime(3_000_000L)
+                .numberOfRecords(3L)
+                .build();
+        stateStore.addFile(fileInfo3);
+
+        // When
+        List<FileInfo> fileInfos = stateStore.getActiveFilesWithNoJobId();
+
+        // Then
+        assertThat(fileInfos).containsExactly(fileInfo1, fileInfo2);
+    }
+
+    @Test
+    public void shouldDeleteReadyForGCFile() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        FileInfo fileInfo1 = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("file1")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("4")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(1_000_000L)
+                .numberOfRecords(1L)
+                .build();
+        FileInfo fileInfo2 = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("file2")
+                .fileStatus(FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION)
+                .partitionId("5")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(2_000_000L)
+                .numberOfRecords(2L)
+                .build();
+        stateStore.addFiles(Arrays.asList(fileInfo1, fileInfo2));
+
+        // When
+        stateStore.deleteReadyForGCFile(fileInfo2);
+
+        // Then
+        assertThat(stateStore.getActiveFiles()).containsExactly(fileInfo1);
+        assertThat(stateStore.getReadyForGCFiles()).isExhausted();
+    }
+
+    @Test
+    public void shouldDeleteManyReadyForGCFiles() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        FileInfo activeFile = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("active-file")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("4")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(1_000_000L)
+                .numberOfRecords(1L)
+                .build();
+        List<FileInfo> readyForGCFiles = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            readyForGCFiles.add(FileInfo.builder()
+                    .rowKeyTypes(new LongType())
+                    .filename("gc-file" + i)
+                    .fileStatus(FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION)
+                    .partitionId("5")
+                    .minRowKey(Key.create(1L))
+                    .maxRowKey(Key.create(10L))
+                    .lastStateStoreUpdateTime(2_000_000L)
+                    .numberOfRecords(2L)
+                    .build());
+        }
+        stateStore.addFile(activeFile);
+        stateStore.addFiles(readyForGCFiles);
+
+        // When
+        stateStore.deleteReadyForGCFiles(readyForGCFiles);
+
+        // Then
+        assertThat(stateStore.getActiveFiles()).containsExactly(activeFile);
+        assertThat(stateStore.getReadyForGCFiles()).isExhausted();
+    }
+
+    @Test
+    public void shouldNotDeleteReadyForGCFileIfNotMarkedAsReadyForGC() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        FileInfo fileInfo1 = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("file1")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("4")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(1_000_000L)
+                .numberOfRecords(1L)
+                .build();
+        FileInfo fileInfo2 = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("file2")
+                .fileStatus(FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION)
+                .partitionId("5")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(2_000_000L)
+                .numberOfRecords(2L)
+                .build();
+        stateStore.addFiles(Arrays.asList(fileInfo1, fileInfo2));
+
+        // When
+        assertThatThrownBy(() -> stateStore.deleteReadyForGCFile(fileInfo1))
+                .isInstanceOf(StateStoreException.class);
+    }
+
+    @Test
+    public void shouldAtomicallyUpdateStatusToReadyForGCAndCreateNewActiveFile() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        List<FileInfo> filesToMoveToReadyForGC = new ArrayList<>();
+        for (int i = 1; i < 5; i++) {
+            FileInfo fileInfo = FileInfo.builder()
+                    .rowKeyTypes(new LongType())
+                    .filename("file" + i)
+                    .fileStatus(FileInfo.FileStatus.ACTIVE)
+                    .partitionId("7")
+                    .minRowKey(Key.create(1L))
+                    .maxRowKey(Key.create(10L))
+                    .lastStateStoreUpdateTime(i * 1_000_000L)
+                    .numberOfRecords(1L)
+                    .build();
+            filesToMoveToReadyForGC.add(fileInfo);
+            stateStore.addFile(fileInfo);
+        }
+        FileInfo newFileInfo = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("file-new")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("7")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(10_000_000L)
+                .numberOfRecords(4L)
+                .build();
+
+        // When
+        stateStore.atomicallyUpdateFilesToReadyForGCAndCreateNewActiveFile(filesToMoveToReadyForGC, newFileInfo);
+
+        // Then
+        assertThat(stateStore.getActiveFiles()).containsExactly(newFileInfo);
+        assertThat(stateStore.getReadyForGCFiles()).toIterable().hasSize(4);
+    }
+
+    @Test
+    public void shouldAtomicallyUpdateStatusToReadyForGCAndCreateNewActiveFilesForSplittingJob() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        List<FileInfo> filesToMoveToReadyForGC = new ArrayList<>();
+        for (int i = 1; i < 5; i++) {
+            FileInfo fileInfo = FileInfo.builder()
+                    .rowKeyTypes(new LongType())
+                    .filename("file" + i)
+                    .fileStatus(FileInfo.FileStatus.ACTIVE)
+                    .partitionId("7")
+                    .minRowKey(Key.create(1L))
+                    .maxRowKey(Key.create(10L))
+                    .lastStateStoreUpdateTime(i * 1_000_000L)
+                    .numberOfRecords((long) i)
+                    .build();
+            filesToMoveToReadyForGC.add(fileInfo);
+        }
+        stateStore.addFiles(filesToMoveToReadyForGC);
+        FileInfo newLeftFileInfo = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("file-left-new")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("7")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(5L))
+                .lastStateStoreUpdateTime(10_000_000L)
+                .numberOfRecords(5L)
+                .build();
+        FileInfo newRightFileInfo = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("file-right-new")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("7")
+                .minRowKey(Key.create(5L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(10_000_000L)
+                .numberOfRecords(5L)
+                .build();
+
+        // When
+        stateStore.atomicallyUpdateFilesToReadyForGCAndCreateNewActiveFiles(filesToMoveToReadyForGC, newLeftFileInfo, newRightFileInfo);
+
+        // Then
+        assertThat(stateStore.getActiveFiles()).containsExactlyInAnyOrder(newLeftFileInfo, newRightFileInfo);
+        assertThat(stateStore.getReadyForGCFiles()).toIterable().hasSize(4);
+    }
+
+    @Test
+    public void atomicallyUpdateStatusToReadyForGCAndCreateNewActiveFileShouldFailIfFilesNotActive() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        List<FileInfo> filesToMoveToReadyForGC = new ArrayList<>();
+        for (int i = 1; i < 5; i++) {
+            FileInfo fileInfo = FileInfo.builder()
+                    .rowKeyTypes(new LongType())
+                    .filename("file" + i)
+                    .fileStatus(FileInfo.FileStatus.ACTIVE)
+                    .partitionId("7")
+                    .minRowKey(Key.create(1L))
+                    .maxRowKey(Key.create(10L))
+                    .lastStateStoreUpdateTime(1_000_000L)
+                    .numberOfRecords(1L)
+                    .build();
+            filesToMoveToReadyForGC.add(fileInfo);
+        }
+        //  - One of the files is not active
+        FileInfo updatedFileInfo = filesToMoveToReadyForGC.remove(3).toBuilder()
+                .fileStatus(FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION)
+                .build();
+        filesToMoveToReadyForGC.add(3, updatedFileInfo);
+        stateStore.addFiles(filesToMoveToReadyForGC);
+        FileInfo newFileInfo = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("file-new")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("7")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(1_000_000L)
+                .numberOfRecords(1L)
+                .build();
+
+        // When / Then
+        assertThatThrownBy(() ->
+                stateStore.atomicallyUpdateFilesToReadyForGCAndCreateNewActiveFile(filesToMoveToReadyForGC, newFileInfo))
+                .isInstanceOf(StateStoreException.class);
+    }
+
+    @Test
+    public void atomicallyUpdateStatusToReadyForGCAndCreateNewActiveFilesShouldFailIfFilesNotActive() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        List<FileInfo> filesToMoveToReadyForGC = new ArrayList<>();
+        for (int i = 1; i < 5; i++) {
+            FileInfo fileInfo = FileInfo.builder()
+                    .rowKeyTypes(new LongType())
+                    .filename("file" + i)
+                    .fileStatus(FileInfo.FileStatus.ACTIVE)
+                    .partitionId("7")
+                    .minRowKey(Key.create(1L))
+                    .maxRowKey(Key.create(10L))
+                    .lastStateStoreUpdateTime(i * 1_000_000L)
+                    .numberOfRecords((long) i)
+                    .build();
+            filesToMoveToReadyForGC.add(fileInfo);
+        }
+        stateStore.addFiles(filesToMoveToReadyForGC);
+        FileInfo newLeftFileInfo = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("file-left-new")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("7")
+                .minRowKey(Key.create(1L))
+                .maxRowKey(Key.create(5L))
+                .lastStateStoreUpdateTime(10_000_000L)
+                .numberOfRecords(5L)
+                .build();
+        FileInfo newRightFileInfo = FileInfo.builder()
+                .rowKeyTypes(new LongType())
+                .filename("file-right-new")
+                .fileStatus(FileInfo.FileStatus.ACTIVE)
+                .partitionId("7")
+                .minRowKey(Key.create(5L))
+                .maxRowKey(Key.create(10L))
+                .lastStateStoreUpdateTime(10_000_000L)
+                .numberOfRecords(5L)
+                .build();
+        //  - One of the files is not active
+        FileInfo updatedFileInfo = filesToMoveToReadyForGC.remove(3).toBuilder()
+                .fileStatus(FileInfo.FileStatus.READY_FOR_GARBAGE_COLLECTION)
+                .build();
+        filesToMoveToReadyForGC.add(3, updatedFileInfo);
+        stateStore.addFiles(filesToMoveToReadyForGC);
+
+        // When / Then
+        assertThatThrownBy(() ->
+                stateStore.atomicallyUpdateFilesToReadyForGCAndCreateNewActiveFiles(filesToMoveToReadyForGC, newLeftFileInfo, newRightFileInfo))
+                .isInstanceOf(StateStoreException.class);
+    }
+
+    @Test
+    public void shouldAtomicallyUpdateJobStatusOfFiles() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        List<FileInfo> files = new ArrayList<>();
+        for (int i = 1; i < 5; i++) {
+            FileInfo fileInfo = FileInfo.builder()
+                    .rowKeyTypes(new LongType())
+                    .filename("file" + i)
+                    .fileStatus(FileInfo.FileStatus.ACTIVE)
+                    .partitionId("8")
+                    .minRowKey(Key.create(1L))
+                    .maxRowKey(Key.create(10L))
+                    .lastStateStoreUpdateTime(i * 1_000_000L)
+                    .numberOfRecords(1L)
+                    .build();
+            files.add(fileInfo);
+        }
+        stateStore.addFiles(files);
+        String jobId = UUID.randomUUID().toString();
+
+        // When
+        stateStore.atomicallyUpdateJobStatusOfFiles(jobId, files);
+
+        // Then
+        assertThat(stateStore.getActiveFiles()).hasSize(4)
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("jobId")
+                .containsExactlyInAnyOrderElementsOf(files)
+                .extracting(FileInfo::getJobId).containsOnly(jobId);
+        assertThat(stateStore.getReadyForGCFiles()).isExhausted();
+    }
+
+    @Test
+    public void shouldUpdateJobStatusOfFilesForManyJobs() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        List<FileInfo> files = new ArrayList<>();
+        Map<String, List<FileInfo>> jobIdToFiles = new LinkedHashMap<>();
+        for (int job = 0; job < 30; job++) {
+            String jobId = "job" + job;
+            for (int i = 0; i < 4; i++) {
+                FileInfo fileInfo = FileInfo.builder()
+                        .rowKeyTypes(new LongType())
+                        .filename("job" + job + "-file" + i)
+                        .fileStatus(FileInfo.FileStatus.ACTIVE)
+                        .partitionId("8")
+                        .minRowKey(Key.create(1L))
+                        .maxRowKey(Key.create(10L))
+                        .lastStateStoreUpdateTime(1_000_000L)
+                        .numberOfRecords(1L)
+                        .build();
+                files.add(fileInfo);
+                jobIdToFiles.computeIfAbsent(jobId, id -> new ArrayList<>()).add(fileInfo);
+            }
+        }
+        stateStore.addFiles(files);
+
+        // When
+        stateStore.atomicallyUpdateJobStatusOfFiles(jobIdToFiles);
+
+        // Then
+        assertThat(stateStore.getActiveFiles())
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("jobId")
+                .containsExactlyInAnyOrderElementsOf(files);
+        assertThat(stateStore.getActiveFiles())
+                .allSatisfy(file -> assertThat(file.getFilename()).startsWith(file.getJobId() + "-"));
+    }
+
+    @Test
+    public void shouldNotAtomicallyCreateJobAndUpdateJobStatusOfFilesWhenJobIdAlreadySet() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        StateStore stateStore = getStateStore(schema);
+        List<FileInfo> files = new ArrayList<>();
+        for (int i = 1; i < 5; i++) {
+            FileInfo fileInfo = FileInfo.builder()
+                    .rowKeyTypes(new LongType())
+                    .filename("file" + i)
+                    .fileStatus(FileInfo.FileStatus.ACTIVE)
+                    .partitionId("9")
+                    .jobId("compactionJob")
+                    .minRowKey(Key.create(1L))
+                    .maxRowKey(Key.create(10L))
+                    .lastStateStoreUpdateTime(i * 1_000_000L)
+                    .numberOfRecords(1L)
+                    .build();
+            files.add(fileInfo);
+        }
+        stateStore.addFiles(files);
+        String jobId = UUID.randomUUID().toString();
+
+        // When / Then
+        assertThatThrownBy(() ->
+                stateStore.atomicallyUpdateJobStatusOfFiles(jobId, files))
+                .isInstanceOf(StateStoreException.class);
+    }
+
+    @Test
+    public void shouldCorrectlyInitialisePartitionsWithLongKeyType() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new LongType());
+        List<Partition> partitions = new PartitionsFromSplitPoints(schema, Collections.singletonList(100L))
+                .construct();
+        StateStore stateStore = getStateStore(schema, partitions);
+
+        // When / Then
+        assertThat(stateStore.getAllPartitions()).containsExactlyInAnyOrderElementsOf(partitions);
+    }
+
+    @Test
+    public void shouldCorrectlyInitialisePartitionsWithStringKeyType() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new StringType());
+        List<Partition> partitions = new PartitionsFromSplitPoints(schema, Collections.singletonList("A"))
+                .construct();
+        StateStore stateStore = getStateStore(schema, partitions);
+
+        // When / Then
+        assertThat(stateStore.getAllPartitions()).containsExactlyInAnyOrderElementsOf(partitions);
+    }
+
+    @Test
+    public void shouldCorrectlyInitialisePartitionsWithByteArrayKeyType() throws IOException, StateStoreException {
+        // Given
+        Schema schema = schemaWithSingleRowKeyType(new ByteArrayType());
+        byte[] min = new byte[]{1, 2, 3, 4};
+        List<Partition> partitions = new PartitionsFromSplitPoints(schema, List.of(min))
+                .construct();
+        StateStore stateStore = getStateStore(schema, partitions);
+
+        // When / Then
+        assertThat(stateStore.getAllPartitions()).containsExactlyInAnyOrderElementsOf(partitions);
+    }
+
+    @Test
+    public void shouldCorrectlyStorePartitionWithMultidimensionalKeyType() throws IOException, StateStoreException {
+        // Given
+        Field field1 = new Field("key1", new ByteArrayType());
+        Field field2 = new Field("key2", new ByteArrayType());
+        Schema schema = Schema.builder().rowKeyFields(field1, field2).build();
+        RangeFactory rangeFactory = new RangeFactory(schema);
+        byte[] min1 = new byte[]{1, 2, 3, 4};
+        byte[] min2 = new byte[]{99, 5};
+        byte[] max1 = new byte[]{5, 6, 7, 8, 9};
+        byte[] max2 = new byte[]{101, 0};
+        Range range1 = rangeFactory.createRange(field1, min1, max1);
+        Range range2 = rangeFactory.createRange(field2, min2, max2);
+        Region region = new Region(Arrays.asList(range1, range2));
+        Partition partition = Partition.builder()
+                .rowKeyTypes(schema.getRowKeyTypes())
+                .region(region)
+                .id("id")
+                .leafPartition(true)
+                .parentPartitionId("P")
+                .childPartitionIds(new ArrayList<>())
+                .dimension(-1)
+                .build();
+        StateStore stateStore = getStateStore(schema, Collections.singletonList(partition));
+
+        // When
+        Partition retrievedPartition = stateStore.getAllPartitions().get(0);
+
+        // Then
+        assertThat((byte[]) retrievedPartition.getRegion().getRange("key1").getMin()).containsExactly((byte[]) partition.getRegion().getRange("key1").getMin());
+        assertThat((byte[]) retrievedPartition.getRegion().getRange("key1").getMax()).containsExactly((byte[]) partition.getRegion().getRange("key1").getMax());
+        assertThat((byte[]) retrievedPartition.getRegion().getRange("key2").getMin()).containsExactly((byte[]) partition.getRegion().getRange("key2").getMin());
+        assertThat((byte[]) retrievedPartition.getRegion().getRange("key2").getMax()).containsExactly((byte[]) partition.getRegion().getRange("key2").getMax());
+        assertThat(retrievedPartition.getId()).isEqualTo(partition.getId());
+        assertThat(retrievedPartition.getParentPartitionId()).isEqualTo(partition.getParentPartitionId());
+        assertThat(retrievedPartition.getChildPartitionIds()).isEqualTo(partition.getChildPartitionIds());
+    }
+
+    @Test
+    public void shouldCorrectlyStoreNonLeafPartitionWithByteArrayKeyType() throws IOException, StateStoreException {
+        // Given
+        Field field = new Field("key", new ByteArrayType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        byte[] min = new byte[]{1, 2, 3, 4};
+        byte[] max = new byte[]{5, 6, 7, 8, 9};
+        Range range = new RangeFactory(schema).createRange(field.getName(), min, max);
+        Region region = new Region(range);
+        Partition partition = Partition.builder()
+                .rowKeyTypes(schema.getRowKeyTypes())
+                .region(region)
+                .id("id")
+                .leafPartition(false)
+                .parentPartitionId("P")
+                .childPartitionIds(new ArrayList<>())
+                .dimension(0)
+                .build();
+        StateStore stateStore = getStateStore(schema, Collections.singletonList(partition));
+
+        // When
+        Partition retrievedPartition = stateStore.getAllPartitions().get(0);
+
+        // Then
+        assertThat((byte[]) retrievedPartition.getRegion().getRange("key").getMin()).containsExactly((byte[]) partition.getRegion().getRange("key").getMin());
+        assertThat((byte[]) retrievedPartition.getRegion().getRange("key").getMax()).containsExactly((byte[]) partition.getRegion().getRange("key").getMax());
+        assertThat(retrievedPartition.getId()).isEqualTo(partition.getId());
+        assertThat(retrievedPartition.getParentPartitionId()).isEqualTo(partition.getParentPartitionId());
+        assertThat(retrievedPartition.getChildPartitionIds()).isEqualTo(partition.getChildPartitionIds());
+        assertThat(retrievedPartition.getDimension()).isEqualTo(partition.getDimension());
+    }
+
+    @Test
+    public void shouldReturnCorrectPartitionToFileMapping() throws IOException, StateStoreException {
+        // Given
+        Field field = new Field("key", new LongType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        StateStore stateStore = getStateStore(schema);
+        List<FileInfo> files = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            FileInfo fileInfo = FileInfo.builder()
+                    .rowKeyTypes(new LongType())
+                    .filename("file" + i)
+                    .fileStatus(FileInfo.FileStatus.ACTIVE)
+                    .partitionId("" + (i % 5))
+                    .minRowKey(Key.create((long) i % 5))
+                    .maxRowKey(Key.create((long) i % 5))
+                    .lastStateStoreUpdateTime(1_000_000L)
+                    .numberOfRecords((long) i)
+                    .build();
+            files.add(fileInfo);
+        }
+        stateStore.addFiles(files);
+
+        // When
+        Map<String, List<String>> partitionToFileMapping = stateStore.getPartitionToActiveFilesMap();
+
+        // Then
+        assertThat(partitionToFileMapping.entrySet()).hasSize(5);
+        for (int i = 0; i < 5; i++) {
+            assertThat(partitionToFileMapping.get("" + i)).hasSize(2);
+            Set<String> expected = new HashSet<>();
+            expected.add(files.get(i).getFilename());
+            expected.add(files.get(i + 5).getFilename());
+            assertThat(new HashSet<>(partitionToFileMapping.get("" + i))).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void shouldReturnAllPartitions() throws IOException, StateStoreException {
+        // Given
+        Field field = new Field("key", new LongType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        Region region0 = new Region(new RangeFactory(schema).createRange(field, Long.MIN_VALUE, 1L));
+        Partition partition0 = Partition.builder()
+                .rowKeyTypes(schema.getRowKeyTypes())
+                .region(region0)
+                .id("id0")
+                .leafPartition(true)
+                .parentPartitionId("root")
+                .childPartitionIds(new ArrayList<>())
+                .dimension(-1)
+                .build();
+        Region region1 = new Region(new RangeFactory(schema).createRange(field, 1L, 100L));
+        Partition partition1 = Partition.builder()
+                .rowKeyTypes(schema.getRowKeyTypes())
+                .region(region1)
+                .id("id1")
+                .leafPartition(true)
+                .parentPartitionId("root")
+                .childPartitionIds(new ArrayList<>())
+                .dimension(-1)
+                .build();
+        Region region2 = new Region(new RangeFactory(schema).createRange(field, 100L, 200L));
+        Partition partition2 = Partition.builder()
+                .rowKeyTypes(schema.getRowKeyTypes())
+                .region(region2)
+                .id("id2")
+                .leafPartition(true)
+                .parentPartitionId("root")
+                .childPartitionIds(new ArrayList<>())
+                .dimension(-1)
+                .build();
+        Region region3 = new Region(new RangeFactory(schema).createRange(field, 200L, null));
+        Partition partition3 = Partition.builder()
+                .rowKeyTypes(schema.getRowKeyTypes())
+                .region(region3)
+                .id("id3")
+                .leafPartition(true)
+                .parentPartitionId("root")
+                .childPartitionIds(new ArrayList<>())
+                .dimension(-1)
+                .build();
+        StateStore dynamoDBStateStore = getStateStore(schema, Arrays.asList(partition0, partition1, partition2, partition3));
+
+        // When
+        List<Partition> retrievedPartitions = dynamoDBStateStore.getAllPartitions();
+        retrievedPartitions.sort((p1, p2) -> {
+            long p1Key = (long) p1.getRegion().getRange("key").getMin();
+            long p2Key = (long) p2.getRegion().getRange("key").getMin();
+            if (p1Key < p2Key) {
+                return -1;
+            } else if (p1Key == p2Key) {
+                return 0;
+            }
+            return 1;
+        });
+
+        // Then
+        assertThat(retrievedPartitions).containsExactly(partition0, partition1, partition2, partition3);
+    }
+
+    @Test
+    public void shouldReturnLeafPartitions() throws IOException, StateStoreException {
+        // Given
+        Field field = new Field("key", new LongType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        StateStore dynamoDBStateStore = getStateStore(schema);
+        Partition rootPartition = dynamoDBStateStore.getAllPartitions().get(0);
+        Region region1 = new Region(new RangeFactory(schema).createRange(field, Long.MIN_VALUE, 1L));
+        Partition partition1 = Partition.builder()
+                .rowKeyTypes(schema.getRowKeyTypes())
+                .region(region1)
+                .id("id1")
+                .leafPartition(true)
+                .parentPartitionId(rootPartition.getId())
+                .childPartitionIds(new ArrayList<>())
+                .dimension(-1)
+                .build();
+        Region region2 = new Region(new RangeFactory(schema).createRange(field, 1L, null));
+        Partition partition2 = Partition.builder()
+                .rowKeyTypes(schema.getRowKeyTypes())
+                .region(region2)
+                .id("id2")
+                .leafPartition(true)
+                .parentPartitionId(rootPartition.getId())
+                .childPartitionIds(new ArrayList<>())
+                .dimension(-1)
+                .build();
+        rootPartition.setLeafPartition(false);
+        rootPartition.setChildPartitionIds(Arrays.asList(partition1.getId(), partition2.getId()));
+        dynamoDBStateStore.atomicallyUpdatePartitionAndCreateNewOnes(rootPartition, partition1, partition2);
+        Region region3 = new Region(new RangeFactory(schema).createRange(field, 1L, 9L));
+        Partition partition3 = Partition.builder()
+                .rowKeyTypes(schema.getRowKeyTypes())
+                .region(region3)
+                .id("id3")
+                .leafPartition(true)
+                .parentPartitionId(partition2.getId())
+                .childPartitionIds(new ArrayList<>())
+                .dimension(-1)
+                .build();
+        Region region4 = new Region(new RangeFactory(schema).createRange(field, 9L, null));
+        Partition partition4 = Partition.builder()
+                .rowKeyTypes(schema.getRowKeyTypes())
+                .region(region4)
+                .id("id4")
+                .leafPartition(true)
+                .parentPartitionId(partition2.getId())
+                .childPartitionIds(new ArrayList<>())
+                .dimension(-1)
+                .build();
+        partition2.setLeafPartition(false);
+        partition2.setChildPartitionIds(Arrays.asList(partition3.getId(), partition4.getId()));
+        dynamoDBStateStore.atomicallyUpdatePartitionAndCreateNewOnes(partition2, partition3, partition4);
+
+        // When
+        List<Partition> retrievedPartitions = dynamoDBStateStore.getLeafPartitions();
+        retrievedPartitions.sort((p1, p2) -> {
+            long p1Key = (long) p1.getRegion().getRange("key").getMin();
+            long p2Key = (long) p2.getRegion().getRange("key").getMin();
+            if (p1Key < p2Key) {
+                return -1;
+            } else if (p1Key == p2Key) {
+                return 0;
+            }
+            return 1;
+        });
+
+        // Then
+        assertThat(retrievedPartitions).containsExactly(partition1, partition3, partition4);
+    }
+
+    @Test
+    public void shouldUpdatePartitions() throws IOException, StateStoreException {
+        // Given
+        Field field = new Field("key", new LongType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        StateStore dynamoDBStateStore = getStateStore(schema);
+        Partition parentPartition = dynamoDBStateStore.getAllPartitions().get(0);
+
+        // When
+        parentPartition.setLeafPartition(false);
+        parentPartition.setChildPartitionIds(Arrays.asList("child1", "child2"));
+        parentPartition.setDimension(1);
+        Region region1 = new Region(new RangeFactory(schema).createRange(field, Long.MIN_VALUE, 0L));
+        Partition childPartition1 = Partition.builder()
+                .rowKeyTypes(new LongType())
+                .leafPartition(true)
+                .id("child1")
+                .region(region1)
+                .childPartitionIds(new ArrayList<>())
+                .parentPartitionId(parentPartition.getId())
+                .dimension(-1)
+                .build();
+        Region region2 = new Region(new RangeFactory(schema).createRange(field, 0L, null));
+        Partition childPartition2 = Partition.builder()
+                .rowKeyTypes(new LongType())
+                .leafPartition(true)
+                .id("child2")
+                .region(region2)
+                .childPartitionIds(new ArrayList<>())
+                .parentPartitionId(parentPartition.getId())
+                .dimension(-1)
+                .build();
+        dynamoDBStateStore.atomicallyUpdatePartitionAndCreateNewOnes(parentPartition, childPartition1, childPartition2);
+
+        // Then
+        assertThat(dynamoDBStateStore.getAllPartitions())
+                .containsExactlyInAnyOrder(parentPartition, childPartition1, childPartition2);
+    }
+
+    @Test
+    public void shouldNotUpdatePartitionsIfLeafStatusChanges() throws IOException, StateStoreException {
+        // Given
+        Field field = new Field("key", new LongType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        StateStore dynamoDBStateStore = getStateStore(schema);
+        Partition parentPartition = dynamoDBStateStore.getAllPartitions().get(0);
+        parentPartition.setLeafPartition(false);
+        parentPartition.setChildPartitionIds(Arrays.asList("child1", "child2"));
+        Region region1 = new Region(new RangeFactory(schema).createRange(field, Long.MIN_VALUE, 0L));
+        Partition childPartition1 = Partition.builder()
+                .rowKeyTypes(new LongType())
+                .leafPartition(true)
+                .id("child1")
+                .region(region1)
+                .childPartitionIds(new ArrayList<>())
+                .parentPartitionId(parentPartition.getId())
+                .build();
+        Region region2 = new Region(new RangeFactory(schema).createRange(field, 0L, null));
+        Partition childPartition2 = Partition.builder()
+                .rowKeyTypes(new LongType())
+                .leafPartition(true)
+                .id("child2")
+                .region(region2)
+                .childPartitionIds(new ArrayList<>())
+                .parentPartitionId(parentPartition.getId())
+                .build();
+        dynamoDBStateStore.atomicallyUpdatePartitionAndCreateNewOnes(parentPartition, childPartition1, childPartition2);
+
+        // When / Then
+        //  - Attempting to split something that has already been split should fail
+        assertThatThrownBy(() ->
+                dynamoDBStateStore.atomicallyUpdatePartitionAndCreateNewOnes(parentPartition, childPartition1, childPartition2))
+                .isInstanceOf(StateStoreException.class);
+    }
+
+    @Test
+    public void shouldThrowExceptionWithPartitionSplitRequestWhereParentIsLeaf() throws IOException, StateStoreException {
+        // Given
+        Field field = new Field("key", new LongType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        StateStore dynamoDBStateStore = getStateStore(schema);
+        Partition parentPartition = dynamoDBStateStore.getAllPartitions().get(0);
+        parentPartition.setChildPartitionIds(Arrays.asList("child1", "child2"));
+        Region region1 = new Region(new RangeFactory(schema).createRange(field, Long.MIN_VALUE, null));
+        Partition childPartition1 = Partition.builder()
+                .rowKeyTypes(new LongType())
+                .leafPartition(true)
+                .id("child1")
+                .region(region1)
+                .childPartitionIds(new ArrayList<>())
+                .parentPartitionId("parent")
+                .build();
+        Region region2 = new Region(new RangeFactory(schema).createRange(field, Long.MIN_VALUE, null));
+        Partition childPartition2 = Partition.builder()
+                .rowKeyTypes(new LongType())
+                .leafPartition(true)
+                .id("child2")
+                .region(region2)
+                .childPartitionIds(new ArrayList<>())
+                .parentPartitionId("parent")
+                .build();
+
+        // When / Then
+        assertThatThrownBy(() ->
+                dynamoDBStateStore.atomicallyUpdatePartitionAndCreateNewOnes(parentPartition, childPartition1, childPartition2))
+                .isInstanceOf(StateStoreException.class);
+    }
+
+    @Test
+    public void shouldThrowExceptionWithPartitionSplitRequestWhereChildrenWrong() throws IOException, StateStoreException {
+        // Given
+        Field field = new Field("key", new LongType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        StateStore dynamoDBStateStore = getStateStore(schema);
+        Partition parentPartition = dynamoDBStateStore.getAllPartitions().get(0);
+        parentPartition.setLeafPartition(false);
+        parentPartition.setChildPartitionIds(Arrays.asList("child3", "child2")); // Wrong children
+        Region region1 = new Region(new RangeFactory(schema).createRange(field, Long.MIN_VALUE, null));
+        Partition childPartition1 = Partition.builder()
+                .rowKeyTypes(new LongType())
+                .leafPartition(true)
+                .id("child1")
+                .region(region1)
+                .childPartitionIds(new ArrayList<>())
+                .parentPartitionId("parent")
+                .build();
+        Region region2 = new Region(new RangeFactory(schema).createRange(field, Long.MIN_VALUE, null));
+        Partition childPartition2 = Partition.builder()
+                .rowKeyTypes(new LongType())
+                .leafPartition(true)
+                .id("child2")
+                .region(region2)
+                .childPartitionIds(new ArrayList<>())
+                .parentPartitionId("parent")
+                .build();
+
+        // When / Then
+        assertThatThrownBy(() ->
+                dynamoDBStateStore.atomicallyUpdatePartitionAndCreateNewOnes(parentPartition, childPartition1, childPartition2))
+                .isInstanceOf(StateStoreException.class);
+    }
+
+    @Test
+    public void shouldThrowExceptionWithPartitionSplitRequestWhereParentWrong() throws IOException, StateStoreException {
+        // Given
+        Field field = new Field("key", new LongType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        StateStore dynamoDBStateStore = getStateStore(schema);
+        Partition parentPartition = dynamoDBStateStore.getAllPartitions().get(0);
+        parentPartition.setLeafPartition(false);
+        parentPartition.setChildPartitionIds(Arrays.asList("child1", "child2"));
+        Region region1 = new Region(new RangeFactory(schema).createRange(field, Long.MIN_VALUE, null));
+        Partition childPartition1 = Partition.builder()
+                .rowKeyTypes(new LongType())
+                .leafPartition(true)
+                .id("child1")
+                .region(region1)
+                .childPartitionIds(new ArrayList<>())
+                .parentPartitionId("notparent") // Wrong parent
+                .build();
+        Region region2 = new Region(new RangeFactory(schema).createRange(field, Long.MIN_VALUE, null));
+        Partition childPartition2 = Partition.builder()
+                .rowKeyTypes(new LongType())
+                .leafPartition(true)
+                .id("child2")
+                .region(region2)
+                .childPartitionIds(new ArrayList<>())
+                .parentPartitionId("parent")
+                .build();
+
+        // When / Then
+        assertThatThrownBy(() ->
+                dynamoDBStateStore.atomicallyUpdatePartitionAndCreateNewOnes(parentPartition, childPartition1, childPartition2))
+                .isInstanceOf(StateStoreException.class);
+    }
+
+    @Test
+    public void shouldThrowExceptionWithPartitionSplitRequestWhereNewPartitionIsNotLeaf() throws IOException, StateStoreException {
+        // Given
+        Field field = new Field("key", new LongType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        StateStore dynamoDBStateStore = getStateStore(schema);
+        Partition parentPartition = dynamoDBStateStore.getAllPartitions().get(0);
+        parentPartition.setLeafPartition(false);
+        parentPartition.setChildPartitionIds(Arrays.asList("child1", "child2"));
+        Region region1 = new Region(new RangeFactory(schema).createRange(field, Long.MIN_VALUE, 0L));
+        Partition childPartition1 = Partition.builder()
+                .rowKeyTypes(new LongType())
+                .leafPartition(true)
+                .id("child1")
+                .region(region1)
+                .childPartitionIds(new ArrayList<>())
+                .parentPartitionId("parent")
+                .build();
+        Region region2 = new Region(new RangeFactory(schema).createRange(field, 0L, Long.MAX_VALUE));
+        Partition childPartition2 = Partition.builder()
+                .rowKeyTypes(new LongType())
+                .leafPartition(false) // Not leaf
+                .id("child2")
+                .region(region2)
+                .childPartitionIds(new ArrayList<>())
+                .parentPartitionId("parent")
+                .build();
+
+        // When / Then
+        assertThatThrownBy(() ->
+                dynamoDBStateStore.atomicallyUpdatePartitionAndCreateNewOnes(parentPartition, childPartition1, childPartition2))
+                .isInstanceOf(StateStoreException.class);
+    }
+
+    @Test
+    public void shouldInitialiseRootPartitionCorrectlyForIntKey() throws StateStoreException, IOException {
+        // Given
+        Field field = new Field("key", new IntType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        StateStore dynamoDBStateStore = getStateStore(schema);
+
+        // When
+        List<Partition> partitions = dynamoDBStateStore.getAllPartitions();
+
+        // Then
+        assertThat(partitions).hasSize(1);
+        Region expectedRegion = new Region(new RangeFactory(schema).createRange(field, Integer.MIN_VALUE, null));
+        Partition expectedPartition = Partition.builder()
+                .rowKeyTypes(schema.getRowKeyTypes())
+                .region(expectedRegion)
+                .id(partitions.get(0).getId())
+                .leafPartition(true)
+                .parentPartitionId(null)
+                .childPartitionIds(new ArrayList<>())
+                .dimension(-1)
+                .build();
+        assertThat(partitions).containsExactly(expectedPartition);
+    }
+
+    @Test
+    public void shouldInitialiseRootPartitionCorrectlyForLongKey() throws StateStoreException, IOException {
+        // Given
+        Field field = new Field("key", new LongType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        StateStore dynamoDBStateStore = getStateStore(schema);
+
+        // When
+        List<Partition> partitions = dynamoDBStateStore.getAllPartitions();
+
+        // Then
+        assertThat(partitions).hasSize(1);
+        Region expectedRegion = new Region(new RangeFactory(schema).createRange(field, Long.MIN_VALUE, null));
+        Partition expectedPartition = Partition.builder()
+                .rowKeyTypes(Collections.singletonList(new LongType()))
+                .region(expectedRegion)
+                .id(partitions.get(0).getId())
+                .leafPartition(true)
+                .parentPartitionId(null)
+                .childPartitionIds(new ArrayList<>())
+                .dimension(-1)
+                .build();
+        assertThat(partitions).containsExactly(expectedPartition);
+    }
+
+    @Test
+    public void shouldInitialiseRootPartitionCorrectlyForStringKey() throws StateStoreException, IOException {
+        // Given
+        Field field = new Field("key", new StringType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        StateStore dynamoDBStateStore = getStateStore(schema);
+
+        // When
+        List<Partition> partitions = dynamoDBStateStore.getAllPartitions();
+
+        // Then
+        assertThat(partitions).hasSize(1);
+        Region expectedRegion = new Region(new RangeFactory(schema).createRange(field, "", null));
+        Partition expectedPartition = Partition.builder()
+                .rowKeyTypes(Collections.singletonList(new StringType()))
+                .region(expectedRegion)
+                .id(partitions.get(0).getId())
+                .leafPartition(true)
+                .parentPartitionId(null)
+                .childPartitionIds(new ArrayList<>())
+                .dimension(-1)
+                .build();
+        assertThat(partitions).containsExactly(expectedPartition);
+    }
+
+    @Test
+    public void shouldInitialiseRootPartitionCorrectlyForByteArrayKey() throws StateStoreException, IOException {
+        // Given
+        Field field = new Field("key", new ByteArrayType());
+        Schema schema = Schema.builder().rowKeyFields(field).build();
+        StateStore dynamoDBStateStore = getStateStore(schema);
+
+        // When
+        List<Partition> partitions = dynamoDBStateStore.getAllPartitions();
+
+        // Then
+        assertThat(partitions).hasSize(1);
+        Region expectedRegion = new Region(new RangeFactory(schema).createRange(field, new byte[]{}, null));
+        Partition expectedPartition = Partition.builder()
+                .rowKeyTypes(Collections.singletonList(new ByteArrayType()))
+                .region(expectedRegion)
+                .id(partitions.get(0).getId())
+                .leafPartition(true)
+                .parentPartitionId(null)
+                .childPartitionIds(new ArrayList<>())
+                .dimension(-1)
+                .build();
+        assertThat(partitions).containsExactly(expectedPartition);
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.trino;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.trino.spi.Page;
+import io.trino.spi.PageBuilder;
+import io.trino.spi.block.Block;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.type.Type;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.io.InputFile;
+
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.query.model.LeafPartitionQuery;
+import sleeper.query.utils.RangeQueryUtils;
+import sleeper.trino.handle.SleeperColumnHandle;
+import sleeper.trino.utils.SleeperParquetPageReader;
+import sleeper.trino.utils.SleeperRowKeyPageFilter;
+import sleeper.trino.utils.SleeperTypeConversionUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A page source which reads a {@link sleeper.trino.handle.SleeperSplit} column by column, straight from the Parquet
+ * data files into Trino blocks. This can only be used when no Sleeper iterator needs to be applied to the records.
+ * <p>
+ * Each data file is read by a {@link SleeperParquetPageReader}, which skips row groups and pages using the row key
+ * ranges of the split and the filter on the other columns. Rows outside the row key ranges of the split are then
+ * removed, as Trino relies on the connector to apply those ranges. The filter on the other columns is not applied to
+ * individual rows, as Trino applies it itself.
+ * <p>
+ * The rows of the data files are merged by row key and sort key, so that the rows are returned in the same order as
+ * by a Sleeper query. The values are copied from the blocks of the data files into the output page, without creating
+ * a record for each row. When there is only one data file, or no columns are returned, the pages are returned without
+ * being copied.
+ * <p>
+ * The completed bytes reported by this page source are the bytes read from the data files, and the read time is the
+ * time spent opening the files and decoding pages from them.
+ */
+public class SleeperColumnarPageSource implements ConnectorPageSource {
+    private static final Logger LOGGER = Logger.get(SleeperColumnarPageSource.class);
+    private static final int MAX_ROWS_PER_FILE_PAGE = 8192;
+
+    private final String queryId;
+    private final List<InputFile> inputFiles;
+    private final List<String> readColumnNames;
+    private final List<Type> readColumnTypes;
+    private final int keyColumnCount;
+    private final int[] outputChannels;
+    private final SleeperRowKeyPageFilter rowKeyFilter;
+    private final FilterPredicate filter;
+    private final LongAdder bytesRead;
+    private final PageBuilder pageBuilder;
+    private final List<FileCursor> cursors = new ArrayList<>();
+    private final PriorityQueue<FileCursor> mergeQueue = new PriorityQueue<>(this::compareKeys);
+
+    private boolean opened = false;
+    private int unmergedCursorIndex = 0;
+    private boolean finished = false;
+    private long completedPositions = 0L;
+    private long readTimeNanos = 0L;
+
+    /**
+     * Construct a page source which reads the data files of a split.
+     *
+     * @param sleeperSchema                     The Sleeper schema of the table.
+     * @param leafPartitionQuery                The leaf partition query held in the split.
+     * @param outputSleeperColumnHandlesInOrder The columns to return, in the order that they are to appear in each page.
+     * @param inputFiles                        The data files to read, one for each file in the leaf partition query.
+     * @param valueFilter                       The filter on the non-rowkey columns to skip data with, or null if there
+     *                                          is none.
+     * @param bytesRead                         The counter which the input files add the bytes they read to.
+     */
+    public SleeperColumnarPageSource(Schema sleeperSchema,
+                                     LeafPartitionQuery leafPartitionQuery,
+                                     List<SleeperColumnHandle> outputSleeperColumnHandlesInOrder,
+                                     List<InputFile> inputFiles,
+                                     FilterPredicate valueFilter,
+                                     LongAdder bytesRead) {
+        this.queryId = leafPartitionQuery.getQueryId();
+        this.inputFiles = ImmutableList.copyOf(inputFiles);
+        this.bytesRead = requireNonNull(bytesRead);
+
+        // The row key and sort key columns are always read first, as they are needed to filter and merge the rows
+        List<Field> keyFields = Stream.concat(sleeperSchema.getRowKeyFields().stream(), sleeperSchema.getSortKeyFields().stream())
+                .collect(ImmutableList.toImmutableList());
+        List<String> columnNames = new ArrayList<>();
+        List<Type> columnTypes = new ArrayList<>();
+        for (Field keyField : keyFields) {
+            columnNames.add(keyField.getName());
+            columnTypes.add(SleeperTypeConversionUtils.convertSleeperTypeToTrinoType(keyField.getType()));
+        }
+        this.keyColumnCount = keyFields.size();
+        this.outputChannels = new int[outputSleeperColumnHandlesInOrder.size()];
+        for (int i = 0; i < outputChannels.length; i++) {
+            SleeperColumnHandle columnHandle = outputSleeperColumnHandlesInOrder.get(i);
+            int channel = columnNames.indexOf(columnHandle.getColumnName());
+            if (channel < 0) {
+                channel = columnNames.size();
+                columnNames.add(columnHandle.getColumnName());
+                columnTypes.add(columnHandle.getColumnTrinoType());
+            }
+            outputChannels[i] = channel;
+        }
+        this.readColumnNames = ImmutableList.copyOf(columnNames);
+        this.readColumnTypes = ImmutableList.copyOf(columnTypes);
+
+        List<Field> rowKeyFields = sleeperSchema.getRowKeyFields();
+        this.rowKeyFilter = new SleeperRowKeyPageFilter(rowKeyFields, readColumnTypes.subList(0, rowKeyFields.size()),
+                leafPartitionQuery.getRegions(), leafPartitionQuery.getPartitionRegion());
+        FilterPredicate rowKeyPredicate = RangeQueryUtils.getFilterPredicateMultidimensionalKey(
+                rowKeyFields, leafPartitionQuery.getRegions(), leafPartitionQuery.getPartitionRegion());
+        this.filter = null == valueFilter ? rowKeyPredicate : FilterApi.and(rowKeyPredicate, valueFilter);
+        this.pageBuilder = new PageBuilder(outputSleeperColumnHandlesInOrder.stream()
+                .map(SleeperColumnHandle::getColumnTrinoType)
+                .collect(ImmutableList.toImmutableList()));
+    }
+
+    @Override
+    public long getCompletedBytes() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public OptionalLong getCompletedPositions() {
+        return OptionalLong.of(completedPositions);
+    }
+
+    @Override
+    public long getReadTimeNanos() {
+        return readTimeNanos;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Read the next page of rows from the data files. Trino calls this method repeatedly until {@link #isFinished()}
+     * returns true.
+     *
+     * @return The next page, or null if there are no more rows.
+     */
+    @Override
+    public Page getNextPage() {
+        if (finished) {
+            return null;
+        }
+        try {
+            if (!opened) {
+                open();
+            }
+            Page page = isMergeNeeded() ? nextMergedPage() : nextUnmergedPage();
+            if (null == page) {
+                return null;
+            }
+            if (completedPositions == 0) {
+                LOGGER.debug("Returning first page of columnar page source %s", queryId);
+            }
+            completedPositions += page.getPositionCount();
+            return page;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long getMemoryUsage() {
+        long memoryUsage = pageBuilder.getRetainedSizeInBytes();
+        for (FileCursor cursor : cursors) {
+            memoryUsage += cursor.getRetainedSizeInBytes();
+        }
+        return memoryUsage;
+    }
+
+    @Override
+    public void close() {
+        IOException failure = null;
+        for (FileCursor cursor : cursors) {
+            try {
+                cursor.close();
+            } catch (IOException e) {
+                if (null == failure) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        LOGGER.debug("Columnar page source for query %s returned %d rows from %d bytes",
+                queryId, completedPositions, bytesRead.sum());
+        if (null != failure) {
+            throw new UncheckedIOException(failure);
+        }
+    }
+
+    private void open() throws IOException {
+        opened = true;
+        for (InputFile inputFile : inputFiles) {
+            long startTime = System.nanoTime();
+            SleeperParquetPageReader reader = new SleeperParquetPageReader(
+                    inputFile, readColumnNames, readColumnTypes, filter, MAX_ROWS_PER_FILE_PAGE);
+            readTimeNanos += System.nanoTime() - startTime;
+            FileCursor cursor = new FileCursor(reader);
+            cursors.add(cursor);
+            if (cursor.loadNextPage() && isMergeNeeded()) {
+                mergeQueue.add(cursor);
+            }
+        }
+    }
+
+    private boolean isMergeNeeded() {
+        return inputFiles.size() > 1 && outputChannels.length > 0;
+    }
+
+    /**
+     * Return the remaining rows of the current page of the next file which has any rows left. This is used when the
+     * rows do not need to be merged, so that no values need to be copied.
+     *
+     * @return The page, or null if there are no more rows
+     * @throws IOException If a data file could not be read
+     */
+    private Page nextUnmergedPage() throws IOException {
+        while (unmergedCursorIndex < cursors.size()) {
+            FileCursor cursor = cursors.get(unmergedCursorIndex);
+            if (cursor.hasRows()) {
+                Page page = cursor.takeRemainingRows().getColumns(outputChannels);
+                cursor.loadNextPage();
+                return page;
+            }
+            unmergedCursorIndex++;
+        }
+        finished = true;
+        return null;
+    }
+
+    /**
+     * Fill a page by merging the rows of the data files in order of their keys. A run of rows is copied from one file
+     * for as long as its keys are no greater than the smallest keys left in the other files.
+     *
+     * @return The page, or null if there are no more rows
+     * @throws IOException If a data file could not be read
+     */
+    private Page nextMergedPage() throws IOException {
+        pageBuilder.reset();
+        while (!pageBuilder.isFull() && !mergeQueue.isEmpty()) {
+            FileCursor cursor = mergeQueue.poll();
+            FileCursor next = mergeQueue.peek();
+            boolean hasRows;
+            do {
+                cursor.appendRowTo(pageBuilder);
+                hasRows = cursor.advance();
+            } while (hasRows && !pageBuilder.isFull() && (null == next || compareKeys(cursor, next) <= 0));
+            if (hasRows) {
+                mergeQueue.add(cursor);
+            }
+        }
+        if (mergeQueue.isEmpty()) {
+            finished = true;
+        }
+        if (pageBuilder.isEmpty()) {
+            return null;
+        }
+        return pageBuilder.build();
+    }
+
+    private int compareKeys(FileCursor left, FileCursor right) {
+        for (int channel = 0; channel < keyColumnCount; channel++) {
+            Type type = readColumnTypes.get(channel);
+            Block leftBlock = left.page.getBlock(channel);
+            Block rightBlock = right.page.getBlock(channel);
+            int comparison;
+            if (type.getJavaType() == long.class) {
+                comparison = Long.compare(type.getLong(leftBlock, left.position), type.getLong(rightBlock, right.position));
+            } else {
+                comparison = leftBlock.compareTo(
+                        left.position, 0, leftBlock.getSliceLength(left.position),
+                        rightBlock, right.position, 0, rightBlock.getSliceLength(right.position));
+            }
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The position of the next row to return from a data file.
+     */
+    private class FileCursor {
+        private final SleeperParquetPageReader reader;
+        private Page page;
+        private int position;
+
+        FileCursor(SleeperParquetPageReader reader) {
+            this.reader = reader;
+        }
+
+        boolean loadNextPage() throws IOException {
+            while (true) {
+                long startTime = System.nanoTime();
+                Page nextPage = reader.nextPage();
+                readTimeNanos += System.nanoTime() - startTime;
+                if (null == nextPage) {
+                    page = null;
+                    return false;
+                }
+                nextPage = rowKeyFilter.filter(nextPage);
+                if (nextPage.getPositionCount() > 0) {
+                    page = nextPage;
+                    position = 0;
+                    return true;
+                }
+            }
+        }
+
+        boolean hasRows() {
+            return null != page && position < page.getPositionCount();
+        }
+
+        boolean advance() throws IOException {
+            position++;
+            if (position < page.getPositionCount()) {
+                return true;
+            }
+            return loadNextPage();
+        }
+
+        Page takeRemainingRows() {
+            Page remaining = position == 0 ? page : page.getRegion(position, page.getPositionCount() - position);
+            position = page.getPositionCount();
+            return remaining;
+        }
+
+        void appendRowTo(PageBuilder builder) {
+            builder.declarePosition();
+            for (int i = 0; i < outputChannels.length; i++) {
+                int channel = outputChannels[i];
+                readColumnTypes.get(channel).appendTo(page.getBlock(channel), position, builder.getBlockBuilder(i));
+            }
+        }
+
+        long getRetainedSizeInBytes() {
+            return null == page ? 0 : page.getRetainedSizeInBytes();
+        }
+
+        void close() throws IOException {
+            reader.close();
+        }
+    }
+}
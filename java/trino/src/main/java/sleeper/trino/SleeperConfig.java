@@ -25,6 +25,7 @@ import javax.validation.constraints.NotNull;
 public class SleeperConfig {
     private String configBucket = "";
     private int maxSplitBatchSize = 1024;
+    private long targetBytesPerSplit = 256 * 1024 * 1024L;
     private boolean enableTrinoPartitioning = true;
     private long maxArrowRootAllocatorBytes = 1024 * 1024 * 1024L;
     private long maxBytesToWriteLocallyPerWriter = 2 * 1024 * 1024 * 1024L;
@@ -75,6 +76,26 @@ public class SleeperConfig {
         return this;
     }
 
+    /**
+     * The target number of bytes for each split to read. When the row groups in a leaf partition that overlap a query
+     * are larger than this in total, the partition is divided into several splits over sub-ranges of its row keys, so
+     * that the partition can be scanned by several drivers in parallel. The sizes are taken from the compressed sizes
+     * of the Parquet row groups, and so this is a guide value only. Set this to zero to create a single split for each
+     * leaf partition.
+     *
+     * @return The target number of bytes for each split.
+     */
+    @NotNull
+    public long getTargetBytesPerSplit() {
+        return targetBytesPerSplit;
+    }
+
+    @Config("sleeper.target-bytes-per-split")
+    public SleeperConfig setTargetBytesPerSplit(long targetBytesPerSplit) {
+        this.targetBytesPerSplit = targetBytesPerSplit;
+        return this;
+    }
+
     /**
      * Indicate whether Trino should implement write-partitioning when data is written to Sleeper. Write-portitioning
      * sends all of the rows for a particular Sleeper partition to just one Trino worker and so only one worker node
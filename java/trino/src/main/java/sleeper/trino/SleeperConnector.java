@@ -21,7 +21,7 @@ import io.trino.spi.connector.ConnectorCapabilities;
 import io.trino.spi.connector.ConnectorMetadata;
 import io.trino.spi.connector.ConnectorNodePartitioningProvider;
 import io.trino.spi.connector.ConnectorPageSinkProvider;
-import io.trino.spi.connector.ConnectorRecordSetProvider;
+import io.trino.spi.connector.ConnectorPageSourceProvider;
 import io.trino.spi.connector.ConnectorSplitManager;
 import io.trino.spi.connector.ConnectorTransactionHandle;
 import io.trino.spi.connector.SystemTable;
@@ -47,19 +47,19 @@ public class SleeperConnector implements Connector {
     private final SleeperConnectionAsTrino sleeperConnectionAsTrino;
     private final SleeperMetadata sleeperMetadata;
     private final SleeperSplitManager sleeperSplitManager;
-    private final SleeperRecordSetProvider sleeperRecordSetProvider;
+    private final SleeperPageSourceProvider sleeperPageSourceProvider;
     private final SleeperPageSinkProvider sleeperPageSinkProvider;
 
     @Inject
     public SleeperConnector(SleeperConnectionAsTrino sleeperConnectionAsTrino,
                             SleeperMetadata sleeperMetadata,
                             SleeperSplitManager sleeperSplitManager,
-                            SleeperRecordSetProvider sleeperRecordSetProvider,
+                            SleeperPageSourceProvider sleeperPageSourceProvider,
                             SleeperPageSinkProvider sleeperPageSinkProvider) {
         this.sleeperConnectionAsTrino = requireNonNull(sleeperConnectionAsTrino);
         this.sleeperMetadata = requireNonNull(sleeperMetadata);
         this.sleeperSplitManager = requireNonNull(sleeperSplitManager);
-        this.sleeperRecordSetProvider = requireNonNull(sleeperRecordSetProvider);
+        this.sleeperPageSourceProvider = requireNonNull(sleeperPageSourceProvider);
         this.sleeperPageSinkProvider = requireNonNull(sleeperPageSinkProvider);
     }
 
@@ -104,14 +104,14 @@ public class SleeperConnector implements Connector {
     }
 
     /**
-     * Provides a {@link SleeperRecordSetProvider} which can be used to create {@link SleeperRecordSet} objects, which
-     * in turn can be used to read data from Sleeper.
+     * Provides a {@link SleeperPageSourceProvider} which can be used to create {@link SleeperColumnarPageSource} and
+     * {@link SleeperPageSource} objects, which in turn can be used to read data from Sleeper.
      *
-     * @return The {@link SleeperRecordSetProvider} to use to read the records.
+     * @return The {@link SleeperPageSourceProvider} to use to read the records.
      */
     @Override
-    public ConnectorRecordSetProvider getRecordSetProvider() {
-        return sleeperRecordSetProvider;
+    public ConnectorPageSourceProvider getPageSourceProvider() {
+        return sleeperPageSourceProvider;
     }
 
     /**
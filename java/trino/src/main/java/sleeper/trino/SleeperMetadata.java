@@ -251,8 +251,12 @@ public class SleeperMetadata implements ConnectorMetadata {
      * down the supplied constraint then it returns a {@link ConstraintApplicationResult} object specifying the new,
      * filtered, table handle and which parts of the constraint have not been pushed down.
      * <p>
-     * This implementation only considers the {@link TupleDomain} part of any {@link Constraint}. The only filters that
-     * are pushed down are those which apply to row keys.
+     * This implementation only considers the {@link TupleDomain} part of any {@link Constraint}. Filters on every
+     * column are pushed down. Filters on the row keys are converted into the Sleeper regions to scan, and so they are
+     * fully applied by this connector. Filters on sort-key and value columns are converted into Parquet filters, which
+     * are used to skip row groups and pages when the files are read. These filters are not applied when the table
+     * or query has an iterator, and so they are also returned as part of the remaining constraint, for Trino to apply
+     * to each row.
      *
      * @param session              The current session. This makes no difference at present.
      * @param connectorTableHandle The table to apply the filter to.
@@ -279,16 +283,11 @@ public class SleeperMetadata implements ConnectorMetadata {
         }
         Map<ColumnHandle, Domain> additionalConstraintColumnHandleToDomainMap =
                 additionalConstraintColumnHandleToDomainMapOpt.get();
-
-        Map<ColumnHandle, Domain> rowKeyConstraintsColumnHandleToDomainMap =
-                additionalConstraintColumnHandleToDomainMap.entrySet().stream()
-                        .filter(entry -> rowKeyColumnHandlesSet.contains((SleeperColumnHandle) entry.getKey()))
-                        .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue));
-        if (rowKeyConstraintsColumnHandleToDomainMap.isEmpty()) {
-            LOGGER.debug("No row key domains were provided in the constraint");
+        if (additionalConstraintColumnHandleToDomainMap.isEmpty()) {
+            LOGGER.debug("No column domains were provided in the constraint");
             return Optional.empty();
         }
-        TupleDomain<ColumnHandle> rowKeyConstraintsTupleDomain = TupleDomain.withColumnDomains(rowKeyConstraintsColumnHandleToDomainMap);
+        TupleDomain<ColumnHandle> additionalConstraintsTupleDomain = TupleDomain.withColumnDomains(additionalConstraintColumnHandleToDomainMap);
 
         Map<ColumnHandle, Domain> remainingConstraintsColumnHandleToDomainMap =
                 additionalConstraintColumnHandleToDomainMap.entrySet().stream()
@@ -297,15 +296,15 @@ public class SleeperMetadata implements ConnectorMetadata {
         TupleDomain<ColumnHandle> remainingConstraintsTupleDomain = TupleDomain.withColumnDomains(remainingConstraintsColumnHandleToDomainMap);
 
         TupleDomain<ColumnHandle> originalTableTupleDomain = sleeperTableHandle.getTupleDomain();
-        TupleDomain<ColumnHandle> rowKeyConstrainedTableTupleDomain = originalTableTupleDomain.intersect(rowKeyConstraintsTupleDomain);
-        if (originalTableTupleDomain.equals(rowKeyConstrainedTableTupleDomain)) {
-            LOGGER.debug("New row key domains did not change the overall tuple domain");
+        TupleDomain<ColumnHandle> constrainedTableTupleDomain = originalTableTupleDomain.intersect(additionalConstraintsTupleDomain);
+        if (originalTableTupleDomain.equals(constrainedTableTupleDomain)) {
+            LOGGER.debug("New domains did not change the overall tuple domain");
             return Optional.empty();
         }
 
-        LOGGER.debug("New domain is %s", rowKeyConstrainedTableTupleDomain);
+        LOGGER.debug("New domain is %s", constrainedTableTupleDomain);
         LOGGER.debug("Remaining domain is %s", remainingConstraintsTupleDomain);
-        return Optional.of(new ConstraintApplicationResult<>(sleeperTableHandle.withTupleDomain(rowKeyConstrainedTableTupleDomain),
+        return Optional.of(new ConstraintApplicationResult<>(sleeperTableHandle.withTupleDomain(constrainedTableTupleDomain),
                 remainingConstraintsTupleDomain,
                 false));
     }
@@ -47,7 +47,7 @@ public class SleeperModule implements Module {
         binder.bind(SleeperConnector.class).in(Scopes.SINGLETON);
         binder.bind(SleeperMetadata.class).in(Scopes.SINGLETON);
         binder.bind(SleeperSplitManager.class).in(Scopes.SINGLETON);
-        binder.bind(SleeperRecordSetProvider.class).in(Scopes.SINGLETON);
+        binder.bind(SleeperPageSourceProvider.class).in(Scopes.SINGLETON);
         binder.bind(SleeperPageSinkProvider.class).in(Scopes.SINGLETON);
         binder.bind(SleeperConnectionAsTrino.class).in(Scopes.SINGLETON);
 
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.trino;
+
+import io.airlift.log.Logger;
+import io.airlift.slice.Slices;
+import io.trino.spi.Page;
+import io.trino.spi.PageBuilder;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.type.ArrayType;
+import io.trino.spi.type.Type;
+
+import sleeper.core.record.Record;
+import sleeper.trino.handle.SleeperColumnHandle;
+import sleeper.trino.utils.SleeperPageBlockUtils;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.IntegerType.INTEGER;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A page source which reads the results of a scan of a {@link sleeper.trino.handle.SleeperSplit} and returns them as
+ * Trino pages. The results are merged by row key and have the Sleeper iterators applied before they reach this class.
+ * The values are written into the pages column by column, with a block builder for each column, which avoids creating
+ * an intermediate row object for each record.
+ * <p>
+ * This page source is used when a Sleeper iterator must be applied to the records. Otherwise, a
+ * {@link SleeperColumnarPageSource} reads the data files column by column.
+ * <p>
+ * The completed bytes reported by this page source are the bytes read from the data files by the underlying scan, and
+ * the read time is the time spent waiting for records from the scan.
+ */
+public class SleeperPageSource implements ConnectorPageSource {
+    private static final Logger LOGGER = Logger.get(SleeperPageSource.class);
+
+    private final String queryId;
+    private final List<String> columnNamesInOrder;
+    private final List<Type> columnTrinoTypesInOrder;
+    private final Stream<Record> resultRecordStream;
+    private final Iterator<Record> resultRecordIterator;
+    private final PageBuilder pageBuilder;
+    private final LongAdder bytesRead;
+
+    private boolean finished = false;
+    private long completedPositions = 0L;
+    private long readTimeNanos = 0L;
+
+    /**
+     * Construct a page source which returns the records from a stream.
+     *
+     * @param queryId                           The query ID, which is used to tag debug messages.
+     * @param outputSleeperColumnHandlesInOrder The columns to return, in the order that they are to appear in each page.
+     * @param resultRecordStream                The stream of records for this page source to return.
+     * @param bytesRead                         The counter which the scan adds the bytes it reads from the data files
+     *                                          to.
+     */
+    public SleeperPageSource(String queryId,
+                             List<SleeperColumnHandle> outputSleeperColumnHandlesInOrder,
+                             Stream<Record> resultRecordStream,
+                             LongAdder bytesRead) {
+        this.queryId = requireNonNull(queryId);
+        this.columnNamesInOrder = outputSleeperColumnHandlesInOrder.stream()
+                .map(SleeperColumnHandle::getColumnName)
+                .collect(toImmutableList());
+        this.columnTrinoTypesInOrder = outputSleeperColumnHandlesInOrder.stream()
+                .map(SleeperColumnHandle::getColumnTrinoType)
+                .collect(toImmutableList());
+        this.resultRecordStream = requireNonNull(resultRecordStream);
+        this.resultRecordIterator = resultRecordStream.iterator();
+        this.pageBuilder = new PageBuilder(columnTrinoTypesInOrder);
+        this.bytesRead = requireNonNull(bytesRead);
+    }
+
+    @Override
+    public long getCompletedBytes() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public OptionalLong getCompletedPositions() {
+        return OptionalLong.of(completedPositions);
+    }
+
+    @Override
+    public long getReadTimeNanos() {
+        return readTimeNanos;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Fill a page with records from the scan. Trino calls this method repeatedly until {@link #isFinished()} returns
+     * true.
+     *
+     * @return The next page, or null if there are no more records.
+     */
+    @Override
+    public Page getNextPage() {
+        if (finished) {
+            return null;
+        }
+        pageBuilder.reset();
+        while (!pageBuilder.isFull()) {
+            long startTime = System.nanoTime();
+            boolean hasNext = resultRecordIterator.hasNext();
+            Record record = hasNext ? resultRecordIterator.next() : null;
+            readTimeNanos += System.nanoTime() - startTime;
+            if (!hasNext) {
+                finished = true;
+                break;
+            }
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < columnNamesInOrder.size(); channel++) {
+                writeValue(pageBuilder.getBlockBuilder(channel), columnTrinoTypesInOrder.get(channel),
+                        record.get(columnNamesInOrder.get(channel)));
+            }
+        }
+        if (pageBuilder.isEmpty()) {
+            return null;
+        }
+        Page page = pageBuilder.build();
+        if (completedPositions == 0) {
+            LOGGER.debug("Returning first page of page source %s", queryId);
+        }
+        completedPositions += page.getPositionCount();
+        return page;
+    }
+
+    @Override
+    public long getMemoryUsage() {
+        return pageBuilder.getRetainedSizeInBytes();
+    }
+
+    @Override
+    public void close() {
+        resultRecordStream.close();
+        LOGGER.debug("Page source for query %s returned %d rows", queryId, completedPositions);
+    }
+
+    private static void writeValue(BlockBuilder blockBuilder, Type type, Object value) {
+        if (value == null) {
+            blockBuilder.appendNull();
+        } else if (type.equals(BIGINT)) {
+            BIGINT.writeLong(blockBuilder, (Long) value);
+        } else if (type.equals(INTEGER)) {
+            INTEGER.writeLong(blockBuilder, (Integer) value);
+        } else if (type.equals(VARCHAR)) {
+            VARCHAR.writeSlice(blockBuilder, Slices.utf8Slice((String) value));
+        } else if (type instanceof ArrayType) {
+            Type elementType = ((ArrayType) type).getElementType();
+            BlockBuilder elementBuilder = blockBuilder.beginBlockEntry();
+            ((List<?>) value).forEach(element -> SleeperPageBlockUtils.writeElementToBuilder(elementBuilder, elementType, element));
+            blockBuilder.closeEntry();
+        } else {
+            throw new UnsupportedOperationException(String.format("Columns of type %s are not supported", type));
+        }
+    }
+}
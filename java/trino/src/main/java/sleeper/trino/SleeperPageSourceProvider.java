@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.trino;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.connector.ConnectorPageSourceProvider;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.connector.ConnectorSplit;
+import io.trino.spi.connector.ConnectorTableHandle;
+import io.trino.spi.connector.ConnectorTransactionHandle;
+import io.trino.spi.connector.DynamicFilter;
+import io.trino.spi.predicate.TupleDomain;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+
+import sleeper.trino.handle.SleeperColumnHandle;
+import sleeper.trino.handle.SleeperSplit;
+import sleeper.trino.handle.SleeperTableHandle;
+import sleeper.trino.handle.SleeperTransactionHandle;
+import sleeper.trino.remotesleeperconnection.SleeperConnectionAsTrino;
+import sleeper.trino.utils.SleeperFilterTranslator;
+
+import javax.inject.Inject;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Provides a page source which will scan an entire {@link SleeperSplit} and return the records in that split as pages.
+ * A {@link SleeperColumnarPageSource} reads the data files column by column where possible. A {@link SleeperPageSource}
+ * is used when a Sleeper iterator must be applied to the records, as iterators work on whole records.
+ */
+public class SleeperPageSourceProvider implements ConnectorPageSourceProvider {
+    private final SleeperConnectionAsTrino sleeperConnectionAsTrino;
+
+    @Inject
+    public SleeperPageSourceProvider(SleeperConnectionAsTrino sleeperConnectionAsTrino) {
+        this.sleeperConnectionAsTrino = requireNonNull(sleeperConnectionAsTrino);
+    }
+
+    /**
+     * Provide a page source according to the supplied parameters.
+     *
+     * @param transactionHandle The transaction that the page source is to run under.
+     * @param session           The session that the page source is to run under.
+     * @param split             The split that the page source is to read. The split contains the details of the Sleeper
+     *                          partition, and the rowkey ranges within that partition, that are to be read.
+     * @param tableHandle       The table that the page source is to read. The rowkey ranges are retrieved from the
+     *                          split, and the domains on the other columns in the tupledomain returned by
+     *                          {@link SleeperTableHandle#getTupleDomain()} are used to filter the data files.
+     * @param columns           The column handles to be returned by the page source, in order.
+     * @param dynamicFilter     The dynamic filter, whose current domains on non-rowkey columns are also used to filter
+     *                          the data files.
+     * @return The page source which corresponds to the supplied parameters.
+     */
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorTransactionHandle transactionHandle,
+                                                ConnectorSession session,
+                                                ConnectorSplit split,
+                                                ConnectorTableHandle tableHandle,
+                                                List<ColumnHandle> columns,
+                                                DynamicFilter dynamicFilter) {
+        List<SleeperColumnHandle> sleeperColumnHandles = columns.stream()
+                .map(SleeperColumnHandle.class::cast)
+                .collect(ImmutableList.toImmutableList());
+        SleeperSplit sleeperSplit = (SleeperSplit) split;
+        // Only filter on the columns which are being read, as the Parquet reader cannot filter on a column that it is
+        // not reading. Trino always reads a column that it needs to filter on, as it applies the filter itself too.
+        Set<SleeperColumnHandle> columnsToFilter = sleeperColumnHandles.stream()
+                .filter(columnHandle -> columnHandle.getColumnCategory() != SleeperColumnHandle.SleeperColumnCategory.ROWKEY)
+                .collect(ImmutableSet.toImmutableSet());
+        TupleDomain<ColumnHandle> tupleDomain = ((SleeperTableHandle) tableHandle).getTupleDomain()
+                .intersect(dynamicFilter.getCurrentPredicate());
+        FilterPredicate valueFilter = SleeperFilterTranslator.toPredicate(tupleDomain, columnsToFilter);
+        LongAdder bytesRead = new LongAdder();
+        if (sleeperConnectionAsTrino.isColumnarReadSupported(sleeperSplit)) {
+            return new SleeperColumnarPageSource(
+                    sleeperSplit.getSleeperSchema(),
+                    sleeperSplit.getLeafPartitionQuery(),
+                    sleeperColumnHandles,
+                    sleeperConnectionAsTrino.createSplitDataFileInputs(sleeperSplit, bytesRead),
+                    valueFilter,
+                    bytesRead);
+        }
+        return new SleeperPageSource(
+                sleeperSplit.getLeafPartitionQuery().getQueryId(),
+                sleeperColumnHandles,
+                sleeperConnectionAsTrino.streamEntireSplitResultRecords(
+                        (SleeperTransactionHandle) transactionHandle,
+                        sleeperSplit,
+                        sleeperColumnHandles,
+                        valueFilter,
+                        bytesRead),
+                bytesRead);
+    }
+}
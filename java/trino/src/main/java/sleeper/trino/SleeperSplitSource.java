@@ -23,7 +23,7 @@ import io.trino.spi.connector.ConnectorSplit;
 import io.trino.spi.connector.ConnectorSplitSource;
 import io.trino.spi.connector.DynamicFilter;
 import io.trino.spi.predicate.Domain;
-import io.trino.spi.predicate.Ranges;
+import io.trino.spi.predicate.Range;
 import io.trino.spi.predicate.TupleDomain;
 
 import sleeper.trino.handle.SleeperColumnHandle;
@@ -35,10 +35,10 @@ import sleeper.trino.remotesleeperconnection.SleeperConnectionAsTrino;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import static io.trino.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
@@ -56,6 +56,11 @@ import static java.util.Objects.requireNonNull;
  */
 public class SleeperSplitSource implements ConnectorSplitSource {
     private static final Logger LOGGER = Logger.get(SleeperSplitSource.class);
+    /**
+     * The maximum number of Sleeper regions to create for a single scan. Each combination of one range from each
+     * rowkey column becomes a region, and so the number of regions can grow very quickly with several rowkey columns.
+     */
+    static final int MAX_REGIONS_PER_SCAN = 10_000;
 
     private final SleeperConnectionAsTrino sleeperConnectionAsTrino;
     private final SleeperTransactionHandle sleeperTransactionHandle;
@@ -95,13 +100,18 @@ public class SleeperSplitSource implements ConnectorSplitSource {
         // Combine the tuple domain from the table handle and the additional tuple domain
         TupleDomain<ColumnHandle> combinedTupleDomain =
                 sleeperTableHandle.getTupleDomain().intersect(additionalTupleDomain);
-        // Check that the combined tupledomain is legitimate and extract the ranges for the rowkey column
-        Ranges ranges = verifyAndExtractRowKeyRanges(sleeperTableHandle, combinedTupleDomain);
+        if (combinedTupleDomain.isNone()) {
+            LOGGER.debug("The filters on table %s cannot match any rows", sleeperTableHandle.getSchemaTableName());
+            return ImmutableList.of();
+        }
+        // Check that the combined tupledomain is legitimate and extract the ranges for each rowkey column
+        List<List<Range>> rowKeyRangesInOrder = extractBoundedRowKeyRanges(
+                sleeperTableHandle, combinedTupleDomain, additionalTupleDomain);
         // Convert the ranges into a stream of splits and return it
         return sleeperConnectionAsTrino.generateSleeperSplits(
                 sleeperTransactionHandle,
                 sleeperTableHandle,
-                ranges.getOrderedRanges());
+                rowKeyRangesInOrder);
     }
 
     /**
@@ -123,48 +133,95 @@ public class SleeperSplitSource implements ConnectorSplitSource {
     }
 
     /**
-     * Perform some verification checks on the {@link SleeperTableHandle} and the {@link TupleDomain} to ensure that:
-     * <ul>
-     *     <li>The table has just one rowkey column</li>
-     *     <li>The tupledomain applies a filter to the rowkey column</li>
-     *     <li>The tupledomain does not try to filter on any other columns</li>
-     * </ul>
-     * Exceptions are thrown if any of these conditions are not met.
+     * Extract the ranges for each rowkey column, making sure that they do not combine into more than
+     * {@link #MAX_REGIONS_PER_SCAN} Sleeper regions.
+     * <p>
+     * If there are too many regions, the additional tuple domain is simplified to a single range on each column and
+     * the ranges are extracted again. This is safe because the additional tuple domain comes from the dynamic filter,
+     * which Trino still applies to the rows that are returned. The tuple domain on the table handle is enforced by this
+     * connector and so it cannot be simplified: if it has too many regions on its own, an exception is thrown.
+     *
+     * @param sleeperTableHandle    The Sleeper table handle
+     * @param combinedTupleDomain   The tuple domain on the table handle, intersected with the additional tuple domain
+     * @param additionalTupleDomain The additional tuple domain from the dynamic filter
+     * @return The ranges for each rowkey column, in the same order as the rowkey columns
+     */
+    static List<List<Range>> extractBoundedRowKeyRanges(SleeperTableHandle sleeperTableHandle,
+                                                        TupleDomain<ColumnHandle> combinedTupleDomain,
+                                                        TupleDomain<ColumnHandle> additionalTupleDomain) {
+        List<List<Range>> rowKeyRangesInOrder = verifyAndExtractRowKeyRanges(sleeperTableHandle, combinedTupleDomain);
+        if (countRegions(rowKeyRangesInOrder) <= MAX_REGIONS_PER_SCAN) {
+            return rowKeyRangesInOrder;
+        }
+        LOGGER.debug("Simplifying the dynamic filter on table %s as it produces more than %d regions",
+                sleeperTableHandle.getSchemaTableName(), MAX_REGIONS_PER_SCAN);
+        rowKeyRangesInOrder = verifyAndExtractRowKeyRanges(sleeperTableHandle,
+                sleeperTableHandle.getTupleDomain().intersect(additionalTupleDomain.simplify(1)));
+        long noOfRegions = countRegions(rowKeyRangesInOrder);
+        if (noOfRegions > MAX_REGIONS_PER_SCAN) {
+            throw new UnsupportedOperationException(
+                    String.format("The filters on the rowkey columns of Sleeper table %s.%s produce %d regions, " +
+                                    "which is more than the maximum of %d",
+                            sleeperTableHandle.getSchemaTableName().getSchemaName(),
+                            sleeperTableHandle.getSchemaTableName().getTableName(),
+                            noOfRegions, MAX_REGIONS_PER_SCAN));
+        }
+        return rowKeyRangesInOrder;
+    }
+
+    /**
+     * Count the number of Sleeper regions that will be created from the ranges for each rowkey column. This is the
+     * size of the cartesian product of the ranges, capped to avoid overflow.
+     *
+     * @param rowKeyRangesInOrder The ranges for each rowkey column
+     * @return The number of regions, or {@link Long#MAX_VALUE} if there are too many to count
+     */
+    private static long countRegions(List<List<Range>> rowKeyRangesInOrder) {
+        long noOfRegions = 1;
+        for (List<Range> ranges : rowKeyRangesInOrder) {
+            if (ranges.isEmpty()) {
+                return 0;
+            }
+            if (noOfRegions > Long.MAX_VALUE / ranges.size()) {
+                return Long.MAX_VALUE;
+            }
+            noOfRegions *= ranges.size();
+        }
+        return noOfRegions;
+    }
+
+    /**
+     * Check that the {@link TupleDomain} applies a filter to at least one of the rowkey columns, and throw an exception
+     * if it does not. This prevents a query from scanning the entire table by accident.
      * <p>
-     * Once the checks have passed, the {@link Ranges} corresponding to the rowkey column are extracted from the
-     * tupledomain.
+     * Once the check has passed, the {@link Range}s for each rowkey column are extracted from the tupledomain. A
+     * rowkey column without a filter is given a single range covering all values. Filters on other columns are ignored
+     * here, as they are applied when the data is read.
      *
      * @param sleeperTableHandle       The Sleeper table handle
      * @param tupleDomainToExtractFrom The tupledomain
-     * @return The ranges which correspond to the single rowkey column
+     * @return The ranges for each rowkey column, in the same order as the rowkey columns
      */
-    private static Ranges verifyAndExtractRowKeyRanges(SleeperTableHandle sleeperTableHandle,
-                                                       TupleDomain<ColumnHandle> tupleDomainToExtractFrom) {
-        // Ensure that the table has a rowkey with a single field and extract the column handle of that field
+    static List<List<Range>> verifyAndExtractRowKeyRanges(SleeperTableHandle sleeperTableHandle,
+                                                         TupleDomain<ColumnHandle> tupleDomainToExtractFrom) {
         List<SleeperColumnHandle> rowKeySleeperColumnHandlesInOrder =
                 sleeperTableHandle.getColumnHandlesInCategoryInOrder(SleeperColumnHandle.SleeperColumnCategory.ROWKEY);
-        if (rowKeySleeperColumnHandlesInOrder.size() > 1) {
+        // Ensure that a filter is applied to at least one rowkey column
+        Map<ColumnHandle, Domain> columnHandleDomainMap = tupleDomainToExtractFrom.getDomains().orElseThrow();
+        if (rowKeySleeperColumnHandlesInOrder.stream().noneMatch(columnHandleDomainMap::containsKey)) {
             throw new UnsupportedOperationException(
-                    "This connector does not support Sleeper tables where the rowkeys have more than one column");
-        }
-        SleeperColumnHandle rowKeySleeperColumnHandle = rowKeySleeperColumnHandlesInOrder.get(0);
-        // Ensure that a filter is applied to the rowkey column and extract it
-        Optional<Map<ColumnHandle, Domain>> columnHandleDomainMapOpt = tupleDomainToExtractFrom.getDomains();
-        if (columnHandleDomainMapOpt.isEmpty() || !columnHandleDomainMapOpt.get().containsKey(rowKeySleeperColumnHandle)) {
-            throw new UnsupportedOperationException(
-                    String.format("A filter must be applied to the rowkey column (%s) when querying a Sleeper table (%s.%s)",
-                            rowKeySleeperColumnHandle.getColumnName(),
+                    String.format("A filter must be applied to a rowkey column (%s) when querying a Sleeper table (%s.%s)",
+                            rowKeySleeperColumnHandlesInOrder.stream()
+                                    .map(SleeperColumnHandle::getColumnName)
+                                    .collect(Collectors.joining(", ")),
                             sleeperTableHandle.getSchemaTableName().getSchemaName(),
                             sleeperTableHandle.getSchemaTableName().getTableName()));
         }
-        Map<ColumnHandle, Domain> columnHandleDomainMap = columnHandleDomainMapOpt.get();
-        if (columnHandleDomainMap.size() > 1) {
-            throw new AssertionError(String.format(
-                    "Predicate pushdown is being applied to non-rowkey columns: %s",
-                    columnHandleDomainMap.entrySet()));
-        }
-        // Retrieve the ranges corresponding to the domain of the row key
-        return columnHandleDomainMap.get(rowKeySleeperColumnHandle).getValues().getRanges();
+        // Retrieve the ranges corresponding to the domain of each row key
+        return rowKeySleeperColumnHandlesInOrder.stream()
+                .map(columnHandle -> columnHandleDomainMap.getOrDefault(columnHandle, Domain.all(columnHandle.getColumnTrinoType())))
+                .map(domain -> domain.getValues().getRanges().getOrderedRanges())
+                .collect(ImmutableList.toImmutableList());
     }
 
     /**
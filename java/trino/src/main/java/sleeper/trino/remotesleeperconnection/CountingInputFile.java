@@ -0,0 +1,140 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.trino.remotesleeperconnection;
+
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Wraps a Parquet {@link InputFile} and counts the bytes which are read from it. This is used to report the number of
+ * bytes that a page source has read from the data files. Any bytes which are served from a cache inside the wrapped
+ * input file, such as the footer, are counted as they are read from the cache.
+ * <p>
+ * The counter may be shared between several files which are read on different threads.
+ */
+public class CountingInputFile implements InputFile {
+    private final InputFile inputFile;
+    private final LongAdder bytesRead;
+
+    public CountingInputFile(InputFile inputFile, LongAdder bytesRead) {
+        this.inputFile = requireNonNull(inputFile);
+        this.bytesRead = requireNonNull(bytesRead);
+    }
+
+    @Override
+    public long getLength() throws IOException {
+        return inputFile.getLength();
+    }
+
+    @Override
+    public SeekableInputStream newStream() throws IOException {
+        return new CountingSeekableInputStream(inputFile.newStream(), bytesRead);
+    }
+
+    @Override
+    public String toString() {
+        return inputFile.toString();
+    }
+
+    /**
+     * Counts the bytes read through a {@link SeekableInputStream}.
+     */
+    private static class CountingSeekableInputStream extends SeekableInputStream {
+        private final SeekableInputStream stream;
+        private final LongAdder bytesRead;
+
+        CountingSeekableInputStream(SeekableInputStream stream, LongAdder bytesRead) {
+            this.stream = stream;
+            this.bytesRead = bytesRead;
+        }
+
+        @Override
+        public long getPos() throws IOException {
+            return stream.getPos();
+        }
+
+        @Override
+        public void seek(long newPos) throws IOException {
+            stream.seek(newPos);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = stream.read();
+            if (read >= 0) {
+                bytesRead.increment();
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            return count(stream.read(bytes, offset, length));
+        }
+
+        @Override
+        public void readFully(byte[] bytes) throws IOException {
+            stream.readFully(bytes);
+            bytesRead.add(bytes.length);
+        }
+
+        @Override
+        public void readFully(byte[] bytes, int offset, int length) throws IOException {
+            stream.readFully(bytes, offset, length);
+            bytesRead.add(length);
+        }
+
+        @Override
+        public int read(ByteBuffer buffer) throws IOException {
+            return count(stream.read(buffer));
+        }
+
+        @Override
+        public void readFully(ByteBuffer buffer) throws IOException {
+            int remaining = buffer.remaining();
+            stream.readFully(buffer);
+            bytesRead.add(remaining);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return stream.skip(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return stream.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+
+        private int count(int read) {
+            if (read > 0) {
+                bytesRead.add(read);
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.trino.remotesleeperconnection;
+
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.api.Binary;
+
+import sleeper.core.key.Key;
+import sleeper.core.range.Range;
+import sleeper.core.range.RangeCanonicaliser;
+import sleeper.core.range.Region;
+import sleeper.core.record.KeyComparator;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.PrimitiveType;
+import sleeper.core.schema.type.StringType;
+import sleeper.query.model.LeafPartitionQuery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Divides a {@link LeafPartitionQuery} into several queries over sub-ranges of the leaf partition, so that a large
+ * partition can be scanned by several Trino drivers at once. The cut points between the sub-ranges are taken from the
+ * statistics on the first row key field in each row group of the files in the partition, so that each sub-range covers
+ * roughly the target number of bytes. Each sub-query reads the same files as the original query, but its regions only
+ * cover its own sub-range, and so the Parquet filter skips the row groups that do not overlap it.
+ * <p>
+ * The sub-queries keep the leaf partition ID and partition region of the original query, so that each split is still
+ * assigned to the bucket for its Sleeper partition.
+ */
+class LeafPartitionQuerySplitter {
+    private final Field rowKeyField;
+    private final KeyComparator keyComparator;
+    private final long targetBytesPerSplit;
+
+    LeafPartitionQuerySplitter(Schema schema, long targetBytesPerSplit) {
+        this.rowKeyField = schema.getRowKeyFields().get(0);
+        this.keyComparator = new KeyComparator((PrimitiveType) rowKeyField.getType());
+        this.targetBytesPerSplit = targetBytesPerSplit;
+    }
+
+    /**
+     * Read the range of the first row key field, and the compressed size, of each row group in a Parquet file.
+     *
+     * @param footer The footer of the Parquet file.
+     * @return The key ranges of the row groups in the file.
+     */
+    List<RowGroupKeyRange> readRowGroupKeyRanges(ParquetMetadata footer) {
+        List<RowGroupKeyRange> rowGroups = new ArrayList<>();
+        for (BlockMetaData block : footer.getBlocks()) {
+            Optional<Statistics<?>> statistics = block.getColumns().stream()
+                    .filter(column -> column.getPath().toDotString().equals(rowKeyField.getName()))
+                    .findFirst()
+                    .map(ColumnChunkMetaData::getStatistics);
+            if (statistics.isPresent() && statistics.get().hasNonNullValue()) {
+                rowGroups.add(new RowGroupKeyRange(
+                        convertStatisticsValue(statistics.get().genericGetMin()),
+                        convertStatisticsValue(statistics.get().genericGetMax()),
+                        block.getCompressedSize()));
+            } else {
+                rowGroups.add(new RowGroupKeyRange(null, null, block.getCompressedSize()));
+            }
+        }
+        return rowGroups;
+    }
+
+    /**
+     * Divide a leaf partition query into sub-queries. The query is returned unchanged if the row groups it overlaps
+     * total less than the target number of bytes, or if there are no suitable cut points.
+     *
+     * @param query     The query over a single leaf partition.
+     * @param rowGroups The key ranges of the row groups in all of the files in the partition.
+     * @return The sub-queries, in row key order.
+     */
+    List<LeafPartitionQuery> split(LeafPartitionQuery query, List<RowGroupKeyRange> rowGroups) {
+        if (targetBytesPerSplit <= 0) {
+            return List.of(query);
+        }
+        List<RowGroupKeyRange> overlapping = new ArrayList<>();
+        for (RowGroupKeyRange rowGroup : rowGroups) {
+            if (rowGroup.min == null || query.getRegions().stream()
+                    .anyMatch(region -> region.getRange(rowKeyField.getName()).doesRangeOverlap(
+                            new Range(rowKeyField, rowGroup.min, true, rowGroup.max, true)))) {
+                overlapping.add(rowGroup);
+            }
+        }
+        long totalBytes = overlapping.stream().mapToLong(RowGroupKeyRange::getBytes).sum();
+        int noOfSplits = (int) Math.min(Integer.MAX_VALUE, (totalBytes + targetBytesPerSplit - 1) / targetBytesPerSplit);
+        if (noOfSplits <= 1) {
+            return List.of(query);
+        }
+        List<Object> cutPoints = findCutPoints(query.getPartitionRegion().getRange(rowKeyField.getName()),
+                overlapping, totalBytes / noOfSplits);
+        if (cutPoints.isEmpty()) {
+            return List.of(query);
+        }
+        Range partitionRange = query.getPartitionRegion().getRange(rowKeyField.getName());
+        List<Object> boundaries = new ArrayList<>();
+        boundaries.add(partitionRange.getMin());
+        boundaries.addAll(cutPoints);
+        boundaries.add(partitionRange.getMax());
+        List<LeafPartitionQuery> subQueries = new ArrayList<>();
+        for (int i = 0; i < boundaries.size() - 1; i++) {
+            Range subRange = new Range(rowKeyField, boundaries.get(i), true, boundaries.get(i + 1), false);
+            List<Region> subRegions = new ArrayList<>();
+            for (Region region : query.getRegions()) {
+                intersect(region.getRange(rowKeyField.getName()), subRange)
+                        .ifPresent(range -> subRegions.add(region.childWithRange(range)));
+            }
+            if (!subRegions.isEmpty()) {
+                subQueries.add(subQuery(query, subRegions));
+            }
+        }
+        return subQueries;
+    }
+
+    private List<Object> findCutPoints(Range partitionRange, List<RowGroupKeyRange> rowGroups, long bytesPerSplit) {
+        List<RowGroupKeyRange> sorted = new ArrayList<>(rowGroups);
+        sorted.removeIf(rowGroup -> rowGroup.min == null);
+        sorted.sort(Comparator.comparing(rowGroup -> Key.create(rowGroup.min), keyComparator));
+        List<Object> cutPoints = new ArrayList<>();
+        Object lowerBound = partitionRange.getMin();
+        long bytesSinceLastCut = 0;
+        for (RowGroupKeyRange rowGroup : sorted) {
+            if (bytesSinceLastCut >= bytesPerSplit
+                    && compare(rowGroup.min, lowerBound) > 0
+                    && compare(rowGroup.min, partitionRange.getMax()) < 0) {
+                cutPoints.add(rowGroup.min);
+                lowerBound = rowGroup.min;
+                bytesSinceLastCut = 0;
+            }
+            bytesSinceLastCut += rowGroup.bytes;
+        }
+        return cutPoints;
+    }
+
+    private Optional<Range> intersect(Range range, Range subRange) {
+        Range canonical = RangeCanonicaliser.canonicaliseRange(range);
+        Object min = compare(canonical.getMin(), subRange.getMin()) >= 0 ? canonical.getMin() : subRange.getMin();
+        Object max = compare(canonical.getMax(), subRange.getMax()) <= 0 ? canonical.getMax() : subRange.getMax();
+        if (compare(min, max) >= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new Range(rowKeyField, min, true, max, false));
+    }
+
+    private int compare(Object value1, Object value2) {
+        return keyComparator.compare(Key.create(value1), Key.create(value2));
+    }
+
+    private Object convertStatisticsValue(Object value) {
+        if (value instanceof Binary) {
+            Binary binary = (Binary) value;
+            if (rowKeyField.getType() instanceof StringType) {
+                return binary.toStringUsingUTF8();
+            } else if (rowKeyField.getType() instanceof ByteArrayType) {
+                return binary.getBytes();
+            }
+        }
+        return value;
+    }
+
+    private static LeafPartitionQuery subQuery(LeafPartitionQuery query, List<Region> regions) {
+        return new LeafPartitionQuery.Builder(
+                query.getTableName(),
+                query.getQueryId(),
+                UUID.randomUUID().toString(),
+                regions,
+                query.getLeafPartitionId(),
+                query.getPartitionRegion(),
+                query.getFiles())
+                .setQueryTimeIteratorClassName(query.getQueryTimeIteratorClassName())
+                .setQueryTimeIteratorConfig(query.getQueryTimeIteratorConfig())
+                .setResultsPublisherConfig(query.getResultsPublisherConfig())
+                .setRequestedValueFields(query.getRequestedValueFields())
+                .setStatusReportDestinations(query.getStatusReportDestinations())
+                .build();
+    }
+
+    /**
+     * The range of the first row key field in a row group, and the compressed size of the row group. The minimum and
+     * maximum are null if the row group has no statistics for the field.
+     */
+    static class RowGroupKeyRange {
+        private final Object min;
+        private final Object max;
+        private final long bytes;
+
+        RowGroupKeyRange(Object min, Object max, long bytes) {
+            this.min = min;
+            this.max = max;
+            this.bytes = bytes;
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import io.airlift.log.Logger;
 import io.trino.spi.Page;
 import io.trino.spi.connector.ColumnMetadata;
@@ -28,7 +29,10 @@ import io.trino.spi.predicate.Range;
 import io.trino.spi.type.ArrayType;
 import io.trino.spi.type.BooleanType;
 import io.trino.spi.type.IntegerType;
+import io.trino.spi.type.Type;
 import io.trino.spi.type.VarcharType;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.io.InputFile;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 
 import sleeper.configuration.jars.ObjectFactoryException;
@@ -57,8 +61,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static java.util.Objects.requireNonNull;
@@ -245,12 +251,18 @@ public class SleeperConnectionAsTrino implements AutoCloseable {
      * @param sleeperTransactionHandle          The transaction that these splits will be generated under
      * @param sleeperSplit                      The split to scan
      * @param outputSleeperColumnHandlesInOrder The columns to return
-     * @return A stream of result rows, each expressed as a List of Objects, in the same order as the output columns
-     * specified in the outputSleeperColumnHandlesInOrder argument.
+     * @param valueFilter                       A filter on the non-rowkey columns to apply when the data files are
+     *                                          read, or null if there is none. This is only used to skip data, and the
+     *                                          records which are returned may not all match it.
+     * @param bytesRead                         The counter to add the number of bytes read from the data files to
+     * @return A stream of result records. Only the columns in outputSleeperColumnHandlesInOrder are read from the
+     * underlying files, although the row keys may also be present in each record.
      */
-    public Stream<List<Object>> streamEntireSplitResultRows(SleeperTransactionHandle sleeperTransactionHandle,
-                                                            SleeperSplit sleeperSplit,
-                                                            List<SleeperColumnHandle> outputSleeperColumnHandlesInOrder) {
+    public Stream<Record> streamEntireSplitResultRecords(SleeperTransactionHandle sleeperTransactionHandle,
+                                                         SleeperSplit sleeperSplit,
+                                                         List<SleeperColumnHandle> outputSleeperColumnHandlesInOrder,
+                                                         FilterPredicate valueFilter,
+                                                         LongAdder bytesRead) {
         // Retrieve the LeafPartitionQuery from the split and then restrict it so that it only returns the
         // requested rows
         List<String> columnNamesInOrder = outputSleeperColumnHandlesInOrder.stream()
@@ -259,61 +271,68 @@ public class SleeperConnectionAsTrino implements AutoCloseable {
         LeafPartitionQuery leafPartitionQuery = sleeperSplit.getLeafPartitionQuery();
         leafPartitionQuery.setRequestedValueFields(columnNamesInOrder);
 
-        // Stream the results, as Record objects, and then convert them into a List<Object>
         try {
-            Stream<Record> resultRecordStream = this.sleeperRawAwsConnection.createResultRecordStream(
+            return this.sleeperRawAwsConnection.createResultRecordStream(
                     sleeperTransactionHandle.getTransactionStartInstant(),
-                    leafPartitionQuery);
-
-            return resultRecordStream
-                    .map(record ->
-                            outputSleeperColumnHandlesInOrder.stream()
-                                    .map(sleeperColumnHandle -> record.get(sleeperColumnHandle.getColumnName()))
-                                    .collect(ImmutableList.toImmutableList()));
+                    leafPartitionQuery,
+                    valueFilter,
+                    bytesRead);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
     /**
-     * Take a list of {@link Range} objects and return a list of {@link SleeperSplit} objects that can be fully-scanned
-     * to return the relevant rows. The split contains all of the range information that is needed to complete the
-     * scans, and so this method is the point in the execution process where the tupledomain derived from the user's
-     * query is converted into something which directly describes how that data will be read from Sleeper.
+     * Whether a {@link SleeperSplit} can be read column by column, straight from the data files. This is not possible
+     * when a Sleeper iterator must be applied to the records, as iterators work on whole records.
+     *
+     * @param sleeperSplit The split to scan
+     * @return True if the split can be read column by column
+     */
+    public boolean isColumnarReadSupported(SleeperSplit sleeperSplit) {
+        return !this.sleeperRawAwsConnection.isIteratorApplied(sleeperSplit.getLeafPartitionQuery());
+    }
+
+    /**
+     * Create a Parquet {@link InputFile} for each of the data files in a {@link SleeperSplit}, to read them directly.
+     *
+     * @param sleeperSplit The split to scan
+     * @param bytesRead    The counter to add the number of bytes read from the data files to
+     * @return The input files, in the order that the split holds them
+     */
+    public List<InputFile> createSplitDataFileInputs(SleeperSplit sleeperSplit, LongAdder bytesRead) {
+        LeafPartitionQuery leafPartitionQuery = sleeperSplit.getLeafPartitionQuery();
+        return leafPartitionQuery.getFiles().stream()
+                .map(file -> this.sleeperRawAwsConnection.createDataFileInput(leafPartitionQuery.getTableName(), file, bytesRead))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Take a list of {@link Range} objects for each rowkey column and return a list of {@link SleeperSplit} objects
+     * that can be fully-scanned to return the relevant rows. The split contains all of the range information that is
+     * needed to complete the scans, and so this method is the point in the execution process where the tupledomain
+     * derived from the user's query is converted into something which directly describes how that data will be read
+     * from Sleeper.
      * <p>
-     * In this implementation, the method {@link SleeperRawAwsConnection#splitIntoLeafPartitionQueries} is used to
-     * generate the splits.
+     * Each combination of one range from each rowkey column becomes a multi-dimensional Sleeper {@link Region}. The
+     * method {@link SleeperRawAwsConnection#splitIntoLeafPartitionQueries} is then used to generate the splits.
      *
      * @param sleeperTransactionHandle The transaction that these splits will be generated under
      * @param sleeperTableHandle       The table to generate the splits for
-     * @param trinoRangeList           A list of the ranges to generate the splits for
+     * @param trinoRangesInOrder       A list of the ranges for each rowkey column, in the same order as the rowkey
+     *                                 columns
      * @return A list of {@link SleeperSplit} objects generated from the supplied ranges
      */
     public List<SleeperSplit> generateSleeperSplits(SleeperTransactionHandle sleeperTransactionHandle,
                                                     SleeperTableHandle sleeperTableHandle,
-                                                    List<Range> trinoRangeList) {
-        List<SleeperColumnHandle> rowKeySleeperColumnHandlesInOrder =
-                sleeperTableHandle.getColumnHandlesInCategoryInOrder(SleeperColumnHandle.SleeperColumnCategory.ROWKEY);
-
-        if (rowKeySleeperColumnHandlesInOrder.size() > 1) {
-            throw new UnsupportedOperationException("Single-valued rowkeys only");
-        }
-        SleeperColumnHandle rowKeySleeperColumnHandle = rowKeySleeperColumnHandlesInOrder.get(0);
-
-        // Convert the Trino Range objects into Sleeper Range objects
+                                                    List<List<Range>> trinoRangesInOrder) {
         Schema sleeperSchema = sleeperRawAwsConnection.getSleeperSchema(sleeperTableHandle.getSchemaTableName().getTableName());
-        sleeper.core.range.Range.RangeFactory rangeFactory = new sleeper.core.range.Range.RangeFactory(sleeperSchema);
-        List<Region> sleeperRegionList = trinoRangeList.stream().map(
-                        trinoRange -> rangeFactory.createRange(
-                                rowKeySleeperColumnHandle.getColumnName(),
-                                SleeperTypeConversionUtils.convertTrinoObjectToSleeperRowKeyObject(
-                                        rowKeySleeperColumnHandle.getColumnTrinoType(), trinoRange.getLowBoundedValue()),
-                                trinoRange.isLowInclusive(),
-                                SleeperTypeConversionUtils.convertTrinoObjectToSleeperRowKeyObject(
-                                        rowKeySleeperColumnHandle.getColumnTrinoType(), trinoRange.getHighBoundedValue()),
-                                trinoRange.isHighInclusive()))
-                .map(sleeperRange -> new Region(ImmutableList.of(sleeperRange)))
-                .collect(ImmutableList.toImmutableList());
+        List<Region> sleeperRegionList = createSleeperRegions(sleeperSchema,
+                sleeperTableHandle.getColumnHandlesInCategoryInOrder(SleeperColumnHandle.SleeperColumnCategory.ROWKEY),
+                trinoRangesInOrder);
+        if (sleeperRegionList.isEmpty()) {
+            return ImmutableList.of();
+        }
 
         // Construct a Sleeper query with a unique, random query ID
         Query sleeperQuery = new Query(
@@ -334,6 +353,60 @@ public class SleeperConnectionAsTrino implements AutoCloseable {
         }
     }
 
+    /**
+     * Convert the Trino {@link Range}s for each rowkey column into Sleeper {@link Region}s. Each combination of one
+     * range from each rowkey column becomes a region, and so the caller must make sure that the number of combinations
+     * is reasonable.
+     *
+     * @param sleeperSchema                     The schema of the Sleeper table
+     * @param rowKeySleeperColumnHandlesInOrder The rowkey columns, in the same order as the rowkey fields in the schema
+     * @param trinoRangesInOrder                A list of the ranges for each rowkey column, in the same order as the
+     *                                          rowkey columns
+     * @return The Sleeper regions
+     */
+    static List<Region> createSleeperRegions(Schema sleeperSchema,
+                                             List<SleeperColumnHandle> rowKeySleeperColumnHandlesInOrder,
+                                             List<List<Range>> trinoRangesInOrder) {
+        sleeper.core.range.Range.RangeFactory rangeFactory = new sleeper.core.range.Range.RangeFactory(sleeperSchema);
+        List<List<sleeper.core.range.Range>> sleeperRangesInOrder = IntStream.range(0, rowKeySleeperColumnHandlesInOrder.size())
+                .mapToObj(rowKeyNo -> trinoRangesInOrder.get(rowKeyNo).stream()
+                        .map(trinoRange -> convertTrinoRangeToSleeperRange(
+                                rangeFactory, rowKeySleeperColumnHandlesInOrder.get(rowKeyNo), trinoRange))
+                        .collect(ImmutableList.toImmutableList()))
+                .collect(ImmutableList.toImmutableList());
+        return Lists.cartesianProduct(sleeperRangesInOrder).stream()
+                .map(Region::new)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Convert a Trino {@link Range} over a rowkey column into a Sleeper range. Sleeper ranges always have a minimum,
+     * and so a range without a lower bound starts at the smallest value for the type. A range without an upper bound
+     * has a null maximum, which Sleeper treats as unbounded.
+     *
+     * @param rangeFactory              The factory to create the Sleeper range
+     * @param rowKeySleeperColumnHandle The rowkey column that the range applies to
+     * @param trinoRange                The Trino range
+     * @return The Sleeper range
+     */
+    private static sleeper.core.range.Range convertTrinoRangeToSleeperRange(sleeper.core.range.Range.RangeFactory rangeFactory,
+                                                                            SleeperColumnHandle rowKeySleeperColumnHandle,
+                                                                            Range trinoRange) {
+        Type trinoType = rowKeySleeperColumnHandle.getColumnTrinoType();
+        Object min = trinoRange.isLowUnbounded()
+                ? SleeperTypeConversionUtils.getMinimumSleeperRowKeyObject(trinoType)
+                : SleeperTypeConversionUtils.convertTrinoObjectToSleeperRowKeyObject(trinoType, trinoRange.getLowBoundedValue());
+        Object max = trinoRange.isHighUnbounded()
+                ? null
+                : SleeperTypeConversionUtils.convertTrinoObjectToSleeperRowKeyObject(trinoType, trinoRange.getHighBoundedValue());
+        return rangeFactory.createRange(
+                rowKeySleeperColumnHandle.getColumnName(),
+                min,
+                trinoRange.isLowUnbounded() || trinoRange.isLowInclusive(),
+                max,
+                !trinoRange.isHighUnbounded() && trinoRange.isHighInclusive());
+    }
+
     /**
      * This pass-through method exposes the internals pf the AWS connection and requires revision.
      * <p>
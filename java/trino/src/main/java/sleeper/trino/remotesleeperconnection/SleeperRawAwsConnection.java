@@ -23,12 +23,17 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.airlift.log.Logger;
 import io.trino.spi.Page;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.io.InputFile;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 
 import sleeper.configuration.jars.ObjectFactory;
@@ -42,10 +47,15 @@ import sleeper.core.partition.Partition;
 import sleeper.core.record.Record;
 import sleeper.core.schema.Schema;
 import sleeper.ingest.impl.IngestCoordinator;
+import sleeper.io.parquet.cache.LocalBlockCache;
+import sleeper.io.parquet.cache.ParquetFooterCache;
 import sleeper.query.QueryException;
 import sleeper.query.executor.QueryExecutor;
 import sleeper.query.model.LeafPartitionQuery;
 import sleeper.query.model.Query;
+import sleeper.query.recordretrieval.LeafPartitionQueryExecutor;
+import sleeper.query.recordretrieval.LeafPartitionQueryResultCache;
+import sleeper.statestore.FileInfo;
 import sleeper.statestore.StateStore;
 import sleeper.statestore.StateStoreException;
 import sleeper.statestore.StateStoreFactory;
@@ -54,16 +64,24 @@ import sleeper.trino.SleeperConfig;
 import sleeper.trino.ingest.BespokeIngestCoordinator;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -110,6 +128,7 @@ public class SleeperRawAwsConnection implements AutoCloseable {
     private final ObjectFactory objectFactory;
     private final ExecutorService executorService;
     private final LoadingCache<Pair<String, Instant>, SleeperTablePartitionStructure> sleeperTablePartitionStructureCache;
+    private final Map<String, Double> tableNameToBytesPerRecordEstimate = new ConcurrentHashMap<>();
     private final String localWorkingDirectory;
 
     SleeperRawAwsConnection(SleeperConfig sleeperConfig,
@@ -133,6 +152,8 @@ public class SleeperRawAwsConnection implements AutoCloseable {
         // will be used to create a new state store for each thread.
         this.instanceProperties = new InstanceProperties();
         this.instanceProperties.loadFromS3(this.s3Client, configBucket);
+        ParquetFooterCache.configureForProcess(this.instanceProperties);
+        LocalBlockCache.configureForProcess(this.instanceProperties);
         this.stateStoreProvider = new StateStoreProvider(this.dynamoDbClient, this.instanceProperties,
                 this.hadoopConfigurationProvider.getHadoopConfiguration(instanceProperties));
         this.stateStoreFactory = new StateStoreFactory(this.dynamoDbClient, this.instanceProperties,
@@ -246,24 +267,87 @@ public class SleeperRawAwsConnection implements AutoCloseable {
         // The state store which is returned may not be thread-safe either.
         StateStore stateStore = stateStoreProvider.getStateStore(tableProperties);
         List<Partition> partitions = stateStore.getAllPartitions();
-        Map<String, List<String>> partitionToFileMapping = stateStore.getPartitionToActiveFilesMap();
+        // Read the active files once, rather than through getPartitionToActiveFilesMap, so that their record counts
+        // can be used to decide whether a partition is large enough to be worth dividing into several splits.
+        Map<String, List<String>> partitionToFileMapping = new HashMap<>();
+        Map<String, Long> fileToNumberOfRecords = new HashMap<>();
+        for (FileInfo fileInfo : stateStore.getActiveFiles()) {
+            partitionToFileMapping.computeIfAbsent(fileInfo.getPartitionId(), partitionId -> new ArrayList<>())
+                    .add(fileInfo.getFilename());
+            if (fileInfo.getNumberOfRecords() != null) {
+                fileToNumberOfRecords.put(fileInfo.getFilename(), fileInfo.getNumberOfRecords());
+            }
+        }
         LOGGER.debug("Retrieved " + partitions.size() + " partitions from StateStore");
-        return new SleeperTablePartitionStructure(asOfInstant, partitions, partitionToFileMapping);
+        return new SleeperTablePartitionStructure(asOfInstant, partitions, partitionToFileMapping, fileToNumberOfRecords);
     }
 
     /**
-     * Create a stream of {@link Record} objects returned by a single query.
+     * Create a stream of {@link Record} objects returned by a single {@link LeafPartitionQuery}, filtering the data
+     * files on the non-rowkey columns as they are read. The filter is used to skip row groups and pages, and is not
+     * applied at all if the table or the query has an iterator, so the caller must apply the same filter to the
+     * results.
      *
-     * @param asOfInstant The instant to use when obtaining the list of files to query from the underlying state store.
-     *                    Currently ignored.
-     * @param query       The query to run.
+     * @param asOfInstant        The instant to use when obtaining the list of files to query from the underlying state
+     *                           store. Currently ignored, as the leaf partition query already holds its files.
+     * @param leafPartitionQuery The leaf partition query to run.
+     * @param valueFilter        The filter to apply to the data files, or null if there is none.
+     * @param bytesRead          The counter to add the number of bytes read from the data files to.
      * @return A stream of records containing the results of the query.
-     * @throws QueryException     If something goes wrong.
-     * @throws ExecutionException If something goes wrong.
+     * @throws QueryException If something goes wrong.
      */
-    public Stream<Record> createResultRecordStream(Instant asOfInstant, Query query)
-            throws QueryException, ExecutionException {
-        CloseableIterator<Record> resultRecordIterator = createResultRecordIterator(asOfInstant, query);
+    public Stream<Record> createResultRecordStream(Instant asOfInstant,
+                                                   LeafPartitionQuery leafPartitionQuery,
+                                                   FilterPredicate valueFilter,
+                                                   LongAdder bytesRead) throws QueryException {
+        TableProperties tableProperties = this.tableNameToSleeperTablePropertiesMap.get(leafPartitionQuery.getTableName());
+        LOGGER.debug("Creating result record iterator for leaf partition query %s", leafPartitionQuery);
+        LeafPartitionQueryExecutor leafPartitionQueryExecutor = new LeafPartitionQueryExecutor(
+                this.executorService,
+                this.objectFactory,
+                this.hadoopConfigurationProvider.getHadoopConfiguration(this.instanceProperties),
+                tableProperties,
+                LeafPartitionQueryResultCache.disabled(),
+                inputFile -> new CountingInputFile(inputFile, bytesRead));
+        return streamAndCloseIterator(leafPartitionQueryExecutor.getRecordsWithValueFilter(leafPartitionQuery, valueFilter));
+    }
+
+    /**
+     * Whether the records for a {@link LeafPartitionQuery} need to pass through a Sleeper iterator, either because the
+     * table has a compaction time iterator or because the query has a query time iterator. Iterators work on records,
+     * so these queries must be read as records rather than column by column.
+     *
+     * @param leafPartitionQuery The leaf partition query.
+     * @return True if an iterator is applied to the results of the query.
+     */
+    public boolean isIteratorApplied(LeafPartitionQuery leafPartitionQuery) {
+        TableProperties tableProperties = this.tableNameToSleeperTablePropertiesMap.get(leafPartitionQuery.getTableName());
+        return null != tableProperties.get(TableProperty.ITERATOR_CLASS_NAME)
+                || null != leafPartitionQuery.getQueryTimeIteratorClassName();
+    }
+
+    /**
+     * Create a Parquet {@link InputFile} to read a data file of a table directly. The file is read through the
+     * process-wide footer cache, and through the local block cache if the table enables it.
+     *
+     * @param tableName The name of the table which the file belongs to.
+     * @param fileName  The name of the data file.
+     * @param bytesRead The counter to add the number of bytes read from the file to.
+     * @return The input file.
+     */
+    public InputFile createDataFileInput(String tableName, String fileName, LongAdder bytesRead) {
+        TableProperties tableProperties = this.tableNameToSleeperTablePropertiesMap.get(tableName);
+        Configuration conf = this.hadoopConfigurationProvider.getHadoopConfiguration(this.instanceProperties);
+        try {
+            return new CountingInputFile(
+                    ParquetFooterCache.forProcess().getInputFile(new Path(fileName), conf, LocalBlockCache.forTable(tableProperties)),
+                    bytesRead);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Stream<Record> streamAndCloseIterator(CloseableIterator<Record> resultRecordIterator) {
         Spliterator<Record> resultRecordSpliterator = Spliterators.spliteratorUnknownSize(
                 resultRecordIterator,
                 Spliterator.NONNULL | Spliterator.IMMUTABLE);
@@ -280,7 +364,14 @@ public class SleeperRawAwsConnection implements AutoCloseable {
     /**
      * Split a {@link Query} into one or more {@link LeafPartitionQuery} objects, each representing a scan of a leaf
      * partition, which combine to cover the entire original query. The leaf partition queries are genersated using the
-     * core Sleeper method {@link QueryExecutor#splitIntoLeafPartitionQueries}.
+     * core Sleeper method {@link QueryExecutor#splitIntoLeafPartitionQueries}. When a leaf partition query covers
+     * more than the target bytes per split, it is divided into sub-queries over sub-ranges of the partition, using
+     * {@link LeafPartitionQuerySplitter}.
+     * <p>
+     * The Parquet footers are only read for leaf partition queries which may be larger than the target. The size of a
+     * leaf partition query is estimated from the record counts of its files in the state store, and the number of
+     * bytes per record seen in the footers which have been read for the table so far. The footers which are needed are
+     * read in parallel.
      *
      * @param asOfInstant The instant to use when obtaining the list of files to query from the underlying state store.
      *                    Currently ignored.
@@ -304,36 +395,107 @@ public class SleeperRawAwsConnection implements AutoCloseable {
                 executorService);
         queryExecutor.init(sleeperTablePartitionStructure.getAllPartitions(),
                 sleeperTablePartitionStructure.getPartitionToFileMapping());
-        return queryExecutor.splitIntoLeafPartitionQueries(query);
+        List<LeafPartitionQuery> leafPartitionQueries = queryExecutor.splitIntoLeafPartitionQueries(query);
+        if (sleeperConfig.getTargetBytesPerSplit() <= 0) {
+            return leafPartitionQueries;
+        }
+        LeafPartitionQuerySplitter splitter = new LeafPartitionQuerySplitter(
+                tableProperties.getSchema(), sleeperConfig.getTargetBytesPerSplit());
+        List<LeafPartitionQuery> queriesToSplit = leafPartitionQueries.stream()
+                .filter(leafPartitionQuery -> mayExceedTargetBytesPerSplit(
+                        query.getTableName(), sleeperTablePartitionStructure, leafPartitionQuery))
+                .collect(Collectors.toList());
+        Map<String, List<LeafPartitionQuerySplitter.RowGroupKeyRange>> fileToRowGroups = readRowGroupKeyRanges(
+                query.getTableName(), splitter,
+                queriesToSplit.stream().flatMap(leafPartitionQuery -> leafPartitionQuery.getFiles().stream())
+                        .collect(Collectors.toCollection(LinkedHashSet::new)));
+        Set<String> subQueryIdsToSplit = queriesToSplit.stream()
+                .map(LeafPartitionQuery::getSubQueryId)
+                .collect(Collectors.toSet());
+        List<LeafPartitionQuery> subQueries = new ArrayList<>();
+        for (LeafPartitionQuery leafPartitionQuery : leafPartitionQueries) {
+            if (subQueryIdsToSplit.contains(leafPartitionQuery.getSubQueryId())) {
+                subQueries.addAll(splitter.split(leafPartitionQuery, leafPartitionQuery.getFiles().stream()
+                        .flatMap(file -> fileToRowGroups.get(file).stream())
+                        .collect(Collectors.toList())));
+            } else {
+                subQueries.add(leafPartitionQuery);
+            }
+        }
+        LOGGER.debug("Split %d leaf partition queries into %d sub-queries, reading footers for %d of them",
+                leafPartitionQueries.size(), subQueries.size(), queriesToSplit.size());
+        return subQueries;
     }
 
     /**
-     * Start running a query and return an iterator to use to scroll through the results.
+     * Decide whether a leaf partition query may cover more than the target bytes per split, and so whether the
+     * footers of its files need to be read. This is only ruled out when the number of records in every file is known,
+     * and the footers of some files in the table have already been read to estimate the number of bytes per record.
      *
-     * @param asOfInstant The instant to use when obtaining the list of files to query from the underlying state store.
-     *                    Currently ignored.
-     * @param query       The query to run.
-     * @return A Closeableterator which iterates through the result records. Make sure that it is closed when it is
-     * finished with.
-     * @throws QueryException              If something goes wrong.
-     * @throws ExecutionException          If something goes wrong.
-     * @throws UncheckedExecutionException If something goes wrong.
+     * @param tableName                      The name of the table which is being queried.
+     * @param sleeperTablePartitionStructure The partition structure holding the number of records in each file.
+     * @param leafPartitionQuery             The leaf partition query.
+     * @return True if the leaf partition query may be larger than the target, false if it is known to be smaller.
      */
-    private CloseableIterator<Record> createResultRecordIterator(Instant asOfInstant, Query query)
-            throws QueryException, ExecutionException, UncheckedExecutionException {
-        TableProperties tableProperties = this.tableNameToSleeperTablePropertiesMap.get(query.getTableName());
-        StateStore stateStore = this.stateStoreFactory.getStateStore(tableProperties);
-        SleeperTablePartitionStructure sleeperTablePartitionStructure = sleeperTablePartitionStructureCache.get(Pair.of(query.getTableName(), asOfInstant));
+    private boolean mayExceedTargetBytesPerSplit(String tableName,
+                                                 SleeperTablePartitionStructure sleeperTablePartitionStructure,
+                                                 LeafPartitionQuery leafPartitionQuery) {
+        Double bytesPerRecord = tableNameToBytesPerRecordEstimate.get(tableName);
+        if (bytesPerRecord == null) {
+            return true;
+        }
+        long noOfRecords = 0;
+        for (String file : leafPartitionQuery.getFiles()) {
+            Long fileRecords = sleeperTablePartitionStructure.getFileToNumberOfRecords().get(file);
+            if (fileRecords == null) {
+                return true;
+            }
+            noOfRecords += fileRecords;
+        }
+        return noOfRecords * bytesPerRecord >= sleeperConfig.getTargetBytesPerSplit();
+    }
 
-        LOGGER.debug("Creating result record iterator for query %s", query);
-        QueryExecutor queryExecutor = new QueryExecutor(
-                this.objectFactory,
-                tableProperties,
-                stateStore,
-                this.hadoopConfigurationProvider.getHadoopConfiguration(this.instanceProperties),
-                this.executorService);
-        queryExecutor.init(sleeperTablePartitionStructure.getAllPartitions(), sleeperTablePartitionStructure.getPartitionToFileMapping());
-        return queryExecutor.execute(query);
+    /**
+     * Read the key ranges of the row groups in a set of files, reading the footers in parallel. The footers are read
+     * through the process-wide footer cache, so that a scan in this process does not need to read them again. On a
+     * multi-node cluster the splits are scanned on the workers, which read the footers for themselves.
+     * <p>
+     * The sizes in the footers are used to update the estimate of the number of bytes per record in the table.
+     *
+     * @param tableName The name of the table which the files belong to.
+     * @param splitter  The splitter to read the key ranges with.
+     * @param files     The files to read.
+     * @return A map from filename to the key ranges of the row groups in that file.
+     */
+    private Map<String, List<LeafPartitionQuerySplitter.RowGroupKeyRange>> readRowGroupKeyRanges(
+            String tableName, LeafPartitionQuerySplitter splitter, Set<String> files) {
+        if (files.isEmpty()) {
+            return Map.of();
+        }
+        Configuration conf = this.hadoopConfigurationProvider.getHadoopConfiguration(this.instanceProperties);
+        LongAdder totalBytes = new LongAdder();
+        LongAdder totalRecords = new LongAdder();
+        Map<String, CompletableFuture<List<LeafPartitionQuerySplitter.RowGroupKeyRange>>> futures = new LinkedHashMap<>();
+        for (String file : files) {
+            futures.put(file, CompletableFuture.supplyAsync(() -> {
+                try (ParquetFileReader reader = ParquetFileReader.open(
+                        ParquetFooterCache.forProcess().getInputFile(new Path(file), conf))) {
+                    for (BlockMetaData block : reader.getFooter().getBlocks()) {
+                        totalBytes.add(block.getCompressedSize());
+                        totalRecords.add(block.getRowCount());
+                    }
+                    return splitter.readRowGroupKeyRanges(reader.getFooter());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executorService));
+        }
+        Map<String, List<LeafPartitionQuerySplitter.RowGroupKeyRange>> fileToRowGroups = new HashMap<>();
+        futures.forEach((file, future) -> fileToRowGroups.put(file, future.join()));
+        if (totalRecords.sum() > 0) {
+            tableNameToBytesPerRecordEstimate.put(tableName, (double) totalBytes.sum() / totalRecords.sum());
+        }
+        return fileToRowGroups;
     }
 
     /**
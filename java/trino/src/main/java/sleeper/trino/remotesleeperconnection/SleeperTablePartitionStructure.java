@@ -30,13 +30,22 @@ class SleeperTablePartitionStructure {
     private final Instant asOfInstant;
     private final List<Partition> allPartitions;
     private final Map<String, List<String>> partitionToFileMapping;
+    private final Map<String, Long> fileToNumberOfRecords;
 
     SleeperTablePartitionStructure(Instant asOfInstant,
                                    List<Partition> allPartitions,
                                    Map<String, List<String>> partitionToFileMapping) {
+        this(asOfInstant, allPartitions, partitionToFileMapping, Map.of());
+    }
+
+    SleeperTablePartitionStructure(Instant asOfInstant,
+                                   List<Partition> allPartitions,
+                                   Map<String, List<String>> partitionToFileMapping,
+                                   Map<String, Long> fileToNumberOfRecords) {
         this.asOfInstant = asOfInstant;
         this.allPartitions = allPartitions;
         this.partitionToFileMapping = partitionToFileMapping;
+        this.fileToNumberOfRecords = fileToNumberOfRecords;
     }
 
     public Instant getAsOfInstant() {
@@ -51,6 +60,16 @@ class SleeperTablePartitionStructure {
         return partitionToFileMapping;
     }
 
+    /**
+     * The number of records in each active file, as recorded in the state store. Files whose number of records is not
+     * known are not included.
+     *
+     * @return A map from filename to the number of records in the file.
+     */
+    public Map<String, Long> getFileToNumberOfRecords() {
+        return fileToNumberOfRecords;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
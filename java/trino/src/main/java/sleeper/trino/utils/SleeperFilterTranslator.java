@@ -0,0 +1,156 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.trino.utils;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.type.Type;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.io.api.Binary;
+
+import sleeper.trino.handle.SleeperColumnHandle;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.IntegerType.INTEGER;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+
+/**
+ * Translates the domains in a Trino {@link TupleDomain} into a Parquet {@link FilterPredicate}, so that row groups and
+ * pages which cannot contain any matching rows can be skipped when the data files are read. This is the Trino
+ * equivalent of the Athena FilterTranslator.
+ * <p>
+ * Only domains on INTEGER, BIGINT and VARCHAR columns are translated, and domains which allow nulls are ignored, as
+ * the Parquet comparison operators never match a null value. Domains which cannot be translated are left out of the
+ * predicate, and so the predicate may match more rows than the tuple domain.
+ */
+public class SleeperFilterTranslator {
+
+    private SleeperFilterTranslator() {
+    }
+
+    /**
+     * Create a single Parquet filter from the domains on the supplied columns, ANDed together.
+     *
+     * @param tupleDomain     The tuple domain to translate.
+     * @param columnsToFilter The columns whose domains are to be translated. Domains on any other columns are ignored.
+     * @return The filter, or null if none of the domains could be translated.
+     */
+    public static FilterPredicate toPredicate(TupleDomain<ColumnHandle> tupleDomain, Set<SleeperColumnHandle> columnsToFilter) {
+        Optional<Map<ColumnHandle, Domain>> domainsOpt = tupleDomain.getDomains();
+        if (domainsOpt.isEmpty()) {
+            return null;
+        }
+        FilterPredicate filter = null;
+        for (Map.Entry<ColumnHandle, Domain> entry : domainsOpt.get().entrySet()) {
+            SleeperColumnHandle columnHandle = (SleeperColumnHandle) entry.getKey();
+            if (columnsToFilter.contains(columnHandle)) {
+                filter = and(filter, createPredicate(columnHandle, entry.getValue()));
+            }
+        }
+        return filter;
+    }
+
+    private static FilterPredicate createPredicate(SleeperColumnHandle columnHandle, Domain domain) {
+        if (domain.isAll() || domain.isNullAllowed() || domain.isNone()) {
+            return null;
+        }
+        String columnName = columnHandle.getColumnName();
+        Type type = columnHandle.getColumnTrinoType();
+        if (type.equals(INTEGER)) {
+            return createRangePredicate(domain, FilterApi.intColumn(columnName),
+                    value -> Math.toIntExact((Long) value));
+        } else if (type.equals(BIGINT)) {
+            return createRangePredicate(domain, FilterApi.longColumn(columnName),
+                    value -> (Long) value);
+        } else if (type.equals(VARCHAR)) {
+            return createRangePredicate(domain, FilterApi.binaryColumn(columnName),
+                    value -> Binary.fromString(((Slice) value).toStringUtf8()));
+        }
+        return null;
+    }
+
+    private static <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsLtGt> FilterPredicate createRangePredicate(
+            Domain domain, C column, Function<Object, T> valueTransformer) {
+        FilterPredicate filter = null;
+        for (Range range : domain.getValues().getRanges().getOrderedRanges()) {
+            filter = or(filter, createRangePredicate(range, column, valueTransformer));
+        }
+        return filter;
+    }
+
+    private static <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsLtGt> FilterPredicate createRangePredicate(
+            Range range, C column, Function<Object, T> valueTransformer) {
+        if (range.isSingleValue()) {
+            return FilterApi.eq(column, valueTransformer.apply(range.getSingleValue()));
+        }
+        FilterPredicate lowPredicate = null;
+        if (!range.isLowUnbounded()) {
+            T low = valueTransformer.apply(range.getLowBoundedValue());
+            lowPredicate = range.isLowInclusive() ? FilterApi.gtEq(column, low) : FilterApi.gt(column, low);
+        }
+        FilterPredicate highPredicate = null;
+        if (!range.isHighUnbounded()) {
+            T high = valueTransformer.apply(range.getHighBoundedValue());
+            highPredicate = range.isHighInclusive() ? FilterApi.ltEq(column, high) : FilterApi.lt(column, high);
+        }
+        FilterPredicate predicate = and(lowPredicate, highPredicate);
+        // A range which is unbounded on both sides matches every non-null value
+        return null == predicate ? FilterApi.notEq(column, null) : predicate;
+    }
+
+    /**
+     * Combine two filters with AND, where either filter may be null.
+     *
+     * @param lhs The left filter, or null.
+     * @param rhs The right filter, or null.
+     * @return The combined filter, or null if both filters are null.
+     */
+    public static FilterPredicate and(FilterPredicate lhs, FilterPredicate rhs) {
+        return merge(lhs, rhs, FilterApi::and);
+    }
+
+    /**
+     * Combine two filters with OR, where either filter may be null.
+     *
+     * @param lhs The left filter, or null.
+     * @param rhs The right filter, or null.
+     * @return The combined filter, or null if both filters are null.
+     */
+    public static FilterPredicate or(FilterPredicate lhs, FilterPredicate rhs) {
+        return merge(lhs, rhs, FilterApi::or);
+    }
+
+    private static FilterPredicate merge(FilterPredicate lhs, FilterPredicate rhs, BinaryOperator<FilterPredicate> mergeFunction) {
+        if (null == lhs) {
+            return rhs;
+        }
+        if (null == rhs) {
+            return lhs;
+        }
+        return mergeFunction.apply(lhs, rhs);
+    }
+}
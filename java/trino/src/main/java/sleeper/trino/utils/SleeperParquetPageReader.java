@@ -0,0 +1,212 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.trino.utils;
+
+import io.airlift.slice.Slices;
+import io.trino.spi.Page;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.type.Type;
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.schema.MessageType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads columns of a Sleeper data file straight into Trino {@link Page}s. Each column is decoded from the Parquet
+ * pages into its own {@link Block}, without creating a Sleeper record or any other object for each row. The pages are
+ * returned in the order of the rows in the file, which is sorted by row key.
+ * <p>
+ * The filter is used to skip row groups using their statistics, and pages within a row group using the column
+ * indexes. It is not applied to individual rows, so the caller must still filter the rows which are returned.
+ * <p>
+ * Only columns holding a single primitive value in each row are supported, which covers every type that the connector
+ * exposes to Trino.
+ */
+public class SleeperParquetPageReader implements Closeable {
+    private final ParquetFileReader fileReader;
+    private final MessageType requestedSchema;
+    private final List<Type> trinoTypes;
+    private final int maxRowsPerPage;
+    private final String createdBy;
+    private ColumnReader[] columnReaders;
+    private long rowsRemainingInRowGroup = 0L;
+
+    /**
+     * Open a data file to read a number of its columns.
+     *
+     * @param inputFile      The data file.
+     * @param columnNames    The names of the columns to read, in the order that they are to appear in each page.
+     * @param trinoTypes     The Trino types to read the columns as, in the same order as the column names.
+     * @param filter         The filter to use to skip row groups and pages, or null if there is none.
+     * @param maxRowsPerPage The maximum number of rows in each page.
+     * @throws IOException If the file could not be opened.
+     */
+    public SleeperParquetPageReader(InputFile inputFile,
+                                    List<String> columnNames,
+                                    List<Type> trinoTypes,
+                                    FilterPredicate filter,
+                                    int maxRowsPerPage) throws IOException {
+        ParquetReadOptions.Builder options = ParquetReadOptions.builder();
+        if (null != filter) {
+            options.withRecordFilter(FilterCompat.get(filter));
+        }
+        this.fileReader = ParquetFileReader.open(inputFile, options.build());
+        try {
+            MessageType fileSchema = fileReader.getFooter().getFileMetaData().getSchema();
+            this.requestedSchema = new MessageType(fileSchema.getName(),
+                    columnNames.stream().map(fileSchema::getType).toArray(org.apache.parquet.schema.Type[]::new));
+            for (ColumnDescriptor column : requestedSchema.getColumns()) {
+                if (column.getMaxRepetitionLevel() > 0) {
+                    throw new UnsupportedOperationException("Repeated column " + String.join(".", column.getPath())
+                            + " cannot be read column by column");
+                }
+            }
+            this.fileReader.setRequestedSchema(requestedSchema);
+            this.trinoTypes = requireNonNull(trinoTypes);
+            this.maxRowsPerPage = maxRowsPerPage;
+            this.createdBy = fileReader.getFooter().getFileMetaData().getCreatedBy();
+        } catch (RuntimeException e) {
+            fileReader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the next page of rows from the file.
+     *
+     * @return The next page, or null if there are no more rows.
+     * @throws IOException If the file could not be read.
+     */
+    public Page nextPage() throws IOException {
+        while (rowsRemainingInRowGroup == 0) {
+            PageReadStore rowGroup = fileReader.readNextFilteredRowGroup();
+            if (null == rowGroup) {
+                return null;
+            }
+            ColumnReadStoreImpl columnReadStore = new ColumnReadStoreImpl(
+                    rowGroup, new NoOpGroupConverter(requestedSchema.getFieldCount()), requestedSchema, createdBy);
+            List<ColumnDescriptor> columns = requestedSchema.getColumns();
+            columnReaders = new ColumnReader[columns.size()];
+            for (int i = 0; i < columns.size(); i++) {
+                columnReaders[i] = columnReadStore.getColumnReader(columns.get(i));
+            }
+            rowsRemainingInRowGroup = rowGroup.getRowCount();
+        }
+        int rows = (int) Math.min(maxRowsPerPage, rowsRemainingInRowGroup);
+        Block[] blocks = new Block[columnReaders.length];
+        for (int i = 0; i < columnReaders.length; i++) {
+            blocks[i] = readBlock(columnReaders[i], trinoTypes.get(i), rows);
+        }
+        rowsRemainingInRowGroup -= rows;
+        return new Page(rows, blocks);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileReader.close();
+    }
+
+    private static Block readBlock(ColumnReader columnReader, Type trinoType, int rows) {
+        ColumnDescriptor column = columnReader.getDescriptor();
+        int maxDefinitionLevel = column.getMaxDefinitionLevel();
+        BlockBuilder blockBuilder = trinoType.createBlockBuilder(null, rows);
+        switch (column.getPrimitiveType().getPrimitiveTypeName()) {
+            case INT32:
+                for (int row = 0; row < rows; row++) {
+                    if (columnReader.getCurrentDefinitionLevel() < maxDefinitionLevel) {
+                        blockBuilder.appendNull();
+                    } else {
+                        trinoType.writeLong(blockBuilder, columnReader.getInteger());
+                    }
+                    columnReader.consume();
+                }
+                break;
+            case INT64:
+                for (int row = 0; row < rows; row++) {
+                    if (columnReader.getCurrentDefinitionLevel() < maxDefinitionLevel) {
+                        blockBuilder.appendNull();
+                    } else {
+                        trinoType.writeLong(blockBuilder, columnReader.getLong());
+                    }
+                    columnReader.consume();
+                }
+                break;
+            case BINARY:
+                for (int row = 0; row < rows; row++) {
+                    if (columnReader.getCurrentDefinitionLevel() < maxDefinitionLevel) {
+                        blockBuilder.appendNull();
+                    } else {
+                        trinoType.writeSlice(blockBuilder, Slices.wrappedBuffer(columnReader.getBinary().getBytesUnsafe()));
+                    }
+                    columnReader.consume();
+                }
+                break;
+            default:
+                throw new UnsupportedOperationException("Parquet column type " + column.getPrimitiveType() + " is not handled");
+        }
+        return blockBuilder.build();
+    }
+
+    /**
+     * A converter which is never called, as the values are read straight from the column readers. The Parquet column
+     * read store needs a converter for each column when it creates the column readers.
+     */
+    private static class NoOpGroupConverter extends GroupConverter {
+        private final int fieldCount;
+
+        NoOpGroupConverter(int fieldCount) {
+            this.fieldCount = fieldCount;
+        }
+
+        @Override
+        public Converter getConverter(int fieldIndex) {
+            if (fieldIndex < 0 || fieldIndex >= fieldCount) {
+                throw new IllegalArgumentException("No field with index " + fieldIndex);
+            }
+            return new NoOpPrimitiveConverter();
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+
+    /**
+     * A converter for a single column, which is never called.
+     */
+    private static class NoOpPrimitiveConverter extends PrimitiveConverter {
+    }
+}
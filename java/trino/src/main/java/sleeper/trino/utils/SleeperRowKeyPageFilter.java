@@ -0,0 +1,179 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.trino.utils;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.trino.spi.Page;
+import io.trino.spi.block.Block;
+import io.trino.spi.type.Type;
+
+import sleeper.core.range.Range;
+import sleeper.core.range.Region;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+
+import java.util.List;
+
+/**
+ * Filters the rows in a Trino {@link Page} so that only the rows with row keys inside a Sleeper partition and inside at
+ * least one of a list of Sleeper regions are kept. The row keys are compared directly against the values in the
+ * blocks, without creating a Sleeper key for each row.
+ * <p>
+ * The row key columns must be the first channels of the page, in the order of the row key fields. Strings are
+ * compared by their UTF-8 bytes, which is the order that Trino uses for VARCHAR columns.
+ */
+public class SleeperRowKeyPageFilter {
+    private final List<Type> rowKeyTrinoTypes;
+    private final List<RangeCheck> partitionChecks;
+    private final List<List<RangeCheck>> regionChecks;
+
+    /**
+     * Create a filter for a partition and a list of regions.
+     *
+     * @param rowKeyFields     The row key fields of the Sleeper schema, in order.
+     * @param rowKeyTrinoTypes The Trino types of the row key columns, in the same order.
+     * @param regions          The regions to keep the rows of. A row is kept if it is in any of these regions.
+     * @param partitionRegion  The region covered by the partition. A row is only kept if it is in this region.
+     */
+    public SleeperRowKeyPageFilter(List<Field> rowKeyFields,
+                                   List<Type> rowKeyTrinoTypes,
+                                   List<Region> regions,
+                                   Region partitionRegion) {
+        this.rowKeyTrinoTypes = ImmutableList.copyOf(rowKeyTrinoTypes);
+        this.partitionChecks = rangeChecks(rowKeyFields, partitionRegion);
+        this.regionChecks = regions.stream()
+                .map(region -> rangeChecks(rowKeyFields, region))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Filter the rows of a page.
+     *
+     * @param page The page, with the row key columns in its first channels.
+     * @return A page with only the rows that are kept. This is the same page if every row is kept.
+     */
+    public Page filter(Page page) {
+        int positionCount = page.getPositionCount();
+        int[] retainedPositions = new int[positionCount];
+        int retainedCount = 0;
+        for (int position = 0; position < positionCount; position++) {
+            if (isRetained(page, position)) {
+                retainedPositions[retainedCount] = position;
+                retainedCount++;
+            }
+        }
+        if (retainedCount == positionCount) {
+            return page;
+        }
+        return page.getPositions(retainedPositions, 0, retainedCount);
+    }
+
+    private boolean isRetained(Page page, int position) {
+        if (!isInRanges(partitionChecks, page, position)) {
+            return false;
+        }
+        for (List<RangeCheck> checks : regionChecks) {
+            if (isInRanges(checks, page, position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isInRanges(List<RangeCheck> checks, Page page, int position) {
+        for (RangeCheck check : checks) {
+            Block block = page.getBlock(check.channel);
+            if (block.isNull(position) || !check.contains(rowKeyTrinoTypes.get(check.channel), block, position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<RangeCheck> rangeChecks(List<Field> rowKeyFields, Region region) {
+        ImmutableList.Builder<RangeCheck> checks = ImmutableList.builder();
+        for (int channel = 0; channel < rowKeyFields.size(); channel++) {
+            Range range = region.getRange(rowKeyFields.get(channel).getName());
+            if (null != range) {
+                checks.add(new RangeCheck(channel, range));
+            }
+        }
+        return checks.build();
+    }
+
+    /**
+     * Checks whether a value in a block is inside a Sleeper range. A null minimum or maximum is unbounded.
+     */
+    private static class RangeCheck {
+        private final int channel;
+        private final Object min;
+        private final boolean minInclusive;
+        private final Object max;
+        private final boolean maxInclusive;
+
+        RangeCheck(int channel, Range range) {
+            this.channel = channel;
+            this.min = toComparable(range, range.getMin());
+            this.minInclusive = range.isMinInclusive();
+            this.max = toComparable(range, range.getMax());
+            this.maxInclusive = range.isMaxInclusive();
+        }
+
+        boolean contains(Type type, Block block, int position) {
+            if (null != min) {
+                int comparison = compare(type, block, position, min);
+                if (comparison < 0 || (comparison == 0 && !minInclusive)) {
+                    return false;
+                }
+            }
+            if (null != max) {
+                int comparison = compare(type, block, position, max);
+                return comparison < 0 || (comparison == 0 && maxInclusive);
+            }
+            return true;
+        }
+
+        private static int compare(Type type, Block block, int position, Object bound) {
+            if (bound instanceof Long) {
+                return Long.compare(type.getLong(block, position), (Long) bound);
+            }
+            Slice slice = (Slice) bound;
+            return block.bytesCompare(position, 0, block.getSliceLength(position), slice, 0, slice.length());
+        }
+
+        private static Object toComparable(Range range, Object value) {
+            if (null == value) {
+                return null;
+            }
+            sleeper.core.schema.type.Type type = range.getFieldType();
+            if (type instanceof IntType) {
+                return ((Integer) value).longValue();
+            } else if (type instanceof LongType) {
+                return value;
+            } else if (type instanceof StringType) {
+                return Slices.utf8Slice((String) value);
+            } else if (type instanceof ByteArrayType) {
+                return Slices.wrappedBuffer((byte[]) value);
+            }
+            throw new UnsupportedOperationException("Row key type " + type + " is not handled");
+        }
+    }
+}
@@ -91,8 +91,9 @@ public class SleeperTypeConversionUtils {
      * @return The converted object.
      */
     public static Object convertTrinoObjectToSleeperRowKeyObject(io.trino.spi.type.Type trinoType, Object trinoObject) {
+        // Trino holds INTEGER values as longs
         if (trinoType.equals(IntegerType.INTEGER)) {
-            return trinoObject;
+            return Math.toIntExact((Long) trinoObject);
         }
         if (trinoType.equals(BigintType.BIGINT)) {
             return trinoObject;
@@ -107,4 +108,24 @@ public class SleeperTypeConversionUtils {
         // Types which Sleeper considers non-primitive are never used as row keys and should not be used
         throw new UnsupportedOperationException("Trino column type " + trinoType + " is not handled");
     }
+
+    /**
+     * The smallest row key value in Sleeper for a specified Trino type. This is used as the lower bound of a range
+     * which has no lower bound in Trino, as Sleeper ranges always have a minimum.
+     *
+     * @param trinoType The type of the row key.
+     * @return The smallest value, as a Sleeper row key object.
+     */
+    public static Object getMinimumSleeperRowKeyObject(io.trino.spi.type.Type trinoType) {
+        if (trinoType.equals(IntegerType.INTEGER)) {
+            return Integer.MIN_VALUE;
+        }
+        if (trinoType.equals(BigintType.BIGINT)) {
+            return Long.MIN_VALUE;
+        }
+        if (trinoType.equals(VarcharType.VARCHAR)) {
+            return "";
+        }
+        throw new UnsupportedOperationException("Trino column type " + trinoType + " is not handled");
+    }
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.trino;
+
+import io.trino.spi.Page;
+import io.trino.spi.type.Type;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.api.Binary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sleeper.core.range.Range;
+import sleeper.core.range.Region;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+import sleeper.io.parquet.record.ParquetRecordWriterFactory;
+import sleeper.query.model.LeafPartitionQuery;
+import sleeper.trino.handle.SleeperColumnHandle;
+import sleeper.trino.handle.SleeperColumnHandle.SleeperColumnCategory;
+import sleeper.trino.remotesleeperconnection.CountingInputFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SleeperColumnarPageSourceTest {
+    private final Field keyField = new Field("key", new LongType());
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(keyField)
+            .sortKeyFields(new Field("sort", new LongType()))
+            .valueFields(new Field("value", new StringType()))
+            .build();
+    private final SleeperColumnHandle keyColumn = new SleeperColumnHandle("key", BIGINT, SleeperColumnCategory.ROWKEY);
+    private final SleeperColumnHandle valueColumn = new SleeperColumnHandle("value", VARCHAR, SleeperColumnCategory.VALUE);
+    private final Region partitionRegion = new Region(new Range(keyField, Long.MIN_VALUE, true, null, false));
+    private final LongAdder bytesRead = new LongAdder();
+
+    @TempDir
+    public java.nio.file.Path tempDir;
+
+    @Test
+    public void shouldReadRowsFromOneFileInRange() throws Exception {
+        // Given
+        InputFile file = writeFile("file1.parquet", List.of(
+                record(1L, 1L, "a"), record(2L, 1L, "b"), record(3L, 1L, "c"), record(4L, 1L, "d")));
+        LeafPartitionQuery query = queryWithRegion(new Region(new Range(keyField, 2L, true, 4L, false)));
+
+        // When
+        List<List<Object>> rows = readAll(query, List.of(keyColumn, valueColumn), List.of(file));
+
+        // Then
+        assertThat(rows).containsExactly(List.of(2L, "b"), List.of(3L, "c"));
+        assertThat(bytesRead.sum()).isPositive();
+    }
+
+    @Test
+    public void shouldMergeRowsFromSeveralFilesByRowKeyAndSortKey() throws Exception {
+        // Given
+        InputFile file1 = writeFile("file1.parquet", List.of(
+                record(1L, 1L, "a"), record(3L, 2L, "d"), record(5L, 1L, "f")));
+        InputFile file2 = writeFile("file2.parquet", List.of(
+                record(2L, 1L, "b"), record(3L, 1L, "c"), record(4L, 1L, "e")));
+        LeafPartitionQuery query = queryWithRegion(partitionRegion);
+
+        // When
+        List<List<Object>> rows = readAll(query, List.of(valueColumn), List.of(file1, file2));
+
+        // Then
+        assertThat(rows).containsExactly(
+                List.of("a"), List.of("b"), List.of("c"), List.of("d"), List.of("e"), List.of("f"));
+    }
+
+    @Test
+    public void shouldOnlyReturnRowsInAnyRegionAndInPartition() throws Exception {
+        // Given
+        InputFile file1 = writeFile("file1.parquet", List.of(record(1L, 1L, "a"), record(5L, 1L, "e")));
+        InputFile file2 = writeFile("file2.parquet", List.of(record(3L, 1L, "c"), record(7L, 1L, "g")));
+        Region partition = new Region(new Range(keyField, 1L, true, 7L, false));
+        LeafPartitionQuery query = new LeafPartitionQuery.Builder("table", "query", "sub-query",
+                List.of(new Region(new Range(keyField, 1L, false, 3L, true)),
+                        new Region(new Range(keyField, 5L, true, null, false))),
+                "partition", partition, List.of("file1.parquet", "file2.parquet"))
+                .build();
+
+        // When
+        List<List<Object>> rows = readAll(query, List.of(keyColumn), List.of(file1, file2));
+
+        // Then
+        assertThat(rows).containsExactly(List.of(3L), List.of(5L));
+    }
+
+    @Test
+    public void shouldCountRowsWithoutReadingValuesWhenNoColumnsAreRequested() throws Exception {
+        // Given
+        InputFile file1 = writeFile("file1.parquet", List.of(record(1L, 1L, "a"), record(2L, 1L, "b")));
+        InputFile file2 = writeFile("file2.parquet", List.of(record(3L, 1L, "c")));
+        LeafPartitionQuery query = queryWithRegion(partitionRegion);
+
+        // When
+        List<List<Object>> rows = readAll(query, List.of(), List.of(file1, file2));
+
+        // Then
+        assertThat(rows).hasSize(3);
+    }
+
+    @Test
+    public void shouldSkipRowGroupsWhichDoNotMatchValueFilter() throws Exception {
+        // Given
+        InputFile file = writeFile("file1.parquet", List.of(record(1L, 1L, "a"), record(2L, 1L, "b")));
+        LeafPartitionQuery query = queryWithRegion(partitionRegion);
+
+        // When
+        List<List<Object>> rows;
+        try (SleeperColumnarPageSource pageSource = new SleeperColumnarPageSource(schema, query,
+                List.of(keyColumn, valueColumn), List.of(file),
+                FilterApi.eq(FilterApi.binaryColumn("value"), Binary.fromString("z")),
+                bytesRead)) {
+            rows = readAll(pageSource, List.of(BIGINT, VARCHAR));
+        }
+
+        // Then
+        assertThat(rows).isEmpty();
+    }
+
+    private LeafPartitionQuery queryWithRegion(Region region) {
+        return new LeafPartitionQuery.Builder("table", "query", "sub-query", region,
+                "partition", partitionRegion, List.of("file1.parquet", "file2.parquet"))
+                .build();
+    }
+
+    private List<List<Object>> readAll(LeafPartitionQuery query, List<SleeperColumnHandle> columns, List<InputFile> files) throws IOException {
+        List<Type> types = new ArrayList<>();
+        columns.forEach(column -> types.add(column.getColumnTrinoType()));
+        try (SleeperColumnarPageSource pageSource = new SleeperColumnarPageSource(
+                schema, query, columns, files, null, bytesRead)) {
+            return readAll(pageSource, types);
+        }
+    }
+
+    private static List<List<Object>> readAll(SleeperColumnarPageSource pageSource, List<Type> types) {
+        List<List<Object>> rows = new ArrayList<>();
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (null == page) {
+                continue;
+            }
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                List<Object> row = new ArrayList<>();
+                for (int channel = 0; channel < types.size(); channel++) {
+                    row.add(types.get(channel).getObjectValue(null, page.getBlock(channel), position));
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private InputFile writeFile(String name, List<Record> records) throws IOException {
+        Path path = new Path(tempDir.resolve(name).toString());
+        Configuration conf = new Configuration();
+        try (ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(path, schema, conf)) {
+            for (Record record : records) {
+                writer.write(record);
+            }
+        }
+        return new CountingInputFile(HadoopInputFile.fromPath(path, conf), bytesRead);
+    }
+
+    private static Record record(long key, long sort, String value) {
+        return new Record(Map.of("key", key, "sort", sort, "value", value));
+    }
+}
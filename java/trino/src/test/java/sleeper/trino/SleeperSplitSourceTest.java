@@ -0,0 +1,145 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.trino;
+
+import io.airlift.slice.Slices;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.TupleDomain;
+import org.junit.jupiter.api.Test;
+
+import sleeper.trino.handle.SleeperColumnHandle;
+import sleeper.trino.handle.SleeperColumnHandle.SleeperColumnCategory;
+import sleeper.trino.handle.SleeperTableHandle;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SleeperSplitSourceTest {
+    private final SleeperColumnHandle key1 = new SleeperColumnHandle("key1", BIGINT, SleeperColumnCategory.ROWKEY);
+    private final SleeperColumnHandle key2 = new SleeperColumnHandle("key2", BIGINT, SleeperColumnCategory.ROWKEY);
+    private final SleeperColumnHandle value = new SleeperColumnHandle("value", VARCHAR, SleeperColumnCategory.VALUE);
+
+    @Test
+    public void shouldExtractRangesForEachRowKeyColumnInOrder() {
+        // Given
+        TupleDomain<ColumnHandle> tupleDomain = TupleDomain.withColumnDomains(Map.of(
+                key2, Domain.singleValue(BIGINT, 5L),
+                key1, Domain.multipleValues(BIGINT, List.of(1L, 2L))));
+
+        // When
+        List<List<Range>> ranges = SleeperSplitSource.verifyAndExtractRowKeyRanges(tableHandle(tupleDomain), tupleDomain);
+
+        // Then
+        assertThat(ranges).containsExactly(
+                List.of(Range.equal(BIGINT, 1L), Range.equal(BIGINT, 2L)),
+                List.of(Range.equal(BIGINT, 5L)));
+    }
+
+    @Test
+    public void shouldCoverWholeRangeOfRowKeyColumnWithoutFilter() {
+        // Given
+        TupleDomain<ColumnHandle> tupleDomain = TupleDomain.withColumnDomains(Map.of(
+                key1, Domain.singleValue(BIGINT, 1L)));
+
+        // When
+        List<List<Range>> ranges = SleeperSplitSource.verifyAndExtractRowKeyRanges(tableHandle(tupleDomain), tupleDomain);
+
+        // Then
+        assertThat(ranges).containsExactly(
+                List.of(Range.equal(BIGINT, 1L)),
+                List.of(Range.all(BIGINT)));
+    }
+
+    @Test
+    public void shouldRejectFilterWhichDoesNotIncludeRowKeyColumn() {
+        // Given
+        TupleDomain<ColumnHandle> tupleDomain = TupleDomain.withColumnDomains(Map.of(
+                value, Domain.singleValue(VARCHAR, Slices.utf8Slice("a"))));
+
+        // When / Then
+        assertThatThrownBy(() -> SleeperSplitSource.verifyAndExtractRowKeyRanges(tableHandle(tupleDomain), tupleDomain))
+                .isInstanceOf(UnsupportedOperationException.class)
+                .hasMessageContaining("key1, key2");
+    }
+
+    @Test
+    public void shouldSimplifyDynamicFilterWhenThereAreTooManyRegions() {
+        // Given
+        TupleDomain<ColumnHandle> tableTupleDomain = TupleDomain.withColumnDomains(Map.of(
+                key1, Domain.multipleValues(BIGINT, List.of(1L, 2L))));
+        TupleDomain<ColumnHandle> dynamicTupleDomain = TupleDomain.withColumnDomains(Map.of(
+                key2, Domain.multipleValues(BIGINT, values(SleeperSplitSource.MAX_REGIONS_PER_SCAN))));
+
+        // When
+        List<List<Range>> ranges = SleeperSplitSource.extractBoundedRowKeyRanges(
+                tableHandle(tableTupleDomain), tableTupleDomain.intersect(dynamicTupleDomain), dynamicTupleDomain);
+
+        // Then
+        assertThat(ranges).containsExactly(
+                List.of(Range.equal(BIGINT, 1L), Range.equal(BIGINT, 2L)),
+                List.of(Range.range(BIGINT, 0L, true, SleeperSplitSource.MAX_REGIONS_PER_SCAN - 1L, true)));
+    }
+
+    @Test
+    public void shouldKeepDynamicFilterWhenThereAreNotTooManyRegions() {
+        // Given
+        TupleDomain<ColumnHandle> tableTupleDomain = TupleDomain.withColumnDomains(Map.of(
+                key1, Domain.multipleValues(BIGINT, List.of(1L, 2L))));
+        TupleDomain<ColumnHandle> dynamicTupleDomain = TupleDomain.withColumnDomains(Map.of(
+                key2, Domain.multipleValues(BIGINT, List.of(5L, 7L))));
+
+        // When
+        List<List<Range>> ranges = SleeperSplitSource.extractBoundedRowKeyRanges(
+                tableHandle(tableTupleDomain), tableTupleDomain.intersect(dynamicTupleDomain), dynamicTupleDomain);
+
+        // Then
+        assertThat(ranges).containsExactly(
+                List.of(Range.equal(BIGINT, 1L), Range.equal(BIGINT, 2L)),
+                List.of(Range.equal(BIGINT, 5L), Range.equal(BIGINT, 7L)));
+    }
+
+    @Test
+    public void shouldFailWhenTableFilterHasTooManyRegions() {
+        // Given
+        TupleDomain<ColumnHandle> tableTupleDomain = TupleDomain.withColumnDomains(Map.of(
+                key1, Domain.multipleValues(BIGINT, values(200)),
+                key2, Domain.multipleValues(BIGINT, values(100))));
+
+        // When / Then
+        assertThatThrownBy(() -> SleeperSplitSource.extractBoundedRowKeyRanges(
+                tableHandle(tableTupleDomain), tableTupleDomain, TupleDomain.all()))
+                .isInstanceOf(UnsupportedOperationException.class)
+                .hasMessageContaining("20000 regions");
+    }
+
+    private SleeperTableHandle tableHandle(TupleDomain<ColumnHandle> tupleDomain) {
+        return new SleeperTableHandle(new SchemaTableName("default", "mytable"), List.of(key1, key2, value), tupleDomain);
+    }
+
+    private static List<Object> values(int count) {
+        return LongStream.range(0, count).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.trino.remotesleeperconnection;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.range.Range;
+import sleeper.core.range.Region;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.query.model.LeafPartitionQuery;
+import sleeper.trino.remotesleeperconnection.LeafPartitionQuerySplitter.RowGroupKeyRange;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LeafPartitionQuerySplitterTest {
+    private final Field field = new Field("key", new LongType());
+    private final Schema schema = Schema.builder().rowKeyFields(field).build();
+    private final Region partitionRegion = new Region(new Range(field, Long.MIN_VALUE, true, null, false));
+
+    @Test
+    public void shouldNotSplitQueryWhenRowGroupsAreSmallerThanTarget() {
+        // Given
+        LeafPartitionQuerySplitter splitter = new LeafPartitionQuerySplitter(schema, 1000L);
+        LeafPartitionQuery query = queryWithRange(new Range(field, Long.MIN_VALUE, true, null, false));
+
+        // When
+        List<LeafPartitionQuery> subQueries = splitter.split(query, List.of(
+                new RowGroupKeyRange(0L, 99L, 400L),
+                new RowGroupKeyRange(100L, 199L, 400L)));
+
+        // Then
+        assertThat(subQueries).containsExactly(query);
+    }
+
+    @Test
+    public void shouldSplitQueryAtRowGroupBoundaries() {
+        // Given
+        LeafPartitionQuerySplitter splitter = new LeafPartitionQuerySplitter(schema, 200L);
+        LeafPartitionQuery query = queryWithRange(new Range(field, Long.MIN_VALUE, true, null, false));
+
+        // When
+        List<LeafPartitionQuery> subQueries = splitter.split(query, List.of(
+                new RowGroupKeyRange(200L, 299L, 200L),
+                new RowGroupKeyRange(0L, 99L, 200L),
+                new RowGroupKeyRange(100L, 199L, 200L)));
+
+        // Then
+        assertThat(rangesOf(subQueries)).containsExactly(
+                new Range(field, Long.MIN_VALUE, true, 100L, false),
+                new Range(field, 100L, true, 200L, false),
+                new Range(field, 200L, true, null, false));
+        assertThat(subQueries).allSatisfy(subQuery -> {
+            assertThat(subQuery.getQueryId()).isEqualTo(query.getQueryId());
+            assertThat(subQuery.getLeafPartitionId()).isEqualTo(query.getLeafPartitionId());
+            assertThat(subQuery.getPartitionRegion()).isEqualTo(partitionRegion);
+            assertThat(subQuery.getFiles()).isEqualTo(query.getFiles());
+        });
+    }
+
+    @Test
+    public void shouldOnlyCountRowGroupsOverlappingQueryAndIntersectRanges() {
+        // Given
+        LeafPartitionQuerySplitter splitter = new LeafPartitionQuerySplitter(schema, 200L);
+        LeafPartitionQuery query = queryWithRange(new Range(field, 150L, true, 250L, true));
+
+        // When
+        List<LeafPartitionQuery> subQueries = splitter.split(query, List.of(
+                new RowGroupKeyRange(0L, 99L, 200L),
+                new RowGroupKeyRange(100L, 199L, 200L),
+                new RowGroupKeyRange(200L, 299L, 200L),
+                new RowGroupKeyRange(300L, 399L, 200L)));
+
+        // Then
+        assertThat(rangesOf(subQueries)).containsExactly(
+                new Range(field, 150L, true, 200L, false),
+                new Range(field, 200L, true, 251L, false));
+    }
+
+    @Test
+    public void shouldNotSplitQueryWhenTargetIsZero() {
+        // Given
+        LeafPartitionQuerySplitter splitter = new LeafPartitionQuerySplitter(schema, 0L);
+        LeafPartitionQuery query = queryWithRange(new Range(field, Long.MIN_VALUE, true, null, false));
+
+        // When
+        List<LeafPartitionQuery> subQueries = splitter.split(query, List.of(
+                new RowGroupKeyRange(0L, 99L, 200L),
+                new RowGroupKeyRange(100L, 199L, 200L)));
+
+        // Then
+        assertThat(subQueries).containsExactly(query);
+    }
+
+    private LeafPartitionQuery queryWithRange(Range range) {
+        return new LeafPartitionQuery.Builder("table", "query", "sub-query", new Region(range),
+                "partition", partitionRegion, List.of("file1.parquet", "file2.parquet"))
+                .build();
+    }
+
+    private static List<Range> rangesOf(List<LeafPartitionQuery> queries) {
+        return queries.stream()
+                .flatMap(query -> query.getRegions().stream())
+                .map(region -> region.getRange("key"))
+                .collect(Collectors.toList());
+    }
+}
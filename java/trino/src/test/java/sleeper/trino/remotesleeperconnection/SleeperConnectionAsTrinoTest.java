@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.trino.remotesleeperconnection;
+
+import io.airlift.slice.Slices;
+import io.trino.spi.predicate.Range;
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.range.Range.RangeFactory;
+import sleeper.core.range.Region;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+import sleeper.trino.handle.SleeperColumnHandle;
+import sleeper.trino.handle.SleeperColumnHandle.SleeperColumnCategory;
+
+import java.util.List;
+
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.IntegerType.INTEGER;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SleeperConnectionAsTrinoTest {
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(new Field("key1", new LongType()), new Field("key2", new StringType()))
+            .valueFields(new Field("value", new StringType()))
+            .build();
+    private final RangeFactory rangeFactory = new RangeFactory(schema);
+    private final List<SleeperColumnHandle> rowKeyColumns = List.of(
+            new SleeperColumnHandle("key1", BIGINT, SleeperColumnCategory.ROWKEY),
+            new SleeperColumnHandle("key2", VARCHAR, SleeperColumnCategory.ROWKEY));
+
+    @Test
+    public void shouldCreateRegionForEachCombinationOfRowKeyRanges() {
+        // Given
+        List<List<Range>> trinoRanges = List.of(
+                List.of(Range.equal(BIGINT, 1L), Range.equal(BIGINT, 2L)),
+                List.of(Range.equal(VARCHAR, Slices.utf8Slice("a")), Range.equal(VARCHAR, Slices.utf8Slice("b"))));
+
+        // When
+        List<Region> regions = SleeperConnectionAsTrino.createSleeperRegions(schema, rowKeyColumns, trinoRanges);
+
+        // Then
+        assertThat(regions).containsExactly(
+                region(1L, "a"), region(1L, "b"),
+                region(2L, "a"), region(2L, "b"));
+    }
+
+    @Test
+    public void shouldCreateNoRegionsWhenRowKeyColumnHasNoRanges() {
+        // Given
+        List<List<Range>> trinoRanges = List.of(
+                List.of(Range.equal(BIGINT, 1L)),
+                List.of());
+
+        // When
+        List<Region> regions = SleeperConnectionAsTrino.createSleeperRegions(schema, rowKeyColumns, trinoRanges);
+
+        // Then
+        assertThat(regions).isEmpty();
+    }
+
+    @Test
+    public void shouldConvertUnboundedRangesToSleeperRanges() {
+        // Given
+        List<List<Range>> trinoRanges = List.of(
+                List.of(Range.lessThan(BIGINT, 10L)),
+                List.of(Range.greaterThanOrEqual(VARCHAR, Slices.utf8Slice("m"))));
+
+        // When
+        List<Region> regions = SleeperConnectionAsTrino.createSleeperRegions(schema, rowKeyColumns, trinoRanges);
+
+        // Then
+        assertThat(regions).containsExactly(new Region(List.of(
+                rangeFactory.createRange("key1", Long.MIN_VALUE, true, 10L, false),
+                rangeFactory.createRange("key2", "m", true, null, false))));
+    }
+
+    @Test
+    public void shouldCoverAllValuesWithRangeUnboundedOnBothSides() {
+        // Given
+        List<List<Range>> trinoRanges = List.of(
+                List.of(Range.all(BIGINT)),
+                List.of(Range.all(VARCHAR)));
+
+        // When
+        List<Region> regions = SleeperConnectionAsTrino.createSleeperRegions(schema, rowKeyColumns, trinoRanges);
+
+        // Then
+        assertThat(regions).containsExactly(new Region(List.of(
+                rangeFactory.createRange("key1", Long.MIN_VALUE, true, null, false),
+                rangeFactory.createRange("key2", "", true, null, false))));
+    }
+
+    @Test
+    public void shouldConvertIntegerRowKeyValuesFromTrinoLongs() {
+        // Given
+        Schema intSchema = Schema.builder()
+                .rowKeyFields(new Field("key", new IntType()))
+                .build();
+        List<SleeperColumnHandle> intRowKeyColumns = List.of(
+                new SleeperColumnHandle("key", INTEGER, SleeperColumnCategory.ROWKEY));
+        List<List<Range>> trinoRanges = List.of(List.of(Range.range(INTEGER, 5L, true, 7L, false)));
+
+        // When
+        List<Region> regions = SleeperConnectionAsTrino.createSleeperRegions(intSchema, intRowKeyColumns, trinoRanges);
+
+        // Then
+        assertThat(regions).containsExactly(new Region(
+                new RangeFactory(intSchema).createRange("key", 5, true, 7, false)));
+    }
+
+    private Region region(long key1, String key2) {
+        return new Region(List.of(
+                rangeFactory.createExactRange("key1", key1),
+                rangeFactory.createExactRange("key2", key2)));
+    }
+}
@@ -26,7 +26,7 @@ import sleeper.trino.SleeperConfig;
 import sleeper.trino.SleeperConnector;
 import sleeper.trino.SleeperMetadata;
 import sleeper.trino.SleeperPageSinkProvider;
-import sleeper.trino.SleeperRecordSetProvider;
+import sleeper.trino.SleeperPageSourceProvider;
 import sleeper.trino.SleeperSplitManager;
 import sleeper.trino.remotesleeperconnection.HadoopConfigurationProvider;
 import sleeper.trino.remotesleeperconnection.SleeperConnectionAsTrino;
@@ -67,7 +67,7 @@ public class SleeperTestModule implements Module {
         binder.bind(SleeperConnector.class).in(Scopes.SINGLETON);
         binder.bind(SleeperMetadata.class).in(Scopes.SINGLETON);
         binder.bind(SleeperSplitManager.class).in(Scopes.SINGLETON);
-        binder.bind(SleeperRecordSetProvider.class).in(Scopes.SINGLETON);
+        binder.bind(SleeperPageSourceProvider.class).in(Scopes.SINGLETON);
         binder.bind(SleeperPageSinkProvider.class).in(Scopes.SINGLETON);
         binder.bind(SleeperConnectionAsTrino.class).in(Scopes.SINGLETON);
 
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022-2023 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.trino.utils;
+
+import io.airlift.slice.Slices;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.predicate.ValueSet;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.io.api.Binary;
+import org.junit.jupiter.api.Test;
+
+import sleeper.trino.handle.SleeperColumnHandle;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.IntegerType.INTEGER;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SleeperFilterTranslatorTest {
+    private final SleeperColumnHandle key = new SleeperColumnHandle("key", BIGINT, SleeperColumnHandle.SleeperColumnCategory.ROWKEY);
+    private final SleeperColumnHandle sort = new SleeperColumnHandle("sort", INTEGER, SleeperColumnHandle.SleeperColumnCategory.SORTKEY);
+    private final SleeperColumnHandle value = new SleeperColumnHandle("value", VARCHAR, SleeperColumnHandle.SleeperColumnCategory.VALUE);
+
+    @Test
+    public void shouldCreateRangePredicatesOnSelectedColumns() {
+        // Given
+        TupleDomain<ColumnHandle> tupleDomain = TupleDomain.withColumnDomains(Map.of(
+                key, Domain.singleValue(BIGINT, 1L),
+                sort, Domain.create(ValueSet.ofRanges(Range.range(INTEGER, 10L, true, 20L, false)), false)));
+
+        // When / Then
+        assertThat(SleeperFilterTranslator.toPredicate(tupleDomain, Set.of(sort)))
+                .isEqualTo(FilterApi.and(
+                        FilterApi.gtEq(FilterApi.intColumn("sort"), 10),
+                        FilterApi.lt(FilterApi.intColumn("sort"), 20)));
+    }
+
+    @Test
+    public void shouldCreateOrOfExactValues() {
+        // Given
+        TupleDomain<ColumnHandle> tupleDomain = TupleDomain.withColumnDomains(Map.of(
+                value, Domain.multipleValues(VARCHAR, List.of(Slices.utf8Slice("a"), Slices.utf8Slice("b")))));
+
+        // When / Then
+        assertThat(SleeperFilterTranslator.toPredicate(tupleDomain, Set.of(value)))
+                .isEqualTo(FilterApi.or(
+                        FilterApi.eq(FilterApi.binaryColumn("value"), Binary.fromString("a")),
+                        FilterApi.eq(FilterApi.binaryColumn("value"), Binary.fromString("b"))));
+    }
+
+    @Test
+    public void shouldIgnoreDomainsWhichAllowNulls() {
+        // Given
+        TupleDomain<ColumnHandle> tupleDomain = TupleDomain.withColumnDomains(Map.of(
+                sort, Domain.create(ValueSet.ofRanges(Range.greaterThan(INTEGER, 5L)), true)));
+
+        // When / Then
+        assertThat(SleeperFilterTranslator.toPredicate(tupleDomain, Set.of(sort))).isNull();
+    }
+
+    @Test
+    public void shouldReturnNullWhenNoColumnsAreSelected() {
+        // Given
+        TupleDomain<ColumnHandle> tupleDomain = TupleDomain.withColumnDomains(Map.of(
+                key, Domain.singleValue(BIGINT, 1L)));
+
+        // When / Then
+        assertThat(SleeperFilterTranslator.toPredicate(tupleDomain, Set.of(sort, value))).isNull();
+    }
+}